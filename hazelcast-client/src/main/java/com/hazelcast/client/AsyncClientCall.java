@@ -16,19 +16,58 @@
 
 package com.hazelcast.client;
 
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import com.hazelcast.core.ExecutionCallback;
 
+import java.util.concurrent.*;
+
+/**
+ * Future of a call sent without waiting for its response. Callbacks can be attached with
+ * {@link #andThen(ExecutionCallback)} so that a thread can keep many calls in flight.
+ */
 public class AsyncClientCall<V> implements Future<V> {
     protected static final Object NULL = new Object();
-    protected Object result = null;
+    protected volatile Object result = null;
     protected final Call remoteCall;
-    protected boolean cancelled = false;
+    protected volatile boolean cancelled = false;
+    private final Executor callbackExecutor;
 
     public AsyncClientCall(Call remoteCall) {
+        this(remoteCall, null);
+    }
+
+    /**
+     * @param callbackExecutor executor running the callbacks, null means the callbacks
+     *                         run on the thread receiving the response
+     */
+    public AsyncClientCall(Call remoteCall, Executor callbackExecutor) {
         this.remoteCall = remoteCall;
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    /**
+     * Calls the callback once the response of the call is received.
+     *
+     * @return this future, to attach further callbacks
+     */
+    public AsyncClientCall<V> andThen(final ExecutionCallback<V> callback) {
+        if (callback == null) {
+            throw new NullPointerException("Callback cannot be null");
+        }
+        final Runnable notifier = new Runnable() {
+            public void run() {
+                callback.done(AsyncClientCall.this);
+            }
+        };
+        remoteCall.addResponseListener(new Runnable() {
+            public void run() {
+                if (callbackExecutor == null) {
+                    notifier.run();
+                } else {
+                    callbackExecutor.execute(notifier);
+                }
+            }
+        });
+        return this;
     }
 
     public void setResult(Object obj) {
@@ -83,12 +122,19 @@ public class AsyncClientCall<V> implements Future<V> {
                 throw new ExecutionException((Throwable) result);
             }
         } else if (result instanceof Packet) {
-            setResult(ProxyHelper.getValue((Packet) result));
+            setResult(toResult(ProxyHelper.getValue((Packet) result)));
         } else {
             setResult(result);
         }
     }
 
+    /**
+     * Converts the value of the response to the result of the future.
+     */
+    protected Object toResult(Object value) {
+        return value;
+    }
+
     private V getResult() throws ExecutionException {
         if (result == NULL) {
             return null;
@@ -19,6 +19,9 @@ package com.hazelcast.client;
 import com.hazelcast.core.Member;
 import com.hazelcast.util.ResponseQueueFactory;
 
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
 
@@ -42,6 +45,12 @@ public class Call {
 
     private boolean fireNforget;
 
+    private volatile InetSocketAddress target;    // owner of the key partition, null means any member
+
+    private volatile Connection connection;    // connection the request is written to
+
+    private List<Runnable> responseListeners = null;    // guarded by this
+
     public Call(Long id, Packet request) {
         this.id = id;
         this.request = request;
@@ -89,6 +98,13 @@ public class Call {
     public void onDisconnect(Member member) {
     }
 
+    /**
+     * @return the response without waiting for it, null if there is no response yet
+     */
+    Object peekResponse() {
+        return response;
+    }
+
     public boolean hasResponse() {
         return this.response != null || responseQueue.size() > 0;
     }
@@ -96,6 +112,33 @@ public class Call {
     public void setResponse(Object response) {
         this.response = response;
         this.responseQueue.offer(response);
+        final List<Runnable> listeners;
+        synchronized (this) {
+            listeners = responseListeners;
+            responseListeners = null;
+        }
+        if (listeners != null) {
+            for (Runnable listener : listeners) {
+                listener.run();
+            }
+        }
+    }
+
+    /**
+     * Runs the listener once the response is set, immediately if it is already set.
+     * Listeners run on the thread setting the response so they must not block.
+     */
+    void addResponseListener(Runnable listener) {
+        synchronized (this) {
+            if (response == null) {
+                if (responseListeners == null) {
+                    responseListeners = new ArrayList<Runnable>(1);
+                }
+                responseListeners.add(listener);
+                return;
+            }
+        }
+        listener.run();
     }
 
     public boolean isFireNforget() {
@@ -106,6 +149,22 @@ public class Call {
         this.fireNforget = fireNforget;
     }
 
+    InetSocketAddress getTarget() {
+        return target;
+    }
+
+    void setTarget(InetSocketAddress target) {
+        this.target = target;
+    }
+
+    Connection getConnection() {
+        return connection;
+    }
+
+    void setConnection(Connection connection) {
+        this.connection = connection;
+    }
+
     @Override
     public String toString() {
         return "Call " + "[" + id + "] operation=" +
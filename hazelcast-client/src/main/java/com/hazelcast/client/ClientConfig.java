@@ -17,6 +17,7 @@
 package com.hazelcast.client;
 
 import com.hazelcast.config.GroupConfig;
+import com.hazelcast.config.NearCacheConfig;
 import com.hazelcast.nio.SocketInterceptor;
 import com.hazelcast.security.Credentials;
 
@@ -24,6 +25,8 @@ import java.net.InetSocketAddress;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ClientConfig {
     private GroupConfig groupConfig = new GroupConfig();
@@ -35,7 +38,10 @@ public class ClientConfig {
     private int reConnectionTimeOut = 5000;
     private boolean shuffle = false;
     private boolean updateAutomatic = true;
+    private boolean smart = false;
+    private int asyncExecutorPoolSize = 8;
     private SocketInterceptor socketInterceptor = null;
+    private final Map<String, NearCacheConfig> nearCacheConfigs = new ConcurrentHashMap<String, NearCacheConfig>();
 
     public SocketInterceptor getSocketInterceptor() {
         return socketInterceptor;
@@ -152,4 +158,54 @@ public class ClientConfig {
     public void setUpdateAutomatic(boolean updateAutomatic) {
         this.updateAutomatic = updateAutomatic;
     }
+
+    public boolean isSmart() {
+        return smart;
+    }
+
+    /**
+     * Smart client keeps a connection to each member and sends the key based map
+     * operations directly to the owner of the key instead of the connected member.
+     */
+    public ClientConfig setSmart(boolean smart) {
+        this.smart = smart;
+        return this;
+    }
+
+    public int getAsyncExecutorPoolSize() {
+        return asyncExecutorPoolSize;
+    }
+
+    /**
+     * Number of threads running the callbacks of the async calls, callbacks are queued
+     * while all of them are busy. Defaults to 8.
+     */
+    public ClientConfig setAsyncExecutorPoolSize(int asyncExecutorPoolSize) {
+        if (asyncExecutorPoolSize < 1) {
+            throw new IllegalArgumentException("asyncExecutorPoolSize must be positive");
+        }
+        this.asyncExecutorPoolSize = asyncExecutorPoolSize;
+        return this;
+    }
+
+    /**
+     * Enables the client side near cache of the map with the given name.
+     * Cached entries are invalidated through the entry events of the map
+     * unless invalidateOnChange of the near cache config is false.
+     */
+    public ClientConfig addNearCacheConfig(String mapName, NearCacheConfig nearCacheConfig) {
+        nearCacheConfigs.put(mapName, nearCacheConfig);
+        return this;
+    }
+
+    /**
+     * @return near cache config of the map, null if the map has no near cache on the client
+     */
+    public NearCacheConfig getNearCacheConfig(String mapName) {
+        return nearCacheConfigs.get(mapName);
+    }
+
+    public Map<String, NearCacheConfig> getNearCacheConfigs() {
+        return nearCacheConfigs;
+    }
 }
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2008-2012, Hazel Bilisim Ltd. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.client;
+
+import com.hazelcast.config.NearCacheConfig;
+import com.hazelcast.impl.concurrentmap.SampledEvictionSelector;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Near cache of a map on the client side. Values are kept as objects keyed by the
+ * key objects, so a hit needs neither serialization nor a call to the cluster.
+ * Entries are invalidated by the entry events of the map, by the writes of this client
+ * and whenever the connection to the cluster changes.
+ */
+class ClientNearCache {
+    private static final int EVICTION_SAMPLE_SIZE = 8;
+    private static final float EVICTION_RATE = 0.25f;
+    private final ConcurrentMap<Object, CacheEntry> cache = new ConcurrentHashMap<Object, CacheEntry>();
+    private final int maxSize;
+    private final long ttl;           // 0 means never expires
+    private final long maxIdleTime;   // 0 means never idle
+    private final boolean invalidateOnChange;
+    private final Comparator<CacheEntry> evictionComparator;    // null means no ordering
+    private final Lock evictionLock = new ReentrantLock();
+    private final AtomicLong invalidationCount = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    ClientNearCache(NearCacheConfig nearCacheConfig) {
+        this.maxSize = (nearCacheConfig.getMaxSize() <= 0) ? Integer.MAX_VALUE : nearCacheConfig.getMaxSize();
+        this.ttl = nearCacheConfig.getTimeToLiveSeconds() * 1000L;
+        this.maxIdleTime = nearCacheConfig.getMaxIdleSeconds() * 1000L;
+        this.invalidateOnChange = nearCacheConfig.isInvalidateOnChange();
+        final String evictionPolicy = nearCacheConfig.getEvictionPolicy();
+        if ("LFU".equalsIgnoreCase(evictionPolicy)) {
+            evictionComparator = new Comparator<CacheEntry>() {
+                public int compare(CacheEntry e1, CacheEntry e2) {
+                    int result = compareLongs(e1.hits, e2.hits);
+                    return (result != 0) ? result : compareLongs(e1.lastAccessTime, e2.lastAccessTime);
+                }
+            };
+        } else if ("LRU".equalsIgnoreCase(evictionPolicy)) {
+            evictionComparator = new Comparator<CacheEntry>() {
+                public int compare(CacheEntry e1, CacheEntry e2) {
+                    return compareLongs(e1.lastAccessTime, e2.lastAccessTime);
+                }
+            };
+        } else {
+            evictionComparator = null;
+        }
+    }
+
+    private static int compareLongs(long l1, long l2) {
+        return (l1 < l2) ? -1 : ((l1 == l2) ? 0 : 1);
+    }
+
+    boolean shouldInvalidateOnChange() {
+        return invalidateOnChange;
+    }
+
+    Object get(Object key) {
+        final CacheEntry entry = cache.get(key);
+        final long now = System.currentTimeMillis();
+        if (entry == null || !entry.isValid(now)) {
+            if (entry != null && cache.remove(key, entry)) {
+                evictions.incrementAndGet();
+            }
+            misses.incrementAndGet();
+            return null;
+        }
+        entry.touch(now);
+        hits.incrementAndGet();
+        return entry.value;
+    }
+
+    /**
+     * Stamp to be taken before reading a value from the cluster and
+     * passed to {@link #put(Object, Object, long)} once the value is read.
+     */
+    long getInvalidationStamp() {
+        return invalidationCount.get();
+    }
+
+    /**
+     * Caches the value unless an invalidation happened since the stamp was taken,
+     * as the value read from the cluster might be stale then.
+     */
+    void put(Object key, Object value, long invalidationStamp) {
+        if (value == null) {
+            return;
+        }
+        if (cache.size() >= maxSize) {
+            evict();
+            if (cache.size() >= maxSize) {
+                return;
+            }
+        }
+        final CacheEntry entry = new CacheEntry(value);
+        cache.put(key, entry);
+        if (invalidationCount.get() != invalidationStamp) {
+            cache.remove(key, entry);
+        }
+    }
+
+    void invalidate(Object key) {
+        invalidationCount.incrementAndGet();
+        cache.remove(key);
+    }
+
+    void invalidateAll() {
+        invalidationCount.incrementAndGet();
+        cache.clear();
+    }
+
+    private void evict() {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            if (cache.size() < maxSize) {
+                return;
+            }
+            final int evictionCount = Math.max(1, (int) (cache.size() * EVICTION_RATE));
+            if (evictionComparator == null) {
+                int count = 0;
+                for (Object key : cache.keySet()) {
+                    if (cache.remove(key) != null) {
+                        evictions.incrementAndGet();
+                    }
+                    if (++count >= evictionCount) {
+                        break;
+                    }
+                }
+            } else {
+                final SampledEvictionSelector<ConcurrentMap.Entry<Object, CacheEntry>> selector =
+                        new SampledEvictionSelector<ConcurrentMap.Entry<Object, CacheEntry>>(
+                                new Comparator<ConcurrentMap.Entry<Object, CacheEntry>>() {
+                                    public int compare(ConcurrentMap.Entry<Object, CacheEntry> e1,
+                                                       ConcurrentMap.Entry<Object, CacheEntry> e2) {
+                                        return evictionComparator.compare(e1.getValue(), e2.getValue());
+                                    }
+                                }, EVICTION_SAMPLE_SIZE, EVICTION_RATE);
+                for (ConcurrentMap.Entry<Object, CacheEntry> entry : cache.entrySet()) {
+                    selector.offer(entry);
+                }
+                final List<ConcurrentMap.Entry<Object, CacheEntry>> selected = selector.getSelected();
+                for (ConcurrentMap.Entry<Object, CacheEntry> entry : selected) {
+                    if (cache.remove(entry.getKey(), entry.getValue())) {
+                        evictions.incrementAndGet();
+                    }
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    int size() {
+        return cache.size();
+    }
+
+    long getHits() {
+        return hits.get();
+    }
+
+    long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return number of entries removed because of the max size, ttl or max idle time
+     */
+    long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * @return ratio of the gets served by the near cache, 0 if there is no get yet
+     */
+    double getHitRatio() {
+        final long hitCount = hits.get();
+        final long total = hitCount + misses.get();
+        return (total == 0) ? 0 : (double) hitCount / total;
+    }
+
+    private class CacheEntry {
+        private final Object value;
+        private final long createTime;
+        @SuppressWarnings("VolatileLongOrDoubleField")
+        private volatile long lastAccessTime;
+        private volatile int hits = 0;
+
+        private CacheEntry(Object value) {
+            this.value = value;
+            this.createTime = System.currentTimeMillis();
+            this.lastAccessTime = createTime;
+        }
+
+        void touch(long now) {
+            lastAccessTime = now;
+            hits++;
+        }
+
+        boolean isValid(long now) {
+            if (ttl != 0 && now - createTime > ttl) {
+                return false;
+            }
+            return maxIdleTime == 0 || now - lastAccessTime <= maxIdleTime;
+        }
+    }
+}
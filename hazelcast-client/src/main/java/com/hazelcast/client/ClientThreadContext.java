@@ -21,10 +21,12 @@ import com.hazelcast.core.Transaction;
 import java.util.Iterator;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public final class ClientThreadContext {
     private static final ConcurrentMap<Thread, ClientThreadContext> mapContexts = new ConcurrentHashMap<Thread, ClientThreadContext>(100);
     TransactionClientProxy transactionProxy;
+    final AtomicInteger lockCount = new AtomicInteger();    // map locks held by the thread through the connected member
     final ClientSerializer serializer = new ClientSerializer();
     final Thread thread;
 
@@ -64,6 +66,14 @@ public final class ClientThreadContext {
         transactionProxy = null;
     }
 
+    /**
+     * Transactions and locks are owned by the connection they are started on,
+     * so calls of the thread must not be routed to other members meanwhile.
+     */
+    boolean isBoundToConnection() {
+        return transactionProxy != null || lockCount.get() > 0;
+    }
+
     public byte[] toByte(Object object) {
         return serializer.toByteArray(object);
     }
@@ -60,7 +60,8 @@ public class Connection {
             final Socket socket = new Socket();
             try {
                 socket.setKeepAlive(true);
-//                socket.setTcpNoDelay(true);
+                // calls are batched and flushed explicitly, so Nagle's algorithm would only delay them
+                socket.setTcpNoDelay(true);
                 socket.setSoLinger(true, 5);
 //                socket.setSendBufferSize(BUFFER_SIZE);
 //                socket.setReceiveBufferSize(BUFFER_SIZE);
@@ -66,6 +66,10 @@ public class ConnectionManager implements MembershipListener {
         heartbeatTimer.schedule(new TimerTask() {
             @Override
             public void run() {
+                final SmartRouter router = client.getSmartRouter();
+                if (router != null) {
+                    router.heartbeat(TIMEOUT);
+                }
                 long diff = client.getInRunnable().lastReceived - System.currentTimeMillis();
                 try {
                     if (diff >= TIMEOUT / 5 && diff < TIMEOUT) {
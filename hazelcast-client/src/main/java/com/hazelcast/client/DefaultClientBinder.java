@@ -39,9 +39,17 @@ public class DefaultClientBinder implements ClientBinder {
     }
 
     public void bind(Connection connection, Credentials credentials) throws IOException {
+        bind(connection, credentials, client.getOutRunnable().writer, client.getInRunnable().reader);
+    }
+
+    /**
+     * Binds the connection using the given writer and reader, so that connections
+     * can be bound by other threads than the ones of the current connection.
+     */
+    void bind(Connection connection, Credentials credentials, PacketWriter writer, PacketReader reader) throws IOException {
         logger.log(Level.FINEST, connection + " -> "
                 + connection.getAddress().getHostName() + ":" + connection.getSocket().getLocalPort());
-        auth(connection, credentials);
+        auth(connection, credentials, writer, reader);
         Bind b = null;
         try {
             b = new Bind(new Address(connection.getAddress().getHostName(), connection.getSocket().getLocalPort()));
@@ -51,13 +59,14 @@ public class DefaultClientBinder implements ClientBinder {
         }
         Packet bind = new Packet();
         bind.set("remotelyProcess", ClusterOperation.REMOTELY_PROCESS, toByte(null), toByte(b));
-        write(connection, bind);
+        write(connection, bind, writer);
     }
 
-    void auth(Connection connection, Credentials credentials) throws IOException {
+    void auth(Connection connection, Credentials credentials, PacketWriter writer, PacketReader reader) throws IOException {
         Packet auth = new Packet();
         auth.set("", ClusterOperation.CLIENT_AUTHENTICATE, new byte[0], toByte(credentials));
-        Packet packet = writeAndRead(connection, auth);
+        write(connection, auth, writer);
+        Packet packet = reader.readPacket(connection);
         final Object response = toObject(packet.getValue());
         logger.log(Level.FINEST, "auth response:" + response);
         if (response instanceof Exception) {
@@ -68,12 +77,10 @@ public class DefaultClientBinder implements ClientBinder {
         }
     }
 
-    Packet writeAndRead(Connection connection, Packet packet) throws IOException {
-        write(connection, packet);
-        return client.getInRunnable().reader.readPacket(connection);
-    }
-
-    void write(Connection connection, Packet packet) throws IOException {
-        client.getOutRunnable().write(connection, packet);
+    void write(Connection connection, Packet packet, PacketWriter writer) throws IOException {
+        if (client.getOutRunnable().running) {
+            writer.write(connection, packet);
+            writer.flush(connection);
+        }
     }
 }
@@ -61,6 +61,8 @@ public class HazelcastClient implements HazelcastInstance {
     final ConcurrentMap<String, ExecutorServiceClientProxy> mapExecutors = new ConcurrentHashMap<String, ExecutorServiceClientProxy>(2);
     final ClusterClientProxy clusterClientProxy;
     final PartitionClientProxy partitionClientProxy;
+    final SmartRouter smartRouter;
+    final ExecutorService asyncExecutor;
     final LifecycleServiceClientImpl lifecycleService;
     final static ILogger logger = Logger.getLogger(HazelcastClient.class.getName());
 
@@ -81,6 +83,15 @@ public class HazelcastClient implements HazelcastInstance {
         this.config = config;
         this.id = clientIdCounter.incrementAndGet();
         lifecycleService = new LifecycleServiceClientImpl(this);
+        asyncExecutor = Executors.newFixedThreadPool(config.getAsyncExecutorPoolSize(), new ThreadFactory() {
+            final AtomicInteger threadNumber = new AtomicInteger();
+
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "hz.client." + id + ".Async-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
         lifecycleService.fireLifecycleEvent(STARTING);
         //empty check
         connectionManager = new ConnectionManager(this, config, lifecycleService);
@@ -108,6 +119,12 @@ public class HazelcastClient implements HazelcastInstance {
             this.getCluster().addMembershipListener(connectionManager);
             connectionManager.updateMembers();
         }
+        if (config.isSmart()) {
+            smartRouter = new SmartRouter(this);
+            smartRouter.start();
+        } else {
+            smartRouter = null;
+        }
         lifecycleService.fireLifecycleEvent(STARTED);
         connectionManager.scheduleHeartbeatTimerTask();
         lsClients.add(HazelcastClient.this);
@@ -129,6 +146,20 @@ public class HazelcastClient implements HazelcastInstance {
         return listenerManager;
     }
 
+    /**
+     * @return router of the smart client, null if the client is not smart
+     */
+    SmartRouter getSmartRouter() {
+        return smartRouter;
+    }
+
+    /**
+     * @return executor running the callbacks of the async calls
+     */
+    Executor getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
     /**
      * @param config
      * @return
@@ -307,9 +338,13 @@ public class HazelcastClient implements HazelcastInstance {
         if (active.compareAndSet(true, false)) {
             logger.log(Level.INFO, "HazelcastClient[" + this.id + "] is shutting down.");
             connectionManager.shutdown();
+            if (smartRouter != null) {
+                smartRouter.shutdown();
+            }
             out.shutdown();
             in.shutdown();
             listenerManager.shutdown();
+            asyncExecutor.shutdown();
             ClientThreadContext.shutdown();
             lsClients.remove(HazelcastClient.this);
         }
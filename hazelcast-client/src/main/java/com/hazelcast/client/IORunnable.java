@@ -77,8 +77,11 @@ public abstract class IORunnable extends ClientRunnable {
             }
             Member leftMember = oldConnection.getMember();
             Collection<Call> calls = callMap.values();
+            final SmartRouter router = client.getSmartRouter();
             for (Call call : calls) {
                 if (call == RECONNECT_CALL) continue;
+                // calls sent to the other members of a smart client are still alive
+                if (router != null && router.isMemberConnection(call.getConnection())) continue;
                 Call removed = callMap.remove(call.getId());
                 if (removed != null) {
                     if (!client.getOutRunnable().queue.contains(removed)) {
@@ -17,24 +17,24 @@
 package com.hazelcast.client;
 
 import com.hazelcast.client.impl.EntryListenerManager;
-import com.hazelcast.core.EntryListener;
-import com.hazelcast.core.IMap;
-import com.hazelcast.core.MapEntry;
-import com.hazelcast.core.Prefix;
+import com.hazelcast.config.NearCacheConfig;
+import com.hazelcast.core.*;
 import com.hazelcast.impl.CMap.CMapEntry;
 import com.hazelcast.impl.ClusterOperation;
 import com.hazelcast.impl.Keys;
 import com.hazelcast.impl.base.KeyValue;
 import com.hazelcast.impl.base.Pairs;
+import com.hazelcast.impl.monitor.LocalMapStatsImpl;
 import com.hazelcast.monitor.LocalMapStats;
 import com.hazelcast.query.Expression;
+import com.hazelcast.query.PagingPredicate;
 import com.hazelcast.query.Predicate;
 import com.hazelcast.util.DistributedTimeoutException;
 
 import java.util.*;
-import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.hazelcast.client.ProxyHelper.check;
 import static com.hazelcast.nio.IOUtil.toData;
@@ -43,10 +43,89 @@ import static com.hazelcast.nio.IOUtil.toObject;
 public class MapClientProxy<K, V> implements IMap<K, V>, EntryHolder {
     final ProxyHelper proxyHelper;
     final private String name;
+    final private ClientNearCache nearCache;
+    final private AtomicBoolean nearCacheListenerRegistered = new AtomicBoolean(false);
+    final private NearCacheInvalidator nearCacheInvalidator;
 
     public MapClientProxy(HazelcastClient client, String name) {
         this.name = name;
         this.proxyHelper = new ProxyHelper(name, client);
+        final NearCacheConfig nearCacheConfig = client.getClientConfig().getNearCacheConfig(getName());
+        if (nearCacheConfig != null) {
+            nearCache = new ClientNearCache(nearCacheConfig);
+            nearCacheInvalidator = new NearCacheInvalidator();
+            client.getLifecycleService().addLifecycleListener(nearCacheInvalidator);
+        } else {
+            nearCache = null;
+            nearCacheInvalidator = null;
+        }
+    }
+
+    /**
+     * Invalidates the near cache on the entry events of the map and clears it when
+     * the connection to the cluster changes, as the events might be missed meanwhile.
+     */
+    private class NearCacheInvalidator implements EntryListener<K, V>, LifecycleListener {
+        public void entryAdded(EntryEvent<K, V> event) {
+            nearCache.invalidate(event.getKey());
+        }
+
+        public void entryRemoved(EntryEvent<K, V> event) {
+            nearCache.invalidate(event.getKey());
+        }
+
+        public void entryUpdated(EntryEvent<K, V> event) {
+            nearCache.invalidate(event.getKey());
+        }
+
+        public void entryEvicted(EntryEvent<K, V> event) {
+            nearCache.invalidate(event.getKey());
+        }
+
+        public void stateChanged(LifecycleEvent event) {
+            final LifecycleEvent.LifecycleState state = event.getState();
+            if (state == LifecycleEvent.LifecycleState.CLIENT_CONNECTION_LOST
+                    || state == LifecycleEvent.LifecycleState.CLIENT_CONNECTION_OPENING
+                    || state == LifecycleEvent.LifecycleState.CLIENT_CONNECTION_OPENED) {
+                nearCache.invalidateAll();
+            }
+        }
+    }
+
+    private void registerNearCacheListener() {
+        if (nearCache.shouldInvalidateOnChange() && nearCacheListenerRegistered.compareAndSet(false, true)) {
+            nearCache.invalidateAll();
+            addEntryListener(nearCacheInvalidator, null, false);
+        }
+    }
+
+    private void invalidateNearCache(Object key) {
+        if (nearCache != null) {
+            nearCache.invalidate(key);
+        }
+    }
+
+    /**
+     * Invalidates the keys again once the member answered the write, so that a value
+     * read by a concurrent get before the write completed is not kept in the near cache.
+     */
+    private <T> AsyncClientCall<T> invalidateNearCacheOnResponse(AsyncClientCall<T> call, final Collection<?> keys) {
+        if (nearCache != null) {
+            call.remoteCall.addResponseListener(new Runnable() {
+                public void run() {
+                    for (Object key : keys) {
+                        nearCache.invalidate(key);
+                    }
+                }
+            });
+        }
+        return call;
+    }
+
+    private void invalidateNearCache() {
+        if (nearCache != null) {
+            nearCache.invalidateAll();
+        }
     }
 
     public void addLocalEntryListener(EntryListener<K, V> listener) {
@@ -75,6 +154,12 @@ public class MapClientProxy<K, V> implements IMap<K, V>, EntryHolder {
         check(listener);
         proxyHelper.doOp(ClusterOperation.REMOVE_LISTENER, null, null);
         listenerManager().removeListener(name, null, listener);
+        if (nearCacheListenerRegistered.get()) {
+            // the map wide listener is removed from the cluster, register it again for the near cache
+            invalidateNearCache();
+            boolean includeValue = Boolean.FALSE.equals(listenerManager().noListenerRegistered(null, name, true));
+            proxyHelper.doCall(listenerManager().createNewAddListenerCall(proxyHelper, null, includeValue));
+        }
     }
 
     public void removeEntryListener(EntryListener<K, V> listener, K key) {
@@ -90,6 +175,10 @@ public class MapClientProxy<K, V> implements IMap<K, V>, EntryHolder {
 
     public Set<java.util.Map.Entry<K, V>> entrySet(Predicate predicate) {
         final Collection collection = proxyHelper.entries(predicate);
+        if (predicate instanceof PagingPredicate) {
+            // the member returns the page in order, keep the anchor for the next page
+            ((PagingPredicate) predicate).setPageResult(new ArrayList<KeyValue>(collection));
+        }
         return new LightEntrySetSet<K, V>(collection, this, getInstanceType());
     }
 
@@ -99,7 +188,12 @@ public class MapClientProxy<K, V> implements IMap<K, V>, EntryHolder {
 
     public boolean evict(Object key) {
         ProxyHelper.check(key);
-        return (Boolean) proxyHelper.doOp(ClusterOperation.CONCURRENT_MAP_EVICT, key, null);
+        invalidateNearCache(key);
+        try {
+            return (Boolean) proxyHelper.doOp(ClusterOperation.CONCURRENT_MAP_EVICT, key, null);
+        } finally {
+            invalidateNearCache(key);
+        }
     }
 
     public MapEntry<K, V> getMapEntry(K key) {
@@ -112,6 +206,13 @@ public class MapClientProxy<K, V> implements IMap<K, V>, EntryHolder {
     }
 
     public Set<K> keySet(Predicate predicate) {
+        if (predicate instanceof PagingPredicate) {
+            final Set<K> keys = new LinkedHashSet<K>();
+            for (Entry<K, V> entry : entrySet(predicate)) {
+                keys.add(entry.getKey());
+            }
+            return new LightKeySet<K>(this, keys);
+        }
         final Collection<K> collection = proxyHelper.keys(predicate);
         return new LightKeySet<K>(this, new HashSet<K>(collection));
     }
@@ -137,7 +238,13 @@ public class MapClientProxy<K, V> implements IMap<K, V>, EntryHolder {
 
     public V tryLockAndGet(K key, long timeout, TimeUnit timeunit) throws TimeoutException {
         check(key);
-        Object result = proxyHelper.doOp(ClusterOperation.CONCURRENT_MAP_TRY_LOCK_AND_GET, key, null, timeout, timeunit);
+        invalidateNearCache(key);
+        Object result;
+        try {
+            result = proxyHelper.doOp(ClusterOperation.CONCURRENT_MAP_TRY_LOCK_AND_GET, key, null, timeout, timeunit);
+        } finally {
+            invalidateNearCache(key);
+        }
         if (result instanceof DistributedTimeoutException) {
             throw new TimeoutException();
         }
@@ -147,7 +254,12 @@ public class MapClientProxy<K, V> implements IMap<K, V>, EntryHolder {
     public void putAndUnlock(K key, V value) {
         check(key);
         check(value);
-        proxyHelper.doOp(ClusterOperation.CONCURRENT_MAP_PUT_AND_UNLOCK, key, value);
+        invalidateNearCache(key);
+        try {
+            proxyHelper.doOp(ClusterOperation.CONCURRENT_MAP_PUT_AND_UNLOCK, key, value);
+        } finally {
+            invalidateNearCache(key);
+        }
     }
 
     public boolean tryLock(K key, long time, TimeUnit timeunit) {
@@ -174,33 +286,58 @@ public class MapClientProxy<K, V> implements IMap<K, V>, EntryHolder {
     public V putIfAbsent(K key, V value, long ttl, TimeUnit timeunit) {
         check(key);
         check(value);
-        return (V) proxyHelper.doOp(ClusterOperation.CONCURRENT_MAP_PUT_IF_ABSENT, key, value, ttl, timeunit);
+        invalidateNearCache(key);
+        try {
+            return (V) proxyHelper.doOp(ClusterOperation.CONCURRENT_MAP_PUT_IF_ABSENT, key, value, ttl, timeunit);
+        } finally {
+            invalidateNearCache(key);
+        }
     }
 
     public V putIfAbsent(K key, V value) {
-        return (V) proxyHelper.doOp(ClusterOperation.CONCURRENT_MAP_PUT_IF_ABSENT, key, value);
+        invalidateNearCache(key);
+        try {
+            return (V) proxyHelper.doOp(ClusterOperation.CONCURRENT_MAP_PUT_IF_ABSENT, key, value);
+        } finally {
+            invalidateNearCache(key);
+        }
     }
 
     public boolean remove(Object arg0, Object arg1) {
         check(arg0);
         check(arg1);
-        return (Boolean) proxyHelper.doOp(ClusterOperation.CONCURRENT_MAP_REMOVE_IF_SAME, arg0, arg1);
+        invalidateNearCache(arg0);
+        try {
+            return (Boolean) proxyHelper.doOp(ClusterOperation.CONCURRENT_MAP_REMOVE_IF_SAME, arg0, arg1);
+        } finally {
+            invalidateNearCache(arg0);
+        }
     }
 
     public V replace(K arg0, V arg1) {
         check(arg0);
         check(arg1);
-        return (V) proxyHelper.doOp(ClusterOperation.CONCURRENT_MAP_REPLACE_IF_NOT_NULL, arg0, arg1);
+        invalidateNearCache(arg0);
+        try {
+            return (V) proxyHelper.doOp(ClusterOperation.CONCURRENT_MAP_REPLACE_IF_NOT_NULL, arg0, arg1);
+        } finally {
+            invalidateNearCache(arg0);
+        }
     }
 
     public boolean replace(K arg0, V arg1, V arg2) {
         check(arg0);
         check(arg1);
         check(arg2);
+        invalidateNearCache(arg0);
         Keys keys = new Keys();
         keys.getKeys().add(toData(arg1));
         keys.getKeys().add(toData(arg2));
-        return (Boolean) proxyHelper.doOp(ClusterOperation.CONCURRENT_MAP_REPLACE_IF_SAME, arg0, keys);
+        try {
+            return (Boolean) proxyHelper.doOp(ClusterOperation.CONCURRENT_MAP_REPLACE_IF_SAME, arg0, keys);
+        } finally {
+            invalidateNearCache(arg0);
+        }
     }
 
     public void clear() {
@@ -215,6 +352,14 @@ public class MapClientProxy<K, V> implements IMap<K, V>, EntryHolder {
         return (Boolean) proxyHelper.doOp(ClusterOperation.CONCURRENT_MAP_CONTAINS_KEY, arg0, null);
     }
 
+    /**
+     * Async version of {@link #containsKey(Object)}.
+     */
+    public AsyncClientCall<Boolean> containsKeyAsync(K key) {
+        check(key);
+        return proxyHelper.doAsync(ClusterOperation.CONCURRENT_MAP_CONTAINS_KEY, key, null);
+    }
+
     public boolean containsValue(Object arg0) {
         check(arg0);
         return (Boolean) proxyHelper.doOp(ClusterOperation.CONCURRENT_MAP_CONTAINS_VALUE, null, arg0);
@@ -226,16 +371,50 @@ public class MapClientProxy<K, V> implements IMap<K, V>, EntryHolder {
 
     public V get(Object key) {
         check(key);
-        return (V) proxyHelper.doOp(ClusterOperation.CONCURRENT_MAP_GET, (K) key, null);
+        if (nearCache == null) {
+            return (V) proxyHelper.doOp(ClusterOperation.CONCURRENT_MAP_GET, (K) key, null);
+        }
+        registerNearCacheListener();
+        Object value = nearCache.get(key);
+        if (value == null) {
+            long invalidationStamp = nearCache.getInvalidationStamp();
+            value = proxyHelper.doOp(ClusterOperation.CONCURRENT_MAP_GET, (K) key, null);
+            nearCache.put(key, value, invalidationStamp);
+        }
+        return (V) value;
     }
 
     public Map<K, V> getAll(Set<K> setKeys) {
         check(setKeys);
+        Pairs pairs = (Pairs) proxyHelper.doOp(ClusterOperation.CONCURRENT_MAP_GET_ALL, toKeys(setKeys), null);
+        return toMap(pairs);
+    }
+
+    /**
+     * Async version of {@link #getAll(Set)}.
+     */
+    public AsyncClientCall<Map<K, V>> getAllAsync(Set<K> setKeys) {
+        check(setKeys);
+        Call remoteCall = proxyHelper.createCall(proxyHelper.prepareRequest(ClusterOperation.CONCURRENT_MAP_GET_ALL,
+                toKeys(setKeys), null));
+        proxyHelper.sendCall(remoteCall);
+        return new AsyncClientCall<Map<K, V>>(remoteCall, proxyHelper.getHazelcastClient().getAsyncExecutor()) {
+            @Override
+            protected Object toResult(Object value) {
+                return toMap((Pairs) value);
+            }
+        };
+    }
+
+    private Keys toKeys(Set<K> setKeys) {
         Keys keys = new Keys();
         for (K key : setKeys) {
             keys.add(toData(key));
         }
-        Pairs pairs = (Pairs) proxyHelper.doOp(ClusterOperation.CONCURRENT_MAP_GET_ALL, keys, null);
+        return keys;
+    }
+
+    private Map<K, V> toMap(Pairs pairs) {
         List<KeyValue> lsKeyValues = pairs.getKeyValues();
         Map map = new HashMap();
         if (lsKeyValues != null) {
@@ -258,83 +437,194 @@ public class MapClientProxy<K, V> implements IMap<K, V>, EntryHolder {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Only the near cache statistics are available on the client,
+     * so the map must have a near cache configured in the ClientConfig.
+     */
     public LocalMapStats getLocalMapStats() {
-        throw new UnsupportedOperationException();
+        if (nearCache == null) {
+            throw new UnsupportedOperationException();
+        }
+        LocalMapStatsImpl localMapStats = new LocalMapStatsImpl();
+        localMapStats.setNearCacheEntryCount(nearCache.size());
+        localMapStats.setNearCacheHits(nearCache.getHits());
+        localMapStats.setNearCacheMisses(nearCache.getMisses());
+        localMapStats.setNearCacheEvictions(nearCache.getEvictions());
+        return localMapStats;
     }
 
     public Set<K> keySet() {
         return keySet(null);
     }
 
-    public Future<V> getAsync(K key) {
+    public AsyncClientCall<V> getAsync(K key) {
         check(key);
         return proxyHelper.doAsync(ClusterOperation.CONCURRENT_MAP_GET, key, null);
     }
 
-    public Future<V> putAsync(K key, V value) {
+    public AsyncClientCall<V> putAsync(K key, V value) {
         check(key);
         check(value);
-        return proxyHelper.doAsync(ClusterOperation.CONCURRENT_MAP_PUT, key, value);
+        invalidateNearCache(key);
+        return invalidateNearCacheOnResponse(proxyHelper.<V>doAsync(ClusterOperation.CONCURRENT_MAP_PUT, key, value),
+                Collections.singleton(key));
     }
 
-    public Future<V> removeAsync(K key) {
+    public AsyncClientCall<V> removeAsync(K key) {
         check(key);
-        return proxyHelper.doAsync(ClusterOperation.CONCURRENT_MAP_REMOVE, key, null);
+        invalidateNearCache(key);
+        return invalidateNearCacheOnResponse(proxyHelper.<V>doAsync(ClusterOperation.CONCURRENT_MAP_REMOVE, key, null),
+                Collections.singleton(key));
     }
 
     public V put(K key, V value) {
         check(key);
         check(value);
-        return (V) proxyHelper.doOp(ClusterOperation.CONCURRENT_MAP_PUT, key, value);
+        invalidateNearCache(key);
+        try {
+            return (V) proxyHelper.doOp(ClusterOperation.CONCURRENT_MAP_PUT, key, value);
+        } finally {
+            invalidateNearCache(key);
+        }
     }
 
     public V put(K key, V value, long ttl, TimeUnit timeunit) {
         check(key);
         check(value);
-        return (V) proxyHelper.doOp(ClusterOperation.CONCURRENT_MAP_PUT, key, value, ttl, timeunit);
+        invalidateNearCache(key);
+        try {
+            return (V) proxyHelper.doOp(ClusterOperation.CONCURRENT_MAP_PUT, key, value, ttl, timeunit);
+        } finally {
+            invalidateNearCache(key);
+        }
     }
 
     public void set(K key, V value, long ttl, TimeUnit timeunit) {
         check(key);
         check(value);
-        proxyHelper.doOp(ClusterOperation.CONCURRENT_MAP_SET, key, value, ttl, timeunit);
+        invalidateNearCache(key);
+        try {
+            proxyHelper.doOp(ClusterOperation.CONCURRENT_MAP_SET, key, value, ttl, timeunit);
+        } finally {
+            invalidateNearCache(key);
+        }
     }
 
     public void putTransient(K key, V value, long ttl, TimeUnit timeunit) {
         check(key);
         check(value);
-        proxyHelper.doOp(ClusterOperation.CONCURRENT_MAP_PUT_TRANSIENT, key, value, ttl, timeunit);
+        invalidateNearCache(key);
+        try {
+            proxyHelper.doOp(ClusterOperation.CONCURRENT_MAP_PUT_TRANSIENT, key, value, ttl, timeunit);
+        } finally {
+            invalidateNearCache(key);
+        }
     }
 
     public boolean tryPut(K key, V value, long timeout, TimeUnit timeunit) {
         check(key);
         check(value);
-        return (Boolean) proxyHelper.doOp(ClusterOperation.CONCURRENT_MAP_TRY_PUT, key, value, timeout, timeunit);
+        invalidateNearCache(key);
+        try {
+            return (Boolean) proxyHelper.doOp(ClusterOperation.CONCURRENT_MAP_TRY_PUT, key, value, timeout, timeunit);
+        } finally {
+            invalidateNearCache(key);
+        }
     }
 
     public void putAll(final Map<? extends K, ? extends V> map) {
+        try {
+            proxyHelper.doOp(ClusterOperation.CONCURRENT_MAP_PUT_ALL, null, toPairs(map));
+        } finally {
+            for (final K key : map.keySet()) {
+                invalidateNearCache(key);
+            }
+        }
+    }
+
+    /**
+     * Async version of {@link #putAll(Map)}.
+     */
+    public AsyncClientCall<Void> putAllAsync(final Map<? extends K, ? extends V> map) {
+        return invalidateNearCacheOnResponse(proxyHelper.<Void>doAsync(ClusterOperation.CONCURRENT_MAP_PUT_ALL, null,
+                toPairs(map)), new ArrayList<Object>(map.keySet()));
+    }
+
+    private Pairs toPairs(final Map<? extends K, ? extends V> map) {
         Pairs pairs = new Pairs(map.size());
         for (final K key : map.keySet()) {
             final V value = map.get(key);
             pairs.addKeyValue(new KeyValue(toData(key), toData(value)));
+            invalidateNearCache(key);
         }
-        proxyHelper.doOp(ClusterOperation.CONCURRENT_MAP_PUT_ALL, null, pairs);
+        return pairs;
     }
 
     public V remove(Object arg0) {
         check(arg0);
-        return (V) proxyHelper.doOp(ClusterOperation.CONCURRENT_MAP_REMOVE, arg0, null);
+        invalidateNearCache(arg0);
+        try {
+            return (V) proxyHelper.doOp(ClusterOperation.CONCURRENT_MAP_REMOVE, arg0, null);
+        } finally {
+            invalidateNearCache(arg0);
+        }
     }
 
     public Object tryRemove(K key, long timeout, TimeUnit timeunit) throws TimeoutException {
         check(key);
-        Object result = proxyHelper.doOp(ClusterOperation.CONCURRENT_MAP_TRY_REMOVE, key, null, timeout, timeunit);
+        invalidateNearCache(key);
+        Object result;
+        try {
+            result = proxyHelper.doOp(ClusterOperation.CONCURRENT_MAP_TRY_REMOVE, key, null, timeout, timeunit);
+        } finally {
+            invalidateNearCache(key);
+        }
         if (result instanceof DistributedTimeoutException) {
             throw new TimeoutException();
         }
         return result;
     }
 
+    /**
+     * Async version of {@link #lock(Object)}. The lock is owned by the calling thread,
+     * as if the thread called lock itself.
+     */
+    public AsyncClientCall<Void> lockAsync(K key) {
+        check(key);
+        return doLockAsync(key, -1, null);
+    }
+
+    /**
+     * Async version of {@link #tryLock(Object, long, TimeUnit)}. The lock is owned by the calling thread,
+     * as if the thread called tryLock itself.
+     */
+    public AsyncClientCall<Boolean> tryLockAsync(K key, long time, TimeUnit timeunit) {
+        check(key);
+        ProxyHelper.checkTime(time, timeunit);
+        return doLockAsync(key, time, timeunit);
+    }
+
+    private <T> AsyncClientCall<T> doLockAsync(Object key, long timeout, TimeUnit timeUnit) {
+        Packet request = proxyHelper.prepareRequest(ClusterOperation.CONCURRENT_MAP_LOCK, key, timeUnit);
+        request.setTimeout(timeout);
+        if (proxyHelper.getHazelcastClient().getSmartRouter() == null) {
+            return proxyHelper.doAsync(request);
+        }
+        // keep the calls of the thread on the connection owning the lock until the lock is known to be failed
+        final ClientThreadContext threadContext = ClientThreadContext.get();
+        threadContext.lockCount.incrementAndGet();
+        final AsyncClientCall<T> future = proxyHelper.doAsync(request);
+        future.remoteCall.addResponseListener(new Runnable() {
+            public void run() {
+                final Object response = future.remoteCall.peekResponse();
+                if (!(response instanceof Packet) || !ProxyHelper.isLockAcquired((Packet) response)) {
+                    threadContext.lockCount.decrementAndGet();
+                }
+            }
+        });
+        return future;
+    }
+
     private Object doLock(ClusterOperation operation, Object key, long timeout, TimeUnit timeUnit) {
         Packet request = proxyHelper.prepareRequest(operation, key, timeUnit);
         request.setTimeout(timeout);
@@ -371,6 +661,10 @@ public class MapClientProxy<K, V> implements IMap<K, V>, EntryHolder {
     }
 
     public void destroy() {
+        if (nearCache != null) {
+            proxyHelper.getHazelcastClient().getLifecycleService().removeLifecycleListener(nearCacheInvalidator);
+            nearCache.invalidateAll();
+        }
         proxyHelper.destroy();
     }
 
@@ -19,9 +19,7 @@ package com.hazelcast.client;
 import com.hazelcast.util.SimpleBoundedQueue;
 
 import java.io.IOException;
-import java.util.Collection;
-import java.util.Iterator;
-import java.util.Map;
+import java.util.*;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -41,6 +39,8 @@ public class OutRunnable extends IORunnable {
 
     private Connection connection = null;
 
+    private final List<Connection> memberConnectionsToFlush = new ArrayList<Connection>();
+
     public OutRunnable(final HazelcastClient client, final Map<Long, Call> calls, final PacketWriter writer) {
         super(client, calls);
         this.writer = writer;
@@ -70,14 +70,21 @@ public class OutRunnable extends IORunnable {
             } catch (IOException e) {
                 clusterIsDown(connection);
             }
+            flushMemberConnections();
             Call call = queue.poll(12, TimeUnit.MILLISECONDS);
             if (call != null) {
                 writeCall(call);
+                // write the calls queued meanwhile with the same flush
+                queue.drainTo(q, q.remainingCapacity());
+                for (Call queuedCall = q.poll(); queuedCall != null; queuedCall = q.poll()) {
+                    writeCall(queuedCall);
+                }
                 try {
                     writer.flush(connection);
                 } catch (IOException e) {
                     clusterIsDown(connection);
                 }
+                flushMemberConnections();
             }
             if (reconnectionCalls.size() > 0) {
                 checkOnReconnect(call);
@@ -99,11 +106,18 @@ public class OutRunnable extends IORunnable {
                 }
             } else if (connection != null) {
                 if (call != RECONNECT_CALL) {
-                    if (!call.isFireNforget()) {
-                        callMap.put(call.getId(), call);
+                    final SmartRouter router = client.getSmartRouter();
+                    final Connection memberConnection = (router == null) ? null : router.getConnection(call);
+                    if (memberConnection != null) {
+                        writeToMember(router, memberConnection, call);
+                    } else {
+                        if (!call.isFireNforget()) {
+                            callMap.put(call.getId(), call);
+                        }
+                        call.setConnection(connection);
+                        writer.write(connection, call.getRequest());
+                        call.written = System.nanoTime();
                     }
-                    writer.write(connection, call.getRequest());
-                    call.written = System.nanoTime();
                 }
             } else {
                 queue.offer(call);
@@ -119,6 +133,41 @@ public class OutRunnable extends IORunnable {
         }
     }
 
+    private void writeToMember(SmartRouter router, Connection memberConnection, Call call) {
+        if (!call.isFireNforget()) {
+            callMap.put(call.getId(), call);
+        }
+        call.setConnection(memberConnection);
+        try {
+            writer.write(memberConnection, call.getRequest());
+            call.written = System.nanoTime();
+            if (!memberConnectionsToFlush.contains(memberConnection)) {
+                memberConnectionsToFlush.add(memberConnection);
+            }
+        } catch (IOException e) {
+            router.connectionLost(memberConnection);
+        }
+        // connection might be lost before the call is put to the call map, send it again then
+        if (!router.isMemberConnection(memberConnection) && callMap.remove(call.getId()) != null) {
+            call.setTarget(null);
+            queue.offer(call);
+        }
+    }
+
+    private void flushMemberConnections() {
+        if (memberConnectionsToFlush.isEmpty()) {
+            return;
+        }
+        for (Connection memberConnection : memberConnectionsToFlush) {
+            try {
+                writer.flush(memberConnection);
+            } catch (IOException e) {
+                client.getSmartRouter().connectionLost(memberConnection);
+            }
+        }
+        memberConnectionsToFlush.clear();
+    }
+
     private void checkOnReconnect(Call call) {
         try {
             Object response = reconnectionCalls.contains(call) ?
@@ -205,7 +254,12 @@ public class OutRunnable extends IORunnable {
         reconnectionCalls.addAll(client.getListenerManager().getListenerCalls());
         queue.addAll(reconnectionCalls);
         temp.drainTo(queue);
-        queue.addAll(callMap.values());
+        final SmartRouter router = client.getSmartRouter();
+        for (Call call : callMap.values()) {
+            if (router == null || !router.isMemberConnection(call.getConnection())) {
+                queue.add(call);
+            }
+        }
     }
 
     public void enQueue(Call call) {
@@ -25,12 +25,12 @@ import com.hazelcast.impl.Util;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.nio.Data;
 import com.hazelcast.query.Predicate;
+import com.hazelcast.util.DistributedTimeoutException;
 
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.EventListener;
-import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
@@ -56,7 +56,41 @@ public class ProxyHelper {
 
     protected Packet callAndGetResult(Packet request) {
         Call c = createCall(request);
-        return doCall(c);
+        Packet response = doCall(c);
+        if (client.getSmartRouter() != null) {
+            updateLockCount(request.getOperation(), response);
+        }
+        return response;
+    }
+
+    /**
+     * Counts the map locks of the thread, its calls are not routed to other members while it holds a lock.
+     */
+    private void updateLockCount(ClusterOperation operation, Packet response) {
+        final ClientThreadContext threadContext = ClientThreadContext.get();
+        switch (operation) {
+            case CONCURRENT_MAP_LOCK:
+            case CONCURRENT_MAP_LOCK_MAP:
+            case CONCURRENT_MAP_TRY_LOCK_AND_GET:
+                if (isLockAcquired(response)) {
+                    threadContext.lockCount.incrementAndGet();
+                }
+                break;
+            case CONCURRENT_MAP_UNLOCK:
+            case CONCURRENT_MAP_UNLOCK_MAP:
+            case CONCURRENT_MAP_FORCE_UNLOCK:
+            case CONCURRENT_MAP_PUT_AND_UNLOCK:
+                if (threadContext.lockCount.get() > 0) {
+                    threadContext.lockCount.decrementAndGet();
+                }
+                break;
+        }
+    }
+
+    static boolean isLockAcquired(Packet response) {
+        final Object result = (response.getValue() == null) ? null : toObject(response.getValue());
+        return !(Boolean.FALSE.equals(result) || result instanceof DistributedTimeoutException
+                || result instanceof ClientServiceException);
     }
 
     protected Packet doCall(Call c) {
@@ -88,7 +122,7 @@ public class ProxyHelper {
 
     public Call createCall(Packet request) {
         final Long id = newCallId();
-        return new Call(id, request) {
+        final Call call = new Call(id, request) {
             @Override
             public void onDisconnect(Member member) {
                 if (!client.getOutRunnable().queue.contains(this)) {
@@ -97,6 +131,11 @@ public class ProxyHelper {
                 }
             }
         };
+        final SmartRouter router = client.getSmartRouter();
+        if (router != null) {
+            router.route(call);
+        }
+        return call;
     }
 
     public static Long newCallId() {
@@ -129,11 +168,14 @@ public class ProxyHelper {
         return request;
     }
 
-    <V> Future<V> doAsync(final ClusterOperation operation, final Object key, final Object value) {
-        Packet request = prepareRequest(operation, key, value);
+    <V> AsyncClientCall<V> doAsync(final ClusterOperation operation, final Object key, final Object value) {
+        return doAsync(prepareRequest(operation, key, value));
+    }
+
+    <V> AsyncClientCall<V> doAsync(Packet request) {
         Call remoteCall = createCall(request);
         sendCall(remoteCall);
-        return new AsyncClientCall<V>(remoteCall);
+        return new AsyncClientCall<V>(remoteCall, client.getAsyncExecutor());
     }
 
     protected Object doOp(ClusterOperation operation, Object key, Object value) {
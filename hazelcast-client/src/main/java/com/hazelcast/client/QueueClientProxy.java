@@ -115,6 +115,22 @@ public class QueueClientProxy<E> extends AbstractQueue<E> implements IQueue<E> {
         return (E) proxyHelper.doOp(ClusterOperation.BLOCKING_QUEUE_POLL, null, millis);
     }
 
+    /**
+     * Async version of {@link #offer(Object)}.
+     */
+    public AsyncClientCall<Boolean> offerAsync(E e) {
+        check(e);
+        return proxyHelper.doAsync(ClusterOperation.BLOCKING_QUEUE_OFFER, e, 0L);
+    }
+
+    /**
+     * Async version of {@link #poll(long, TimeUnit)}.
+     */
+    public AsyncClientCall<E> pollAsync(long l, TimeUnit timeUnit) {
+        ProxyHelper.checkTime(l, timeUnit);
+        return proxyHelper.doAsync(ClusterOperation.BLOCKING_QUEUE_POLL, null, timeUnit.toMillis(l));
+    }
+
     public E take() throws InterruptedException {
         return innerPoll(-1);
     }
@@ -0,0 +1,299 @@
+/*
+ * Copyright (c) 2008-2012, Hazel Bilisim Ltd. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.client;
+
+import com.hazelcast.core.Member;
+import com.hazelcast.core.MembershipEvent;
+import com.hazelcast.core.MembershipListener;
+import com.hazelcast.impl.ClusterOperation;
+import com.hazelcast.impl.Util;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+import com.hazelcast.nio.SocketInterceptor;
+import com.hazelcast.partition.Partition;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * Routes the key based map calls of a smart client directly to the owner of the key's
+ * partition. Keeps a connection to each member besides the current connection of the
+ * client and refreshes the partition table periodically and on membership changes.
+ * <p/>
+ * Calls are sent to the current connection whenever the owner is unknown or not connected.
+ * Owners may be stale during migrations, then the member receiving the call forwards it
+ * to the new owner as it does for the calls of the current connection.
+ * <p/>
+ * The member connections are checked by the heartbeat of the {@link ConnectionManager},
+ * idle ones are pinged and the ones not receiving anything within the connection timeout are closed.
+ */
+public class SmartRouter implements MembershipListener {
+    private static final long REFRESH_INTERVAL_MILLIS = 10000;
+
+    private static final Set<ClusterOperation> ROUTED_OPERATIONS = EnumSet.of(
+            ClusterOperation.CONCURRENT_MAP_GET,
+            ClusterOperation.CONCURRENT_MAP_GET_MAP_ENTRY,
+            ClusterOperation.CONCURRENT_MAP_CONTAINS_KEY,
+            ClusterOperation.CONCURRENT_MAP_PUT,
+            ClusterOperation.CONCURRENT_MAP_SET,
+            ClusterOperation.CONCURRENT_MAP_PUT_TRANSIENT,
+            ClusterOperation.CONCURRENT_MAP_TRY_PUT,
+            ClusterOperation.CONCURRENT_MAP_PUT_IF_ABSENT,
+            ClusterOperation.CONCURRENT_MAP_REPLACE_IF_NOT_NULL,
+            ClusterOperation.CONCURRENT_MAP_REPLACE_IF_SAME,
+            ClusterOperation.CONCURRENT_MAP_REMOVE,
+            ClusterOperation.CONCURRENT_MAP_TRY_REMOVE,
+            ClusterOperation.CONCURRENT_MAP_REMOVE_IF_SAME,
+            ClusterOperation.CONCURRENT_MAP_EVICT,
+            ClusterOperation.CONCURRENT_MAP_PUT_MULTI,
+            ClusterOperation.CONCURRENT_MAP_REMOVE_MULTI,
+            ClusterOperation.CONCURRENT_MAP_VALUE_COUNT);
+
+    private final HazelcastClient client;
+    private final ILogger logger = Logger.getLogger(getClass().getName());
+    private final ConcurrentMap<InetSocketAddress, Connection> connections = new ConcurrentHashMap<InetSocketAddress, Connection>();
+    private final ConcurrentMap<Connection, MemberConnectionReader> readers = new ConcurrentHashMap<Connection, MemberConnectionReader>();
+    private final AtomicInteger connectionIdGenerator = new AtomicInteger();
+    private final Timer timer;
+    private volatile InetSocketAddress[] partitionOwners = new InetSocketAddress[0];
+    private volatile boolean running = true;
+
+    SmartRouter(HazelcastClient client) {
+        this.client = client;
+        this.timer = new Timer("hz.client." + client.id + ".SmartRouter", true);
+    }
+
+    void start() {
+        client.getCluster().addMembershipListener(this);
+        refresh();
+        timer.schedule(new TimerTask() {
+            @Override
+            public void run() {
+                refresh();
+            }
+        }, REFRESH_INTERVAL_MILLIS, REFRESH_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Sets the owner of the key of the request as the target of the call,
+     * if the operation is key based and the calling thread is not bound to the current connection.
+     */
+    void route(Call call) {
+        final Packet request = call.getRequest();
+        if (request == null || request.getKey() == null || !ROUTED_OPERATIONS.contains(request.getOperation())) {
+            return;
+        }
+        final InetSocketAddress[] owners = partitionOwners;
+        if (owners.length == 0 || ClientThreadContext.get().isBoundToConnection()) {
+            return;
+        }
+        final int hash = (request.getKeyHash() != -1) ? request.getKeyHash() : Util.hashCode(request.getKey());
+        final int partitionId = (hash == Integer.MIN_VALUE) ? 0 : Math.abs(hash) % owners.length;
+        call.setTarget(owners[partitionId]);
+    }
+
+    /**
+     * @return connection to the target of the call, null if the call should be sent to the current connection
+     */
+    Connection getConnection(Call call) {
+        final InetSocketAddress target = call.getTarget();
+        return (target == null) ? null : connections.get(target);
+    }
+
+    boolean isMemberConnection(Connection connection) {
+        return connection != null && connections.get(connection.getAddress()) == connection;
+    }
+
+    int getConnectionCount() {
+        return connections.size();
+    }
+
+    public void memberAdded(MembershipEvent membershipEvent) {
+        scheduleRefresh();
+    }
+
+    public void memberRemoved(MembershipEvent membershipEvent) {
+        scheduleRefresh();
+    }
+
+    private void scheduleRefresh() {
+        if (running) {
+            try {
+                timer.schedule(new TimerTask() {
+                    @Override
+                    public void run() {
+                        refresh();
+                    }
+                }, 0);
+            } catch (IllegalStateException ignored) {
+                // timer is cancelled on shutdown
+            }
+        }
+    }
+
+    synchronized void refresh() {
+        if (!running) {
+            return;
+        }
+        try {
+            final Set<Partition> partitions = client.getPartitionService().getPartitions();
+            final InetSocketAddress[] owners = new InetSocketAddress[partitions.size()];
+            for (Partition partition : partitions) {
+                final Member owner = partition.getOwner();
+                if (owner != null && partition.getPartitionId() < owners.length) {
+                    owners[partition.getPartitionId()] = owner.getInetSocketAddress();
+                }
+            }
+            final Set<InetSocketAddress> members = new HashSet<InetSocketAddress>();
+            for (Member member : client.getCluster().getMembers()) {
+                members.add(member.getInetSocketAddress());
+            }
+            for (InetSocketAddress address : members) {
+                if (!connections.containsKey(address)) {
+                    connect(address);
+                }
+            }
+            for (Connection connection : connections.values()) {
+                if (!members.contains(connection.getAddress())) {
+                    connectionLost(connection);
+                }
+            }
+            partitionOwners = owners;
+        } catch (Throwable e) {
+            logger.log(Level.FINEST, "Could not refresh partition table: " + e.getMessage(), e);
+        }
+    }
+
+    private void connect(InetSocketAddress address) {
+        Connection connection = null;
+        try {
+            connection = new Connection(address, connectionIdGenerator.incrementAndGet());
+            final SocketInterceptor socketInterceptor = client.getClientConfig().getSocketInterceptor();
+            if (socketInterceptor != null) {
+                socketInterceptor.onConnect(connection.getSocket());
+            }
+            final PacketReader reader = new PacketReader();
+            new DefaultClientBinder(client).bind(connection, client.getClientConfig().getCredentials(),
+                    new PacketWriter(), reader);
+            final MemberConnectionReader connectionReader = new MemberConnectionReader(connection, reader);
+            readers.put(connection, connectionReader);
+            connections.put(address, connection);
+            final Thread thread = new Thread(connectionReader,
+                    "hz.client." + client.id + ".SmartRouter.InThread." + address);
+            thread.setDaemon(true);
+            thread.start();
+            logger.log(Level.FINEST, "Smart client connected to " + connection);
+        } catch (Throwable e) {
+            logger.log(Level.FINEST, "Smart client could not connect to " + address + ": " + e.getMessage());
+            if (connection != null) {
+                client.getConnectionManager().closeConnection(connection);
+            }
+        }
+    }
+
+    /**
+     * Removes the connection and sends the calls waiting for a response from it again,
+     * they will go to the current connection of the client.
+     */
+    void connectionLost(Connection connection) {
+        if (!connections.remove(connection.getAddress(), connection)) {
+            return;
+        }
+        readers.remove(connection);
+        client.getConnectionManager().closeConnection(connection);
+        final Member member = connection.getMember();
+        for (Call call : client.calls.values()) {
+            if (call.getConnection() == connection && client.calls.remove(call.getId()) != null) {
+                call.setTarget(null);
+                call.onDisconnect(member);
+            }
+        }
+    }
+
+    /**
+     * Pings the member connections being idle for a fifth of the timeout,
+     * closes the ones which didn't receive anything within the timeout.
+     */
+    void heartbeat(long timeout) {
+        final long now = System.currentTimeMillis();
+        for (MemberConnectionReader reader : readers.values()) {
+            final long idle = now - reader.lastReceived;
+            if (idle >= timeout) {
+                logger.log(Level.WARNING, "Member " + reader.connection.getAddress() + " didn't respond to client's requests for "
+                        + timeout / 1000 + " seconds. Assuming it is dead, closing the connection!");
+                connectionLost(reader.connection);
+            } else if (idle >= timeout / 5) {
+                ping(reader.connection);
+            }
+        }
+    }
+
+    private void ping(Connection connection) {
+        final ProxyHelper proxyHelper = new ProxyHelper(null, client);
+        final Call call = proxyHelper.createCall(proxyHelper.prepareRequest(ClusterOperation.GET_MEMBERS, null, null));
+        call.setTarget(connection.getAddress());
+        proxyHelper.sendCall(call);
+    }
+
+    void shutdown() {
+        running = false;
+        timer.cancel();
+        for (Connection connection : connections.values()) {
+            connections.remove(connection.getAddress());
+            readers.remove(connection);
+            client.getConnectionManager().closeConnection(connection);
+        }
+    }
+
+    private class MemberConnectionReader implements Runnable {
+        private final Connection connection;
+        private final PacketReader reader;
+        private volatile long lastReceived = System.currentTimeMillis();
+
+        MemberConnectionReader(Connection connection, PacketReader reader) {
+            this.connection = connection;
+            this.reader = reader;
+        }
+
+        public void run() {
+            try {
+                while (running) {
+                    final Packet packet = reader.readPacket(connection);
+                    lastReceived = System.currentTimeMillis();
+                    final Call call = client.calls.remove(packet.getCallId());
+                    if (call != null) {
+                        call.received = System.nanoTime();
+                        call.setResponse(packet);
+                    } else if (packet.getOperation().equals(ClusterOperation.EVENT)) {
+                        client.getListenerManager().enqueue(packet);
+                    }
+                }
+            } catch (IOException e) {
+                logger.log(Level.FINEST, "Connection to " + connection.getAddress() + " is lost: " + e.getMessage());
+            } catch (Throwable e) {
+                logger.log(Level.WARNING, "SmartRouter reader of " + connection + " got an exception: " + e.getMessage(), e);
+            } finally {
+                connectionLost(connection);
+            }
+        }
+    }
+}
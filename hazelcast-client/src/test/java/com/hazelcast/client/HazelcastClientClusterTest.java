@@ -23,6 +23,7 @@ import com.hazelcast.config.MapConfig;
 import com.hazelcast.config.NearCacheConfig;
 import com.hazelcast.core.*;
 import com.hazelcast.core.LifecycleEvent.LifecycleState;
+import com.hazelcast.impl.ClusterOperation;
 import com.hazelcast.impl.GroupProperties;
 import org.junit.After;
 import org.junit.Before;
@@ -39,6 +40,7 @@ import static com.hazelcast.client.TestUtility.newHazelcastClient;
 import static com.hazelcast.impl.TestUtil.OrderKey;
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertTrue;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.fail;
 
@@ -326,4 +328,101 @@ public class HazelcastClientClusterTest {
         h1.getLifecycleService().shutdown();
         map.put("smth", "nothing");
     }
+
+    @Test
+    public void testClientNearCache() throws Exception {
+        HazelcastInstance h1 = Hazelcast.newHazelcastInstance(new Config());
+        ClientConfig clientConfig = TestUtility.toClientConfig(
+                ClientProperties.createBaseClientProperties(GroupConfig.DEFAULT_GROUP_NAME, GroupConfig.DEFAULT_GROUP_PASSWORD));
+        clientConfig.addInetSocketAddress(h1.getCluster().getLocalMember().getInetSocketAddress());
+        clientConfig.addNearCacheConfig("nearCached", new NearCacheConfig().setMaxSize(100));
+        HazelcastClient client = HazelcastClient.newHazelcastClient(clientConfig);
+        final IMap<Integer, String> map = client.getMap("nearCached");
+        final IMap<Integer, String> memberMap = h1.getMap("nearCached");
+        memberMap.put(1, "a");
+        assertEquals("a", map.get(1));
+        assertEquals("a", map.get(1));
+        assertEquals(1, map.getLocalMapStats().getNearCacheHits());
+        assertEquals(1, map.getLocalMapStats().getNearCacheMisses());
+        // updated by the member, invalidated by the entry event
+        memberMap.put(1, "b");
+        for (int i = 0; i < 50 && !"b".equals(map.get(1)); i++) {
+            Thread.sleep(100);
+        }
+        assertEquals("b", map.get(1));
+        // updated by the client, invalidated locally
+        map.put(1, "c");
+        assertEquals("c", map.get(1));
+        map.putAsync(1, "d").get();
+        assertEquals("d", map.get(1));
+        map.remove(1);
+        assertEquals(null, map.get(1));
+        for (int i = 0; i < 1000; i++) {
+            memberMap.put(i, "value" + i);
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("value" + i, map.get(i));
+        }
+        assertTrue(map.getLocalMapStats().getNearCacheEntryCount() <= 100);
+        assertTrue(map.getLocalMapStats().getNearCacheEvictions() > 0);
+    }
+
+    @Test
+    public void testSmartClientRoutesToOwner() throws Exception {
+        HazelcastInstance h1 = Hazelcast.newHazelcastInstance(new Config());
+        HazelcastInstance h2 = Hazelcast.newHazelcastInstance(new Config());
+        HazelcastInstance h3 = Hazelcast.newHazelcastInstance(new Config());
+        ClientConfig clientConfig = TestUtility.toClientConfig(
+                ClientProperties.createBaseClientProperties(GroupConfig.DEFAULT_GROUP_NAME, GroupConfig.DEFAULT_GROUP_PASSWORD));
+        clientConfig.addInetSocketAddress(h1.getCluster().getLocalMember().getInetSocketAddress());
+        clientConfig.setSmart(true);
+        HazelcastClient client = HazelcastClient.newHazelcastClient(clientConfig);
+        SmartRouter router = client.getSmartRouter();
+        assertEquals(3, router.getConnectionCount());
+        ProxyHelper proxyHelper = new ProxyHelper(Prefix.MAP + "default", client);
+        for (int i = 0; i < 100; i++) {
+            Call call = proxyHelper.createCall(proxyHelper.prepareRequest(ClusterOperation.CONCURRENT_MAP_GET, i, null));
+            assertEquals(h1.getPartitionService().getPartition(i).getOwner().getInetSocketAddress(), call.getTarget());
+        }
+        IMap<Integer, Integer> map = client.getMap("default");
+        for (int i = 0; i < 1000; i++) {
+            map.put(i, i);
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(Integer.valueOf(i), map.get(i));
+            assertEquals(Integer.valueOf(i), h2.getMap("default").get(i));
+        }
+        // locked keys are accessed through the connected member only
+        map.lock(1);
+        assertNull(proxyHelper.createCall(proxyHelper.prepareRequest(ClusterOperation.CONCURRENT_MAP_PUT, 1, 1)).getTarget());
+        map.put(1, 2);
+        map.unlock(1);
+        assertEquals(Integer.valueOf(2), map.get(1));
+        h3.getLifecycleService().shutdown();
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(Integer.valueOf(i == 1 ? 2 : i), map.get(i));
+        }
+        Thread.sleep(1000);
+        assertEquals(2, router.getConnectionCount());
+    }
+
+    @Test
+    public void testSmartClientPingsIdleMembers() throws Exception {
+        HazelcastInstance h1 = Hazelcast.newHazelcastInstance(new Config());
+        HazelcastInstance h2 = Hazelcast.newHazelcastInstance(new Config());
+        ClientConfig clientConfig = TestUtility.toClientConfig(
+                ClientProperties.createBaseClientProperties(GroupConfig.DEFAULT_GROUP_NAME, GroupConfig.DEFAULT_GROUP_PASSWORD));
+        clientConfig.addInetSocketAddress(h1.getCluster().getLocalMember().getInetSocketAddress());
+        clientConfig.setSmart(true);
+        clientConfig.setConnectionTimeout(1000);
+        HazelcastClient client = HazelcastClient.newHazelcastClient(clientConfig);
+        SmartRouter router = client.getSmartRouter();
+        assertEquals(2, router.getConnectionCount());
+        // idle member connections are kept alive by the pings of the heartbeat
+        Thread.sleep(3000);
+        assertEquals(2, router.getConnectionCount());
+        // nothing received within the timeout, the connections are closed
+        router.heartbeat(0);
+        assertEquals(0, router.getConnectionCount());
+    }
 }
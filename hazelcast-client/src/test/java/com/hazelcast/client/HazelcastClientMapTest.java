@@ -19,6 +19,8 @@ package com.hazelcast.client;
 import com.hazelcast.core.*;
 import com.hazelcast.nio.DataSerializable;
 import com.hazelcast.query.EntryObject;
+import com.hazelcast.query.PagingIterator;
+import com.hazelcast.query.PagingPredicate;
 import com.hazelcast.query.Predicate;
 import com.hazelcast.query.PredicateBuilder;
 import com.hazelcast.query.SqlPredicate;
@@ -33,6 +35,8 @@ import java.lang.management.ThreadMXBean;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
 
@@ -179,6 +183,85 @@ public class HazelcastClientMapTest extends HazelcastClientTestBase {
         assertEquals(value1, f1.get());
     }
 
+    @Test
+    public void testPipelinedAsyncCallsWithCallbacks() throws Exception {
+        HazelcastClient hClient = getHazelcastClient();
+        final MapClientProxy<Integer, Integer> map = (MapClientProxy<Integer, Integer>) hClient.<Integer, Integer>getMap("testPipelinedAsyncCallsWithCallbacks");
+        final int count = 1000;
+        final CountDownLatch putLatch = new CountDownLatch(count);
+        for (int i = 0; i < count; i++) {
+            map.putAsync(i, i).andThen(new ExecutionCallback<Integer>() {
+                public void done(Future<Integer> future) {
+                    putLatch.countDown();
+                }
+            });
+        }
+        assertTrue(putLatch.await(30, TimeUnit.SECONDS));
+        final CountDownLatch getLatch = new CountDownLatch(count);
+        final AtomicInteger wrongValues = new AtomicInteger();
+        for (int i = 0; i < count; i++) {
+            final int expected = i;
+            map.getAsync(i).andThen(new ExecutionCallback<Integer>() {
+                public void done(Future<Integer> future) {
+                    try {
+                        if (future.get() != expected) {
+                            wrongValues.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        wrongValues.incrementAndGet();
+                    }
+                    getLatch.countDown();
+                }
+            });
+        }
+        assertTrue(getLatch.await(30, TimeUnit.SECONDS));
+        assertEquals(0, wrongValues.get());
+        assertEquals(count, map.size());
+    }
+
+    @Test
+    public void testBulkAsyncCalls() throws Exception {
+        HazelcastClient hClient = getHazelcastClient();
+        final MapClientProxy<String, String> map = (MapClientProxy<String, String>) hClient.<String, String>getMap("testBulkAsyncCalls");
+        Map<String, String> entries = new HashMap<String, String>();
+        for (int i = 0; i < 10; i++) {
+            entries.put("key" + i, "value" + i);
+        }
+        assertNull(map.putAllAsync(entries).get(10, TimeUnit.SECONDS));
+        assertTrue(map.containsKeyAsync("key1").get(10, TimeUnit.SECONDS));
+        assertFalse(map.containsKeyAsync("key10").get(10, TimeUnit.SECONDS));
+        final Map<String, String> result = map.getAllAsync(new HashSet<String>(entries.keySet())).get(10, TimeUnit.SECONDS);
+        assertEquals(entries, result);
+    }
+
+    @Test
+    public void testLockAsync() throws Exception {
+        HazelcastClient hClient = getHazelcastClient();
+        final MapClientProxy<String, String> map = (MapClientProxy<String, String>) hClient.<String, String>getMap("testLockAsync");
+        map.lockAsync("a").get(10, TimeUnit.SECONDS);
+        assertFalse(tryLockAsyncInOtherThread(map, "a"));
+        assertTrue(map.tryLockAsync("a", 10, TimeUnit.MILLISECONDS).get(10, TimeUnit.SECONDS));
+        map.unlock("a");
+        assertFalse(tryLockAsyncInOtherThread(map, "a"));
+        map.unlock("a");
+        assertTrue(tryLockAsyncInOtherThread(map, "a"));
+    }
+
+    private boolean tryLockAsyncInOtherThread(final MapClientProxy<String, String> map, final String key) throws InterruptedException {
+        final AtomicBoolean locked = new AtomicBoolean(false);
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    locked.set(map.tryLockAsync(key, 10, TimeUnit.MILLISECONDS).get(10, TimeUnit.SECONDS));
+                } catch (Exception ignored) {
+                }
+            }
+        });
+        thread.start();
+        thread.join();
+        return locked.get();
+    }
+
     @Test
     public void lockMapKey() throws InterruptedException {
         HazelcastClient hClient = getHazelcastClient();
@@ -926,6 +1009,32 @@ public class HazelcastClientMapTest extends HazelcastClientTestBase {
         }
     }
 
+    @Test
+    public void testPagingPredicate() {
+        HazelcastInstance h = getHazelcastInstance();
+        HazelcastClient hClient = getHazelcastClient();
+        IMap<Integer, Employee> map = hClient.getMap("testPagingPredicate");
+        for (int i = 0; i < 100; i++) {
+            h.getMap("testPagingPredicate").put(i, new Employee("" + i, i, i % 2 == 0, i));
+        }
+        PagingPredicate pagingPredicate = new PagingPredicate(new SqlPredicate("age < 55"), 10);
+        assertEquals(new ArrayList<Integer>(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9)),
+                new ArrayList<Integer>(map.keySet(pagingPredicate)));
+        pagingPredicate.nextPage();
+        assertEquals(new ArrayList<Integer>(Arrays.asList(10, 11, 12, 13, 14, 15, 16, 17, 18, 19)),
+                new ArrayList<Integer>(map.keySet(pagingPredicate)));
+        PagingIterator<Integer, Employee> it = new PagingIterator<Integer, Employee>(map,
+                new PagingPredicate(new SqlPredicate("age < 55"), 10));
+        int expected = 0;
+        while (it.hasNext()) {
+            Entry<Integer, Employee> entry = it.next();
+            assertEquals(expected, entry.getKey().intValue());
+            assertEquals(expected, entry.getValue().age);
+            expected++;
+        }
+        assertEquals(55, expected);
+    }
+
     public static class Employee implements DataSerializable {
         String name;
         String familyName;
@@ -30,6 +30,7 @@ import java.util.concurrent.TimeUnit;
 import static junit.framework.Assert.assertTrue;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 
 public class HazelcastClientQueueTest extends HazelcastClientTestBase {
 
@@ -272,6 +273,15 @@ public class HazelcastClientQueueTest extends HazelcastClientTestBase {
         }
     }
 
+    @Test
+    public void testOfferAsyncAndPollAsync() throws Exception {
+        HazelcastClient hClient = getHazelcastClient();
+        QueueClientProxy<String> queue = (QueueClientProxy<String>) hClient.<String>getQueue("testOfferAsyncAndPollAsync");
+        assertTrue(queue.offerAsync("a").get(10, TimeUnit.SECONDS));
+        assertEquals("a", queue.pollAsync(10, TimeUnit.SECONDS).get(10, TimeUnit.SECONDS));
+        assertNull(queue.pollAsync(10, TimeUnit.MILLISECONDS).get(10, TimeUnit.SECONDS));
+    }
+
     @AfterClass
     public static void shutdown() {
     }
@@ -18,6 +18,7 @@ package com.hazelcast.cluster;
 
 import com.hazelcast.impl.*;
 import com.hazelcast.impl.base.PacketProcessor;
+import com.hazelcast.impl.base.PartitionPacketProcessor;
 import com.hazelcast.impl.base.SystemLogService;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.nio.Packet;
@@ -53,6 +54,10 @@ public final class ClusterService implements Runnable, Constants {
 
     private final PacketProcessor[] packetProcessors = new PacketProcessor[ClusterOperation.LENGTH];
 
+    private final PartitionPacketProcessor[] partitionPacketProcessors = new PartitionPacketProcessor[ClusterOperation.LENGTH];
+
+    private final PartitionThread[] partitionThreads;
+
     private final Runnable[] periodicRunnables = new Runnable[5];
 
     private final Node node;
@@ -73,12 +78,34 @@ public final class ClusterService implements Runnable, Constants {
         MAX_IDLE_MILLIS = node.groupProperties.MAX_NO_HEARTBEAT_SECONDS.getInteger() * 1000L;
         RESTART_ON_MAX_IDLE = node.groupProperties.RESTART_ON_MAX_IDLE.getBoolean();
         serviceThread = new Thread(node.threadGroup, this, node.getThreadNamePrefix("ServiceThread"));
+        final int partitionThreadCount = node.groupProperties.PARTITION_THREAD_COUNT.getInteger();
+        if (partitionThreadCount > 0) {
+            partitionThreads = new PartitionThread[partitionThreadCount];
+            for (int i = 0; i < partitionThreadCount; i++) {
+                partitionThreads[i] = new PartitionThread(this, node.threadGroup,
+                        node.getThreadNamePrefix("PartitionThread" + i), i, logger);
+            }
+        } else {
+            partitionThreads = null;
+        }
     }
 
     public Thread getServiceThread() {
         return serviceThread;
     }
 
+    Node getNode() {
+        return node;
+    }
+
+    public void startPartitionThreads() {
+        if (partitionThreads != null) {
+            for (PartitionThread partitionThread : partitionThreads) {
+                partitionThread.start();
+            }
+        }
+    }
+
     public void registerPeriodicRunnable(Runnable runnable) {
         int len = periodicRunnables.length;
         for (int i = 0; i < len; i++) {
@@ -98,6 +125,18 @@ public final class ClusterService implements Runnable, Constants {
         packetProcessors[operation.getValue()] = packetProcessor;
     }
 
+    /**
+     * Registers a processor that is allowed to handle the given operation on the partition
+     * threads. Has no effect unless hazelcast.partition.thread.count is greater than zero.
+     */
+    public void registerPartitionPacketProcessor(ClusterOperation operation, PartitionPacketProcessor processor) {
+        partitionPacketProcessors[operation.getValue()] = processor;
+    }
+
+    PartitionPacketProcessor getPartitionPacketProcessor(ClusterOperation operation) {
+        return partitionPacketProcessors[operation.getValue()];
+    }
+
     public PacketProcessor getPacketProcessor(ClusterOperation operation) {
         PacketProcessor packetProcessor = packetProcessors[operation.getValue()];
         if (packetProcessor == null) {
@@ -114,6 +153,15 @@ public final class ClusterService implements Runnable, Constants {
                 css.info(packet, "Enqueue Packet ", packet.operation);
             }
         }
+        if (partitionThreads != null && !packet.client && packet.blockId >= 0
+                && partitionPacketProcessors[packet.operation.getValue()] != null) {
+            partitionThreads[packet.blockId % partitionThreads.length].enqueue(packet);
+        } else {
+            enqueueServicePacket(packet);
+        }
+    }
+
+    void enqueueServicePacket(Packet packet) {
         packetQueue.offer(packet);
         unpark();
     }
@@ -271,6 +319,11 @@ public final class ClusterService implements Runnable, Constants {
     }
 
     public void stop() {
+        if (partitionThreads != null) {
+            for (PartitionThread partitionThread : partitionThreads) {
+                partitionThread.stop();
+            }
+        }
         packetQueue.clear();
         processableQueue.clear();
         try {
@@ -287,6 +340,33 @@ public final class ClusterService implements Runnable, Constants {
         }
     }
 
+    /**
+     * @return the number of packets waiting on each partition thread,
+     *         or an empty array if partition threads are disabled.
+     */
+    public int[] getPartitionThreadQueueSizes() {
+        if (partitionThreads == null) {
+            return new int[0];
+        }
+        final int[] sizes = new int[partitionThreads.length];
+        for (int i = 0; i < partitionThreads.length; i++) {
+            sizes[i] = partitionThreads[i].getQueueSize();
+        }
+        return sizes;
+    }
+
+    public void appendState(StringBuffer sbState) {
+        sbState.append("\nClusterService {");
+        sbState.append("\n\tpacketQueueSize: ").append(packetQueue.size());
+        sbState.append("\n\tprocessableQueueSize: ").append(processableQueue.size());
+        if (partitionThreads != null) {
+            for (PartitionThread partitionThread : partitionThreads) {
+                sbState.append("\n\t").append(partitionThread);
+            }
+        }
+        sbState.append("\n}");
+    }
+
     @Override
     public String toString() {
         return "ClusterService packetQueueSize=" + packetQueue.size()
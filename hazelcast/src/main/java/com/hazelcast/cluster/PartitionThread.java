@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2008-2012, Hazel Bilisim Ltd. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.cluster;
+
+import com.hazelcast.impl.ThreadContext;
+import com.hazelcast.impl.base.PartitionPacketProcessor;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.nio.Packet;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+
+/**
+ * Owns a fixed stripe of partitions (partitionId % partitionThreadCount == index)
+ * and processes the packets of those partitions that have a registered
+ * {@link PartitionPacketProcessor}. Packets that cannot be completed here
+ * are handed back to the ServiceThread.
+ */
+final class PartitionThread implements Runnable {
+
+    private static final int PACKET_BULK_SIZE = 64;
+
+    private final ClusterService clusterService;
+
+    private final ILogger logger;
+
+    private final int index;
+
+    private final Queue<Packet> packetQueue = new ConcurrentLinkedQueue<Packet>();
+
+    private final AtomicInteger queueSize = new AtomicInteger();
+
+    private final AtomicLong processedCount = new AtomicLong();
+
+    private final AtomicLong handedOverCount = new AtomicLong();
+
+    private final Thread thread;
+
+    private volatile boolean running = true;
+
+    PartitionThread(ClusterService clusterService, ThreadGroup threadGroup, String threadName, int index, ILogger logger) {
+        this.clusterService = clusterService;
+        this.index = index;
+        this.logger = logger;
+        this.thread = new Thread(threadGroup, this, threadName);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+
+    void enqueue(Packet packet) {
+        packetQueue.offer(packet);
+        queueSize.incrementAndGet();
+        LockSupport.unpark(thread);
+    }
+
+    public void run() {
+        ThreadContext.get().setCurrentFactory(clusterService.getNode().factory);
+        while (running) {
+            try {
+                if (dequeuePackets() == 0) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                }
+            } catch (OutOfMemoryError e) {
+                clusterService.getNode().onOutOfMemory(e);
+            } catch (Throwable e) {
+                logger.log(Level.SEVERE, e.getMessage(), e);
+            }
+        }
+        packetQueue.clear();
+        queueSize.set(0);
+    }
+
+    private int dequeuePackets() {
+        for (int i = 0; i < PACKET_BULK_SIZE; i++) {
+            final Packet packet = packetQueue.poll();
+            if (packet == null) {
+                return i;
+            }
+            queueSize.decrementAndGet();
+            process(packet);
+        }
+        return PACKET_BULK_SIZE;
+    }
+
+    private void process(Packet packet) {
+        if (!running) return;
+        final PartitionPacketProcessor processor = clusterService.getPartitionPacketProcessor(packet.operation);
+        boolean processed = false;
+        try {
+            processed = processor != null && processor.processOnPartitionThread(packet);
+        } catch (Throwable e) {
+            logger.log(Level.WARNING, "Handing over " + packet.operation + " to ServiceThread", e);
+        }
+        if (processed) {
+            processedCount.incrementAndGet();
+        } else {
+            handedOverCount.incrementAndGet();
+            clusterService.enqueueServicePacket(packet);
+        }
+    }
+
+    int getQueueSize() {
+        return queueSize.get();
+    }
+
+    long getProcessedCount() {
+        return processedCount.get();
+    }
+
+    long getHandedOverCount() {
+        return handedOverCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "PartitionThread{" +
+                "index=" + index +
+                ", queueSize=" + getQueueSize() +
+                ", processed=" + getProcessedCount() +
+                ", handedOver=" + getHandedOverCount() +
+                '}';
+    }
+}
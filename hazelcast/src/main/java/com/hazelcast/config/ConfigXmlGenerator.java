@@ -180,6 +180,8 @@ public class ConfigXmlGenerator {
             xml.append("<backup-count>").append(m.getBackupCount()).append("</backup-count>");
             xml.append("<eviction-policy>").append(m.getEvictionPolicy()).append("</eviction-policy>");
             xml.append("<eviction-percentage>").append(m.getEvictionPercentage()).append("</eviction-percentage>");
+            xml.append("<eviction-sample-size>").append(m.getEvictionSampleSize()).append("</eviction-sample-size>");
+            xml.append("<statistics-enabled>").append(m.isStatisticsEnabled()).append("</statistics-enabled>");
 //            xml.append("<eviction-delay-seconds>").append(m.getEvictionDelaySeconds()).append("</eviction-delay-seconds>");
             xml.append("<max-size policy=\"").append(m.getMaxSizeConfig().getMaxSizePolicy()).append("\">").append(m.getMaxSizeConfig().getSize()).append("</max-size>");
             xml.append("<time-to-live-seconds>").append(m.getTimeToLiveSeconds()).append("</time-to-live-seconds>");
@@ -192,6 +194,9 @@ public class ConfigXmlGenerator {
                 xml.append("<map-store enabled=\"").append(s.isEnabled()).append("\">");
                 xml.append("<class-name>").append(s.getClassName()).append("</class-name>");
                 xml.append("<write-delay-seconds>").append(s.getWriteDelaySeconds()).append("</write-delay-seconds>");
+                xml.append("<write-batch-size>").append(s.getWriteBatchSize()).append("</write-batch-size>");
+                xml.append("<write-behind-queue-capacity>").append(s.getWriteBehindQueueCapacity()).append("</write-behind-queue-capacity>");
+                xml.append("<initial-load-mode>").append(s.getInitialLoadMode()).append("</initial-load-mode>");
                 appendProperties(xml, s.getProperties());
                 xml.append("</map-store>");
             }
@@ -253,6 +258,8 @@ public class ConfigXmlGenerator {
         for (TopicConfig t : tCfgs) {
             xml.append("<topic name=\"").append(t.getName()).append("\">");
             xml.append("<global-ordering-enabled>").append(t.isGlobalOrderingEnabled()).append("</global-ordering-enabled>");
+            xml.append("<subscriber-queue-capacity>").append(t.getSubscriberQueueCapacity()).append("</subscriber-queue-capacity>");
+            xml.append("<overflow-policy>").append(t.getOverflowPolicy()).append("</overflow-policy>");
             if (!t.getMessageListenerConfigs().isEmpty()) {
                 xml.append("<message-listeners>");
                 for (ListenerConfig lc : t.getMessageListenerConfigs()) {
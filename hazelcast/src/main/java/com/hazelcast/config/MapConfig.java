@@ -36,6 +36,9 @@ public class MapConfig implements DataSerializable {
     public final static int DEFAULT_EVICTION_PERCENTAGE = 25;
     public final static int MAX_EVICTION_PERCENTAGE = 100;
 
+    public final static int MIN_EVICTION_SAMPLE_SIZE = 0;
+    public final static int DEFAULT_EVICTION_SAMPLE_SIZE = 0;
+
     public final static int DEFAULT_EVICTION_DELAY_SECONDS = 3;
     public final static int DEFAULT_TTL_SECONDS = 0;
     public final static int DEFAULT_MAX_IDLE_SECONDS = 0;
@@ -46,6 +49,7 @@ public class MapConfig implements DataSerializable {
     public final static String DEFAULT_EVICTION_POLICY = "NONE";
     public final static String DEFAULT_MERGE_POLICY = AddNewEntryMergePolicy.NAME;
     public final static boolean DEFAULT_CACHE_VALUE = true;
+    public final static boolean DEFAULT_STATISTICS_ENABLED = true;
 
     private String name = null;
 
@@ -63,6 +67,8 @@ public class MapConfig implements DataSerializable {
 
     private String evictionPolicy = DEFAULT_EVICTION_POLICY;
 
+    private int evictionSampleSize = DEFAULT_EVICTION_SAMPLE_SIZE;
+
     private boolean valueIndexed = false;
 
     private MapStoreConfig mapStoreConfig = null;
@@ -73,6 +79,8 @@ public class MapConfig implements DataSerializable {
 
     private boolean cacheValue = DEFAULT_CACHE_VALUE;
 
+    private boolean statisticsEnabled = DEFAULT_STATISTICS_ENABLED;
+
     private String mergePolicy = DEFAULT_MERGE_POLICY;
 
     private WanReplicationRef wanReplicationRef;
@@ -103,11 +111,13 @@ public class MapConfig implements DataSerializable {
         this.evictionDelaySeconds = config.evictionDelaySeconds;
         this.maxSizeConfig = config.maxSizeConfig;
         this.evictionPolicy = config.evictionPolicy;
+        this.evictionSampleSize = config.evictionSampleSize;
         this.valueIndexed = config.valueIndexed;
         this.mapStoreConfig = config.mapStoreConfig;
         this.nearCacheConfig = config.nearCacheConfig;
         this.readBackupData = config.readBackupData;
         this.cacheValue = config.cacheValue;
+        this.statisticsEnabled = config.statisticsEnabled;
         this.mergePolicy = config.mergePolicy;
     }
 
@@ -322,6 +332,29 @@ public class MapConfig implements DataSerializable {
         return this;
     }
 
+    /**
+     * @return the evictionSampleSize
+     */
+    public int getEvictionSampleSize() {
+        return evictionSampleSize;
+    }
+
+    /**
+     * When greater than 0, eviction candidates are not sorted as a whole. Instead they are
+     * grouped into samples of this size and the least recently/frequently used entries of
+     * each sample are evicted. 0 (default) sorts all candidates by the eviction policy.
+     *
+     * @param evictionSampleSize the evictionSampleSize to set
+     * @throws IllegalArgumentException if evictionSampleSize is negative.
+     */
+    public MapConfig setEvictionSampleSize(int evictionSampleSize) {
+        if (evictionSampleSize < MIN_EVICTION_SAMPLE_SIZE) {
+            throw new IllegalArgumentException("eviction sample size must be greater or equal than 0");
+        }
+        this.evictionSampleSize = evictionSampleSize;
+        return this;
+    }
+
     /**
      * Returns the map store configuration
      *
@@ -368,6 +401,25 @@ public class MapConfig implements DataSerializable {
         return this;
     }
 
+    /**
+     * @return true if hits and last access time of the entries are tracked
+     */
+    public boolean isStatisticsEnabled() {
+        return statisticsEnabled;
+    }
+
+    /**
+     * Disabling statistics lets the map use compact records, with no hits, last access
+     * and expiration time fields, as long as neither time-to-live, max idle nor an eviction
+     * policy needs them. Hits and last access time of such a map are then always 0.
+     *
+     * @param statisticsEnabled false to stop tracking hits and last access time of the entries
+     */
+    public MapConfig setStatisticsEnabled(boolean statisticsEnabled) {
+        this.statisticsEnabled = statisticsEnabled;
+        return this;
+    }
+
     public WanReplicationRef getWanReplicationRef() {
         return wanReplicationRef;
     }
@@ -418,6 +470,10 @@ public class MapConfig implements DataSerializable {
         this.mapIndexConfigs = mapIndexConfigs;
     }
 
+    /**
+     * Statistics and the eviction sample size are not compared: they only change how
+     * each member tracks and evicts the entries it owns, not what the members store.
+     */
     public boolean isCompatible(MapConfig other) {
         if (this == other)
             return true;
@@ -442,6 +498,7 @@ public class MapConfig implements DataSerializable {
         result = prime * result + this.backupCount;
         result = prime * result + this.evictionDelaySeconds;
         result = prime * result + this.evictionPercentage;
+        result = prime * result + this.evictionSampleSize;
         result = prime
                 * result
                 + ((this.evictionPolicy == null) ? 0 : this.evictionPolicy
@@ -464,6 +521,7 @@ public class MapConfig implements DataSerializable {
         result = prime * result + this.timeToLiveSeconds;
         result = prime * result + (this.readBackupData ? 1231 : 1237);
         result = prime * result + (this.valueIndexed ? 1231 : 1237);
+        result = prime * result + (this.statisticsEnabled ? 1231 : 1237);
         return result;
     }
 
@@ -479,11 +537,13 @@ public class MapConfig implements DataSerializable {
                         this.backupCount == other.backupCount &&
                         this.evictionDelaySeconds == other.evictionDelaySeconds &&
                         this.evictionPercentage == other.evictionPercentage &&
+                        this.evictionSampleSize == other.evictionSampleSize &&
                         this.maxIdleSeconds == other.maxIdleSeconds &&
                         this.maxSizeConfig.getSize() == other.maxSizeConfig.getSize() &&
                         this.timeToLiveSeconds == other.timeToLiveSeconds &&
                         this.readBackupData == other.readBackupData &&
                         this.valueIndexed == other.valueIndexed &&
+                        this.statisticsEnabled == other.statisticsEnabled &&
                         (this.mergePolicy != null ? this.mergePolicy.equals(other.mergePolicy) : other.mergePolicy == null) &&
                         (this.evictionPolicy != null ? this.evictionPolicy.equals(other.evictionPolicy) : other.evictionPolicy == null) &&
                         (this.mapStoreConfig != null ? this.mapStoreConfig.equals(other.mapStoreConfig) : other.mapStoreConfig == null) &&
@@ -502,9 +562,11 @@ public class MapConfig implements DataSerializable {
                 ", evictionDelaySeconds=" + evictionDelaySeconds +
                 ", maxSizeConfig=" + maxSizeConfig +
                 ", evictionPolicy='" + evictionPolicy + '\'' +
+                ", evictionSampleSize=" + evictionSampleSize +
                 ", mapStoreConfig=" + mapStoreConfig +
                 ", nearCacheConfig=" + nearCacheConfig +
                 ", readBackupData=" + readBackupData +
+                ", statisticsEnabled=" + statisticsEnabled +
                 ", wanReplicationRef=" + wanReplicationRef +
                 '}';
     }
@@ -521,8 +583,10 @@ public class MapConfig implements DataSerializable {
         valueIndexed = b[0];
         readBackupData = b[1];
         cacheValue = b[2];
+        statisticsEnabled = !b[3];
         evictionPolicy = in.readUTF();
         mergePolicy = in.readUTF();
+        evictionSampleSize = b[4] ? in.readInt() : DEFAULT_EVICTION_SAMPLE_SIZE;
         // TODO: MapStoreConfig mapStoreConfig
         // TODO: NearCacheConfig nearCacheConfig
     }
@@ -535,9 +599,17 @@ public class MapConfig implements DataSerializable {
         out.writeInt(maxIdleSeconds);
         out.writeInt(evictionDelaySeconds);
         maxSizeConfig.writeData(out);
-        out.writeByte(ByteUtil.toByte(valueIndexed, readBackupData, cacheValue));
+        // the fourth bit flags disabled statistics, so the configs of the previous versions,
+        // with the bit clear, keep the default; the eviction sample size is written only when
+        // it is set, flagged by the fifth bit, so a config using the default is read by the
+        // members of the previous versions
+        final boolean evictionSampled = evictionSampleSize != DEFAULT_EVICTION_SAMPLE_SIZE;
+        out.writeByte(ByteUtil.toByte(valueIndexed, readBackupData, cacheValue, !statisticsEnabled, evictionSampled));
         out.writeUTF(evictionPolicy);
         out.writeUTF(mergePolicy);
+        if (evictionSampled) {
+            out.writeInt(evictionSampleSize);
+        }
         // TODO: MapStoreConfig mapStoreConfig
         // TODO: NearCacheConfig nearCacheConfig
     }
@@ -23,15 +23,32 @@ import java.util.Properties;
  */
 public final class MapStoreConfig {
     public static final int DEFAULT_WRITE_DELAY_SECONDS = 0;
+    public static final int DEFAULT_WRITE_BATCH_SIZE = 1000;
+    public static final int DEFAULT_WRITE_BEHIND_QUEUE_CAPACITY = 0;
 
     private boolean enabled = true;
     private String className = null;
     private String factoryClassName = null;
     private int writeDelaySeconds = DEFAULT_WRITE_DELAY_SECONDS;
+    private int writeBatchSize = DEFAULT_WRITE_BATCH_SIZE;
+    private int writeBehindQueueCapacity = DEFAULT_WRITE_BEHIND_QUEUE_CAPACITY;
+    private InitialLoadMode initialLoadMode = InitialLoadMode.EAGER;
     private Object implementation;
     private Object factoryImplementation;
     private Properties properties = new Properties();
 
+    public enum InitialLoadMode {
+        /**
+         * The map is returned once each member has loaded the keys of its partitions.
+         */
+        EAGER,
+        /**
+         * The map is returned right away. A partition is loaded as soon as one of its keys
+         * is accessed and the remaining partitions are loaded in the background.
+         */
+        LAZY
+    }
+
     /**
      * Returns the name of the MapStore implementation class
      *
@@ -89,6 +106,67 @@ public final class MapStoreConfig {
         return this;
     }
 
+    /**
+     * Returns the max number of dirty entries passed to a single storeAll call
+     * when write-behind is enabled.
+     *
+     * @return the max batch size, 0 means unlimited
+     */
+    public int getWriteBatchSize() {
+        return writeBatchSize;
+    }
+
+    /**
+     * Sets the max number of dirty entries passed to a single storeAll call
+     * when write-behind is enabled.
+     *
+     * @param writeBatchSize the max batch size, 0 means unlimited
+     */
+    public MapStoreConfig setWriteBatchSize(int writeBatchSize) {
+        this.writeBatchSize = writeBatchSize;
+        return this;
+    }
+
+    /**
+     * Returns the max number of dirty entries a member keeps for write-behind.
+     * Puts, replaces, merges and removes adding new dirty entries are retried
+     * until the store catches up once the capacity is reached.
+     *
+     * @return the capacity, 0 means unbounded
+     */
+    public int getWriteBehindQueueCapacity() {
+        return writeBehindQueueCapacity;
+    }
+
+    /**
+     * Sets the max number of dirty entries a member keeps for write-behind.
+     *
+     * @param writeBehindQueueCapacity the capacity, 0 means unbounded
+     */
+    public MapStoreConfig setWriteBehindQueueCapacity(int writeBehindQueueCapacity) {
+        this.writeBehindQueueCapacity = writeBehindQueueCapacity;
+        return this;
+    }
+
+    /**
+     * Returns how the keys returned by MapLoader.loadAllKeys are loaded when the map is created.
+     *
+     * @return the initial load mode, EAGER by default
+     */
+    public InitialLoadMode getInitialLoadMode() {
+        return initialLoadMode;
+    }
+
+    /**
+     * Sets how the keys returned by MapLoader.loadAllKeys are loaded when the map is created.
+     *
+     * @param initialLoadMode the initial load mode
+     */
+    public MapStoreConfig setInitialLoadMode(InitialLoadMode initialLoadMode) {
+        this.initialLoadMode = initialLoadMode;
+        return this;
+    }
+
     /**
      * Returns if this configuration is enabled
      *
@@ -171,6 +249,9 @@ public final class MapStoreConfig {
                 "className='" + className + '\'' +
                 ", enabled=" + enabled +
                 ", writeDelaySeconds=" + writeDelaySeconds +
+                ", writeBatchSize=" + writeBatchSize +
+                ", writeBehindQueueCapacity=" + writeBehindQueueCapacity +
+                ", initialLoadMode=" + initialLoadMode +
                 ", implementation=" + implementation +
                 ", properties=" + properties +
                 '}';
@@ -17,6 +17,7 @@
 package com.hazelcast.config;
 
 import com.hazelcast.nio.DataSerializable;
+import com.hazelcast.util.ByteUtil;
 
 import java.io.DataInput;
 import java.io.DataOutput;
@@ -28,18 +29,43 @@ public final class TopicConfig implements DataSerializable {
 
     public final static boolean DEFAULT_GLOBAL_ORDERING_ENABLED = false;
 
+    public final static int DEFAULT_SUBSCRIBER_QUEUE_CAPACITY = 0;
+
     private String name;
 
     private boolean globalOrderingEnabled = DEFAULT_GLOBAL_ORDERING_ENABLED;
 
     private List<ListenerConfig> listenerConfigs;
 
+    private int subscriberQueueCapacity = DEFAULT_SUBSCRIBER_QUEUE_CAPACITY;
+
+    private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+
+    public enum OverflowPolicy {
+        /**
+         * Publishing waits until the subscriber takes a message from its queue.
+         * Messages published on other members are queued beyond the capacity instead,
+         * their publishers are held back by the pending publishes of their own member.
+         */
+        BLOCK,
+        /**
+         * The oldest message in the queue of the subscriber is dropped.
+         */
+        DROP_OLDEST,
+        /**
+         * The message is dropped for the subscriber; local publishes throw an exception.
+         */
+        FAIL
+    }
+
     public TopicConfig() {
     }
 
     public TopicConfig(TopicConfig config) {
         this.name = config.name;
         this.globalOrderingEnabled = config.globalOrderingEnabled;
+        this.subscriberQueueCapacity = config.subscriberQueueCapacity;
+        this.overflowPolicy = config.overflowPolicy;
     }
 
     /**
@@ -72,6 +98,37 @@ public final class TopicConfig implements DataSerializable {
         return this;
     }
 
+    /**
+     * @return max number of messages waiting to be delivered to a message listener, 0 means unbounded
+     */
+    public int getSubscriberQueueCapacity() {
+        return subscriberQueueCapacity;
+    }
+
+    /**
+     * @param subscriberQueueCapacity max number of messages waiting to be delivered to
+     *                                a message listener, 0 means unbounded
+     */
+    public TopicConfig setSubscriberQueueCapacity(int subscriberQueueCapacity) {
+        this.subscriberQueueCapacity = subscriberQueueCapacity;
+        return this;
+    }
+
+    /**
+     * @return what happens to a message when the queue of a message listener is full
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * @param overflowPolicy what happens to a message when the queue of a message listener is full
+     */
+    public TopicConfig setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+        return this;
+    }
+
     public TopicConfig addMessageListenerConfig(ListenerConfig listenerConfig) {
         getMessageListenerConfigs().add(listenerConfig);
         return this;
@@ -108,16 +165,34 @@ public final class TopicConfig implements DataSerializable {
 
     @Override
     public String toString() {
-        return "TopicConfig [name=" + name + ", globalOrderingEnabled=" + globalOrderingEnabled + "]";
+        return "TopicConfig [name=" + name + ", globalOrderingEnabled=" + globalOrderingEnabled
+                + ", subscriberQueueCapacity=" + subscriberQueueCapacity + ", overflowPolicy=" + overflowPolicy + "]";
     }
 
     public void writeData(DataOutput out) throws IOException {
         out.writeUTF(name);
-        out.writeBoolean(globalOrderingEnabled);
+        // the queue settings are written only when they are set, flagged by the second bit of
+        // the byte the previous versions write the global ordering flag in, so a config using
+        // the defaults is read by the members of the previous versions
+        final boolean queueConfigured = subscriberQueueCapacity != DEFAULT_SUBSCRIBER_QUEUE_CAPACITY
+                || overflowPolicy != OverflowPolicy.BLOCK;
+        out.writeByte(ByteUtil.toByte(globalOrderingEnabled, queueConfigured));
+        if (queueConfigured) {
+            out.writeInt(subscriberQueueCapacity);
+            out.writeUTF(overflowPolicy.name());
+        }
     }
 
     public void readData(DataInput in) throws IOException {
         name = in.readUTF();
-        globalOrderingEnabled = in.readBoolean();
+        boolean[] b = ByteUtil.fromByte(in.readByte());
+        globalOrderingEnabled = b[0];
+        if (b[1]) {
+            subscriberQueueCapacity = in.readInt();
+            overflowPolicy = OverflowPolicy.valueOf(in.readUTF());
+        } else {
+            subscriberQueueCapacity = DEFAULT_SUBSCRIBER_QUEUE_CAPACITY;
+            overflowPolicy = OverflowPolicy.BLOCK;
+        }
     }
 }
@@ -18,6 +18,7 @@ package com.hazelcast.config;
 
 import com.hazelcast.config.LoginModuleConfig.LoginModuleUsage;
 import com.hazelcast.config.MapConfig.StorageType;
+import com.hazelcast.config.MapStoreConfig.InitialLoadMode;
 import com.hazelcast.config.PartitionGroupConfig.MemberGroupType;
 import com.hazelcast.config.PermissionConfig.PermissionType;
 import com.hazelcast.impl.Util;
@@ -658,6 +659,9 @@ public class XmlConfigBuilder extends AbstractXmlConfigHelper implements ConfigB
             } else if ("eviction-percentage".equals(nodeName)) {
                 mapConfig.setEvictionPercentage(getIntegerValue("eviction-percentage", value,
                         MapConfig.DEFAULT_EVICTION_PERCENTAGE));
+            } else if ("eviction-sample-size".equals(nodeName)) {
+                mapConfig.setEvictionSampleSize(getIntegerValue("eviction-sample-size", value,
+                        MapConfig.DEFAULT_EVICTION_SAMPLE_SIZE));
             } else if ("eviction-delay-seconds".equals(nodeName)) {
                 mapConfig.setEvictionDelaySeconds(getIntegerValue("eviction-delay-seconds", value,
                         MapConfig.DEFAULT_EVICTION_DELAY_SECONDS));
@@ -678,6 +682,8 @@ public class XmlConfigBuilder extends AbstractXmlConfigHelper implements ConfigB
                 mapConfig.setCacheValue(checkTrue(value));
             } else if ("read-backup-data".equals(nodeName)) {
                 mapConfig.setReadBackupData(checkTrue(value));
+            } else if ("statistics-enabled".equals(nodeName)) {
+                mapConfig.setStatisticsEnabled(checkTrue(value));
             } else if ("wan-replication-ref".equals(nodeName)) {
                 WanReplicationRef wanReplicationRef = new WanReplicationRef();
                 final String wanName = getAttribute(n, "name");
@@ -735,6 +741,14 @@ public class XmlConfigBuilder extends AbstractXmlConfigHelper implements ConfigB
             } else if ("write-delay-seconds".equals(nodeName)) {
                 mapStoreConfig.setWriteDelaySeconds(getIntegerValue("write-delay-seconds", getTextContent(n).trim(),
                         MapStoreConfig.DEFAULT_WRITE_DELAY_SECONDS));
+            } else if ("write-batch-size".equals(nodeName)) {
+                mapStoreConfig.setWriteBatchSize(getIntegerValue("write-batch-size", getTextContent(n).trim(),
+                        MapStoreConfig.DEFAULT_WRITE_BATCH_SIZE));
+            } else if ("write-behind-queue-capacity".equals(nodeName)) {
+                mapStoreConfig.setWriteBehindQueueCapacity(getIntegerValue("write-behind-queue-capacity",
+                        getTextContent(n).trim(), MapStoreConfig.DEFAULT_WRITE_BEHIND_QUEUE_CAPACITY));
+            } else if ("initial-load-mode".equals(nodeName)) {
+                mapStoreConfig.setInitialLoadMode(InitialLoadMode.valueOf(getTextContent(n).trim().toUpperCase()));
             } else if ("properties".equals(nodeName)) {
                 handleProperties(n, mapStoreConfig.getProperties());
             }
@@ -789,6 +803,11 @@ public class XmlConfigBuilder extends AbstractXmlConfigHelper implements ConfigB
             final String nodeName = cleanNodeName(n.getNodeName());
             if (nodeName.equals("global-ordering-enabled")) {
                 tConfig.setGlobalOrderingEnabled(checkTrue(getValue(n)));
+            } else if ("subscriber-queue-capacity".equals(nodeName)) {
+                tConfig.setSubscriberQueueCapacity(getIntegerValue("subscriber-queue-capacity", getValue(n),
+                        TopicConfig.DEFAULT_SUBSCRIBER_QUEUE_CAPACITY));
+            } else if ("overflow-policy".equals(nodeName)) {
+                tConfig.setOverflowPolicy(TopicConfig.OverflowPolicy.valueOf(getValue(n).toUpperCase()));
             } else if ("message-listeners".equals(nodeName)) {
                 for (org.w3c.dom.Node listenerNode : new IterableNodeList(n.getChildNodes())) {
                     if ("message-listener".equals(cleanNodeName(listenerNode))) {
@@ -501,8 +501,22 @@ public interface IMap<K, V> extends ConcurrentMap<K, V>, Instance {
      * Index attribute should either have a getter method or be public.
      * You should also make sure to add the indexes before adding
      * entries to this map.
+     * <p/>
+     * Attributes that are mostly queried together with equality can be
+     * indexed by a single composite index by giving them comma separated.
+     * The composite index is used when the query has an equal predicate
+     * for each of its attributes, rest of the query is applied to its results.
+     * An ordered composite index is also used when the query has an equal
+     * predicate for its first attributes, optionally followed by a range
+     * predicate (&lt;, &lt;=, &gt;, &gt;= or between) for the next attribute.
+     * <pre>
+     *   imap.addIndex("status,region", false);
+     *   imap.values(new SqlPredicate("status = 'X' AND region = 'Y' AND ts > 1000"));
+     *   imap.addIndex("status,region,ts", true);
+     *   imap.values(new SqlPredicate("status = 'X' AND region = 'Y' AND ts > 1000"));
+     * </pre>
      *
-     * @param attribute attribute of value
+     * @param attribute attribute of value, or comma separated attributes for a composite index
      * @param ordered   <tt>true</tt> if index should be ordered,
      *                  <tt>false</tt> otherwise.
      */
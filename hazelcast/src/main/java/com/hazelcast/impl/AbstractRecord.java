@@ -27,18 +27,20 @@ import java.util.concurrent.ConcurrentHashMap;
 
 import static com.hazelcast.nio.IOUtil.toObject;
 
+/**
+ * Base of the records supporting locks, listeners and backup ops. Access statistics
+ * (hits, last access time) are not kept and max idle is not supported by this base;
+ * expiration time is kept in the optional info once a ttl is set.
+ * {@link AbstractStatsRecord} keeps all of them in fields.
+ */
 @SuppressWarnings("VolatileLongOrDoubleField")
 public abstract class AbstractRecord extends AbstractSimpleRecord implements Record {
 
-    protected volatile int hits = 0;
     protected volatile long version = 0;
-    protected volatile long maxIdleMillis = Long.MAX_VALUE;
     protected volatile long writeTime = -1;
     protected volatile long removeTime = 0;
-    protected volatile long lastAccessTime = 0;
     protected volatile long lastStoredTime = 0;
     protected volatile long creationTime = 0;
-    protected volatile long expirationTime = Long.MAX_VALUE;
     protected volatile long lastUpdateTime = 0;
     protected volatile boolean dirty = false;
 
@@ -46,11 +48,9 @@ public abstract class AbstractRecord extends AbstractSimpleRecord implements Rec
 
     protected volatile OptionalInfo optionalInfo = null;
 
-    public AbstractRecord(CMap cmap, int blockId, Data key, long ttl, long maxIdleMillis, long id) {
+    public AbstractRecord(CMap cmap, int blockId, Data key, long id) {
         super(blockId, cmap, id, key);
         this.setCreationTime(System.currentTimeMillis());
-        this.setExpirationTime(ttl);
-        this.maxIdleMillis = (maxIdleMillis == 0) ? Long.MAX_VALUE : maxIdleMillis;
         this.setVersion(0);
     }
 
@@ -182,6 +182,7 @@ public abstract class AbstractRecord extends AbstractSimpleRecord implements Rec
     }
 
     public void setLastUpdated() {
+        final long expirationTime = getExpirationTime();
         if (expirationTime != Long.MAX_VALUE && expirationTime > 0) {
             long ttl = expirationTime - (lastUpdateTime > 0L ? lastUpdateTime : creationTime);
             setExpirationTime(ttl);
@@ -190,15 +191,14 @@ public abstract class AbstractRecord extends AbstractSimpleRecord implements Rec
     }
 
     public void setLastAccessed() {
-        setLastAccessTime(System.currentTimeMillis());
-        incrementHits();
     }
 
     public long getExpirationTime() {
-        return expirationTime;
+        return (optionalInfo == null) ? Long.MAX_VALUE : optionalInfo.expirationTime;
     }
 
     public long getRemainingTTL() {
+        final long expirationTime = getExpirationTime();
         if (expirationTime == Long.MAX_VALUE) {
             return Long.MAX_VALUE;
         } else {
@@ -208,42 +208,28 @@ public abstract class AbstractRecord extends AbstractSimpleRecord implements Rec
     }
 
     public long getRemainingIdle() {
-        if (maxIdleMillis == Long.MAX_VALUE) {
-            return Long.MAX_VALUE;
-        } else {
-            long lastTouch = Math.max(lastAccessTime, creationTime);
-            long idle = System.currentTimeMillis() - lastTouch;
-            return maxIdleMillis - idle;
-        }
+        return Long.MAX_VALUE;
     }
 
     public void setMaxIdle(long idle) {
-        if (idle <= 0 || idle == Long.MAX_VALUE) {
-            maxIdleMillis = Long.MAX_VALUE;
-        } else {
-            maxIdleMillis = idle;
-        }
     }
 
     public void setExpirationTime(long ttl) {
         if (ttl <= 0 || ttl == Long.MAX_VALUE) {
-            expirationTime = Long.MAX_VALUE;
+            if (optionalInfo != null) {
+                optionalInfo.expirationTime = Long.MAX_VALUE;
+            }
         } else {
-            expirationTime = System.currentTimeMillis() + ttl;
+            getOptionalInfo().expirationTime = System.currentTimeMillis() + ttl;
         }
     }
 
     public void setInvalid() {
-        expirationTime = (System.currentTimeMillis() - 10);
+        getOptionalInfo().expirationTime = (System.currentTimeMillis() - 10);
     }
 
     public boolean isValid(long now) {
-        if (expirationTime == Long.MAX_VALUE && maxIdleMillis == Long.MAX_VALUE) {
-            return true;
-        }
-        long lastTouch = Math.max(lastAccessTime, creationTime);
-        long idle = now - lastTouch;
-        return expirationTime > now && (maxIdleMillis > idle);
+        return getExpirationTime() > now;
     }
 
     public boolean isValid() {
@@ -293,11 +279,10 @@ public abstract class AbstractRecord extends AbstractSimpleRecord implements Rec
     }
 
     public long getLastAccessTime() {
-        return lastAccessTime;
+        return 0;
     }
 
     public void setLastAccessTime(long lastAccessTime) {
-        this.lastAccessTime = lastAccessTime;
     }
 
     public long getLastUpdateTime() {
@@ -309,11 +294,10 @@ public abstract class AbstractRecord extends AbstractSimpleRecord implements Rec
     }
 
     public int getHits() {
-        return hits;
+        return 0;
     }
 
     public void incrementHits() {
-        hits++;
     }
 
     public void setActive(boolean active) {
@@ -460,5 +444,6 @@ public abstract class AbstractRecord extends AbstractSimpleRecord implements Rec
         List<ScheduledAction> lsScheduledActions = null;
         SortedSet<VersionedBackupOp> backupOps = null;
         Map<Address, Boolean> mapListeners = null;
+        volatile long expirationTime = Long.MAX_VALUE; // only used by records without the expiration field
     }
 }
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2008-2012, Hazel Bilisim Ltd. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.impl;
+
+import com.hazelcast.nio.Data;
+
+/**
+ * Record keeping access statistics, expiration and max idle time in its own fields.
+ */
+@SuppressWarnings("VolatileLongOrDoubleField")
+public abstract class AbstractStatsRecord extends AbstractRecord {
+
+    protected volatile int hits = 0;
+    protected volatile long maxIdleMillis = Long.MAX_VALUE;
+    protected volatile long lastAccessTime = 0;
+    protected volatile long expirationTime = Long.MAX_VALUE;
+
+    public AbstractStatsRecord(CMap cmap, int blockId, Data key, long ttl, long maxIdleMillis, long id) {
+        super(cmap, blockId, key, id);
+        this.setExpirationTime(ttl);
+        this.maxIdleMillis = (maxIdleMillis == 0) ? Long.MAX_VALUE : maxIdleMillis;
+    }
+
+    public void setLastAccessed() {
+        setLastAccessTime(System.currentTimeMillis());
+        incrementHits();
+    }
+
+    public long getExpirationTime() {
+        return expirationTime;
+    }
+
+    public long getRemainingIdle() {
+        if (maxIdleMillis == Long.MAX_VALUE) {
+            return Long.MAX_VALUE;
+        } else {
+            long lastTouch = Math.max(lastAccessTime, creationTime);
+            long idle = System.currentTimeMillis() - lastTouch;
+            return maxIdleMillis - idle;
+        }
+    }
+
+    public void setMaxIdle(long idle) {
+        if (idle <= 0 || idle == Long.MAX_VALUE) {
+            maxIdleMillis = Long.MAX_VALUE;
+        } else {
+            maxIdleMillis = idle;
+        }
+    }
+
+    public void setExpirationTime(long ttl) {
+        if (ttl <= 0 || ttl == Long.MAX_VALUE) {
+            expirationTime = Long.MAX_VALUE;
+        } else {
+            expirationTime = System.currentTimeMillis() + ttl;
+        }
+    }
+
+    public void setInvalid() {
+        expirationTime = (System.currentTimeMillis() - 10);
+    }
+
+    public boolean isValid(long now) {
+        if (expirationTime == Long.MAX_VALUE && maxIdleMillis == Long.MAX_VALUE) {
+            return true;
+        }
+        long lastTouch = Math.max(lastAccessTime, creationTime);
+        long idle = now - lastTouch;
+        return expirationTime > now && (maxIdleMillis > idle);
+    }
+
+    public long getLastAccessTime() {
+        return lastAccessTime;
+    }
+
+    public void setLastAccessTime(long lastAccessTime) {
+        this.lastAccessTime = lastAccessTime;
+    }
+
+    public int getHits() {
+        return hits;
+    }
+
+    public void incrementHits() {
+        hits++;
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2008-2012, Hazel Bilisim Ltd. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.impl;
+
+import com.hazelcast.nio.Address;
+import com.hazelcast.nio.Data;
+import com.hazelcast.nio.DataSerializable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Backup operations sent to a member in one packet. The new value of a backup put
+ * can be sent as a delta of the previous value instead, see {@link Delta}.
+ */
+public class BackupBatch implements DataSerializable {
+
+    private final List<Request> requests = new ArrayList<Request>();
+    private final List<Delta> deltas = new ArrayList<Delta>();
+
+    public BackupBatch() {
+    }
+
+    /**
+     * @param delta delta of the new value to be sent instead of request.value, null to send the value
+     */
+    public void add(Request request, Delta delta) {
+        requests.add(request);
+        deltas.add(delta);
+    }
+
+    public int size() {
+        return requests.size();
+    }
+
+    public Request getRequest(int index) {
+        return requests.get(index);
+    }
+
+    public Delta getDelta(int index) {
+        return deltas.get(index);
+    }
+
+    public void writeData(DataOutput out) throws IOException {
+        out.writeInt(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            final Request request = requests.get(i);
+            final Delta delta = deltas.get(i);
+            out.writeShort(request.operation.getValue());
+            out.writeUTF(request.name);
+            request.key.writeData(out);
+            out.writeLong(request.callId);
+            out.writeInt(request.blockId);
+            out.writeLong(request.timeout);
+            out.writeLong(request.ttl);
+            out.writeLong(request.txnId);
+            out.writeInt(request.lockThreadId);
+            out.writeInt(request.lockCount);
+            out.writeLong(request.longValue);
+            out.writeLong(request.version);
+            out.writeBoolean(request.lockAddress != null);
+            if (request.lockAddress != null) {
+                request.lockAddress.writeData(out);
+            }
+            final int indexCount = (request.indexes == null) ? 0 : request.indexes.length;
+            out.writeByte(indexCount);
+            for (int j = 0; j < indexCount; j++) {
+                out.writeLong(request.indexes[j]);
+                out.writeByte(request.indexTypes[j]);
+            }
+            if (delta != null) {
+                out.writeByte(2);
+                delta.writeData(out);
+            } else if (request.value != null) {
+                out.writeByte(1);
+                request.value.writeData(out);
+            } else {
+                out.writeByte(0);
+            }
+        }
+    }
+
+    public void readData(DataInput in) throws IOException {
+        final int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            final Request request = new Request();
+            request.local = false;
+            request.operation = ClusterOperation.create(in.readShort());
+            request.name = in.readUTF();
+            request.key = new Data();
+            request.key.readData(in);
+            request.callId = in.readLong();
+            request.blockId = in.readInt();
+            request.timeout = in.readLong();
+            request.ttl = in.readLong();
+            request.txnId = in.readLong();
+            request.lockThreadId = in.readInt();
+            request.lockCount = in.readInt();
+            request.longValue = in.readLong();
+            request.version = in.readLong();
+            if (in.readBoolean()) {
+                request.lockAddress = new Address();
+                request.lockAddress.readData(in);
+            }
+            final int indexCount = in.readByte();
+            if (indexCount > 0) {
+                request.indexes = new Long[indexCount];
+                request.indexTypes = new byte[indexCount];
+                for (int j = 0; j < indexCount; j++) {
+                    request.indexes[j] = in.readLong();
+                    request.indexTypes[j] = in.readByte();
+                }
+            }
+            Delta delta = null;
+            final byte valueType = in.readByte();
+            if (valueType == 2) {
+                delta = new Delta();
+                delta.readData(in);
+            } else if (valueType == 1) {
+                request.value = new Data();
+                request.value.readData(in);
+            }
+            add(request, delta);
+        }
+    }
+
+    /**
+     * Bytes of a new value differing from the previous value, between their common prefix and suffix.
+     * The previous value is identified by its size and checksum, so the delta is applied only
+     * to the value it is created from.
+     */
+    public static class Delta {
+        private int baseSize;
+        private long baseChecksum;
+        private int prefixLength;
+        private int suffixLength;
+        private byte[] bytes;
+
+        public Delta() {
+        }
+
+        /**
+         * @return the delta of the value or null if it is not smaller than half of the value
+         */
+        public static Delta create(Data base, Data value) {
+            final byte[] baseBuffer = base.buffer;
+            final byte[] valueBuffer = value.buffer;
+            if (baseBuffer == null || valueBuffer == null) {
+                return null;
+            }
+            final int maxLength = Math.min(baseBuffer.length, valueBuffer.length);
+            int prefixLength = 0;
+            while (prefixLength < maxLength && baseBuffer[prefixLength] == valueBuffer[prefixLength]) {
+                prefixLength++;
+            }
+            int suffixLength = 0;
+            while (suffixLength < maxLength - prefixLength
+                    && baseBuffer[baseBuffer.length - 1 - suffixLength] == valueBuffer[valueBuffer.length - 1 - suffixLength]) {
+                suffixLength++;
+            }
+            final int deltaLength = valueBuffer.length - prefixLength - suffixLength;
+            if (deltaLength > valueBuffer.length / 2) {
+                return null;
+            }
+            final Delta delta = new Delta();
+            delta.baseSize = baseBuffer.length;
+            delta.baseChecksum = checksum(baseBuffer);
+            delta.prefixLength = prefixLength;
+            delta.suffixLength = suffixLength;
+            delta.bytes = new byte[deltaLength];
+            System.arraycopy(valueBuffer, prefixLength, delta.bytes, 0, deltaLength);
+            return delta;
+        }
+
+        /**
+         * @return the new value or null if the delta is not created from the given value
+         */
+        public Data apply(Data base) {
+            if (base == null || base.size() != baseSize || checksum(base.buffer) != baseChecksum) {
+                return null;
+            }
+            final byte[] valueBuffer = new byte[prefixLength + bytes.length + suffixLength];
+            System.arraycopy(base.buffer, 0, valueBuffer, 0, prefixLength);
+            System.arraycopy(bytes, 0, valueBuffer, prefixLength, bytes.length);
+            System.arraycopy(base.buffer, baseSize - suffixLength, valueBuffer, prefixLength + bytes.length, suffixLength);
+            return new Data(valueBuffer);
+        }
+
+        /**
+         * @return bytes of the value not sent
+         */
+        public int getSavedBytes() {
+            return prefixLength + suffixLength;
+        }
+
+        public int size() {
+            return bytes.length;
+        }
+
+        void writeData(DataOutput out) throws IOException {
+            out.writeInt(baseSize);
+            out.writeLong(baseChecksum);
+            out.writeInt(prefixLength);
+            out.writeInt(suffixLength);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        void readData(DataInput in) throws IOException {
+            baseSize = in.readInt();
+            baseChecksum = in.readLong();
+            prefixLength = in.readInt();
+            suffixLength = in.readInt();
+            bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+        }
+
+        private static long checksum(byte[] buffer) {
+            final CRC32 crc = new CRC32();
+            crc.update(buffer, 0, buffer.length);
+            return crc.getValue();
+        }
+    }
+}
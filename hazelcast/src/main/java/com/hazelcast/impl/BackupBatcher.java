@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2008-2012, Hazel Bilisim Ltd. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.impl;
+
+import com.hazelcast.impl.ConcurrentMapManager.MBackup;
+import com.hazelcast.nio.Address;
+import com.hazelcast.nio.Connection;
+import com.hazelcast.nio.Data;
+import com.hazelcast.nio.Packet;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.hazelcast.nio.IOUtil.toData;
+
+/**
+ * Collects the backup operations sent to the other members by the service thread
+ * and sends them in one packet per member, when the service thread processes the flush
+ * enqueued after the first of them or when the batch of a member reaches BACKUP_BATCH_SIZE.
+ * Batching is off by default and must be enabled by BACKUP_BATCH_ENABLED on all members,
+ * members of older versions don't know the batch operations.
+ * <p/>
+ * Also counts the backup operations of each partition not acknowledged yet,
+ * that is the number of versions the backups of the partition are behind.
+ */
+class BackupBatcher {
+    private static final int ENTRY_OVERHEAD = 64;
+
+    private final ConcurrentMapManager concurrentMapManager;
+    private final boolean enabled;
+    private final long maxBatchBytes;
+    private final long deltaMinSize;
+    private final AtomicIntegerArray backupLag;
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong batchedBackupCount = new AtomicLong();
+    private final AtomicLong deltaBytesSaved = new AtomicLong();
+    // accessed only by the ServiceThread
+    private final Map<Address, Batch> batches = new HashMap<Address, Batch>();
+    private boolean flushScheduled = false;
+
+    private final Processable flushProcess = new Processable() {
+        public void process() {
+            flush();
+        }
+    };
+
+    BackupBatcher(ConcurrentMapManager concurrentMapManager) {
+        this.concurrentMapManager = concurrentMapManager;
+        final GroupProperties groupProperties = concurrentMapManager.node.groupProperties;
+        this.enabled = groupProperties.BACKUP_BATCH_ENABLED.getBoolean();
+        this.maxBatchBytes = Math.max(1, groupProperties.BACKUP_BATCH_SIZE.getMemorySize());
+        this.deltaMinSize = groupProperties.BACKUP_DELTA_MIN_SIZE.getMemorySize();
+        this.backupLag = new AtomicIntegerArray(concurrentMapManager.PARTITION_COUNT);
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the delta of the value to send to the backups instead of the value
+     *         or null if delta encoding is disabled or does not pay off
+     */
+    BackupBatch.Delta createDelta(Data base, Data value) {
+        if (!enabled || deltaMinSize <= 0 || base == null || value == null || value.size() < deltaMinSize) {
+            return null;
+        }
+        return BackupBatch.Delta.create(base, value);
+    }
+
+    /**
+     * Adds the backup to the batch of its target. Called by the ServiceThread
+     * after the backup is registered as a remote call.
+     */
+    void add(Address target, MBackup backup) {
+        Batch batch = batches.get(target);
+        if (batch == null) {
+            batch = new Batch();
+            batches.put(target, batch);
+        }
+        batch.add(backup);
+        if (batch.bytes >= maxBatchBytes) {
+            batches.remove(target);
+            send(target, batch);
+        } else if (!flushScheduled) {
+            flushScheduled = true;
+            concurrentMapManager.enqueueAndReturn(flushProcess);
+        }
+    }
+
+    void flush() {
+        flushScheduled = false;
+        for (Map.Entry<Address, Batch> entry : batches.entrySet()) {
+            send(entry.getKey(), entry.getValue());
+        }
+        batches.clear();
+    }
+
+    private void send(Address target, Batch batch) {
+        final BackupBatch backupBatch = new BackupBatch();
+        final List<MBackup> sentBackups = new ArrayList<MBackup>(batch.backups.size());
+        long savedBytes = 0;
+        for (int i = 0; i < batch.backups.size(); i++) {
+            final MBackup backup = batch.backups.get(i);
+            // skip the backups redone or added again since
+            if (backup.batchSequence == batch.sequences.get(i)
+                    && concurrentMapManager.getRemoteCall(backup.getCallId()) == backup) {
+                backupBatch.add(backup.request, backup.delta);
+                sentBackups.add(backup);
+                if (backup.delta != null) {
+                    savedBytes += backup.delta.getSavedBytes();
+                }
+            }
+        }
+        if (sentBackups.isEmpty()) {
+            return;
+        }
+        final Connection conn = concurrentMapManager.node.connectionManager.getOrConnect(target);
+        final Packet packet = concurrentMapManager.obtainPacket();
+        packet.set("", ClusterOperation.CONCURRENT_MAP_BACKUP_BATCH, null, toData(backupBatch));
+        for (MBackup backup : sentBackups) {
+            backup.targetConnection = conn;
+        }
+        if (concurrentMapManager.send(packet, conn)) {
+            batchCount.incrementAndGet();
+            batchedBackupCount.addAndGet(sentBackups.size());
+            deltaBytesSaved.addAndGet(savedBytes);
+        } else {
+            concurrentMapManager.releasePacket(packet);
+            for (MBackup backup : sentBackups) {
+                backup.targetConnection = null;
+                backup.packetNotSent();
+            }
+        }
+    }
+
+    /**
+     * Encodes the call ids and response types of the backups processed by this member
+     * to be sent back in one packet.
+     */
+    static Data toResponseData(long[] callIds, byte[] responseTypes) {
+        final ByteBuffer bb = ByteBuffer.allocate(callIds.length * 9);
+        for (int i = 0; i < callIds.length; i++) {
+            bb.putLong(callIds[i]);
+            bb.put(responseTypes[i]);
+        }
+        return new Data(bb.array());
+    }
+
+    /**
+     * Hands the response of each backup in the batch response to its call.
+     */
+    void handleResponses(Data responseData) {
+        final ByteBuffer bb = ByteBuffer.wrap(responseData.buffer);
+        while (bb.remaining() >= 9) {
+            final Packet response = concurrentMapManager.obtainPacket();
+            response.operation = ClusterOperation.RESPONSE;
+            response.callId = bb.getLong();
+            response.responseType = bb.get();
+            concurrentMapManager.handleResponse(response);
+        }
+    }
+
+    void onBackupSent(int partitionId) {
+        if (partitionId >= 0 && partitionId < backupLag.length()) {
+            backupLag.incrementAndGet(partitionId);
+        }
+    }
+
+    void onBackupDone(int partitionId) {
+        if (partitionId >= 0 && partitionId < backupLag.length()) {
+            backupLag.decrementAndGet(partitionId);
+        }
+    }
+
+    int getBackupLag(int partitionId) {
+        return backupLag.get(partitionId);
+    }
+
+    int getMaxBackupLag() {
+        int max = 0;
+        for (int i = 0; i < backupLag.length(); i++) {
+            max = Math.max(max, backupLag.get(i));
+        }
+        return max;
+    }
+
+    long getBatchCount() {
+        return batchCount.get();
+    }
+
+    long getBatchedBackupCount() {
+        return batchedBackupCount.get();
+    }
+
+    long getDeltaBytesSaved() {
+        return deltaBytesSaved.get();
+    }
+
+    private static class Batch {
+        final List<MBackup> backups = new ArrayList<MBackup>();
+        final List<Integer> sequences = new ArrayList<Integer>();
+        long bytes = 0;
+
+        void add(MBackup backup) {
+            backups.add(backup);
+            sequences.add(++backup.batchSequence);
+            final Request request = backup.request;
+            bytes += ENTRY_OVERHEAD + request.key.size();
+            if (backup.delta != null) {
+                bytes += backup.delta.size();
+            } else if (request.value != null) {
+                bytes += request.value.size();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "BackupBatcher{" +
+                "enabled=" + enabled +
+                ", batchCount=" + batchCount.get() +
+                ", batchedBackupCount=" + batchedBackupCount.get() +
+                ", deltaBytesSaved=" + deltaBytesSaved.get() +
+                ", maxBackupLag=" + getMaxBackupLag() +
+                '}';
+    }
+}
@@ -1103,13 +1103,7 @@ public abstract class BaseManager {
                     // and an EntryListener whose include-value is false. 
                     enqueueEvent(eventType, name, key, /*(includeValue) ? value : null*/ value, callerAddress, true);
                 } else {
-                    final Packet packet = obtainPacket();
-                    packet.set(name, ClusterOperation.EVENT, key, (includeValue) ? value : null);
-                    packet.lockAddress = callerAddress;
-                    packet.longValue = eventType;
-                    final boolean sent = send(packet, toAddress);
-                    if (!sent)
-                        releasePacket(packet);
+                    node.listenerManager.sendEvent(toAddress, eventType, name, key, (includeValue) ? value : null, callerAddress);
                 }
             }
         }
@@ -1214,22 +1208,34 @@ public abstract class BaseManager {
         return node.isLiteMember();
     }
 
+    /**
+     * Packets are taken from the queue of the service thread, or from the shared
+     * pool of the connection manager when the queue is empty or by the other threads.
+     */
     protected Packet obtainPacket() {
-        if (Thread.currentThread() != node.serviceThread) {
-            return new Packet();
-        } else {
+        if (Thread.currentThread() == node.serviceThread) {
             Packet packet = node.serviceThreadPacketQueue.poll();
-            if (packet == null) {
-                packet = new Packet();
-            } else {
+            if (packet != null) {
                 packet.reset();
+                return packet;
             }
-            return packet;
         }
+        return node.connectionManager.getPacketPool().obtain();
     }
 
+    /**
+     * Only the service thread recycles the released packets, to its own queue and to
+     * the shared pool when its queue is full. Packets released by the other threads
+     * are left to the garbage collector as they may still be referenced.
+     */
     protected boolean releasePacket(Packet packet) {
-        return Thread.currentThread() == node.serviceThread && node.serviceThreadPacketQueue.offer(packet);
+        if (Thread.currentThread() != node.serviceThread) {
+            return false;
+        }
+        if (!node.serviceThreadPacketQueue.offer(packet)) {
+            node.connectionManager.getPacketPool().release(packet);
+        }
+        return true;
     }
 
     protected boolean sendResponse(final Packet packet) {
@@ -1266,28 +1272,19 @@ public abstract class BaseManager {
                 + key);
     }
 
-    void enqueueEvent(int eventType, String name, Data key, Data value, Address from, boolean localEvent) {
+    void enqueueEvent(final int eventType, final String name, final Data key, final Data value,
+                      final Address from, final boolean localEvent) {
+        boolean queued = false;
         try {
+            if (!node.listenerManager.onEventQueued()) {
+                return;
+            }
+            queued = true;
             Member member = getMember(from);
             if (member == null) {
                 member = new MemberImpl(from, thisAddress.equals(from));
             }
-            Data newValue = value;
-            Data oldValue = null;
-            if (value != null && getInstanceType(name).isMap()) {
-                Keys keys = (Keys) toObject(value);
-                Collection<Data> values = keys.getKeys();
-                if (values != null) {
-                    Iterator<Data> it = values.iterator();
-                    if (it.hasNext()) {
-                        newValue = it.next();
-                    }
-                    if (it.hasNext()) {
-                        oldValue = it.next();
-                    }
-                }
-            }
-            final DataAwareEntryEvent dataAwareEntryEvent = new DataAwareEntryEvent(member, eventType, name, key, newValue, oldValue, localEvent);
+            final Member eventMember = member;
             int hash;
             if (key != null) {
                 hash = key.hashCode();
@@ -1297,17 +1294,50 @@ public abstract class BaseManager {
             node.executorManager.getEventExecutorService().executeOrderedRunnable(hash, new Runnable() {
                 public void run() {
                     try {
-                        node.listenerManager.callListeners(dataAwareEntryEvent);
+                        if (name.startsWith(Prefix.TOPIC)) {
+                            node.topicManager.deliverLocally(name, value, eventMember, localEvent);
+                        } else {
+                            node.listenerManager.callListeners(createEntryEvent(eventMember, eventType, name, key, value, localEvent));
+                        }
                     } catch (Exception e) {
                         logger.log(Level.WARNING, e.getMessage(), e);
+                    } finally {
+                        node.listenerManager.onEventDelivered();
                     }
                 }
             });
         } catch (Exception e) {
+            if (queued) {
+                node.listenerManager.onEventDelivered();
+            }
             logger.log(Level.WARNING, e.getMessage(), e);
         }
     }
 
+    /**
+     * Splits the new and old values of a map event on the event thread, the values
+     * themselves are deserialized only when the listener reads them.
+     */
+    private DataAwareEntryEvent createEntryEvent(Member member, int eventType, String name, Data key,
+                                                 Data value, boolean localEvent) {
+        Data newValue = value;
+        Data oldValue = null;
+        if (value != null && getInstanceType(name).isMap()) {
+            Keys keys = (Keys) toObject(value);
+            Collection<Data> values = keys.getKeys();
+            if (values != null) {
+                Iterator<Data> it = values.iterator();
+                if (it.hasNext()) {
+                    newValue = it.next();
+                }
+                if (it.hasNext()) {
+                    oldValue = it.next();
+                }
+            }
+        }
+        return new DataAwareEntryEvent(member, eventType, name, key, newValue, oldValue, localEvent);
+    }
+
     public final void checkServiceThread() {
         if (Thread.currentThread() != node.serviceThread) {
             String msg = "Only ServiceThread can access this method. " + Thread.currentThread();
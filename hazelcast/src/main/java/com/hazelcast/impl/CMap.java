@@ -26,6 +26,8 @@ import com.hazelcast.impl.base.Values;
 import com.hazelcast.impl.concurrentmap.*;
 import com.hazelcast.impl.monitor.LocalMapStatsImpl;
 import com.hazelcast.impl.partition.PartitionInfo;
+import com.hazelcast.impl.storage.OffHeapStorage;
+import com.hazelcast.impl.storage.Storage;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.merge.MergePolicy;
 import com.hazelcast.nio.*;
@@ -100,6 +102,8 @@ public class CMap {
 
     float evictionRate;
 
+    int evictionSampleSize;
+
     long ttl; //ttl for entries
 
     long maxIdle; //maxIdle for entries
@@ -116,6 +120,10 @@ public class CMap {
 
     final long writeDelayMillis;
 
+    final WriteBehindQueue writeBehindQueue;
+
+    private final AtomicBoolean writeBehindFlushScheduled = new AtomicBoolean(false);
+
     final long removeDelayMillis;
 
     final long cleanupDelayMillis;
@@ -132,11 +140,19 @@ public class CMap {
 
     boolean cacheValue;
 
+    boolean statisticsEnabled;
+
+    volatile boolean compactRecords;
+
     final boolean mapForQueue;
 
-    volatile boolean ttlPerRecord = false;
+    final Storage offHeapStorage;
 
-    volatile boolean dirty = false;
+    private final boolean sharedOffHeapStorage;
+
+    private final AtomicBoolean offHeapStorageFullLogged = new AtomicBoolean(false);
+
+    volatile boolean ttlPerRecord = false;
 
     private volatile long lastCleanup = System.currentTimeMillis();
 
@@ -149,6 +165,8 @@ public class CMap {
 
     final Object initLock = new Object();
 
+    volatile InitialMapLoader initialMapLoader = null;
+
     final LocalUpdateListener localUpdateListener;
 
     final MergePolicy wanMergePolicy;
@@ -184,6 +202,8 @@ public class CMap {
         if (mapForQueue || node.groupProperties.ELASTIC_MEMORY_ENABLED.getBoolean()) {
             cacheValue = false;
         }
+        sharedOffHeapStorage = node.groupProperties.ELASTIC_MEMORY_SHARED_STORAGE.getBoolean();
+        offHeapStorage = createOffHeapStorage();
         MapStoreConfig mapStoreConfig = mapConfig.getMapStoreConfig();
         int writeDelaySeconds = -1;
         if (!node.isLiteMember() && mapStoreConfig != null) {
@@ -223,6 +243,10 @@ public class CMap {
         }
         loader = (mapStoreWrapper == null || !mapStoreWrapper.isMapLoader()) ? null : mapStoreWrapper;
         store = (mapStoreWrapper == null || !mapStoreWrapper.isMapStore()) ? null : mapStoreWrapper;
+        writeBehindQueue = (store != null && writeDelayMillis > 0)
+                ? new WriteBehindQueue(writeDelayMillis, mapStoreConfig.getWriteBehindQueueCapacity(),
+                mapStoreConfig.getWriteBatchSize())
+                : null;
         NearCacheConfig nearCacheConfig = mapConfig.getNearCacheConfig();
         if (nearCacheConfig == null) {
             nearCache = null;
@@ -277,7 +301,7 @@ public class CMap {
     private void initializeIndexes() {
         for (MapIndexConfig index : mapConfig.getMapIndexConfigs()) {
             if (index.getAttribute() != null) {
-                addIndex(Predicates.get(index.getAttribute()), index.isOrdered(), -1);
+                addIndex(Predicates.getIndexExpression(index.getAttribute()), index.isOrdered(), -1);
             } else if (index.getExpression() != null) {
                 addIndex(index.getExpression(), index.isOrdered(), -1);
             }
@@ -337,6 +361,9 @@ public class CMap {
                 : EvictionPolicy.NONE;
         readBackupData = mapConfig.isReadBackupData();
         cacheValue = mapConfig.isCacheValue();
+        statisticsEnabled = mapConfig.isStatisticsEnabled();
+        // access times and max idle are only kept by the full records
+        compactRecords = !statisticsEnabled && ttl == 0 && maxIdle == 0 && evictionPolicy == EvictionPolicy.NONE;
         MaxSizeConfig maxSizeConfig = mapConfig.getMaxSizeConfig();
         if (MaxSizeConfig.POLICY_MAP_SIZE_PER_JVM.equals(maxSizeConfig.getMaxSizePolicy())) {
             maxSizePolicy = new MaxSizePerJVMPolicy(maxSizeConfig);
@@ -361,6 +388,7 @@ public class CMap {
             }
         }
         evictionRate = mapConfig.getEvictionPercentage() / 100f;
+        evictionSampleSize = mapConfig.getEvictionSampleSize();
     }
 
     public MapConfig getRuntimeConfig() {
@@ -371,11 +399,13 @@ public class CMap {
         mapConfig.setEvictionPolicy(evictionPolicy.toString());
         mapConfig.setReadBackupData(readBackupData);
         mapConfig.setCacheValue(cacheValue);
+        mapConfig.setStatisticsEnabled(statisticsEnabled);
         if (maxSizePolicy != null) {
             mapConfig.getMaxSizeConfig().setMaxSizePolicy(maxSizePolicy.getMaxSizeConfig().getMaxSizePolicy());
             mapConfig.getMaxSizeConfig().setSize(maxSizePolicy.getMaxSizeConfig().getSize());
         }
         mapConfig.setEvictionPercentage((int) (evictionRate * 100));
+        mapConfig.setEvictionSampleSize(evictionSampleSize);
         return mapConfig;
     }
 
@@ -563,6 +593,7 @@ public class CMap {
         if (req.key == null || req.key.size() == 0) {
             throw new RuntimeException("Backup key size cannot be zero! " + req.key);
         }
+        logMigrationWrite(req.key);
         if (req.operation == CONCURRENT_MAP_BACKUP_PUT) {
             Record record = toRecord(req);
             markAsActive(record);
@@ -726,6 +757,7 @@ public class CMap {
         }
         record.setActive(true);
         record.incrementVersion();
+        logMigrationWrite(req.key);
         if (!backup) {
             updateIndexes(record);
             concurrentMapManager.fireMapEvent(mapListeners, EntryEvent.TYPE_ADDED, null, record, req.caller);
@@ -757,6 +789,7 @@ public class CMap {
 
     void unlock(Record record, Request request) {
         record.unlock(request.lockThreadId, request.lockAddress);
+        logMigrationWrite(record.getKeyData());
         fireScheduledActions(record);
     }
 
@@ -840,6 +873,7 @@ public class CMap {
             unlock(record, req);
         }
         record.incrementVersion();
+        logMigrationWrite(record.getKeyData());
         concurrentMapManager.fireMapEvent(mapListeners, getName(), EntryEvent.TYPE_REMOVED, record.getKeyData(), null, req.value, record.getListeners(), req.caller);
         req.version = record.getVersion();
         if (record.valueCount() == 0) {
@@ -862,6 +896,7 @@ public class CMap {
         }
         updateIndexes(record);
         record.incrementVersion();
+        logMigrationWrite(record.getKeyData());
         concurrentMapManager.fireMapEvent(mapListeners, getName(), EntryEvent.TYPE_ADDED, record.getKeyData(), null, req.value, record.getListeners(), req.caller);
         if (req.txnId != -1) {
             unlock(record, req);
@@ -937,7 +972,10 @@ public class CMap {
         }
         record.setIndexes(req.indexes, req.indexTypes);
         updateIndexes(record);
-        markAsDirty(record);
+        logMigrationWrite(record.getKeyData());
+        if (req.operation != CONCURRENT_MAP_PUT_TRANSIENT && req.operation != CONCURRENT_MAP_PUT_TRANSIENT_IF_ABSENT) {
+            markAsDirty(record);
+        }
         req.clearForResponse();
         req.version = record.getVersion();
         if (localUpdateListener != null && req.txnId != Long.MIN_VALUE) {
@@ -968,44 +1006,153 @@ public class CMap {
         }
     }
 
-    private void executeStoreUpdate(final Set<Record> dirtyRecords) {
-        if (dirtyRecords.size() > 0) {
-            concurrentMapManager.storeExecutor.execute(new Runnable() {
+    /**
+     * Checks if an update or a removal of the key would grow the write-behind queue beyond its capacity.
+     * If so, starts storing all queued records so that the update can be redone.
+     */
+    boolean isWriteBehindQueueFull(Request request) {
+        if (writeBehindQueue == null || !writeBehindQueue.isFull(request.key)) {
+            return false;
+        }
+        if (writeBehindFlushScheduled.compareAndSet(false, true)) {
+            node.executorManager.executeNow(new Runnable() {
                 public void run() {
                     try {
-                        Set<Object> keysToDelete = new HashSet<Object>();
-                        Set<Record> toStore = new HashSet<Record>();
-                        Map<Object, Object> updates = new HashMap<Object, Object>();
-                        for (Record dirtyRecord : dirtyRecords) {
-                            if (!dirtyRecord.isActive()) {
-                                keysToDelete.add(dirtyRecord.getKey());
-                            } else {
-                                toStore.add(dirtyRecord);
-                                updates.put(dirtyRecord.getKey(), dirtyRecord.getValue());
-                            }
-                        }
-                        if (keysToDelete.size() == 1) {
-                            store.delete(keysToDelete.iterator().next());
-                        } else if (keysToDelete.size() > 1) {
-                            store.deleteAll(keysToDelete);
-                        }
-                        if (updates.size() == 1) {
-                            Map.Entry entry = updates.entrySet().iterator().next();
-                            store.store(entry.getKey(), entry.getValue());
-                        } else if (updates.size() > 1) {
-                            store.storeAll(updates);
-                        }
-                        for (Record stored : toStore) {
-                            stored.setLastStoredTime(System.currentTimeMillis());
-                        }
-                    } catch (Exception e) {
-                        for (Record dirtyRecord : dirtyRecords) {
-                            dirtyRecord.setDirty(true);
-                        }
+                        storeWriteBehindQueue(System.currentTimeMillis(), true);
+                    } finally {
+                        writeBehindFlushScheduled.set(false);
                     }
                 }
             });
         }
+        return true;
+    }
+
+    /**
+     * Drains the write-behind queue and stores the drained records in batches on the store executor.
+     * Records of partitions without an owner or migrating are queued again,
+     * records of partitions this member does not own anymore are dropped.
+     *
+     * @param all true to store all queued records regardless of their write time
+     */
+    void storeWriteBehindQueue(long now, boolean all) {
+        if (writeBehindQueue == null) {
+            return;
+        }
+        final PartitionManager partitionManager = concurrentMapManager.partitionManager;
+        final List<Record> notReady = new ArrayList<Record>();
+        int remaining = writeBehindQueue.size();
+        List<Record> drained;
+        while (remaining > 0 && !(drained = writeBehindQueue.drain(now, all)).isEmpty()) {
+            remaining -= drained.size();
+            final List<Record> batch = new ArrayList<Record>(drained.size());
+            for (Record record : drained) {
+                PartitionInfo partition = partitionManager.getPartition(record.getBlockId());
+                Address owner = partition.getOwner();
+                if (owner == null || partitionManager.isPartitionMigrating(partition.getPartitionId())) {
+                    notReady.add(record);
+                } else {
+                    record.setDirty(false);
+                    if (thisAddress.equals(owner)) {
+                        batch.add(record);
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                executeStoreUpdate(batch);
+            }
+        }
+        for (Record record : notReady) {
+            writeBehindQueue.offer(record);
+        }
+    }
+
+    private void executeStoreUpdate(final List<Record> dirtyRecords) {
+        concurrentMapManager.storeExecutor.execute(new Runnable() {
+            public void run() {
+                final long start = System.currentTimeMillis();
+                final List<Record> failedRecords = storeDirtyRecords(dirtyRecords);
+                final long now = System.currentTimeMillis();
+                writeBehindQueue.onStore(now - start, failedRecords.size());
+                for (Record failedRecord : failedRecords) {
+                    // retried after the write delay unless it is updated and queued again meanwhile
+                    if (!failedRecord.isDirty()) {
+                        failedRecord.setDirty(true);
+                        failedRecord.setWriteTime(now + writeDelayMillis);
+                        writeBehindQueue.offer(failedRecord);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Deletes the removed records and stores the others with one call each if possible.
+     * If a bulk call fails, its records are stored one by one to find out the failed ones.
+     *
+     * @return records that could not be stored or deleted
+     */
+    private List<Record> storeDirtyRecords(List<Record> dirtyRecords) {
+        final Map<Object, Record> recordsToDelete = new HashMap<Object, Record>();
+        final Map<Object, Record> recordsToStore = new HashMap<Object, Record>();
+        final Map<Object, Object> updates = new HashMap<Object, Object>();
+        for (Record dirtyRecord : dirtyRecords) {
+            final Object key = dirtyRecord.getKey();
+            if (!dirtyRecord.isActive()) {
+                recordsToDelete.put(key, dirtyRecord);
+            } else {
+                recordsToStore.put(key, dirtyRecord);
+                updates.put(key, dirtyRecord.getValue());
+            }
+        }
+        final List<Record> failedRecords = new ArrayList<Record>(0);
+        Exception failure = null;
+        if (recordsToDelete.size() > 1) {
+            try {
+                store.deleteAll(recordsToDelete.keySet());
+                recordsToDelete.clear();
+            } catch (Exception e) {
+                failure = e;
+            }
+        }
+        for (Map.Entry<Object, Record> entry : recordsToDelete.entrySet()) {
+            try {
+                store.delete(entry.getKey());
+            } catch (Exception e) {
+                failure = e;
+                failedRecords.add(entry.getValue());
+            }
+        }
+        if (updates.size() > 1) {
+            try {
+                store.storeAll(updates);
+                setLastStoredTime(recordsToStore.values());
+                recordsToStore.clear();
+            } catch (Exception e) {
+                failure = e;
+            }
+        }
+        for (Map.Entry<Object, Record> entry : recordsToStore.entrySet()) {
+            try {
+                store.store(entry.getKey(), updates.get(entry.getKey()));
+                setLastStoredTime(Collections.singleton(entry.getValue()));
+            } catch (Exception e) {
+                failure = e;
+                failedRecords.add(entry.getValue());
+            }
+        }
+        if (failure != null) {
+            logger.log(Level.WARNING, name + " could not store " + failedRecords.size() + " of "
+                    + dirtyRecords.size() + " dirty entries, they will be retried: " + failure.getMessage());
+        }
+        return failedRecords;
+    }
+
+    private static void setLastStoredTime(Collection<Record> storedRecords) {
+        final long now = System.currentTimeMillis();
+        for (Record stored : storedRecords) {
+            stored.setLastStoredTime(now);
+        }
     }
 
     private void purgeIfNotOwnedOrBackup(Collection<Record> records) {
@@ -1014,6 +1161,10 @@ public class CMap {
             if (partitionManager.shouldPurge(record.getBlockId(), backupCount)) {
                 mapIndexService.remove(record);
                 mapRecords.remove(record.getKeyData());
+                if (offHeapStorage != null) {
+                    // frees the off-heap chunks of the value
+                    record.invalidate();
+                }
             }
         }
     }
@@ -1102,6 +1253,8 @@ public class CMap {
         long ownedEntryMemoryCost = 0;
         long backupEntryMemoryCost = 0;
         long markedAsRemovedMemoryCost = 0;
+        long heapCost = 0;
+        long offHeapCost = 0;
         long hits = 0;
         long lockedEntryCount = 0;
         long lockWaitCount = 0;
@@ -1109,6 +1262,12 @@ public class CMap {
         final Collection<Record> records = mapRecords.values();
         final PartitionManager partitionManager = concurrentMapManager.partitionManager;
         for (Record record : records) {
+            heapCost += record.getCost();
+            if (record instanceof OffHeapRecord) {
+                final long recordOffHeapCost = ((OffHeapRecord) record).getOffHeapCost();
+                heapCost -= recordOffHeapCost;
+                offHeapCost += recordOffHeapCost;
+            }
             if (!record.isActive() || !record.isValid(now)) {
                 markedAsRemovedEntryCount++;
                 markedAsRemovedMemoryCost += record.getCost();
@@ -1147,6 +1306,25 @@ public class CMap {
         localMapStats.setBackupEntryCount(zeroOrPositive(backupEntryCount));
         localMapStats.setOwnedEntryMemoryCost(zeroOrPositive(ownedEntryMemoryCost));
         localMapStats.setBackupEntryMemoryCost(zeroOrPositive(backupEntryMemoryCost));
+        localMapStats.setHeapCost(zeroOrPositive(heapCost));
+        localMapStats.setOffHeapCost(zeroOrPositive(offHeapCost));
+        if (nearCache != null) {
+            localMapStats.setNearCacheEntryCount(nearCache.size());
+            localMapStats.setNearCacheHits(nearCache.getHits());
+            localMapStats.setNearCacheMisses(nearCache.getMisses());
+            localMapStats.setNearCacheEvictions(nearCache.getEvictions());
+        }
+        if (writeBehindQueue != null) {
+            localMapStats.setWriteBehindQueueSize(writeBehindQueue.size());
+            localMapStats.setOldestDirtyEntryAge(writeBehindQueue.getOldestDirtyAge(now));
+            localMapStats.setAverageStoreLatency(writeBehindQueue.getAverageStoreLatency());
+            localMapStats.setFailedStoreCount(writeBehindQueue.getFailedStoreCount());
+        }
+        final InitialMapLoader mapLoader = initialMapLoader;
+        if (mapLoader != null) {
+            localMapStats.setLoadedEntryCount(mapLoader.getLoadedEntryCount());
+            localMapStats.setPendingLoadEntryCount(mapLoader.getPendingKeyCount());
+        }
         localMapStats.setLastEvictionTime(zeroOrPositive(clusterImpl.getClusterTimeFor(lastEvictionTime)));
         localMapStats.setCreationTime(zeroOrPositive(clusterImpl.getClusterTimeFor(creationTime)));
         return localMapStats;
@@ -1189,8 +1367,14 @@ public class CMap {
         }
         final PartitionServiceImpl partitionService = concurrentMapManager.partitionServiceImpl;
         final PartitionManager partitionManager = concurrentMapManager.partitionManager;
-        final Set<Record> sortedRecords = new TreeSet<Record>(new ComparatorWrapper(comparator));
+        final SampledEvictionSelector<Record> sampledRecords = (evictionSampleSize > 0)
+                ? new SampledEvictionSelector<Record>(comparator, evictionSampleSize, percentage / 100f)
+                : null;
+        final Set<Record> sortedRecords = (sampledRecords == null)
+                ? new TreeSet<Record>(new ComparatorWrapper(comparator))
+                : null;
         final Set<Record> recordsToEvict = new HashSet<Record>();
+        int evictableCount = 0;
         for (Record record : records) {
             PartitionServiceImpl.PartitionProxy partition = partitionService.getPartition(record.getBlockId());
             Member owner = partition.getOwner();
@@ -1202,14 +1386,20 @@ public class CMap {
                     } else if (record.isActive() && !record.isValid(now)) {
                         recordsToEvict.add(record);  // expired records
                     } else if (record.isActive() && record.isEvictable()) {
-                        sortedRecords.add(record);   // sorting for eviction
+                        if (sampledRecords != null) {
+                            sampledRecords.offer(record);  // sampling for eviction
+                        } else {
+                            sortedRecords.add(record);   // sorting for eviction
+                        }
+                        evictableCount++;
                     }
                 }
             }
         }
-        int numberOfRecordsToEvict = sortedRecords.size() * percentage / 100;
+        int numberOfRecordsToEvict = evictableCount * percentage / 100;
         int evictedCount = 0;
-        for (Record record : sortedRecords) {
+        final Collection<Record> candidates = (sampledRecords != null) ? sampledRecords.getSelected() : sortedRecords;
+        for (Record record : candidates) {
             recordsToEvict.add(record);
             if (++evictedCount >= numberOfRecordsToEvict) {
                 break;
@@ -1312,25 +1502,26 @@ public class CMap {
 
     boolean startCleanup(boolean forced) {
         final long now = System.currentTimeMillis();
-        long dirtyAge = (now - lastCleanup);
-        boolean shouldRun = forced
-                || (store != null && dirty && dirtyAge >= writeDelayMillis)
-                || (dirtyAge > cleanupDelayMillis);
+        storeWriteBehindQueue(now, false);
+        boolean shouldRun = forced || (now - lastCleanup > cleanupDelayMillis);
         if (shouldRun && cleanupActive.compareAndSet(false, true)) {
             lastCleanup = now;
             try {
                 if (nearCache != null) {
                     nearCache.evict(now, false);
                 }
-                dirty = false;
-                final Set<Record> recordsDirty = new HashSet<Record>();
                 final Set<Record> recordsUnknown = new HashSet<Record>();
                 final Set<Record> recordsToPurge = new HashSet<Record>();
                 final Set<Record> recordsToEvict = new HashSet<Record>();
-                final Set<Record> sortedRecords = new TreeSet<Record>(new ComparatorWrapper(evictionComparator));
                 final Collection<Record> records = mapRecords.values();
                 final boolean overCapacity = maxSizePolicy != null && maxSizePolicy.overCapacity();
                 final boolean evictionAware = evictionComparator != null && overCapacity;
+                final SampledEvictionSelector<Record> sampledRecords = (evictionAware && evictionSampleSize > 0)
+                        ? new SampledEvictionSelector<Record>(evictionComparator, evictionSampleSize, evictionRate)
+                        : null;
+                final Set<Record> sortedRecords = (evictionAware && sampledRecords == null)
+                        ? new TreeSet<Record>(new ComparatorWrapper(evictionComparator))
+                        : null;
                 int recordsStillOwned = 0;
                 int backupPurgeCount = 0;
                 PartitionManager partitionManager = concurrentMapManager.partitionManager;
@@ -1342,18 +1533,17 @@ public class CMap {
                     if (owner != null && !partitionManager.isPartitionMigrating(partition.getPartitionId())) {
                         if (owned) {
                             if (store != null && writeDelayMillis > 0 && record.isDirty()) {
-                                if (now > record.getWriteTime()) {
-                                    recordsDirty.add(record);
-                                    record.setDirty(false);
-                                } else {
-                                    dirty = true;
-                                }
+                                // stored by the write-behind queue before it can be purged or evicted
                             } else if (shouldPurgeRecord(record, now)) {
                                 recordsToPurge.add(record);  // removed records
                             } else if (record.isActive() && !record.isValid(now)) {
                                 recordsToEvict.add(record);  // expired records
                             } else if (evictionAware && record.isActive() && record.isEvictable()) {
-                                sortedRecords.add(record);   // sorting for eviction
+                                if (sampledRecords != null) {
+                                    sampledRecords.offer(record);  // sampling for eviction
+                                } else {
+                                    sortedRecords.add(record);   // sorting for eviction
+                                }
                                 recordsStillOwned++;
                             }
                         } else if (ownedOrBackup) {
@@ -1369,7 +1559,9 @@ public class CMap {
                 if (evictionAware && (forced || overCapacity)) {
                     int numberOfRecordsToEvict = (int) (recordsStillOwned * evictionRate);
                     int evictedCount = 0;
-                    for (Record record : sortedRecords) {
+                    final Collection<Record> candidates = (sampledRecords != null)
+                            ? sampledRecords.getSelected() : sortedRecords;
+                    for (Record record : candidates) {
                         if (record.isActive() && record.isEvictable()) {
                             recordsToEvict.add(record);
                             if (++evictedCount >= numberOfRecordsToEvict) {
@@ -1381,7 +1573,7 @@ public class CMap {
                 Level levelLog = (concurrentMapManager.LOG_STATE) ? Level.INFO : Level.FINEST;
                 if (logger.isLoggable(levelLog)) {
                     logger.log(levelLog, name + " Cleanup "
-                            + ", dirty:" + recordsDirty.size()
+                            + ", writeBehind:" + ((writeBehindQueue == null) ? 0 : writeBehindQueue.size())
                             + ", purge:" + recordsToPurge.size()
                             + ", evict:" + recordsToEvict.size()
                             + ", unknown:" + recordsUnknown.size()
@@ -1391,7 +1583,6 @@ public class CMap {
                     logger.log(levelLog, thisAddress + " mapRecords: " + mapRecords.size()
                             + "  indexes: " + mapIndexService.getOwnedRecords().size());
                 }
-                executeStoreUpdate(recordsDirty);
                 executeEviction(recordsToEvict);
                 executePurge(recordsToPurge);
                 executePurgeUnknowns(recordsUnknown);
@@ -1463,6 +1654,10 @@ public class CMap {
     }
 
     Record getRecord(Request req) {
+        final InitialMapLoader mapLoader = initialMapLoader;
+        if (mapLoader != null && mapLoader.hasPendingPartitions()) {
+            mapLoader.onAccess(req.key);
+        }
         if (req.record == null || !req.record.isActive()) {
             req.record = mapRecords.get(req.key);
         }
@@ -1521,6 +1716,7 @@ public class CMap {
         }
         req.version = record.getVersion();
         markAsRemoved(record);
+        logMigrationWrite(record.getKeyData());
         return true;
     }
 
@@ -1535,6 +1731,7 @@ public class CMap {
             concurrentMapManager.fireMapEvent(mapListeners, EntryEvent.TYPE_EVICTED, null, record, req.caller);
             record.incrementVersion();
             markAsEvicted(record);
+            logMigrationWrite(record.getKeyData());
             req.clearForResponse();
             req.version = record.getVersion();
             lastEvictionTime = now;
@@ -1576,6 +1773,7 @@ public class CMap {
                 record.incrementVersion();
             }
             markAsRemoved(record);
+            logMigrationWrite(record.getKeyData());
             if (localUpdateListener != null && req.txnId != Long.MIN_VALUE) {
                 localUpdateListener.recordUpdated(record);
             }
@@ -1603,6 +1801,9 @@ public class CMap {
             // on restart; invalidation occurs after merge
             if (invalidate) {
                 record.invalidate();
+            } else if (record instanceof OffHeapRecord) {
+                // records to be merged keep their values on the heap
+                ((OffHeapRecord) record).moveValueToHeap();
             }
         }
         if (nearCache != null) {
@@ -1610,10 +1811,16 @@ public class CMap {
         }
         mapRecords.clear();
         mapIndexService.clear();
+        if (writeBehindQueue != null) {
+            writeBehindQueue.clear();
+        }
     }
 
     void destroy() {
         reset(true);
+        if (offHeapStorage != null && !sharedOffHeapStorage) {
+            offHeapStorage.destroy();
+        }
         node.listenerManager.removeAllRegisteredListeners(getName());
         if (mapStoreWrapper != null) {
             try {
@@ -1624,13 +1831,22 @@ public class CMap {
         }
     }
 
+    /**
+     * Logs the written key to be sent again if its partition is being migrated from this member.
+     */
+    void logMigrationWrite(Data key) {
+        concurrentMapManager.partitionManager.onRecordWrite(this, key);
+    }
+
     void markAsDirty(Record record) {
         if (!record.isDirty()) {
-            dirty = true;
             record.setDirty(true);
             if (writeDelayMillis > 0) {
                 record.setWriteTime(System.currentTimeMillis() + writeDelayMillis);
             }
+            if (writeBehindQueue != null) {
+                writeBehindQueue.offer(record);
+            }
         }
     }
 
@@ -1673,6 +1889,43 @@ public class CMap {
     void removeAndPurgeRecord(Record record) {
         mapRecords.remove(record.getKeyData());
         mapIndexService.remove(record);
+        if (offHeapStorage != null) {
+            record.invalidate();
+        }
+    }
+
+    private Storage createOffHeapStorage() {
+        if (mapConfig.getStorageType() != MapConfig.StorageType.OFFHEAP) {
+            return null;
+        }
+        if (!node.groupProperties.ELASTIC_MEMORY_ENABLED.getBoolean()) {
+            logger.log(Level.WARNING, "Map [" + name + "] is configured with OFFHEAP storage but "
+                    + GroupProperties.PROP_ELASTIC_MEMORY_ENABLED + " is false; values are stored on heap.");
+            return null;
+        }
+        if (isMultiMap() || mapForQueue || node.isLiteMember()) {
+            return null;
+        }
+        if (sharedOffHeapStorage) {
+            return concurrentMapManager.getSharedOffHeapStorage();
+        }
+        return new OffHeapStorage(node.groupProperties.ELASTIC_MEMORY_TOTAL_SIZE.getMemorySize(),
+                (int) node.groupProperties.ELASTIC_MEMORY_CHUNK_SIZE.getMemorySize());
+    }
+
+    public boolean isCompactRecords() {
+        return compactRecords;
+    }
+
+    public boolean isOffHeapStorage() {
+        return offHeapStorage != null;
+    }
+
+    void onOffHeapStorageFull() {
+        if (offHeapStorageFullLogged.compareAndSet(false, true)) {
+            logger.log(Level.WARNING, "Off-heap storage of map [" + name + "] is full; "
+                    + "new values are stored on heap. " + offHeapStorage);
+        }
     }
 
     void updateIndexes(Record record) {
@@ -1731,6 +1984,16 @@ public class CMap {
             nearCache.appendState(sbState);
         }
         mapIndexService.appendState(sbState);
+        final InitialMapLoader mapLoader = initialMapLoader;
+        if (mapLoader != null && mapLoader.getPendingKeyCount() > 0) {
+            sbState.append("\n").append(mapLoader);
+        }
+        if (writeBehindQueue != null) {
+            sbState.append("\n").append(writeBehindQueue);
+        }
+        if (offHeapStorage != null) {
+            sbState.append("\n").append(offHeapStorage);
+        }
         for (Record record : mapRecords.values()) {
             if (record.isLocked()) {
                 sbState.append("\nLocked Record by ").append(record.getLock());
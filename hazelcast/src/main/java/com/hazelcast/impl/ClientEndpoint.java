@@ -209,7 +209,7 @@ public class ClientEndpoint implements EntryListener, InstanceListener, Membersh
     }
 
     Packet createEntryEventPacket(EntryEvent event) {
-        Packet packet = new Packet();
+        Packet packet = node.connectionManager.getPacketPool().obtain();
         DataAwareEntryEvent dataAwareEntryEvent = (DataAwareEntryEvent) event;
         Data valueEvent = null;
         if (dataAwareEntryEvent.getNewValueData() != null) {
@@ -229,13 +229,13 @@ public class ClientEndpoint implements EntryListener, InstanceListener, Membersh
     }
 
     Packet createInstanceEventPacket(InstanceEvent event) {
-        Packet packet = new Packet();
+        Packet packet = node.connectionManager.getPacketPool().obtain();
         packet.set(null, ClusterOperation.EVENT, toData(event.getInstance().getId()), toData(event.getEventType().getId()));
         return packet;
     }
 
     Packet createMembershipEventPacket(MembershipEvent membershipEvent) {
-        Packet packet = new Packet();
+        Packet packet = node.connectionManager.getPacketPool().obtain();
         packet.set(null, ClusterOperation.EVENT, toData(membershipEvent.getMember()), toData(membershipEvent.getEventType()));
         return packet;
     }
@@ -1469,14 +1469,14 @@ public class ClientHandlerService implements ConnectionListener {
         }
 
         public void itemAdded(ItemEvent itemEvent) {
-            Packet p = new Packet();
+            Packet p = node.connectionManager.getPacketPool().obtain();
             DataAwareItemEvent dataAwareItemEvent = (DataAwareItemEvent) itemEvent;
             p.set(name, ClusterOperation.EVENT, dataAwareItemEvent.getItemData(), true);
             clientEndpoint.sendPacket(p);
         }
 
         public void itemRemoved(ItemEvent itemEvent) {
-            Packet p = new Packet();
+            Packet p = node.connectionManager.getPacketPool().obtain();
             DataAwareItemEvent dataAwareItemEvent = (DataAwareItemEvent) itemEvent;
             p.set(name, ClusterOperation.EVENT, dataAwareItemEvent.getItemData(), false);
             clientEndpoint.sendPacket(p);
@@ -1493,7 +1493,7 @@ public class ClientHandlerService implements ConnectionListener {
         }
 
         public void onMessage(Message msg) {
-            Packet p = new Packet();
+            Packet p = node.connectionManager.getPacketPool().obtain();
             DataMessage dataMessage = (DataMessage) msg;
             p.set(name, ClusterOperation.EVENT, dataMessage.getMessageData(), null);
             clientEndpoint.sendPacket(p);
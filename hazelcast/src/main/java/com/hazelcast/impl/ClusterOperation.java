@@ -107,8 +107,13 @@ public enum ClusterOperation {
     CONCURRENT_MAP_INVALIDATE(98),
     CONCURRENT_MAP_EVICT(99),
     CONCURRENT_MAP_FLUSH(100),
+    CONCURRENT_MAP_PUT_TRANSIENT_IF_ABSENT(101),
+    CONCURRENT_MAP_BACKUP_BATCH(102),
+    CONCURRENT_MAP_BACKUP_BATCH_RESPONSE(103),
+    EVENT_BATCH(104),
     //TOPIC
     TOPIC_PUBLISH(111),
+    TOPIC_PUBLISH_BATCH(116),
     //ATOMIC NUMBER
     ATOMIC_NUMBER_ADD_AND_GET(112),
     ATOMIC_NUMBER_GET_AND_ADD(113),
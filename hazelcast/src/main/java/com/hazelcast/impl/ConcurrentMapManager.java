@@ -29,25 +29,32 @@ import com.hazelcast.impl.monitor.SemaphoreOperationsCounter;
 import com.hazelcast.impl.partition.MigrationNotification;
 import com.hazelcast.impl.partition.MigrationRequestTask;
 import com.hazelcast.impl.partition.PartitionInfo;
+import com.hazelcast.impl.storage.OffHeapStorage;
+import com.hazelcast.impl.storage.Storage;
 import com.hazelcast.impl.wan.WanMergeListener;
 import com.hazelcast.merge.MergePolicy;
 import com.hazelcast.nio.Address;
+import com.hazelcast.nio.Connection;
 import com.hazelcast.nio.Data;
 import com.hazelcast.nio.Packet;
 import com.hazelcast.nio.Serializer;
 import com.hazelcast.partition.Partition;
 import com.hazelcast.query.Index;
 import com.hazelcast.query.MapIndexService;
+import com.hazelcast.query.PagingPredicate;
 import com.hazelcast.query.Predicate;
 import com.hazelcast.query.QueryContext;
 import com.hazelcast.util.DistributedTimeoutException;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 
 import static com.hazelcast.core.Instance.InstanceType;
 import static com.hazelcast.impl.ClusterOperation.*;
+import static com.hazelcast.impl.Constants.ResponseTypes.*;
 import static com.hazelcast.impl.TransactionImpl.DEFAULT_TXN_TIMEOUT;
 import static com.hazelcast.impl.base.SystemLogService.Level.CS_INFO;
 import static com.hazelcast.impl.base.SystemLogService.Level.CS_TRACE;
@@ -65,18 +72,31 @@ public class ConcurrentMapManager extends BaseManager {
     final ConcurrentMap<String, NearCache> mapCaches;
     final PartitionServiceImpl partitionServiceImpl;
     final PartitionManager partitionManager;
+    final BackupBatcher backupBatcher;
     long newRecordId = 0;
     final ParallelExecutor storeExecutor;
     final ParallelExecutor evictionExecutor;
+    final ParallelExecutor queryPartitionExecutor;
+    final int queryPartitionThreadCount;
+    final int queryMaxRetryCount;
+    final boolean loadPutIfAbsentEnabled;
+    final AtomicLong queryRetryCount = new AtomicLong();
+    final AtomicLong queryRetryPartitionCount = new AtomicLong();
     private static final String BATCH_OPS_EXECUTOR_NAME = "hz_batch";
+    private static final int PARALLEL_QUERY_MIN_RECORD_COUNT = 1000;
     final RecordFactory recordFactory;
     final Collection<WanMergeListener> colWanMergeListeners = new CopyOnWriteArrayList<WanMergeListener>();
+    private Storage sharedOffHeapStorage = null;
 
     ConcurrentMapManager(final Node node) {
         super(node);
         recordFactory = node.initializer.getRecordFactory();
         storeExecutor = node.executorManager.newParallelExecutor(node.groupProperties.EXECUTOR_STORE_THREAD_COUNT.getInteger());
         evictionExecutor = node.executorManager.newParallelExecutor(node.groupProperties.EXECUTOR_STORE_THREAD_COUNT.getInteger());
+        queryPartitionThreadCount = Math.max(1, node.groupProperties.EXECUTOR_QUERY_PARTITION_THREAD_COUNT.getInteger());
+        queryMaxRetryCount = node.groupProperties.QUERY_MAX_RETRY_COUNT.getInteger();
+        loadPutIfAbsentEnabled = node.groupProperties.MAP_LOAD_PUT_IF_ABSENT_ENABLED.getBoolean();
+        queryPartitionExecutor = node.executorManager.newParallelExecutor(queryPartitionThreadCount);
         PARTITION_COUNT = node.groupProperties.CONCURRENT_MAP_PARTITION_COUNT.getInteger();
         MAX_BACKUP_COUNT = PartitionInfo.MAX_REPLICA_COUNT;
         GLOBAL_REMOVE_DELAY_MILLIS = node.groupProperties.REMOVE_DELAY_SECONDS.getLong() * 1000L;
@@ -84,6 +104,7 @@ public class ConcurrentMapManager extends BaseManager {
         maps = new ConcurrentHashMap<String, CMap>(10, 0.75f, 1);
         mapCaches = new ConcurrentHashMap<String, NearCache>(10, 0.75f, 1);
         partitionManager = new PartitionManager(this);
+        backupBatcher = new BackupBatcher(this);
         partitionServiceImpl = new PartitionServiceImpl(this);
         node.executorManager.getScheduledExecutorService().scheduleAtFixedRate(new Runnable() {
             public void run() {
@@ -103,6 +124,7 @@ public class ConcurrentMapManager extends BaseManager {
         registerPacketProcessor(CONCURRENT_MAP_PUT, new PutOperationHandler());
         registerPacketProcessor(CONCURRENT_MAP_PUT_AND_UNLOCK, new PutOperationHandler());
         registerPacketProcessor(CONCURRENT_MAP_PUT_TRANSIENT, new PutTransientOperationHandler());
+        registerPacketProcessor(CONCURRENT_MAP_PUT_TRANSIENT_IF_ABSENT, new PutTransientOperationHandler());
         registerPacketProcessor(CONCURRENT_MAP_PUT_IF_ABSENT, new PutOperationHandler());
         registerPacketProcessor(CONCURRENT_MAP_REPLACE_IF_NOT_NULL, new PutOperationHandler());
         registerPacketProcessor(CONCURRENT_MAP_REPLACE_IF_SAME, new ReplaceOperationHandler());
@@ -116,6 +138,14 @@ public class ConcurrentMapManager extends BaseManager {
         registerPacketProcessor(CONCURRENT_MAP_BACKUP_REMOVE_MULTI, new BackupPacketProcessor());
         registerPacketProcessor(CONCURRENT_MAP_BACKUP_REMOVE, new BackupPacketProcessor());
         registerPacketProcessor(CONCURRENT_MAP_BACKUP_LOCK, new BackupPacketProcessor());
+        registerPacketProcessor(CONCURRENT_MAP_BACKUP_BATCH, new BackupBatchPacketProcessor());
+        registerPacketProcessor(CONCURRENT_MAP_BACKUP_BATCH_RESPONSE, new PacketProcessor() {
+            public void process(Packet packet) {
+                final Data responseData = packet.getValueData();
+                releasePacket(packet);
+                backupBatcher.handleResponses(responseData);
+            }
+        });
         registerPacketProcessor(CONCURRENT_MAP_LOCK, new LockOperationHandler());
         registerPacketProcessor(CONCURRENT_MAP_TRY_LOCK_AND_GET, new LockOperationHandler());
         registerPacketProcessor(CONCURRENT_MAP_UNLOCK, new UnlockOperationHandler());
@@ -149,12 +179,56 @@ public class ConcurrentMapManager extends BaseManager {
         registerPacketProcessor(SEMAPHORE_REDUCE_PERMITS, new SemaphoreReduceOperationHandler());
         registerPacketProcessor(SEMAPHORE_RELEASE, new SemaphoreReleaseOperationHandler());
         registerPacketProcessor(SEMAPHORE_TRY_ACQUIRE, new SemaphoreTryAcquireOperationHandler());
+        node.clusterService.registerPartitionPacketProcessor(CONCURRENT_MAP_GET, new GetPartitionPacketProcessor());
+        node.clusterService.registerPartitionPacketProcessor(CONCURRENT_MAP_CONTAINS_KEY, new ContainsKeyPartitionPacketProcessor());
+    }
+
+    synchronized Storage getSharedOffHeapStorage() {
+        if (sharedOffHeapStorage == null) {
+            sharedOffHeapStorage = new OffHeapStorage(node.groupProperties.ELASTIC_MEMORY_TOTAL_SIZE.getMemorySize(),
+                    (int) node.groupProperties.ELASTIC_MEMORY_CHUNK_SIZE.getMemorySize());
+        }
+        return sharedOffHeapStorage;
     }
 
     public PartitionManager getPartitionManager() {
         return partitionManager;
     }
 
+    /**
+     * @return number of backup operations of the partition sent by this member and not acknowledged yet
+     */
+    public int getBackupLag(int partitionId) {
+        return backupBatcher.getBackupLag(partitionId);
+    }
+
+    public int getMaxBackupLag() {
+        return backupBatcher.getMaxBackupLag();
+    }
+
+    public long getBackupBatchCount() {
+        return backupBatcher.getBatchCount();
+    }
+
+    public long getBatchedBackupCount() {
+        return backupBatcher.getBatchedBackupCount();
+    }
+
+    public long getBackupDeltaBytesSaved() {
+        return backupBatcher.getDeltaBytesSaved();
+    }
+
+    /**
+     * @return number of times queries called by this member queried the partitions not answered again
+     */
+    public long getQueryRetryCount() {
+        return queryRetryCount.get();
+    }
+
+    public long getQueryRetryPartitionCount() {
+        return queryRetryPartitionCount.get();
+    }
+
     public void addWanMergeListener(WanMergeListener listener) {
         colWanMergeListeners.add(listener);
     }
@@ -272,6 +346,7 @@ public class ConcurrentMapManager extends BaseManager {
             Collection<Call> calls = mapCalls.values();
             sbState.append("\nCall Count:").append(calls.size());
             sbState.append(partitionManager.toString());
+            sbState.append("\n").append(backupBatcher);
             Collection<CMap> cmaps = maps.values();
             for (CMap cmap : cmaps) {
                 cmap.appendState(sbState);
@@ -280,6 +355,7 @@ public class ConcurrentMapManager extends BaseManager {
             node.connectionManager.appendState(sbState);
             node.executorManager.appendState(sbState);
             node.clusterManager.appendState(sbState);
+            node.clusterService.appendState(sbState);
             long total = Runtime.getRuntime().totalMemory();
             long free = Runtime.getRuntime().freeMemory();
             sbState.append("\nCluster Size:").append(lsMembers.size());
@@ -643,6 +719,29 @@ public class ConcurrentMapManager extends BaseManager {
         mput.putTransient(name, key, value, timeout, ttl);
     }
 
+    /**
+     * Puts the entry without storing it unless the key already has a value,
+     * so entries loaded from the MapLoader never override the updates of the map.
+     * <p/>
+     * Members of the previous versions do not know the put-if-absent operation, so unless
+     * hazelcast.map.load.put.if.absent.enabled is set, it is only used for the keys this member
+     * owns or of partitions not assigned yet, the keys the initial load is started with.
+     * Keys migrated to other members meanwhile are checked with containsKey, which loads the
+     * key on its owner if it is absent, and are only put if the store does not have them anymore.
+     */
+    public boolean putTransientIfAbsent(String name, Object key, Object value) {
+        final Member owner = loadPutIfAbsentEnabled ? null : partitionServiceImpl.getPartition(key).getOwner();
+        if (owner != null && !owner.localMember()) {
+            if (new MContainsKey().containsKey(name, key)) {
+                return false;
+            }
+            putTransient(name, key, value, -1, -1);
+            return true;
+        }
+        MPut mput = new MPut();
+        return mput.putTransientIfAbsent(name, key, value);
+    }
+
     void putTransientAsync(Request request) {
         final MPut mput = new MPut();
         mput.request.setFromRequest(request);
@@ -830,7 +929,11 @@ public class ConcurrentMapManager extends BaseManager {
         while (true) {
             try {
                 Entries entries = new Entries(this, name, operation, predicate);
-                tryQuery(entries, name, operation, predicateData);
+                if (predicate instanceof PagingPredicate) {
+                    tryPagingQuery(entries, name, (PagingPredicate) predicate, predicateData);
+                } else {
+                    tryQuery(entries, name, operation, predicateData);
+                }
                 return entries;
             } catch (Throwable e) {
                 if (e instanceof MemberLeftException || e instanceof IllegalPartitionState) {
@@ -858,41 +961,195 @@ public class ConcurrentMapManager extends BaseManager {
     }
 
     void tryQuery(Entries entries, String name, ClusterOperation operation, Data predicateData) throws ExecutionException, InterruptedException {
-        Set<Member> members = node.getClusterImpl().getMembers();
-        List<Future<Pairs>> lsFutures = new ArrayList<Future<Pairs>>();
-        int expectedPartitionVersion = partitionManager.getVersion();
-        for (Member member : members) {
-            if (!member.isLiteMember()) {
-                Callable callable = new MapQueryCallable(name, operation, predicateData, expectedPartitionVersion);
-                DistributedTask<Pairs> dt = new DistributedTask<Pairs>(callable, member);
-                lsFutures.add(dt);
-                node.factory.getExecutorService(BATCH_OPS_EXECUTOR_NAME).execute(dt);
+        for (Pairs pairs : queryMembers(name, operation, predicateData)) {
+            entries.addEntries(pairs);
+        }
+    }
+
+    /**
+     * Queries the entries of the members, since the page is sorted by the entries, and
+     * adds the first page size entries after the anchor to the entries in order.
+     */
+    void tryPagingQuery(Entries entries, String name, PagingPredicate pagingPredicate, Data predicateData) throws ExecutionException, InterruptedException {
+        List<KeyValue> keyValues = new ArrayList<KeyValue>();
+        for (Pairs pairs : queryMembers(name, CONCURRENT_MAP_ITERATE_ENTRIES, predicateData)) {
+            if (pairs.getKeyValues() != null) {
+                keyValues.addAll(pairs.getKeyValues());
             }
         }
-        for (Future<Pairs> future : lsFutures) {
-            Pairs pairs = future.get();
-            if (pairs == null) {
-                throw new IllegalPartitionState("Unexpected partition version!");
-            } else {
-                entries.addEntries(pairs);
+        addPage(entries, pagingPredicate, keyValues);
+    }
+
+    private void addPage(Entries entries, PagingPredicate pagingPredicate, Collection<KeyValue> keyValues) {
+        List<KeyValue> page = pagingPredicate.getPage(keyValues);
+        pagingPredicate.setPageResult(page);
+        Pairs pairs = new Pairs();
+        pairs.setKeyValues(page);
+        entries.addEntries(pairs);
+    }
+
+    /**
+     * Queries each member for the partitions it owns, then queries again only the partitions
+     * no member answered, because their owner left or they migrated during the query,
+     * until each partition is answered once.
+     *
+     * @throws QueryException if some partitions are still not answered after
+     *                        hazelcast.query.max.retry.count retries
+     */
+    private List<Pairs> queryMembers(String name, ClusterOperation operation, Data predicateData) throws ExecutionException, InterruptedException {
+        List<Pairs> results = new ArrayList<Pairs>();
+        Set<Integer> answeredPartitionIds = new HashSet<Integer>(PARTITION_COUNT);
+        Set<Integer> partitionIds = null;
+        int retryCount = 0;
+        while (true) {
+            final int partitionVersion = partitionManager.getVersion();
+            Set<Member> members = node.getClusterImpl().getMembers();
+            Map<Member, Future<Object>> futures = new HashMap<Member, Future<Object>>();
+            for (Member member : members) {
+                if (!member.isLiteMember()) {
+                    Callable callable = new MapQueryCallable(name, operation, predicateData, partitionVersion, partitionIds);
+                    DistributedTask<Object> dt = new DistributedTask<Object>(callable, member);
+                    futures.put(member, dt);
+                    node.factory.getExecutorService(BATCH_OPS_EXECUTOR_NAME).execute(dt);
+                }
+            }
+            for (Map.Entry<Member, Future<Object>> entry : futures.entrySet()) {
+                try {
+                    final Object result = entry.getValue().get();
+                    if (result instanceof QueryResult) {
+                        results.add(addAnsweredPartitions((QueryResult) result, answeredPartitionIds));
+                    } else if (result != null && partitionManager.getVersion() == partitionVersion) {
+                        // a member of the previous versions answered for all the partitions it owns
+                        final QueryResult queryResult = new QueryResult(getPartitionIdsOf(entry.getKey()), (Pairs) result);
+                        results.add(addAnsweredPartitions(queryResult, answeredPartitionIds));
+                    }
+                } catch (MemberLeftException e) {
+                    // partitions of the member are queried again
+                }
+            }
+            partitionIds = new HashSet<Integer>();
+            for (int i = 0; i < PARTITION_COUNT; i++) {
+                // a partition not assigned yet has no entries
+                if (!answeredPartitionIds.contains(i) && partitionManager.getPartition(i).getOwner() != null) {
+                    partitionIds.add(i);
+                }
+            }
+            if (partitionIds.isEmpty()) {
+                return results;
+            }
+            if (++retryCount > queryMaxRetryCount) {
+                throw new QueryException("Query on map [" + name + "] gave up after " + queryMaxRetryCount
+                        + " retries, " + partitionIds.size() + " partitions are not answered");
+            }
+            queryRetryCount.incrementAndGet();
+            queryRetryPartitionCount.addAndGet(partitionIds.size());
+            Thread.sleep(redoWaitMillis);
+        }
+    }
+
+    private Set<Integer> getPartitionIdsOf(Member member) {
+        final Address address = ((MemberImpl) member).getAddress();
+        final Set<Integer> partitionIds = new HashSet<Integer>();
+        for (int i = 0; i < PARTITION_COUNT; i++) {
+            if (address.equals(partitionManager.getPartition(i).getOwner())) {
+                partitionIds.add(i);
+            }
+        }
+        return partitionIds;
+    }
+
+    /**
+     * @return the entries of the partitions in the result not answered before
+     */
+    private Pairs addAnsweredPartitions(QueryResult result, Set<Integer> answeredPartitionIds) {
+        Set<Integer> newPartitionIds = new HashSet<Integer>(result.getPartitionIds());
+        newPartitionIds.removeAll(answeredPartitionIds);
+        answeredPartitionIds.addAll(newPartitionIds);
+        if (newPartitionIds.size() == result.getPartitionIds().size()) {
+            return result.getPairs();
+        }
+        return filterPairs(result.getPairs(), newPartitionIds);
+    }
+
+    private Pairs filterPairs(Pairs pairs, Set<Integer> partitionIds) {
+        Pairs filtered = new Pairs();
+        if (pairs.getKeyValues() != null) {
+            for (KeyValue keyValue : pairs.getKeyValues()) {
+                if (partitionIds.contains(getPartitionId(keyValue.getKeyData()))) {
+                    filtered.addKeyValue(keyValue);
+                }
+            }
+        }
+        return filtered;
+    }
+
+    /**
+     * Queries the given partitions, or all if null, owned by this member. The result has only
+     * the partitions this member owned during the whole query and their entries.
+     */
+    public QueryResult queryOwnedPartitions(CMap cmap, ClusterOperation operation, Predicate predicate,
+                                            Set<Integer> partitionIds) throws QueryException {
+        Set<Integer> ownedPartitionIds = getOwnedPartitionIds(partitionIds);
+        Pairs pairs = queryMap(cmap, operation, predicate, ownedPartitionIds);
+        Set<Integer> stillOwnedPartitionIds = getOwnedPartitionIds(ownedPartitionIds);
+        if (stillOwnedPartitionIds.size() < ownedPartitionIds.size()) {
+            pairs = filterPairs(pairs, stillOwnedPartitionIds);
+        }
+        return new QueryResult(stillOwnedPartitionIds, pairs);
+    }
+
+    /**
+     * @return the given partitions, or all if null, owned by this member and not migrating
+     */
+    public Set<Integer> getOwnedPartitionIds(Set<Integer> partitionIds) {
+        Set<Integer> ownedPartitionIds = new HashSet<Integer>();
+        if (partitionIds == null) {
+            for (int i = 0; i < PARTITION_COUNT; i++) {
+                if (isOwnedPartition(i)) {
+                    ownedPartitionIds.add(i);
+                }
+            }
+        } else {
+            for (Integer partitionId : partitionIds) {
+                if (isOwnedPartition(partitionId)) {
+                    ownedPartitionIds.add(partitionId);
+                }
             }
         }
+        return ownedPartitionIds;
+    }
+
+    private boolean isOwnedPartition(int partitionId) {
+        return thisAddress.equals(partitionManager.getPartition(partitionId).getOwner())
+                && !partitionManager.isOwnedPartitionMigrating(partitionId);
     }
 
     Entries queryLocal(String name, ClusterOperation operation, Predicate predicate) {
         Entries entries = new Entries(this, name, operation, predicate);
         CMap cmap = getMap(name);
         if (cmap == null) return entries;
-        PartitionManager partitionManager = getPartitionManager();
-        while (true) {
-            int partitionVersion = partitionManager.getVersion();
-            Pairs pairs = queryMap(cmap, operation, predicate);
-            if (partitionManager.getVersion() == partitionVersion) {
-                entries.addEntries(pairs);
-                return entries;
-            }
-            entries.clearEntries();
+        boolean paging = predicate instanceof PagingPredicate;
+        List<KeyValue> keyValues = new ArrayList<KeyValue>();
+        Set<Integer> answeredPartitionIds = new HashSet<Integer>();
+        Set<Integer> partitionIds = null;
+        // query again only the partitions migrated to this member during the query
+        while (partitionIds == null || !partitionIds.isEmpty()) {
+            QueryResult result = queryOwnedPartitions(cmap, (paging) ? CONCURRENT_MAP_ITERATE_ENTRIES : operation, predicate, partitionIds);
+            answeredPartitionIds.addAll(result.getPartitionIds());
+            if (result.getPairs().getKeyValues() != null) {
+                keyValues.addAll(result.getPairs().getKeyValues());
+            }
+            partitionIds = getOwnedPartitionIds(null);
+            partitionIds.removeAll(answeredPartitionIds);
+        }
+        if (paging) {
+            addPage(entries, (PagingPredicate) predicate, keyValues);
+        } else {
+            Pairs pairs = new Pairs();
+            pairs.setKeyValues(keyValues);
+            entries.addEntries(pairs);
         }
+        return entries;
     }
 
     void doPutAll(String name, Map entries) {
@@ -1564,6 +1821,11 @@ public class ConcurrentMapManager extends BaseManager {
             return txnalPut(CONCURRENT_MAP_PUT_TRANSIENT, name, key, value, timeout, ttl);
         }
 
+        public boolean putTransientIfAbsent(String name, Object key, Object value) {
+            Object result = txnalPut(CONCURRENT_MAP_PUT_TRANSIENT_IF_ABSENT, name, key, value, -1, -1);
+            return (result == Boolean.TRUE);
+        }
+
         public boolean set(String name, Object key, Object value, long ttl) {
             Object result = txnalPut(CONCURRENT_MAP_SET, name, key, value, -1, ttl);
             return (result == Boolean.TRUE);
@@ -1703,7 +1965,8 @@ public class ConcurrentMapManager extends BaseManager {
                 if (operation == CONCURRENT_MAP_TRY_PUT
                         || operation == CONCURRENT_MAP_SET
                         || operation == CONCURRENT_MAP_PUT_AND_UNLOCK
-                        || operation == CONCURRENT_MAP_PUT_TRANSIENT) {
+                        || operation == CONCURRENT_MAP_PUT_TRANSIENT
+                        || operation == CONCURRENT_MAP_PUT_TRANSIENT_IF_ABSENT) {
                     request.setBooleanRequest();
                     Data valueData = request.value;
                     doOp();
@@ -1844,10 +2107,18 @@ public class ConcurrentMapManager extends BaseManager {
 
     class MBackup extends MTargetAwareOp {
         protected int replicaIndex = 0;
-
-        public void sendBackup(ClusterOperation operation, int replicaIndex, Request reqBackup) {
+        protected BackupBatch.Delta delta = null;
+        // accessed only by the ServiceThread
+        int batchSequence = 0;
+        private boolean lagging = false;
+
+        /**
+         * @param delta delta of reqBackup.value to send instead of the value if the backup is batched, may be null
+         */
+        public void sendBackup(ClusterOperation operation, int replicaIndex, Request reqBackup, BackupBatch.Delta delta) {
             reset();
             this.replicaIndex = replicaIndex;
+            this.delta = delta;
             SystemLogService css = node.getSystemLogService();
             if (css.shouldLog(CS_TRACE)) {
                 css.trace(this, "SendingBackup callId.", callId);
@@ -1862,6 +2133,14 @@ public class ConcurrentMapManager extends BaseManager {
         public void reset() {
             super.reset();
             replicaIndex = 0;
+            delta = null;
+        }
+
+        @Override
+        public void beforeRedo() {
+            // the backup may not have the value the delta is created from
+            delta = null;
+            super.beforeRedo();
         }
 
         @Override
@@ -1873,17 +2152,46 @@ public class ConcurrentMapManager extends BaseManager {
                 if (target.equals(thisAddress)) {
                     doLocalOp();
                 } else {
-                    invoke();
+                    lagging = true;
+                    backupBatcher.onBackupSent(request.blockId);
+                    if (backupBatcher.isEnabled()) {
+                        invokeBatched();
+                    } else {
+                        invoke();
+                    }
                 }
             }
         }
+
+        private void invokeBatched() {
+            if (getMember(target) == null) {
+                memberDoesNotExist();
+            } else {
+                addRemoteCall(MBackup.this);
+                request.callId = getCallId();
+                backupBatcher.add(target, MBackup.this);
+            }
+        }
+
+        @Override
+        protected void setResult(Object obj) {
+            if (lagging) {
+                lagging = false;
+                backupBatcher.onBackupDone(request.blockId);
+            }
+            super.setResult(obj);
+        }
     }
 
     abstract class MBackupAwareOp extends MTargetAwareOp {
         protected final MBackup[] backupOps = new MBackup[MAX_BACKUP_COUNT];
         protected volatile int backupCount = 0;
+        // result of the operation if it is a value, the previous value the backups have for a put
+        protected volatile Data backupBaseValue = null;
 
         protected void backup(ClusterOperation operation) {
+            final Data baseValue = backupBaseValue;
+            backupBaseValue = null;
             if (backupCount <= 0) return;
             if (thisAddress.equals(target) &&
                     (operation == CONCURRENT_MAP_LOCK || operation == CONCURRENT_MAP_UNLOCK)) {
@@ -1894,6 +2202,8 @@ public class ConcurrentMapManager extends BaseManager {
                 logger.log(Level.SEVERE, msg);
                 throw new RuntimeException(msg);
             }
+            final BackupBatch.Delta delta = (operation == CONCURRENT_MAP_BACKUP_PUT)
+                    ? backupBatcher.createDelta(baseValue, request.value) : null;
             for (int i = 0; i < backupCount; i++) {
                 int replicaIndex = i + 1;
                 MBackup backupOp = backupOps[i];
@@ -1904,7 +2214,7 @@ public class ConcurrentMapManager extends BaseManager {
                 if (request.key == null || request.key.size() == 0) {
                     throw new RuntimeException("Key is null! " + request.key);
                 }
-                backupOp.sendBackup(operation, replicaIndex, request);
+                backupOp.sendBackup(operation, replicaIndex, request, delta);
             }
             for (int i = 0; i < backupCount; i++) {
                 MBackup backupOp = backupOps[i];
@@ -1934,6 +2244,12 @@ public class ConcurrentMapManager extends BaseManager {
             super.handleNoneRedoResponse(packet);
         }
 
+        @Override
+        protected void setResult(Object obj) {
+            backupBaseValue = (obj instanceof Data) ? (Data) obj : null;
+            super.setResult(obj);
+        }
+
         public void handleRemoteResponse(Packet packet) {
             request.local = true;
             request.version = packet.version;
@@ -2113,7 +2429,8 @@ public class ConcurrentMapManager extends BaseManager {
     public boolean isMigrating(Request req) {
         final Data key = req.key;
         if (key == null) return false;
-        return partitionManager.isOwnedPartitionMigrating(getPartitionId(req));
+        final int partitionId = getPartitionId(req);
+        return partitionManager.isOwnedPartitionMigrating(partitionId) || partitionManager.isPartitionWriteBlocked(partitionId);
     }
 
     public int getPartitionId(Request req) {
@@ -2187,6 +2504,52 @@ public class ConcurrentMapManager extends BaseManager {
         }
     }
 
+    /**
+     * Processes the backup operations of a batch in order and returns their
+     * responses in one packet. A backup put sent as a delta is redone with the value
+     * if the backup does not have the value the delta is created from.
+     */
+    class BackupBatchPacketProcessor implements PacketProcessor {
+        public void process(Packet packet) {
+            final Connection conn = packet.conn;
+            final Address caller = conn.getEndPoint();
+            final BackupBatch backupBatch = (BackupBatch) toObject(packet.getValueData());
+            releasePacket(packet);
+            final int size = backupBatch.size();
+            final long[] callIds = new long[size];
+            final byte[] responseTypes = new byte[size];
+            for (int i = 0; i < size; i++) {
+                final Request request = backupBatch.getRequest(i);
+                request.caller = caller;
+                callIds[i] = request.callId;
+                responseTypes[i] = backup(request, backupBatch.getDelta(i));
+            }
+            final Packet response = obtainPacket();
+            response.set("", CONCURRENT_MAP_BACKUP_BATCH_RESPONSE, null, BackupBatcher.toResponseData(callIds, responseTypes));
+            sendOrReleasePacket(response, conn);
+        }
+
+        private byte backup(Request request, BackupBatch.Delta delta) {
+            try {
+                final CMap cmap = getOrCreateMap(request.name);
+                if (delta != null) {
+                    final Record record = cmap.getRecord(request);
+                    if (record != null && record.isActive() && request.version < record.getVersion()) {
+                        return RESPONSE_FAILURE;
+                    }
+                    request.value = delta.apply((record != null && record.isActive()) ? record.getValueData() : null);
+                    if (request.value == null) {
+                        return RESPONSE_REDO;
+                    }
+                }
+                return cmap.backup(request) ? RESPONSE_SUCCESS : RESPONSE_FAILURE;
+            } catch (Throwable e) {
+                logger.log(Level.WARNING, "Backup of " + request.operation + " failed", e);
+                return RESPONSE_FAILURE;
+            }
+        }
+    }
+
     class AsyncMergePacketProcessor implements PacketProcessor {
         public void process(final Packet packet) {
             packet.operation = CONCURRENT_MAP_WAN_MERGE;
@@ -2270,7 +2633,7 @@ public class ConcurrentMapManager extends BaseManager {
 
         public void handle(Request request) {
             CMap cmap = getOrCreateMap(request.name);
-            if (cmap.isNotLocked(request)) {
+            if (cmap.isNotLocked(request) && !cmap.isWriteBehindQueueFull(request)) {
                 if (shouldSchedule(request)) {
                     if (request.hasEnoughTimeToSchedule()) {
                         schedule(request);
@@ -2411,6 +2774,8 @@ public class ConcurrentMapManager extends BaseManager {
                 } else {
                     onNoTimeToSchedule(request);
                 }
+            } else if (getOrCreateMap(request.name).isWriteBehindQueueFull(request)) {
+                returnRedoResponse(request);
             } else {
                 doOperation(request);
             }
@@ -2472,6 +2837,8 @@ public class ConcurrentMapManager extends BaseManager {
                 } else {
                     onNoTimeToSchedule(request);
                 }
+            } else if (getOrCreateMap(request.name).isWriteBehindQueueFull(request)) {
+                returnRedoResponse(request);
             } else {
                 doOperation(request);
             }
@@ -2526,6 +2893,8 @@ public class ConcurrentMapManager extends BaseManager {
                 } else {
                     onNoTimeToSchedule(request);
                 }
+            } else if (getOrCreateMap(request.name).isWriteBehindQueueFull(request)) {
+                returnRedoResponse(request);
             } else {
                 doOperation(request);
             }
@@ -2579,6 +2948,14 @@ public class ConcurrentMapManager extends BaseManager {
 
         void doOperation(Request request) {
             CMap cmap = getOrCreateMap(request.name);
+            if (request.operation == CONCURRENT_MAP_PUT_TRANSIENT_IF_ABSENT) {
+                Record existing = cmap.getRecord(request);
+                if (existing != null && existing.isActive() && existing.isValid() && existing.valueCount() > 0) {
+                    request.value = null;
+                    request.response = Boolean.FALSE;
+                    return;
+                }
+            }
             Record record = ensureRecord(request);
             boolean dirty = (record == null) ? false : record.isDirty();
             cmap.put(request);
@@ -2631,7 +3008,8 @@ public class ConcurrentMapManager extends BaseManager {
             boolean checkCapacity = (request.operation == CONCURRENT_MAP_PUT
                     || request.operation == CONCURRENT_MAP_TRY_PUT
                     || request.operation == CONCURRENT_MAP_PUT_AND_UNLOCK);
-            boolean overCapacity = checkCapacity && cmap.overCapacity(request);
+            boolean overCapacity = (checkCapacity && cmap.overCapacity(request))
+                    || cmap.isWriteBehindQueueFull(request);
             boolean cmapNotLocked = cmap.isNotLocked(request);
             if (css.shouldLog(CS_TRACE)) {
                 css.trace(request, "OverCapacity/CmapNotLocked", overCapacity, cmapNotLocked);
@@ -3175,7 +3553,7 @@ public class ConcurrentMapManager extends BaseManager {
     class MergeOperationHandler extends MTargetAwareOperationHandler {
         public void handle(Request request) {
             CMap cmap = getOrCreateMap(request.name);
-            if (cmap.isNotLocked(request)) {
+            if (cmap.isNotLocked(request) && !cmap.isWriteBehindQueueFull(request)) {
                 Record record = cmap.getRecord(request);
                 boolean doesNotExist = (
                         record == null
@@ -3377,6 +3755,58 @@ public class ConcurrentMapManager extends BaseManager {
         }
     }
 
+    /**
+     * Serves remote gets of owned records on the partition threads, using the same
+     * optimistic version check as the local read path of MGet. Records that have to be
+     * loaded, are not owned or changed while being read are left to the ServiceThread.
+     */
+    class GetPartitionPacketProcessor implements PartitionPacketProcessor {
+        public boolean processOnPartitionThread(Packet packet) {
+            final CMap cmap = maps.get(packet.name);
+            if (cmap == null || cmap.loader != null) {
+                return false;
+            }
+            final Record record = cmap.getOwnedRecord(packet.getKeyData());
+            if (record == null || !record.isActive() || !record.isValid()) {
+                return false;
+            }
+            final long version = record.getVersion();
+            final Data value = record.getValueData();
+            if (value == null || value.size() == 0 || record.getVersion() != version) {
+                return false;
+            }
+            record.setLastAccessed();
+            final Request request = Request.copy(packet);
+            request.clearForResponse();
+            request.response = value;
+            returnResponse(request, packet.conn);
+            return true;
+        }
+    }
+
+    /**
+     * Answers containsKey for owned, unlocked maps on the partition threads when
+     * the key is present. Misses are left to the ServiceThread as they may need the loader.
+     */
+    class ContainsKeyPartitionPacketProcessor implements PartitionPacketProcessor {
+        public boolean processOnPartitionThread(Packet packet) {
+            final CMap cmap = maps.get(packet.name);
+            if (cmap == null || cmap.lockEntireMap != null || packet.getValueData() != null) {
+                return false;
+            }
+            final Record record = cmap.getOwnedRecord(packet.getKeyData());
+            if (record == null || !record.isActive() || !record.isValid() || record.isLoadable()
+                    || record.valueCount() <= 0) {
+                return false;
+            }
+            final Request request = Request.copy(packet);
+            request.clearForResponse();
+            request.response = Boolean.TRUE;
+            returnResponse(request, packet.conn);
+            return true;
+        }
+    }
+
     class ContainsKeyOperationHandler extends MTargetAwareOperationHandler {
         public void handle(Request request) {
             CMap cmap = getOrCreateMap(request.name);
@@ -3820,44 +4250,175 @@ public class ConcurrentMapManager extends BaseManager {
     }
 
     public Pairs queryMap(CMap cmap, ClusterOperation operation, Predicate predicate) throws QueryException {
+        return queryMap(cmap, operation, predicate, null);
+    }
+
+    /**
+     * @param partitionIds partitions to return the entries of, or null for all
+     */
+    public Pairs queryMap(CMap cmap, ClusterOperation operation, Predicate predicate, Set<Integer> partitionIds) throws QueryException {
+        if (predicate instanceof PagingPredicate) {
+            return queryPage(cmap, operation, (PagingPredicate) predicate, partitionIds);
+        }
         try {
             final QueryContext queryContext = new QueryContext(cmap.getName(), predicate, cmap.getMapIndexService());
             Set<MapEntry> results = cmap.getMapIndexService().doQuery(queryContext);
             boolean evaluateValues = (predicate != null && !queryContext.isStrong());
-            return createResultPairs(operation, results, evaluateValues, predicate);
+            return createResultPairs(operation, filterPartitions(results, partitionIds), evaluateValues, predicate);
+        } catch (Throwable e) {
+            throw new QueryException(e);
+        }
+    }
+
+    /**
+     * Returns the first page size entries of this member coming after the anchor
+     * of the paging predicate, in order.
+     */
+    private Pairs queryPage(CMap cmap, ClusterOperation operation, PagingPredicate pagingPredicate,
+                            Set<Integer> partitionIds) throws QueryException {
+        try {
+            final Predicate predicate = pagingPredicate.getPredicate();
+            final QueryContext queryContext = new QueryContext(cmap.getName(), predicate, cmap.getMapIndexService());
+            Collection<MapEntry> results = filterPartitions(cmap.getMapIndexService().doQuery(queryContext), partitionIds);
+            boolean evaluateValues = (predicate != null && !queryContext.isStrong());
+            List<KeyValue> keyValues = new ArrayList<KeyValue>();
+            if (results != null) {
+                long now = currentTimeMillis();
+                for (MapEntry mapEntry : results) {
+                    Record record = (Record) mapEntry;
+                    if (record.isActive() && record.isValid(now) && record.hasValueData()
+                            && (!evaluateValues || predicate.apply(record))) {
+                        keyValues.add(new KeyValue(record.getKeyData(), record.getValueData()));
+                    }
+                }
+            }
+            List<KeyValue> page = pagingPredicate.getPage(keyValues);
+            if (operation == CONCURRENT_MAP_ITERATE_KEYS || operation == CONCURRENT_MAP_ITERATE_KEYS_ALL) {
+                for (int i = 0; i < page.size(); i++) {
+                    page.set(i, new KeyValue(page.get(i).getKeyData(), null));
+                }
+            }
+            Pairs pairs = new Pairs();
+            pairs.setKeyValues(page);
+            return pairs;
         } catch (Throwable e) {
             throw new QueryException(e);
         }
     }
 
-    private Pairs createResultPairs(ClusterOperation operation, Collection<MapEntry> colRecords, boolean evaluateEntries, Predicate predicate) {
+    private Collection<MapEntry> filterPartitions(Collection<MapEntry> records, Set<Integer> partitionIds) {
+        if (records == null || partitionIds == null) {
+            return records;
+        }
+        if (partitionIds.size() == PARTITION_COUNT) {
+            return records;
+        }
+        List<MapEntry> filtered = new ArrayList<MapEntry>();
+        for (MapEntry record : records) {
+            if (partitionIds.contains(((Record) record).getBlockId())) {
+                filtered.add(record);
+            }
+        }
+        return filtered;
+    }
+
+    private Pairs createResultPairs(ClusterOperation operation, Collection<MapEntry> colRecords, boolean evaluateEntries, Predicate predicate) throws Exception {
+        if (evaluateEntries && colRecords != null && queryPartitionThreadCount > 1
+                && colRecords.size() >= PARALLEL_QUERY_MIN_RECORD_COUNT) {
+            return createResultPairsInParallel(operation, colRecords, predicate);
+        }
         Pairs pairs = new Pairs();
         if (colRecords != null) {
-            long now = currentTimeMillis();
-            for (MapEntry mapEntry : colRecords) {
-                Record record = (Record) mapEntry;
-                if (record.isActive() && record.isValid(now)) {
-                    if (record.getKeyData() == null || record.getKeyData().size() == 0) {
-                        throw new RuntimeException("Key cannot be null or zero-size: " + record.getKeyData());
-                    }
-                    boolean match = (!evaluateEntries) || predicate.apply(record);
-                    if (match) {
-                        boolean onlyKeys = (operation == CONCURRENT_MAP_ITERATE_KEYS_ALL ||
-                                operation == CONCURRENT_MAP_ITERATE_KEYS);
-                        Data key = record.getKeyData();
-                        if (record.hasValueData()) {
-                            Data value = (onlyKeys) ? null : record.getValueData();
-                            pairs.addKeyValue(new KeyValue(key, value));
-                        } else if (record.getMultiValues() != null) {
-                            int size = record.getMultiValues().size();
-                            if (size > 0) {
-                                if (operation == CONCURRENT_MAP_ITERATE_KEYS) {
-                                    pairs.addKeyValue(new KeyValue(key, null));
-                                } else {
-                                    Collection<ValueHolder> values = record.getMultiValues();
-                                    for (ValueHolder valueHolder : values) {
-                                        pairs.addKeyValue(new KeyValue(key, valueHolder.getData()));
-                                    }
+            addResultPairs(pairs, operation, colRecords, evaluateEntries, predicate, currentTimeMillis());
+        }
+        return pairs;
+    }
+
+    /**
+     * Splits the records by partition into queryPartitionThreadCount chunks of about the same size,
+     * evaluates the predicate over the chunks in parallel, the first one by the calling thread,
+     * and merges the results. Off by default, as user predicates are applied concurrently then.
+     */
+    private Pairs createResultPairsInParallel(final ClusterOperation operation, Collection<MapEntry> colRecords,
+                                              final Predicate predicate) throws Exception {
+        final List<MapEntry>[] partitionRecords = new List[PARTITION_COUNT];
+        for (MapEntry mapEntry : colRecords) {
+            int partitionId = ((Record) mapEntry).getBlockId();
+            if (partitionRecords[partitionId] == null) {
+                partitionRecords[partitionId] = new ArrayList<MapEntry>();
+            }
+            partitionRecords[partitionId].add(mapEntry);
+        }
+        final int chunkSize = colRecords.size() / queryPartitionThreadCount + 1;
+        final List<List<MapEntry>> chunks = new ArrayList<List<MapEntry>>(queryPartitionThreadCount);
+        List<MapEntry> chunk = null;
+        for (List<MapEntry> records : partitionRecords) {
+            if (records == null) continue;
+            if (chunk == null || chunk.size() >= chunkSize) {
+                chunk = new ArrayList<MapEntry>(chunkSize + records.size());
+                chunks.add(chunk);
+            }
+            chunk.addAll(records);
+        }
+        final long now = currentTimeMillis();
+        final Pairs[] chunkPairs = new Pairs[chunks.size()];
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        final CountDownLatch latch = new CountDownLatch(chunks.size() - 1);
+        for (int i = 1; i < chunks.size(); i++) {
+            final int chunkIndex = i;
+            queryPartitionExecutor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        Pairs pairs = new Pairs();
+                        addResultPairs(pairs, operation, chunks.get(chunkIndex), true, predicate, now);
+                        chunkPairs[chunkIndex] = pairs;
+                    } catch (Throwable e) {
+                        error.compareAndSet(null, e);
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            });
+        }
+        Pairs pairs = new Pairs(colRecords.size());
+        addResultPairs(pairs, operation, chunks.get(0), true, predicate, now);
+        latch.await();
+        if (error.get() != null) {
+            Util.throwUncheckedException(error.get());
+        }
+        for (int i = 1; i < chunkPairs.length; i++) {
+            if (chunkPairs[i].size() > 0) {
+                pairs.getKeyValues().addAll(chunkPairs[i].getKeyValues());
+            }
+        }
+        return pairs;
+    }
+
+    private void addResultPairs(Pairs pairs, ClusterOperation operation, Collection<MapEntry> colRecords,
+                                boolean evaluateEntries, Predicate predicate, long now) {
+        for (MapEntry mapEntry : colRecords) {
+            Record record = (Record) mapEntry;
+            if (record.isActive() && record.isValid(now)) {
+                if (record.getKeyData() == null || record.getKeyData().size() == 0) {
+                    throw new RuntimeException("Key cannot be null or zero-size: " + record.getKeyData());
+                }
+                boolean match = (!evaluateEntries) || predicate.apply(record);
+                if (match) {
+                    boolean onlyKeys = (operation == CONCURRENT_MAP_ITERATE_KEYS_ALL ||
+                            operation == CONCURRENT_MAP_ITERATE_KEYS);
+                    Data key = record.getKeyData();
+                    if (record.hasValueData()) {
+                        Data value = (onlyKeys) ? null : record.getValueData();
+                        pairs.addKeyValue(new KeyValue(key, value));
+                    } else if (record.getMultiValues() != null) {
+                        int size = record.getMultiValues().size();
+                        if (size > 0) {
+                            if (operation == CONCURRENT_MAP_ITERATE_KEYS) {
+                                pairs.addKeyValue(new KeyValue(key, null));
+                            } else {
+                                Collection<ValueHolder> values = record.getMultiValues();
+                                for (ValueHolder valueHolder : values) {
+                                    pairs.addKeyValue(new KeyValue(key, valueHolder.getData()));
                                 }
                             }
                         }
@@ -3865,7 +4426,6 @@ public class ConcurrentMapManager extends BaseManager {
                 }
             }
         }
-        return pairs;
     }
 
     Record recordExist(Request req) {
@@ -3886,6 +4446,7 @@ public class ConcurrentMapManager extends BaseManager {
         if (record == null || !record.isActive() || !record.isValid()) {
             record = cmap.createAndAddNewRecord(req.key, defaultValue);
         }
+        cmap.logMigrationWrite(req.key);
         return record;
     }
 
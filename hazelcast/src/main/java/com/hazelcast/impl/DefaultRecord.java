@@ -23,7 +23,10 @@ import com.hazelcast.nio.Data;
 import static com.hazelcast.nio.IOUtil.toObject;
 
 @SuppressWarnings("SynchronizeOnThis")
-public final class DefaultRecord extends AbstractRecord {
+public final class DefaultRecord extends AbstractStatsRecord {
+
+    // estimated bytes of a record besides its key and value
+    static final int RECORD_COST = 312;
 
     private volatile Object valueObject = null;
     private volatile Data value;
@@ -109,7 +112,7 @@ public final class DefaultRecord extends AbstractRecord {
                 }
             }
         }
-        return cost + dataKey.size() + 312;
+        return cost + dataKey.size() + RECORD_COST;
     }
 
     public boolean hasValueData() {
@@ -23,6 +23,7 @@ import com.hazelcast.core.Prefix;
 import com.hazelcast.impl.base.KeyValue;
 import com.hazelcast.impl.base.Pairs;
 import com.hazelcast.nio.Data;
+import com.hazelcast.query.PagingPredicate;
 import com.hazelcast.query.Predicate;
 
 import java.util.*;
@@ -44,6 +45,8 @@ public class Entries extends AbstractSet {
         this.predicate = predicate;
         if (name.startsWith(Prefix.MULTIMAP)) {
             colKeyValues = new LinkedList<Map.Entry>();
+        } else if (predicate instanceof PagingPredicate) {
+            colKeyValues = new LinkedHashSet<Map.Entry>();
         } else {
             colKeyValues = new HashSet<Map.Entry>();
         }
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2008-2012, Hazel Bilisim Ltd. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.impl;
+
+import com.hazelcast.nio.Address;
+import com.hazelcast.nio.Data;
+import com.hazelcast.nio.DataSerializable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Events sent to the listeners of a member in one packet, in the order they are fired.
+ */
+public class EventBatch implements DataSerializable {
+
+    private final List<Event> events = new ArrayList<Event>();
+    private transient int bytes = 0;
+
+    public EventBatch() {
+    }
+
+    public void add(int eventType, String name, Data key, Data value, Address caller) {
+        events.add(new Event(eventType, name, key, value, caller));
+        bytes += ((key == null) ? 0 : key.size()) + ((value == null) ? 0 : value.size());
+    }
+
+    public List<Event> getEvents() {
+        return events;
+    }
+
+    public int size() {
+        return events.size();
+    }
+
+    /**
+     * @return bytes of the keys and values added
+     */
+    public int getBytes() {
+        return bytes;
+    }
+
+    public void writeData(DataOutput out) throws IOException {
+        out.writeInt(events.size());
+        for (Event event : events) {
+            out.writeInt(event.eventType);
+            out.writeUTF(event.name);
+            writeNullableData(out, event.key);
+            writeNullableData(out, event.value);
+            out.writeBoolean(event.caller != null);
+            if (event.caller != null) {
+                event.caller.writeData(out);
+            }
+        }
+    }
+
+    public void readData(DataInput in) throws IOException {
+        final int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            final int eventType = in.readInt();
+            final String name = in.readUTF();
+            final Data key = readNullableData(in);
+            final Data value = readNullableData(in);
+            Address caller = null;
+            if (in.readBoolean()) {
+                caller = new Address();
+                caller.readData(in);
+            }
+            add(eventType, name, key, value, caller);
+        }
+    }
+
+    private static void writeNullableData(DataOutput out, Data data) throws IOException {
+        out.writeBoolean(data != null);
+        if (data != null) {
+            data.writeData(out);
+        }
+    }
+
+    private static Data readNullableData(DataInput in) throws IOException {
+        if (in.readBoolean()) {
+            final Data data = new Data();
+            data.readData(in);
+            return data;
+        }
+        return null;
+    }
+
+    public static class Event {
+        public final int eventType;
+        public final String name;
+        public final Data key;
+        public final Data value;
+        public final Address caller;
+
+        Event(int eventType, String name, Data key, Data value, Address caller) {
+            this.eventType = eventType;
+            this.name = name;
+            this.key = key;
+            this.value = value;
+            this.caller = caller;
+        }
+    }
+}
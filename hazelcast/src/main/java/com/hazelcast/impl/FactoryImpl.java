@@ -23,7 +23,6 @@ import com.hazelcast.config.MapStoreConfig;
 import com.hazelcast.config.XmlConfigBuilder;
 import com.hazelcast.core.*;
 import com.hazelcast.impl.CMap.InitializationState;
-import com.hazelcast.impl.executor.ParallelExecutor;
 import com.hazelcast.jmx.ManagementService;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.logging.LoggingService;
@@ -587,24 +586,15 @@ public class FactoryImpl implements HazelcastInstance {
                                 if (cmap.loader != null) {
                                     Set keys = cmap.loader.loadAllKeys();
                                     if (keys != null) {
-                                        int count = 0;
-                                        Queue<Set> chunks = new LinkedList<Set>();
-                                        Set ownedKeys = new HashSet();
-                                        PartitionService partitionService = getPartitionService();
-                                        for (Object key : keys) {
-                                            Member owner = partitionService.getPartition(key).getOwner();
-                                            if (owner == null || owner.localMember()) {
-                                                ownedKeys.add(key);
-                                                count++;
-                                                if (ownedKeys.size() >= node.groupProperties.MAP_LOAD_CHUNK_SIZE.getInteger()) {
-                                                    chunks.add(ownedKeys);
-                                                    ownedKeys = new HashSet();
-                                                }
-                                            }
+                                        final InitialMapLoader initialMapLoader = new InitialMapLoader(node, cmap);
+                                        cmap.initialMapLoader = initialMapLoader;
+                                        if (mapStoreConfig.getInitialLoadMode() == MapStoreConfig.InitialLoadMode.LAZY) {
+                                            initialMapLoader.loadLazily(keys, getPartitionService());
+                                        } else {
+                                            initialMapLoader.load(keys, getPartitionService());
+                                            logger.log(Level.INFO, node.address + "[" + mProxy.getName() + "] loaded "
+                                                    + initialMapLoader.getLoadedEntryCount() + " in total.");
                                         }
-                                        chunks.add(ownedKeys);
-                                        loadChunks(mProxy, cmap, chunks);
-                                        logger.log(Level.INFO, node.address + "[" + mProxy.getName() + "] loaded " + count + " in total.");
                                     }
                                 }
                                 task.get();
@@ -621,40 +611,6 @@ public class FactoryImpl implements HazelcastInstance {
         }
     }
 
-    private void loadChunks(final MProxy mProxy, final CMap cmap, final Queue<Set> chunks) throws InterruptedException {
-        if (chunks.size() > 0) {
-            ParallelExecutor es = node.executorManager.getMapLoaderExecutorService();
-            final CountDownLatch latch = new CountDownLatch(chunks.size());
-            for (final Set chunk : chunks) {
-                es.execute(new Runnable() {
-                    public void run() {
-                        if (chunk == null) return;
-                        try {
-                            loadKeys(mProxy, cmap, chunk);
-                        } catch (Exception e) {
-                            logger.log(Level.SEVERE, "Initial loading failed.", e);
-                        } finally {
-                            latch.countDown();
-                        }
-                    }
-                });
-            }
-            latch.await();
-        }
-    }
-
-    private void loadKeys(MProxy mProxy, CMap cmap, Set keys) {
-        if (keys.size() > 0) {
-            Map map = cmap.loader.loadAll(keys);
-            if (map != null && map.size() > 0) {
-                Set<Map.Entry> entries = map.entrySet();
-                for (Map.Entry entry : entries) {
-                    mProxy.putTransient(entry.getKey(), entry.getValue(), 0, null);
-                }
-            }
-        }
-    }
-
     public static class InitializeMap implements Callable<Boolean>, DataSerializable, HazelcastInstanceAware {
         String name;
         private transient FactoryImpl factory = null;
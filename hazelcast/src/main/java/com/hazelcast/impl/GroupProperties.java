@@ -24,14 +24,17 @@ public class GroupProperties {
     public static final String PROP_IO_THREAD_COUNT = "hazelcast.io.thread.count";
     public static final String PROP_CONNECT_ALL_WAIT_SECONDS = "hazelcast.connect.all.wait.seconds";
     public static final String PROP_TOPIC_FLOW_CONTROL_ENABLED = "hazelcast.topic.flow.control.enabled";
+    public static final String PROP_TOPIC_PUBLISH_BATCH_ENABLED = "hazelcast.topic.publish.batch.enabled";
     public static final String PROP_MANCENTER_ENABLED = "hazelcast.mancenter.enabled";
     public static final String PROP_MEMCACHE_ENABLED = "hazelcast.memcache.enabled";
     public static final String PROP_REST_ENABLED = "hazelcast.rest.enabled";
     public static final String PROP_MAP_LOAD_CHUNK_SIZE = "hazelcast.map.load.chunk.size";
     public static final String PROP_MAP_LOAD_THREAD_COUNT = "hazelcast.map.load.thread.count";
+    public static final String PROP_MAP_LOAD_PUT_IF_ABSENT_ENABLED = "hazelcast.map.load.put.if.absent.enabled";
     public static final String PROP_IN_THREAD_PRIORITY = "hazelcast.in.thread.priority";
     public static final String PROP_OUT_THREAD_PRIORITY = "hazelcast.out.thread.priority";
     public static final String PROP_SERVICE_THREAD_PRIORITY = "hazelcast.service.thread.priority";
+    public static final String PROP_PARTITION_THREAD_COUNT = "hazelcast.partition.thread.count";
     public static final String PROP_MERGE_FIRST_RUN_DELAY_SECONDS = "hazelcast.merge.first.run.delay.seconds";
     public static final String PROP_MERGE_NEXT_RUN_DELAY_SECONDS = "hazelcast.merge.next.run.delay.seconds";
     public static final String PROP_REDO_WAIT_MILLIS = "hazelcast.redo.wait.millis";
@@ -41,6 +44,10 @@ public class GroupProperties {
     public static final String PROP_SOCKET_LINGER_SECONDS = "hazelcast.socket.linger.seconds";
     public static final String PROP_SOCKET_KEEP_ALIVE = "hazelcast.socket.keep.alive";
     public static final String PROP_SOCKET_NO_DELAY = "hazelcast.socket.no.delay";
+    public static final String PROP_SOCKET_DIRECT_BUFFER = "hazelcast.socket.direct.buffer";
+    public static final String PROP_IO_BALANCER_INTERVAL_SECONDS = "hazelcast.io.balancer.interval.seconds";
+    public static final String PROP_IO_BALANCER_THRESHOLD = "hazelcast.io.balancer.threshold";
+    public static final String PROP_PACKET_COMPACT_HEADER = "hazelcast.packet.compact.header";
     public static final String PROP_SERIALIZER_GZIP_ENABLED = "hazelcast.serializer.gzip.enabled";
     public static final String PROP_SERIALIZER_SHARED = "hazelcast.serializer.shared";
     public static final String PROP_PACKET_VERSION = "hazelcast.packet.version";
@@ -58,7 +65,11 @@ public class GroupProperties {
     public static final String PROP_REMOVE_DELAY_SECONDS = "hazelcast.map.remove.delay.seconds";
     public static final String PROP_CLEANUP_DELAY_SECONDS = "hazelcast.map.cleanup.delay.seconds";
     public static final String PROP_EXECUTOR_QUERY_THREAD_COUNT = "hazelcast.executor.query.thread.count";
+    public static final String PROP_EXECUTOR_QUERY_PARTITION_THREAD_COUNT = "hazelcast.executor.query.partition.thread.count";
+    public static final String PROP_QUERY_MAX_RETRY_COUNT = "hazelcast.query.max.retry.count";
     public static final String PROP_EXECUTOR_EVENT_THREAD_COUNT = "hazelcast.executor.event.thread.count";
+    public static final String PROP_EVENT_BATCH_SIZE = "hazelcast.event.batch.size";
+    public static final String PROP_EVENT_QUEUE_CAPACITY = "hazelcast.event.queue.capacity";
     public static final String PROP_EXECUTOR_MIGRATION_THREAD_COUNT = "hazelcast.executor.migration.thread.count";
     public static final String PROP_EXECUTOR_CLIENT_THREAD_COUNT = "hazelcast.executor.client.thread.count";
     public static final String PROP_EXECUTOR_STORE_THREAD_COUNT = "hazelcast.executor.store.thread.count";
@@ -78,6 +89,11 @@ public class GroupProperties {
     public static final String PROP_CONNECTION_MONITOR_INTERVAL = "hazelcast.connection.monitor.interval";
     public static final String PROP_CONNECTION_MONITOR_MAX_FAULTS = "hazelcast.connection.monitor.max.faults";
     public static final String PROP_PARTITION_MIGRATION_INTERVAL = "hazelcast.partition.migration.interval";
+    public static final String PROP_MIGRATION_CHUNK_SIZE = "hazelcast.migration.chunk.size";
+    public static final String PROP_MIGRATION_MAX_CHUNKS_IN_FLIGHT = "hazelcast.migration.max.chunks.in.flight";
+    public static final String PROP_BACKUP_BATCH_ENABLED = "hazelcast.backup.batch.enabled";
+    public static final String PROP_BACKUP_BATCH_SIZE = "hazelcast.backup.batch.size";
+    public static final String PROP_BACKUP_DELTA_MIN_SIZE = "hazelcast.backup.delta.min.size";
     public static final String PROP_IMMEDIATE_BACKUP_INTERVAL = "hazelcast.immediate.backup.interval";
     public static final String PROP_PARTITION_TABLE_SEND_INTERVAL = "hazelcast.partition.table.send.interval";
     public static final String PROP_GRACEFUL_SHUTDOWN_MAX_WAIT = "hazelcast.graceful.shutdown.max.wait";
@@ -97,6 +113,8 @@ public class GroupProperties {
 
     public final GroupProperty TOPIC_FLOW_CONTROL_ENABLED;
 
+    public final GroupProperty TOPIC_PUBLISH_BATCH_ENABLED;
+
     public final GroupProperty CONNECT_ALL_WAIT_SECONDS;
 
     public final GroupProperty VERSION_CHECK_ENABLED;
@@ -113,10 +131,14 @@ public class GroupProperties {
 
     public final GroupProperty SERVICE_THREAD_PRIORITY;
 
+    public final GroupProperty PARTITION_THREAD_COUNT;
+
     public final GroupProperty MAP_LOAD_CHUNK_SIZE;
 
     public final GroupProperty MAP_LOAD_THREAD_COUNT;
 
+    public final GroupProperty MAP_LOAD_PUT_IF_ABSENT_ENABLED;
+
     public final GroupProperty MERGE_FIRST_RUN_DELAY_SECONDS;
 
     public final GroupProperty MERGE_NEXT_RUN_DELAY_SECONDS;
@@ -135,6 +157,14 @@ public class GroupProperties {
 
     public final GroupProperty SOCKET_NO_DELAY;
 
+    public final GroupProperty SOCKET_DIRECT_BUFFER;
+
+    public final GroupProperty IO_BALANCER_INTERVAL_SECONDS;
+
+    public final GroupProperty IO_BALANCER_THRESHOLD;
+
+    public final GroupProperty PACKET_COMPACT_HEADER;
+
     public final GroupProperty SHUTDOWNHOOK_ENABLED;
 
     public final GroupProperty WAIT_SECONDS_BEFORE_JOIN;
@@ -163,8 +193,16 @@ public class GroupProperties {
 
     public final GroupProperty EXECUTOR_QUERY_THREAD_COUNT;
 
+    public final GroupProperty EXECUTOR_QUERY_PARTITION_THREAD_COUNT;
+
+    public final GroupProperty QUERY_MAX_RETRY_COUNT;
+
     public final GroupProperty EXECUTOR_EVENT_THREAD_COUNT;
 
+    public final GroupProperty EVENT_BATCH_SIZE;
+
+    public final GroupProperty EVENT_QUEUE_CAPACITY;
+
     public final GroupProperty EXECUTOR_MIGRATION_THREAD_COUNT;
 
     public final GroupProperty EXECUTOR_CLIENT_THREAD_COUNT;
@@ -205,6 +243,16 @@ public class GroupProperties {
 
     public final GroupProperty PARTITION_MIGRATION_INTERVAL;
 
+    public final GroupProperty MIGRATION_CHUNK_SIZE;
+
+    public final GroupProperty MIGRATION_MAX_CHUNKS_IN_FLIGHT;
+
+    public final GroupProperty BACKUP_BATCH_ENABLED;
+
+    public final GroupProperty BACKUP_BATCH_SIZE;
+
+    public final GroupProperty BACKUP_DELTA_MIN_SIZE;
+
     public final GroupProperty PARTITION_TABLE_SEND_INTERVAL;
 
     public final GroupProperty GRACEFUL_SHUTDOWN_MAX_WAIT;
@@ -223,15 +271,18 @@ public class GroupProperties {
         VERSION_CHECK_ENABLED = new GroupProperty(config, PROP_VERSION_CHECK_ENABLED, "true");
         IO_THREAD_COUNT = new GroupProperty(config, PROP_IO_THREAD_COUNT, "3");
         TOPIC_FLOW_CONTROL_ENABLED = new GroupProperty(config, PROP_TOPIC_FLOW_CONTROL_ENABLED, "true");
+        TOPIC_PUBLISH_BATCH_ENABLED = new GroupProperty(config, PROP_TOPIC_PUBLISH_BATCH_ENABLED, "false");
         CONNECT_ALL_WAIT_SECONDS = new GroupProperty(config, PROP_CONNECT_ALL_WAIT_SECONDS, "120");
         MANCENTER_ENABLED = new GroupProperty(config, PROP_MANCENTER_ENABLED, "true");
         MEMCACHE_ENABLED = new GroupProperty(config, PROP_MEMCACHE_ENABLED, "true");
         REST_ENABLED = new GroupProperty(config, PROP_REST_ENABLED, "true");
         MAP_LOAD_CHUNK_SIZE = new GroupProperty(config, PROP_MAP_LOAD_CHUNK_SIZE, "1000");
         MAP_LOAD_THREAD_COUNT = new GroupProperty(config, PROP_MAP_LOAD_THREAD_COUNT, "40");
+        MAP_LOAD_PUT_IF_ABSENT_ENABLED = new GroupProperty(config, PROP_MAP_LOAD_PUT_IF_ABSENT_ENABLED, "false");
         IN_THREAD_PRIORITY = new GroupProperty(config, PROP_IN_THREAD_PRIORITY, "7");
         OUT_THREAD_PRIORITY = new GroupProperty(config, PROP_OUT_THREAD_PRIORITY, "7");
         SERVICE_THREAD_PRIORITY = new GroupProperty(config, PROP_SERVICE_THREAD_PRIORITY, "8");
+        PARTITION_THREAD_COUNT = new GroupProperty(config, PROP_PARTITION_THREAD_COUNT, "0");
         MERGE_FIRST_RUN_DELAY_SECONDS = new GroupProperty(config, PROP_MERGE_FIRST_RUN_DELAY_SECONDS, "300");
         MERGE_NEXT_RUN_DELAY_SECONDS = new GroupProperty(config, PROP_MERGE_NEXT_RUN_DELAY_SECONDS, "120");
         REDO_WAIT_MILLIS = new GroupProperty(config, PROP_REDO_WAIT_MILLIS, "500");
@@ -241,6 +292,10 @@ public class GroupProperties {
         SOCKET_LINGER_SECONDS = new GroupProperty(config, PROP_SOCKET_LINGER_SECONDS, "0");
         SOCKET_KEEP_ALIVE = new GroupProperty(config, PROP_SOCKET_KEEP_ALIVE, "true");
         SOCKET_NO_DELAY = new GroupProperty(config, PROP_SOCKET_NO_DELAY, "true");
+        SOCKET_DIRECT_BUFFER = new GroupProperty(config, PROP_SOCKET_DIRECT_BUFFER, "false");
+        IO_BALANCER_INTERVAL_SECONDS = new GroupProperty(config, PROP_IO_BALANCER_INTERVAL_SECONDS, "20");
+        IO_BALANCER_THRESHOLD = new GroupProperty(config, PROP_IO_BALANCER_THRESHOLD, "50");
+        PACKET_COMPACT_HEADER = new GroupProperty(config, PROP_PACKET_COMPACT_HEADER, "false");
         SHUTDOWNHOOK_ENABLED = new GroupProperty(config, PROP_SHUTDOWNHOOK_ENABLED, "true");
         WAIT_SECONDS_BEFORE_JOIN = new GroupProperty(config, PROP_WAIT_SECONDS_BEFORE_JOIN, "5");
         MAX_WAIT_SECONDS_BEFORE_JOIN = new GroupProperty(config, PROP_MAX_WAIT_SECONDS_BEFORE_JOIN, "20");
@@ -255,7 +310,11 @@ public class GroupProperties {
         REMOVE_DELAY_SECONDS = new GroupProperty(config, PROP_REMOVE_DELAY_SECONDS, "5");
         CLEANUP_DELAY_SECONDS = new GroupProperty(config, PROP_CLEANUP_DELAY_SECONDS, "10");
         EXECUTOR_QUERY_THREAD_COUNT = new GroupProperty(config, PROP_EXECUTOR_QUERY_THREAD_COUNT, "8");
+        EXECUTOR_QUERY_PARTITION_THREAD_COUNT = new GroupProperty(config, PROP_EXECUTOR_QUERY_PARTITION_THREAD_COUNT, "1");
+        QUERY_MAX_RETRY_COUNT = new GroupProperty(config, PROP_QUERY_MAX_RETRY_COUNT, "60");
         EXECUTOR_EVENT_THREAD_COUNT = new GroupProperty(config, PROP_EXECUTOR_EVENT_THREAD_COUNT, "16");
+        EVENT_BATCH_SIZE = new GroupProperty(config, PROP_EVENT_BATCH_SIZE, "1");
+        EVENT_QUEUE_CAPACITY = new GroupProperty(config, PROP_EVENT_QUEUE_CAPACITY, "0");
         EXECUTOR_MIGRATION_THREAD_COUNT = new GroupProperty(config, PROP_EXECUTOR_MIGRATION_THREAD_COUNT, "20");
         EXECUTOR_CLIENT_THREAD_COUNT = new GroupProperty(config, PROP_EXECUTOR_CLIENT_THREAD_COUNT, "40");
         EXECUTOR_STORE_THREAD_COUNT = new GroupProperty(config, PROP_EXECUTOR_STORE_THREAD_COUNT, "16");
@@ -275,6 +334,11 @@ public class GroupProperties {
         CONNECTION_MONITOR_INTERVAL = new GroupProperty(config, PROP_CONNECTION_MONITOR_INTERVAL, "100");
         CONNECTION_MONITOR_MAX_FAULTS = new GroupProperty(config, PROP_CONNECTION_MONITOR_MAX_FAULTS, "3");
         PARTITION_MIGRATION_INTERVAL = new GroupProperty(config, PROP_PARTITION_MIGRATION_INTERVAL, "1");
+        MIGRATION_CHUNK_SIZE = new GroupProperty(config, PROP_MIGRATION_CHUNK_SIZE, "1M");
+        MIGRATION_MAX_CHUNKS_IN_FLIGHT = new GroupProperty(config, PROP_MIGRATION_MAX_CHUNKS_IN_FLIGHT, "2");
+        BACKUP_BATCH_ENABLED = new GroupProperty(config, PROP_BACKUP_BATCH_ENABLED, "false");
+        BACKUP_BATCH_SIZE = new GroupProperty(config, PROP_BACKUP_BATCH_SIZE, "64K");
+        BACKUP_DELTA_MIN_SIZE = new GroupProperty(config, PROP_BACKUP_DELTA_MIN_SIZE, "0");
         IMMEDIATE_BACKUP_INTERVAL = new GroupProperty(config, PROP_IMMEDIATE_BACKUP_INTERVAL, "0");
         PARTITION_TABLE_SEND_INTERVAL = new GroupProperty(config, PROP_PARTITION_TABLE_SEND_INTERVAL, "10");
         GRACEFUL_SHUTDOWN_MAX_WAIT = new GroupProperty(config, PROP_GRACEFUL_SHUTDOWN_MAX_WAIT, "600");
@@ -330,6 +394,29 @@ public class GroupProperties {
             return Long.parseLong(this.value);
         }
 
+        /**
+         * Parses a memory size such as "128M", "1K" or "2G" into bytes.
+         * Value without a unit is taken as bytes.
+         */
+        public long getMemorySize() {
+            String s = this.value.trim().toUpperCase();
+            long unit = 1;
+            if (s.endsWith("B")) {
+                s = s.substring(0, s.length() - 1);
+            }
+            if (s.endsWith("K")) {
+                unit = 1L << 10;
+            } else if (s.endsWith("M")) {
+                unit = 1L << 20;
+            } else if (s.endsWith("G")) {
+                unit = 1L << 30;
+            }
+            if (unit != 1) {
+                s = s.substring(0, s.length() - 1);
+            }
+            return Long.parseLong(s.trim()) * unit;
+        }
+
         @Override
         public String toString() {
             return "GroupProperty [name=" + this.name + ", value=" + this.value + "]";
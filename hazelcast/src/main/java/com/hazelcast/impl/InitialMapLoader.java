@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2008-2012, Hazel Bilisim Ltd. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.impl;
+
+import com.hazelcast.core.Member;
+import com.hazelcast.impl.executor.ParallelExecutor;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.nio.Data;
+import com.hazelcast.partition.Partition;
+import com.hazelcast.partition.PartitionService;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * Loads the keys returned by MapLoader.loadAllKeys into the partitions owned by this member.
+ * Each chunk of owned keys is loaded with a single loadAll call on the map loader executor
+ * as soon as it is full, so only the chunks in flight are kept besides the key set.
+ * <p/>
+ * In lazy mode the owned keys are grouped by partition and kept until a key of the partition
+ * is accessed or the background load reaches the partition. Chunks of a partition are loaded
+ * one after the other then.
+ */
+class InitialMapLoader {
+    private final ConcurrentMapManager concurrentMapManager;
+    private final CMap cmap;
+    private final ILogger logger;
+    private final ParallelExecutor executor;
+    private final int chunkSize;
+    private final int maxChunksInFlight;
+    private final Semaphore chunksInFlight;
+    private final ConcurrentMap<Integer, Set> pendingPartitions = new ConcurrentHashMap<Integer, Set>();
+    private final AtomicLong loadedEntryCount = new AtomicLong();
+    private final AtomicLong pendingKeyCount = new AtomicLong();
+
+    InitialMapLoader(Node node, CMap cmap) {
+        this.concurrentMapManager = node.concurrentMapManager;
+        this.cmap = cmap;
+        this.logger = node.getLogger(InitialMapLoader.class.getName());
+        this.executor = node.executorManager.getMapLoaderExecutorService();
+        this.chunkSize = Math.max(1, node.groupProperties.MAP_LOAD_CHUNK_SIZE.getInteger());
+        this.maxChunksInFlight = Math.max(1, node.groupProperties.MAP_LOAD_THREAD_COUNT.getInteger()) * 2;
+        this.chunksInFlight = new Semaphore(maxChunksInFlight);
+    }
+
+    /**
+     * Loads the owned keys and returns once they are loaded.
+     */
+    void load(Collection keys, PartitionService partitionService) throws InterruptedException {
+        Set chunk = new HashSet();
+        for (Object key : keys) {
+            if (getOwnedPartitionId(partitionService, key) != null) {
+                chunk.add(key);
+                pendingKeyCount.incrementAndGet();
+                if (chunk.size() >= chunkSize) {
+                    loadChunk(chunk, true, null);
+                    chunk = new HashSet();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            loadChunk(chunk, true, null);
+        }
+        awaitChunksInFlight();
+    }
+
+    /**
+     * Groups the owned keys by partition to be loaded on first access
+     * and starts loading them in the background.
+     */
+    void loadLazily(Collection keys, PartitionService partitionService) {
+        final Map<Integer, Set> partitions = new HashMap<Integer, Set>();
+        for (Object key : keys) {
+            final Integer partitionId = getOwnedPartitionId(partitionService, key);
+            if (partitionId != null) {
+                Set partitionKeys = partitions.get(partitionId);
+                if (partitionKeys == null) {
+                    partitionKeys = new HashSet();
+                    partitions.put(partitionId, partitionKeys);
+                }
+                partitionKeys.add(key);
+                pendingKeyCount.incrementAndGet();
+            }
+        }
+        pendingPartitions.putAll(partitions);
+        concurrentMapManager.node.executorManager.executeNow(new Runnable() {
+            public void run() {
+                try {
+                    for (Integer partitionId : new TreeSet<Integer>(pendingPartitions.keySet())) {
+                        loadPartition(partitionId, true);
+                    }
+                    awaitChunksInFlight();
+                    logger.log(Level.INFO, "[" + cmap.getName() + "] loaded " + loadedEntryCount.get() + " in total.");
+                } catch (InterruptedException ignored) {
+                }
+            }
+        });
+    }
+
+    boolean hasPendingPartitions() {
+        return !pendingPartitions.isEmpty();
+    }
+
+    /**
+     * Starts loading the partition of the key unless it is loaded already.
+     * Called by the service thread on the access of a key, so it never waits for the chunks in flight.
+     */
+    void onAccess(Data key) {
+        try {
+            loadPartition(concurrentMapManager.getPartitionId(key), false);
+        } catch (InterruptedException ignored) {
+        }
+    }
+
+    long getLoadedEntryCount() {
+        return loadedEntryCount.get();
+    }
+
+    long getPendingKeyCount() {
+        return pendingKeyCount.get();
+    }
+
+    private Integer getOwnedPartitionId(PartitionService partitionService, Object key) {
+        final Partition partition = partitionService.getPartition(key);
+        final Member owner = partition.getOwner();
+        return (owner == null || owner.localMember()) ? partition.getPartitionId() : null;
+    }
+
+    private void loadPartition(int partitionId, boolean throttled) throws InterruptedException {
+        final Set keys = pendingPartitions.remove(partitionId);
+        if (keys == null) {
+            return;
+        }
+        Set chunk = new HashSet();
+        for (Object key : keys) {
+            chunk.add(key);
+            if (chunk.size() >= chunkSize) {
+                loadChunk(chunk, throttled, partitionId);
+                chunk = new HashSet();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            loadChunk(chunk, throttled, partitionId);
+        }
+    }
+
+    /**
+     * @param partitionId partition of the keys to load the chunks of a partition one after the other,
+     *                    null if the keys are from several partitions
+     */
+    private void loadChunk(final Set chunk, final boolean throttled, Integer partitionId) throws InterruptedException {
+        if (throttled) {
+            chunksInFlight.acquire();
+        }
+        final Runnable loadTask = new Runnable() {
+            public void run() {
+                try {
+                    final Map map = cmap.loader.loadAll(chunk);
+                    if (map != null) {
+                        for (Object entry : map.entrySet()) {
+                            final Map.Entry e = (Map.Entry) entry;
+                            if (e.getValue() != null
+                                    && concurrentMapManager.putTransientIfAbsent(cmap.getName(), e.getKey(), e.getValue())) {
+                                loadedEntryCount.incrementAndGet();
+                            }
+                        }
+                    }
+                } catch (Exception e) {
+                    logger.log(Level.SEVERE, "Initial loading failed.", e);
+                } finally {
+                    pendingKeyCount.addAndGet(-chunk.size());
+                    if (throttled) {
+                        chunksInFlight.release();
+                    }
+                }
+            }
+        };
+        if (partitionId == null) {
+            executor.execute(loadTask);
+        } else {
+            executor.execute(loadTask, partitionId);
+        }
+    }
+
+    private void awaitChunksInFlight() throws InterruptedException {
+        chunksInFlight.acquire(maxChunksInFlight);
+        chunksInFlight.release(maxChunksInFlight);
+    }
+
+    @Override
+    public String toString() {
+        return "InitialMapLoader{" +
+                "pendingPartitions=" + pendingPartitions.size() +
+                ", pendingKeyCount=" + pendingKeyCount.get() +
+                ", loadedEntryCount=" + loadedEntryCount.get() +
+                '}';
+    }
+}
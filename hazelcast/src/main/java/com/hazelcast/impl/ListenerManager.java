@@ -25,25 +25,64 @@ import com.hazelcast.nio.*;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 
 import static com.hazelcast.impl.ClusterOperation.*;
 import static com.hazelcast.nio.IOUtil.toData;
-
+import static com.hazelcast.nio.IOUtil.toObject;
+
+/**
+ * Events fired for the listeners of another member are sent by the service thread
+ * in one packet per member for all the events fired since the last flush, up to
+ * EVENT_BATCH_SIZE events. Events received are dispatched to the event threads
+ * striped by key, so the events of a key are delivered in order.
+ * <p/>
+ * Batching is off by default, EVENT_BATCH_SIZE must be set on all members since members of
+ * older versions don't know the batch operation. Events are dropped only if EVENT_QUEUE_CAPACITY
+ * is set, the queued events are counted either way.
+ */
 public class ListenerManager extends BaseManager {
+    private static final int MAX_BATCH_BYTES = 64 * 1024;
+
     final ConcurrentMap<String, List<ListenerItem>> namedListeners = new ConcurrentHashMap<String, List<ListenerItem>>(100);
 
+    private final int eventBatchSize;
+    private final int eventQueueCapacity;
+    private final AtomicLong queuedEventCount = new AtomicLong();
+    private final AtomicLong droppedEventCount = new AtomicLong();
+    private final AtomicLong sentEventBatchCount = new AtomicLong();
+    // accessed only by the ServiceThread
+    private final Map<Address, EventBatch> pendingEvents = new HashMap<Address, EventBatch>();
+    private boolean flushScheduled = false;
+
+    private final Processable flushProcess = new Processable() {
+        public void process() {
+            flushEvents();
+        }
+    };
+
     ListenerManager(Node node) {
         super(node);
+        eventBatchSize = node.groupProperties.EVENT_BATCH_SIZE.getInteger();
+        final int capacity = node.groupProperties.EVENT_QUEUE_CAPACITY.getInteger();
+        eventQueueCapacity = (capacity <= 0) ? Integer.MAX_VALUE : capacity;
         registerPacketProcessor(ClusterOperation.EVENT, new PacketProcessor() {
             public void process(Packet packet) {
                 handleEvent(packet);
             }
         });
+        registerPacketProcessor(ClusterOperation.EVENT_BATCH, new PacketProcessor() {
+            public void process(Packet packet) {
+                handleEventBatch(packet);
+            }
+        });
         registerPacketProcessor(ADD_LISTENER, new AddRemoveListenerOperationHandler());
         registerPacketProcessor(REMOVE_LISTENER, new AddRemoveListenerOperationHandler());
         registerPacketProcessor(ADD_LISTENER_NO_RESPONSE, new PacketProcessor() {
@@ -63,6 +102,97 @@ public class ListenerManager extends BaseManager {
         enqueueEvent(eventType, name, key, value, from, false);
     }
 
+    private void handleEventBatch(Packet packet) {
+        final EventBatch eventBatch = (EventBatch) toObject(packet.getValueData());
+        releasePacket(packet);
+        for (EventBatch.Event event : eventBatch.getEvents()) {
+            enqueueEvent(event.eventType, event.name, event.key, event.value, event.caller, false);
+        }
+    }
+
+    /**
+     * Adds the event to the batch of the member to be sent with the next flush.
+     * Called by the ServiceThread.
+     */
+    void sendEvent(Address toAddress, int eventType, String name, Data key, Data value, Address callerAddress) {
+        if (eventBatchSize <= 1) {
+            final Packet packet = obtainPacket();
+            packet.set(name, ClusterOperation.EVENT, key, value);
+            packet.lockAddress = callerAddress;
+            packet.longValue = eventType;
+            if (!send(packet, toAddress)) {
+                releasePacket(packet);
+            }
+            return;
+        }
+        EventBatch eventBatch = pendingEvents.get(toAddress);
+        if (eventBatch == null) {
+            eventBatch = new EventBatch();
+            pendingEvents.put(toAddress, eventBatch);
+        }
+        eventBatch.add(eventType, name, key, value, callerAddress);
+        if (eventBatch.size() >= eventBatchSize || eventBatch.getBytes() >= MAX_BATCH_BYTES) {
+            pendingEvents.remove(toAddress);
+            sendEventBatch(toAddress, eventBatch);
+        } else if (!flushScheduled) {
+            flushScheduled = true;
+            enqueueAndReturn(flushProcess);
+        }
+    }
+
+    void flushEvents() {
+        flushScheduled = false;
+        for (Map.Entry<Address, EventBatch> entry : pendingEvents.entrySet()) {
+            sendEventBatch(entry.getKey(), entry.getValue());
+        }
+        pendingEvents.clear();
+    }
+
+    private void sendEventBatch(Address toAddress, EventBatch eventBatch) {
+        final Packet packet = obtainPacket();
+        packet.set("", ClusterOperation.EVENT_BATCH, null, toData(eventBatch));
+        if (send(packet, toAddress)) {
+            sentEventBatchCount.incrementAndGet();
+        } else {
+            releasePacket(packet);
+        }
+    }
+
+    /**
+     * @return false if the event is dropped since EVENT_QUEUE_CAPACITY events are waiting
+     *         to be delivered to the listeners of this member
+     */
+    boolean onEventQueued() {
+        if (queuedEventCount.incrementAndGet() > eventQueueCapacity) {
+            queuedEventCount.decrementAndGet();
+            if (droppedEventCount.incrementAndGet() % 10000 == 1) {
+                logger.log(Level.WARNING, "Event listeners fall behind, " + droppedEventCount.get()
+                        + " events are dropped so far since " + eventQueueCapacity + " events are queued.");
+            }
+            return false;
+        }
+        return true;
+    }
+
+    void onEventDelivered() {
+        queuedEventCount.decrementAndGet();
+    }
+
+    /**
+     * @return number of events waiting to be delivered to the listeners of this member
+     */
+    public long getQueuedEventCount() {
+        return queuedEventCount.get();
+    }
+
+    public long getDroppedEventCount() {
+        return droppedEventCount.get();
+    }
+
+    public long getSentEventBatchCount() {
+        return sentEventBatchCount.get();
+    }
+
     private void handleAddRemoveListener(boolean add, Packet packet) {
         Data key = packet.getKeyData();
         boolean returnValue = (packet.longValue == 1);
@@ -73,6 +203,7 @@ public class ListenerManager extends BaseManager {
     }
 
     public void syncForDead(Address deadAddress) {
+        pendingEvents.remove(deadAddress);
         syncForAdd();
     }
 
@@ -289,6 +420,9 @@ public class ListenerManager extends BaseManager {
                 } else if (key != null && key.equals(listenerItem.key)) {
                     listeners.remove(listenerItem);
                 }
+                if (listenerItem.instanceType == Instance.InstanceType.TOPIC) {
+                    node.topicManager.removeSubscriber(listenerItem);
+                }
             }
         }
         boolean left = false;
@@ -336,7 +470,7 @@ public class ListenerManager extends BaseManager {
         }
     }
 
-    private void callListener(final ListenerItem listenerItem, final DataAwareEntryEvent event) {
+    void callListener(final ListenerItem listenerItem, final DataAwareEntryEvent event) {
         if (listenerItem.localListener && !event.firedLocally) {
             return;
         }
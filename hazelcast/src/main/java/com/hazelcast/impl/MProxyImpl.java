@@ -509,7 +509,7 @@ public class MProxyImpl extends FactoryAwareNamedProxy implements MProxy, DataSe
         }
 
         public void addIndex(final String attribute, final boolean ordered) {
-            addIndex(Predicates.get(attribute), ordered);
+            addIndex(Predicates.getIndexExpression(attribute), ordered);
         }
 
         public void addIndex(final Expression expression, final boolean ordered) {
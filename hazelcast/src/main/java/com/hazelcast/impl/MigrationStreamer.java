@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2008-2012, Hazel Bilisim Ltd. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.impl;
+
+import com.hazelcast.core.DistributedTask;
+import com.hazelcast.core.Member;
+import com.hazelcast.impl.concurrentmap.CostAwareRecordList;
+import com.hazelcast.impl.concurrentmap.ValueHolder;
+import com.hazelcast.impl.partition.MigrationTask;
+import com.hazelcast.nio.Address;
+import com.hazelcast.nio.Data;
+
+import java.util.*;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Sends the records of a partition to the member it is migrated or copied to in chunks of
+ * about MIGRATION_CHUNK_SIZE bytes, with at most MIGRATION_MAX_CHUNKS_IN_FLIGHT chunks
+ * waiting to be stored, so the partition is never serialized as a whole.
+ * <p/>
+ * Keys of the partition written on this member while the chunks are sent are logged and sent
+ * again with their latest records once the chunks are stored by the target. If keys are still
+ * written after MAX_REPLAY_ROUNDS, the last replay holds back the writes of the partition.
+ */
+class MigrationStreamer {
+    private static final long CHUNK_TIMEOUT_SECONDS = 400;
+    private static final int MAX_REPLAY_ROUNDS = 5;
+
+    private final ConcurrentMapManager concurrentMapManager;
+    private final PartitionManager partitionManager;
+    private final int partitionId;
+    private final int replicaIndex;
+    private final Address from;
+    private final Member target;
+    private final boolean diffOnly;
+    private final long chunkSize;
+    private final int maxChunksInFlight;
+    private final LinkedList<ChunkInFlight> chunksInFlight = new LinkedList<ChunkInFlight>();
+    private int sentChunkCount = 0;
+    private volatile boolean writesBlocked = false;
+    // accessed only by the ServiceThread
+    private Map<String, Set<Data>> writtenKeys = new HashMap<String, Set<Data>>();
+
+    MigrationStreamer(ConcurrentMapManager concurrentMapManager, int partitionId, int replicaIndex,
+                      Address from, Member target, boolean diffOnly) {
+        this.concurrentMapManager = concurrentMapManager;
+        this.partitionManager = concurrentMapManager.getPartitionManager();
+        this.partitionId = partitionId;
+        this.replicaIndex = replicaIndex;
+        this.from = from;
+        this.target = target;
+        this.diffOnly = diffOnly;
+        final GroupProperties groupProperties = concurrentMapManager.node.groupProperties;
+        this.chunkSize = Math.max(1, groupProperties.MIGRATION_CHUNK_SIZE.getMemorySize());
+        this.maxChunksInFlight = Math.max(1, groupProperties.MIGRATION_MAX_CHUNKS_IN_FLIGHT.getInteger());
+    }
+
+    int getPartitionId() {
+        return partitionId;
+    }
+
+    /**
+     * @return true if the writes of the partition should be redone until the last replay is stored
+     */
+    boolean isBlockingWrites() {
+        return writesBlocked;
+    }
+
+    boolean isIncluded(CMap cmap) {
+        return diffOnly
+                ? cmap.getBackupCount() == replicaIndex
+                : cmap.getBackupCount() >= replicaIndex;
+    }
+
+    /**
+     * Logs the written key to be sent again. Called by the ServiceThread.
+     */
+    void onWrite(CMap cmap, Data key) {
+        if (isIncluded(cmap)) {
+            Set<Data> keys = writtenKeys.get(cmap.getName());
+            if (keys == null) {
+                keys = new HashSet<Data>();
+                writtenKeys.put(cmap.getName(), keys);
+            }
+            keys.add(key);
+        }
+    }
+
+    /**
+     * @return true if all chunks are stored by the target
+     */
+    boolean stream() throws Exception {
+        try {
+            final long now = System.currentTimeMillis();
+            CostAwareRecordList chunk = new CostAwareRecordList(1000);
+            for (final CMap cmap : concurrentMapManager.maps.values()) {
+                if (isIncluded(cmap)) {
+                    for (Record rec : cmap.mapRecords.values()) {
+                        if (rec.isActive() && rec.isValid(now)) {
+                            if (rec.getKeyData() == null || rec.getKeyData().size() == 0) {
+                                throw new RuntimeException("Record.key is null or empty " + rec.getKeyData());
+                            }
+                            if (rec.getBlockId() == partitionId) {
+                                cmap.onMigrate(rec);
+                                addRecord(cmap, rec, chunk);
+                                if (chunk.getCost() >= chunkSize) {
+                                    if (!send(chunk, null)) {
+                                        return false;
+                                    }
+                                    chunk = new CostAwareRecordList(1000);
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            if ((sentChunkCount == 0 || chunk.getRecords().size() > 0) && !send(chunk, null)) {
+                return false;
+            }
+            for (int round = 0; round < MAX_REPLAY_ROUNDS; round++) {
+                if (!awaitChunks(0)) {
+                    return false;
+                }
+                final Boolean replayed = replay();
+                if (replayed != null) {
+                    return replayed;
+                }
+            }
+            concurrentMapManager.logger.log(Level.INFO, "Partition " + partitionId + " is still written after "
+                    + MAX_REPLAY_ROUNDS + " replay rounds, holding back its writes for the last replay to " + target);
+            return replayWithWritesBlocked();
+        } finally {
+            for (ChunkInFlight chunkInFlight : chunksInFlight) {
+                partitionManager.onMigrationChunkDone(chunkInFlight.byteCount, 0, false);
+            }
+            chunksInFlight.clear();
+        }
+    }
+
+    /**
+     * Sends the records of the keys written since the last replay.
+     *
+     * @return true if no key was written, false if the records could not be sent, null if they are sent
+     */
+    private Boolean replay() throws Exception {
+        final Map<String, Set<Data>> replayedKeys = new HashMap<String, Set<Data>>();
+        final CostAwareRecordList replayed = new CostAwareRecordList(100);
+        concurrentMapManager.enqueueAndWait(new Processable() {
+            public void process() {
+                collectWrittenRecords(replayedKeys, replayed);
+            }
+        });
+        if (replayedKeys.isEmpty()) {
+            return Boolean.TRUE;
+        }
+        partitionManager.onMigrationReplay(replayed.getRecords().size());
+        return send(replayed, replayedKeys) ? null : Boolean.FALSE;
+    }
+
+    /**
+     * Replays the written keys while the map operations on the partition are redone.
+     * Writes which are not redone, backups for example, may still be logged meanwhile,
+     * then the migration fails to be retried.
+     */
+    private boolean replayWithWritesBlocked() throws Exception {
+        writesBlocked = true;
+        try {
+            if (Boolean.FALSE.equals(replay()) || !awaitChunks(0)) {
+                return false;
+            }
+            final boolean[] written = new boolean[1];
+            concurrentMapManager.enqueueAndWait(new Processable() {
+                public void process() {
+                    written[0] = !writtenKeys.isEmpty();
+                }
+            });
+            if (written[0]) {
+                concurrentMapManager.logger.log(Level.WARNING, "Partition " + partitionId
+                        + " is written during its last replay to " + target + ", migration will be retried");
+                return false;
+            }
+            return true;
+        } finally {
+            writesBlocked = false;
+        }
+    }
+
+    private void addRecord(CMap cmap, Record rec, CostAwareRecordList chunk) {
+        if (cmap.isMultiMap()) {
+            Collection<ValueHolder> colValues = rec.getMultiValues();
+            if (colValues != null) {
+                for (ValueHolder valueHolder : colValues) {
+                    Record record = rec.copy();
+                    record.setValueData(valueHolder.getData());
+                    chunk.add(record);
+                }
+            }
+        } else {
+            chunk.add(rec);
+        }
+        chunk.addCost(rec.getCost());
+    }
+
+    private void collectWrittenRecords(Map<String, Set<Data>> replayedKeys, CostAwareRecordList replayed) {
+        final long now = System.currentTimeMillis();
+        for (Map.Entry<String, Set<Data>> entry : writtenKeys.entrySet()) {
+            final CMap cmap = concurrentMapManager.getMap(entry.getKey());
+            if (cmap != null) {
+                for (Data key : entry.getValue()) {
+                    final Record rec = cmap.getRecord(key);
+                    if (rec != null && rec.isActive() && rec.isValid(now)) {
+                        cmap.onMigrate(rec);
+                        addRecord(cmap, rec, replayed);
+                    }
+                }
+                replayedKeys.put(entry.getKey(), entry.getValue());
+            }
+        }
+        writtenKeys = new HashMap<String, Set<Data>>();
+    }
+
+    private boolean send(CostAwareRecordList chunk, Map<String, Set<Data>> replayedKeys) throws Exception {
+        if (!awaitChunks(maxChunksInFlight - 1)) {
+            return false;
+        }
+        final MigrationTask task = new MigrationTask(partitionId, chunk, replayedKeys, replicaIndex, from);
+        partitionManager.onMigrationChunkSent(task.getByteCount());
+        final Future future = concurrentMapManager.node.factory.getExecutorService()
+                .submit(new DistributedTask(task, target));
+        chunksInFlight.add(new ChunkInFlight(future, task.getByteCount(), task.getRecordCount()));
+        sentChunkCount++;
+        return true;
+    }
+
+    private boolean awaitChunks(int maxRemaining) throws Exception {
+        while (chunksInFlight.size() > maxRemaining) {
+            final ChunkInFlight chunkInFlight = chunksInFlight.removeFirst();
+            boolean stored = false;
+            try {
+                stored = Boolean.TRUE.equals(chunkInFlight.future.get(CHUNK_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            } finally {
+                partitionManager.onMigrationChunkDone(chunkInFlight.byteCount, chunkInFlight.recordCount, stored);
+            }
+            if (!stored) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static class ChunkInFlight {
+        final Future future;
+        final int byteCount;
+        final int recordCount;
+
+        ChunkInFlight(Future future, int byteCount, int recordCount) {
+            this.future = future;
+            this.byteCount = byteCount;
+            this.recordCount = recordCount;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "MigrationStreamer{" +
+                "partitionId=" + partitionId +
+                ", replicaIndex=" + replicaIndex +
+                ", target=" + target +
+                ", sentChunkCount=" + sentChunkCount +
+                ", chunksInFlight=" + chunksInFlight.size() +
+                '}';
+    }
+}
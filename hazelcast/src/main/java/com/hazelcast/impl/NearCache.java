@@ -17,6 +17,7 @@
 package com.hazelcast.impl;
 
 import com.hazelcast.impl.concurrentmap.RecordFactory;
+import com.hazelcast.impl.concurrentmap.SampledEvictionSelector;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.nio.Data;
 import com.hazelcast.util.SortedHashMap;
@@ -24,34 +25,65 @@ import com.hazelcast.util.SortedHashMap;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 
+/**
+ * Near cache of a map. Entries are only added and removed by the ServiceThread
+ * but hits are served by the caller threads without any hand off to the ServiceThread.
+ * Recency (LRU) and frequency (LFU) of the entries are approximately tracked on the
+ * caller threads and eviction selects the entries to remove from samples of the entries.
+ */
 public class NearCache {
+    private static final int EVICTION_SAMPLE_SIZE = 8;
+    private static final float EVICTION_RATE = 0.25f;
     private final ILogger logger;
-    private final Map<Data, Object> sortedMap;
+    private final Map<Data, Object> keys;    // updated by ServiceThread only
     private final ConcurrentMap<Object, CacheEntry> cache;
     private final CMap cmap;
-    private final SortedHashMap.OrderingType orderingType;
+    private final Comparator<CacheEntry> evictionComparator;    // null means no ordering
     private final int maxSize;        // 0 means infinite
     private final long ttl;           // 0 means never expires
     private final long maxIdleTime;   // 0 means never idle 
     private final boolean invalidateOnChange;
     private final RecordFactory recordFactory;
+    private final AtomicLong misses = new AtomicLong();
+    @SuppressWarnings("VolatileLongOrDoubleField")
+    private volatile long evictions = 0;    // updated by ServiceThread only
+    @SuppressWarnings("VolatileLongOrDoubleField")
+    private volatile long removedEntryHits = 0;    // updated by ServiceThread only
 
     public NearCache(CMap cmap, SortedHashMap.OrderingType orderingType, int maxSize, long ttl, long maxIdleTime, boolean invalidateOnChange) {
         this.cmap = cmap;
-        this.orderingType = orderingType;
         this.logger = cmap.concurrentMapManager.node.getLogger(NearCache.class.getName());
         this.maxSize = (maxSize == 0) ? Integer.MAX_VALUE : maxSize;
         this.ttl = ttl;
         this.maxIdleTime = maxIdleTime;
         this.invalidateOnChange = invalidateOnChange;
         int size = (maxSize == 0 || maxSize > 50000) ? 10000 : maxSize;
-        this.sortedMap = (orderingType == SortedHashMap.OrderingType.NONE)
-                ? new HashMap<Data, Object>()
-                : new SortedHashMap<Data, Object>(size, orderingType);
+        this.keys = new HashMap<Data, Object>(size);
         this.cache = new ConcurrentHashMap<Object, CacheEntry>(size, 0.75f, 1);
         this.recordFactory = cmap.concurrentMapManager.recordFactory;
+        if (orderingType == SortedHashMap.OrderingType.LRU) {
+            evictionComparator = new Comparator<CacheEntry>() {
+                public int compare(CacheEntry e1, CacheEntry e2) {
+                    return compareLongs(e1.lastAccessTime, e2.lastAccessTime);
+                }
+            };
+        } else if (orderingType == SortedHashMap.OrderingType.LFU) {
+            evictionComparator = new Comparator<CacheEntry>() {
+                public int compare(CacheEntry e1, CacheEntry e2) {
+                    int result = compareLongs(e1.hits, e2.hits);
+                    return (result != 0) ? result : compareLongs(e1.lastAccessTime, e2.lastAccessTime);
+                }
+            };
+        } else {
+            evictionComparator = null;
+        }
+    }
+
+    private static int compareLongs(long l1, long l2) {
+        return (l1 < l2) ? -1 : ((l1 == l2) ? 0 : 1);
     }
 
     boolean shouldInvalidateOnChange() {
@@ -61,7 +93,7 @@ public class NearCache {
     public boolean containsKey(Object key) {
         long now = System.currentTimeMillis();
         CacheEntry entry = cache.get(key);
-        return !(entry == null || entry.isValid(now));
+        return entry != null && entry.isValid(now);
     }
 
     public void setContainsKey(Object key, Data dataKey) {
@@ -74,25 +106,18 @@ public class NearCache {
     public Object get(Object key) {
         long now = System.currentTimeMillis();
         CacheEntry entry = cache.get(key);
-        if (entry == null) {
+        if (entry == null || !entry.isValid(now)) {
+            misses.incrementAndGet();
             return null;
+        }
+        Object value = null;
+        if (ThreadContext.get().isClient()) {
+            value = entry.getValueData();
         } else {
-            if (entry.isValid(now)) {
-                Object value = null;
-                if (ThreadContext.get().isClient()) {
-                    value = entry.getValueData();
-                } else {
-                    value = entry.getValue();
-                }
-                if (orderingType != SortedHashMap.OrderingType.NONE) {
-                    cmap.concurrentMapManager.enqueueAndReturn(entry);
-                }
-                entry.touch(now);
-                return value;
-            } else {
-                return null;
-            }
+            value = entry.getValue();
         }
+        entry.touch(now);
+        return value;
     }
 
     private List<Data> getInvalidEntries(long now) {
@@ -117,26 +142,30 @@ public class NearCache {
         final List<Data> lsKeysToInvalidate = getInvalidEntries(now);
         if (lsKeysToInvalidate != null && lsKeysToInvalidate.size() > 0) {
             if (serviceThread) {
-                for (Data key : lsKeysToInvalidate) {
-                    invalidate(key);
-                }
+                evict(lsKeysToInvalidate);
             } else {
                 cmap.concurrentMapManager.enqueueAndReturn(new Processable() {
                     public void process() {
-                        for (Data key : lsKeysToInvalidate) {
-                            invalidate(key);
-                        }
+                        evict(lsKeysToInvalidate);
                     }
                 });
             }
         }
     }
 
+    private void evict(List<Data> lsKeysToEvict) {
+        for (Data key : lsKeysToEvict) {
+            if (invalidate(key)) {
+                evictions++;
+            }
+        }
+    }
+
     public void put(Object key, Data keyData, Data value) {
         checkThread();
-        if (cache.size() != sortedMap.size()) {
-            logger.log(Level.WARNING, cmap.getName() + " cache and sorted map size should be the same: "
-                    + cache.size() + " vs. " + sortedMap.size()
+        if (cache.size() != keys.size()) {
+            logger.log(Level.WARNING, cmap.getName() + " cache and key map size should be the same: "
+                    + cache.size() + " vs. " + keys.size()
                     + "/nCheck equals and hashCode of key object!");
         }
         if (cache.size() + 1 >= maxSize) {
@@ -145,8 +174,8 @@ public class NearCache {
         if (cache.size() + 1 >= maxSize) {
             return;
         }
-        if (!sortedMap.containsKey(keyData)) {
-            sortedMap.put(keyData, key);
+        if (!keys.containsKey(keyData)) {
+            keys.put(keyData, key);
         }
         CacheEntry cacheEntry = cache.get(key);
         if (cacheEntry == null) {
@@ -159,32 +188,46 @@ public class NearCache {
 
     void startEviction() {
         checkThread();
-        int evictionCount = (int) (cache.size() * 0.25);
-        List<Data> lsRemoves = new ArrayList<Data>(evictionCount);
-        int count = 0;
-        for (Data key : sortedMap.keySet()) {
-            lsRemoves.add(key);
-            if (count++ >= evictionCount) {
-                break;
+        int evictionCount = (int) (cache.size() * EVICTION_RATE);
+        List<Data> lsRemoves = new ArrayList<Data>(evictionCount + 1);
+        if (evictionComparator == null) {
+            int count = 0;
+            for (CacheEntry entry : cache.values()) {
+                lsRemoves.add(entry.record.getKeyData());
+                if (count++ >= evictionCount) {
+                    break;
+                }
+            }
+        } else {
+            SampledEvictionSelector<CacheEntry> selector = new SampledEvictionSelector<CacheEntry>(evictionComparator,
+                    EVICTION_SAMPLE_SIZE, EVICTION_RATE);
+            for (CacheEntry entry : cache.values()) {
+                selector.offer(entry);
+            }
+            for (CacheEntry entry : selector.getSelected()) {
+                lsRemoves.add(entry.record.getKeyData());
             }
         }
-        for (Data key : lsRemoves) {
-            invalidate(key);
-        }
-        lsRemoves.clear();
+        evict(lsRemoves);
     }
 
-    public void invalidate(Data key) {
+    /**
+     * @return true if the key was in the cache
+     */
+    public boolean invalidate(Data key) {
         checkThread();
-        final Object theKey = sortedMap.remove(key);
+        final Object theKey = keys.remove(key);
         if (theKey != null) {
             final CacheEntry removedCacheEntry = cache.remove(theKey);
             if (removedCacheEntry != null) {
+                removedEntryHits += removedCacheEntry.hits;
                 removedCacheEntry.invalidate();
+                return true;
             } else {
                 logger.log(Level.WARNING, cmap.name + " removed CacheEntry cannot be null");
             }
         }
+        return false;
     }
 
     void checkThread() {
@@ -195,8 +238,11 @@ public class NearCache {
     }
 
     public void appendState(StringBuffer sbState) {
-        sbState.append(", n.sorted:").append(sortedMap.size());
+        sbState.append(", n.keys:").append(keys.size());
         sbState.append(", n.cache:").append(cache.size());
+        sbState.append(", n.hits:").append(getHits());
+        sbState.append(", n.misses:").append(getMisses());
+        sbState.append(", n.evictions:").append(getEvictions());
     }
 
     public int getMaxSize() {
@@ -207,19 +253,50 @@ public class NearCache {
         return cache.isEmpty();
     }
 
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * Hits are counted by the entries without synchronization,
+     * so concurrent hits of the same entry may be counted once.
+     *
+     * @return approximate number of hits
+     */
+    public long getHits() {
+        long hits = removedEntryHits;
+        for (CacheEntry entry : cache.values()) {
+            hits += entry.hits;
+        }
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return number of entries removed because of the max size, ttl or max idle time
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
     public void reset() {
-        sortedMap.clear();
+        keys.clear();
         for (CacheEntry entry : cache.values()) {
+            removedEntryHits += entry.hits;
             entry.invalidate();
         }
         cache.clear();
     }
 
-    private class CacheEntry implements Processable {
+    private class CacheEntry {
         private final NearCacheRecord record;
         private final long createTime;
         @SuppressWarnings("VolatileLongOrDoubleField")
         private volatile long lastAccessTime;
+        private volatile int hits = 0;
 
         private CacheEntry(Object key, Data keyData, Data valueData) {
             if (key == null) {
@@ -230,11 +307,12 @@ public class NearCache {
             }
             this.record = recordFactory.createNewNearCacheRecord(cmap, keyData, valueData);
             this.createTime = System.currentTimeMillis();
-            touch(createTime);
+            this.lastAccessTime = createTime;
         }
 
         public void touch(long now) {
             lastAccessTime = now;
+            hits++;
         }
 
         public boolean isValid(long now) {
@@ -263,10 +341,6 @@ public class NearCache {
             return record.getValueData();
         }
 
-        public void process() {
-            sortedMap.get(record.getKeyData());
-        }
-
         public void invalidate() {
             record.invalidate();
         }
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2008-2012, Hazel Bilisim Ltd. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.impl;
+
+import com.hazelcast.impl.base.DistributedLock;
+import com.hazelcast.impl.concurrentmap.ValueHolder;
+import com.hazelcast.impl.storage.DataRef;
+import com.hazelcast.impl.storage.Storage;
+import com.hazelcast.nio.Data;
+
+import static com.hazelcast.nio.IOUtil.toObject;
+
+/**
+ * Record keeping its value in the off-heap storage of its map. Value is copied back
+ * to the heap on each read and its chunks are freed as soon as it is replaced or
+ * invalidated. When the storage is full the value is kept on the heap instead.
+ */
+public final class OffHeapRecord extends AbstractStatsRecord {
+
+    private final Storage storage;
+
+    private volatile DataRef valueRef = null;
+
+    private volatile Data heapValue = null;
+
+    private volatile int valueHash = -1;
+
+    private volatile Object valueObject = null;
+
+    public OffHeapRecord(CMap cmap, int blockId, Data key, Data value, long ttl, long maxIdleMillis, long id) {
+        super(cmap, blockId, key, ttl, maxIdleMillis, id);
+        this.storage = cmap.offHeapStorage;
+        setValueData(value);
+    }
+
+    public Record copy() {
+        Record recordCopy = new OffHeapRecord(cmap, blockId, key, getValueData(), getRemainingTTL(), getRemainingIdle(), id);
+        if (optionalInfo != null) {
+            recordCopy.setIndexes(getOptionalInfo().indexes, getOptionalInfo().indexTypes);
+            recordCopy.setMultiValues(getOptionalInfo().lsMultiValues);
+        }
+        if (lock != null) {
+            recordCopy.setLock(new DistributedLock(lock));
+        }
+        recordCopy.setVersion(getVersion());
+        return recordCopy;
+    }
+
+    public Data getValueData() {
+        while (true) {
+            final DataRef ref = valueRef;
+            if (ref == null) {
+                return heapValue;
+            }
+            final byte[] bytes = storage.get(ref);
+            if (bytes != null) {
+                final Data data = new Data(bytes);
+                data.setPartitionHash(valueHash);
+                return data;
+            }
+            if (valueRef == ref) {
+                // freed without a new value; record is invalidated
+                return null;
+            }
+        }
+    }
+
+    public Object getValue() {
+        final Object currentValue = valueObject;
+        if (currentValue != null) {
+            return currentValue;
+        }
+        return toObject(getValueData());
+    }
+
+    public Object setValue(Object value) {
+        Object oldValue = getValue();
+        valueObject = value;
+        return oldValue;
+    }
+
+    protected void invalidateValueCache() {
+        valueObject = null;
+    }
+
+    public void setValueData(Data value) {
+        invalidateValueCache();
+        final DataRef oldRef = valueRef;
+        if (value == null) {
+            valueRef = null;
+            heapValue = null;
+        } else if (value.buffer == null) {
+            valueRef = null;
+            heapValue = value;
+        } else {
+            final DataRef ref = storage.put(value.hashCode(), value.buffer);
+            valueHash = value.partitionHash;
+            if (ref != null) {
+                valueRef = ref;
+                heapValue = null;
+            } else {
+                cmap.onOffHeapStorageFull();
+                valueRef = null;
+                heapValue = value;
+            }
+        }
+        if (oldRef != null) {
+            storage.remove(oldRef);
+        }
+    }
+
+    public int valueCount() {
+        int count = 0;
+        if (hasValueData()) {
+            count = 1;
+        } else if (getMultiValues() != null) {
+            count = getMultiValues().size();
+        }
+        return count;
+    }
+
+    public long getCost() {
+        long cost = 0;
+        final DataRef ref = valueRef;
+        final Data dataValue = heapValue;
+        if (ref != null) {
+            cost = ref.size();
+        } else if (dataValue != null) {
+            cost = dataValue.size();
+        } else if (getMultiValues() != null && getMultiValues().size() > 0) {
+            for (ValueHolder valueHolder : getMultiValues()) {
+                if (valueHolder != null) {
+                    cost += valueHolder.getData().size();
+                }
+            }
+        }
+        return cost + getKeyData().size() + DefaultRecord.RECORD_COST;
+    }
+
+    /**
+     * @return number of bytes of the value stored off-heap, 0 if the value is on heap
+     */
+    public long getOffHeapCost() {
+        final DataRef ref = valueRef;
+        return (ref == null) ? 0 : ref.size();
+    }
+
+    /**
+     * Copies the value back to the heap and frees its chunks, so the value
+     * stays readable after the records are removed from the map.
+     */
+    public void moveValueToHeap() {
+        final DataRef ref = valueRef;
+        if (ref != null) {
+            heapValue = getValueData();
+            valueRef = null;
+            storage.remove(ref);
+        }
+    }
+
+    public boolean hasValueData() {
+        return valueRef != null || heapValue != null;
+    }
+
+    public void invalidate() {
+        setValueData(null);
+    }
+}
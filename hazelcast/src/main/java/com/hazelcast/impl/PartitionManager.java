@@ -25,12 +25,11 @@ import com.hazelcast.core.Member;
 import com.hazelcast.impl.base.DataRecordEntry;
 import com.hazelcast.impl.base.RecordSet;
 import com.hazelcast.impl.base.SystemLogService;
-import com.hazelcast.impl.concurrentmap.CostAwareRecordList;
-import com.hazelcast.impl.concurrentmap.ValueHolder;
 import com.hazelcast.impl.partition.*;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.nio.Address;
 import com.hazelcast.nio.Connection;
+import com.hazelcast.nio.Data;
 import com.hazelcast.partition.MigrationEvent;
 
 import java.io.DataInput;
@@ -70,6 +69,12 @@ public class PartitionManager {
     private final AtomicBoolean migrationActive = new AtomicBoolean(true); // for testing purposes only
     private final AtomicLong lastRepartitionTime = new AtomicLong();
     private final SystemLogService systemLogService;
+    private volatile MigrationStreamer migrationStreamer;
+    private final AtomicLong migratedBytes = new AtomicLong();
+    private final AtomicLong migratedRecordCount = new AtomicLong();
+    private final AtomicLong migrationBytesInFlight = new AtomicLong();
+    private final AtomicLong replayedRecordCount = new AtomicLong();
+    private final AtomicLong migrationMillis = new AtomicLong();
 
     public PartitionManager(final ConcurrentMapManager concurrentMapManager) {
         this.PARTITION_COUNT = concurrentMapManager.getPartitionCount();
@@ -222,46 +227,104 @@ public class PartitionManager {
                 concurrentMapManager.node.getConfig().getPartitionGroupConfig());
     }
 
-    public CostAwareRecordList getActivePartitionRecords(final int partitionId, final int replicaIndex,
-                                                         final Address newAddress, boolean diffOnly) {
+    /**
+     * Sends the records of the partition to the target member in chunks.
+     *
+     * @return true if all records are stored by the target
+     */
+    public boolean streamPartition(final int partitionId, final int replicaIndex, final Address from,
+                                   final Member target, boolean diffOnly) throws Exception {
         final Address thisAddress = concurrentMapManager.node.getThisAddress();
+        final Address newAddress = ((MemberImpl) target).getAddress();
+        final MigrationStreamer streamer = new MigrationStreamer(concurrentMapManager, partitionId, replicaIndex,
+                from, target, diffOnly);
         concurrentMapManager.enqueueAndWait(new Processable() {
             public void process() {
                 addActiveMigration(partitionId, replicaIndex, thisAddress, newAddress);
+                migrationStreamer = streamer;
             }
         });
-        long now = System.currentTimeMillis();
-        final Collection<CMap> cmaps = concurrentMapManager.maps.values();
-        CostAwareRecordList lsResultSet = new CostAwareRecordList(1000);
-        for (final CMap cmap : cmaps) {
-            boolean includeCMap = diffOnly
-                    ? cmap.getBackupCount() == replicaIndex
-                    : cmap.getBackupCount() >= replicaIndex;
-            if (includeCMap) {
-                for (Record rec : cmap.mapRecords.values()) {
-                    if (rec.isActive() && rec.isValid(now)) {
-                        if (rec.getKeyData() == null || rec.getKeyData().size() == 0) {
-                            throw new RuntimeException("Record.key is null or empty " + rec.getKeyData());
-                        }
-                        if (rec.getBlockId() == partitionId) {
-                            cmap.onMigrate(rec);
-                            if (cmap.isMultiMap()) {
-                                Collection<ValueHolder> colValues = rec.getMultiValues();
-                                for (ValueHolder valueHolder : colValues) {
-                                    Record record = rec.copy();
-                                    record.setValueData(valueHolder.getData());
-                                    lsResultSet.add(record);
-                                }
-                            } else {
-                                lsResultSet.add(rec);
-                            }
-                            lsResultSet.addCost(rec.getCost());
-                        }
+        final long start = System.currentTimeMillis();
+        try {
+            return streamer.stream();
+        } finally {
+            migrationMillis.addAndGet(System.currentTimeMillis() - start);
+            concurrentMapManager.enqueueAndWait(new Processable() {
+                public void process() {
+                    if (migrationStreamer == streamer) {
+                        migrationStreamer = null;
                     }
                 }
-            }
+            });
+        }
+    }
+
+    /**
+     * @return true if the partition is streamed from this member and its last replay holds back the writes
+     */
+    boolean isPartitionWriteBlocked(int partitionId) {
+        final MigrationStreamer streamer = migrationStreamer;
+        return streamer != null && streamer.getPartitionId() == partitionId && streamer.isBlockingWrites();
+    }
+
+    /**
+     * Logs the key to be sent again if its partition is being streamed from this member.
+     * Called by the ServiceThread after a write.
+     */
+    void onRecordWrite(CMap cmap, Data key) {
+        final MigrationStreamer streamer = migrationStreamer;
+        if (streamer != null && streamer.getPartitionId() == concurrentMapManager.getPartitionId(key)) {
+            streamer.onWrite(cmap, key);
+        }
+    }
+
+    void onMigrationChunkSent(int byteCount) {
+        migrationBytesInFlight.addAndGet(byteCount);
+    }
+
+    void onMigrationChunkDone(int byteCount, int recordCount, boolean stored) {
+        migrationBytesInFlight.addAndGet(-byteCount);
+        if (stored) {
+            migratedBytes.addAndGet(byteCount);
+            migratedRecordCount.addAndGet(recordCount);
         }
-        return lsResultSet;
+    }
+
+    void onMigrationReplay(int recordCount) {
+        replayedRecordCount.addAndGet(recordCount);
+    }
+
+    /**
+     * @return compressed bytes of the records sent by this member and stored by the targets
+     */
+    public long getMigratedBytes() {
+        return migratedBytes.get();
+    }
+
+    public long getMigratedRecordCount() {
+        return migratedRecordCount.get();
+    }
+
+    /**
+     * @return compressed bytes of the chunks sent by this member and not stored by the targets yet
+     */
+    public long getMigrationBytesInFlight() {
+        return migrationBytesInFlight.get();
+    }
+
+    /**
+     * @return number of records sent again since they are written while their partition is streamed
+     */
+    public long getReplayedRecordCount() {
+        return replayedRecordCount.get();
+    }
+
+    /**
+     * @return bytes per second of the partitions streamed from this member
+     */
+    public long getMigrationThroughput() {
+        final long millis = migrationMillis.get();
+        return (millis == 0) ? 0 : migratedBytes.get() * 1000 / millis;
     }
 
     private void addActiveMigration(final MigratingPartition migrationRequestTask) {
@@ -296,10 +359,20 @@ public class PartitionManager {
         }
     }
 
-    public void doMigrate(final int partitionId, final int replicaIndex, final RecordSet recordSet, final Address from) {
+    public void doMigrate(final int partitionId, final int replicaIndex, final RecordSet recordSet,
+                          final Map<String, Set<Data>> replayedKeys, final Address from) {
         concurrentMapManager.enqueueAndWait(new Processable() {
             public void process() {
                 addActiveMigration(partitionId, replicaIndex, from, concurrentMapManager.thisAddress);
+                for (Map.Entry<String, Set<Data>> entry : replayedKeys.entrySet()) {
+                    CMap cmap = concurrentMapManager.getOrCreateMap(entry.getKey());
+                    for (Data key : entry.getValue()) {
+                        Record record = cmap.getRecord(key);
+                        if (record != null && record.isActive()) {
+                            cmap.markAsEvicted(record);
+                        }
+                    }
+                }
                 for (DataRecordEntry dataRecordEntry : recordSet.getRecords()) {
                     CMap cmap = concurrentMapManager.getOrCreateMap(dataRecordEntry.getName());
                     if (replicaIndex == 0) {
@@ -1043,6 +1116,15 @@ public class PartitionManager {
         StringBuilder sb = new StringBuilder("PartitionManager[" + version + "] {\n");
         sb.append("migratingPartition: " + migratingPartition);
         sb.append("\n");
+        final MigrationStreamer streamer = migrationStreamer;
+        if (streamer != null) {
+            sb.append(streamer);
+            sb.append("\n");
+        }
+        sb.append("migratedBytes:" + migratedBytes.get());
+        sb.append(", bytesInFlight:" + migrationBytesInFlight.get());
+        sb.append(", replayedRecords:" + replayedRecordCount.get());
+        sb.append("\n");
         sb.append("immediateQ:" + immediateTasksQueue.size());
         sb.append(", scheduledQ:" + scheduledTasksQueue.size());
         sb.append("\n}");
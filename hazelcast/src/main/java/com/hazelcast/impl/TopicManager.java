@@ -20,24 +20,64 @@ import com.hazelcast.config.ListenerConfig;
 import com.hazelcast.config.TopicConfig;
 import com.hazelcast.core.EntryEvent;
 import com.hazelcast.core.Instance.InstanceType;
+import com.hazelcast.core.Member;
+import com.hazelcast.core.Prefix;
+import com.hazelcast.impl.ListenerManager.ListenerItem;
+import com.hazelcast.impl.base.PacketProcessor;
+import com.hazelcast.impl.base.RuntimeInterruptedException;
 import com.hazelcast.impl.monitor.LocalTopicStatsImpl;
 import com.hazelcast.nio.Address;
 import com.hazelcast.nio.Data;
+import com.hazelcast.nio.Packet;
 
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 
 import static com.hazelcast.nio.IOUtil.toData;
+import static com.hazelcast.nio.IOUtil.toObject;
 
+/**
+ * Messages are delivered to the listeners of this member by the publishing thread and
+ * sent to the other members by the service thread, one event per message and member.
+ * With hazelcast.topic.publish.batch.enabled all the messages published since the last
+ * flush go in one packet per topic and member instead; members of older versions can't
+ * read these, so it must be enabled on all members.
+ */
 public class TopicManager extends BaseManager {
 
+    private static final int MAX_PENDING_PUBLISHES = 10000;
+    private static final int MAX_BATCH_BYTES = 64 * 1024;
+
     final boolean FLOW_CONTROL_ENABLED;
 
+    final boolean PUBLISH_BATCH_ENABLED;
+
+    private final Queue<PendingMessage> pendingPublishes = new ConcurrentLinkedQueue<PendingMessage>();
+    private final Semaphore publishPermits = new Semaphore(MAX_PENDING_PUBLISHES);
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private final ConcurrentMap<ListenerItem, TopicSubscriber> subscribers = new ConcurrentHashMap<ListenerItem, TopicSubscriber>();
+
+    private final Processable flushProcess = new Processable() {
+        public void process() {
+            flushPublishes();
+        }
+    };
+
     TopicManager(Node node) {
         super(node);
         FLOW_CONTROL_ENABLED = node.getGroupProperties().TOPIC_FLOW_CONTROL_ENABLED.getBoolean();
+        PUBLISH_BATCH_ENABLED = node.getGroupProperties().TOPIC_PUBLISH_BATCH_ENABLED.getBoolean();
+        registerPacketProcessor(ClusterOperation.TOPIC_PUBLISH_BATCH, new PacketProcessor() {
+            public void process(Packet packet) {
+                handlePublishBatch(packet);
+            }
+        });
     }
 
     Map<String, TopicInstance> mapTopics = new HashMap<String, TopicInstance>();
@@ -78,6 +118,11 @@ public class TopicManager extends BaseManager {
             instance.mapListeners.clear();
             node.listenerManager.removeAllRegisteredListeners(name);
         }
+        for (TopicSubscriber subscriber : subscribers.values()) {
+            if (subscriber.getListenerItem().name.equals(name)) {
+                removeSubscriber(subscriber.getListenerItem());
+            }
+        }
     }
 
     void doPublish(String name, Object msg) {
@@ -87,30 +132,198 @@ public class TopicManager extends BaseManager {
         } catch (Exception e) {
             throw new IllegalArgumentException(e);
         }
-        if (FLOW_CONTROL_ENABLED) {
-            while (node.connectionManager.getTotalWriteQueueSize() > 10000) {
-                try {
-                    //noinspection BusyWait
-                    Thread.sleep(10);
-                } catch (InterruptedException ignored) {
+        try {
+            publishPermits.acquire();
+        } catch (InterruptedException e) {
+            throw new RuntimeInterruptedException();
+        }
+        // a message rejected by a listener of this member is not sent to the other members either
+        if (!deliverLocally(name, dataMsg, node.getLocalMember(), true)) {
+            publishPermits.release();
+            throw new IllegalStateException("Message queue of a listener of topic [" + name + "] is full");
+        }
+        pendingPublishes.offer(new PendingMessage(name, dataMsg));
+        if (flushScheduled.compareAndSet(false, true)) {
+            enqueueAndReturn(flushProcess);
+        }
+    }
+
+    /**
+     * Sends the pending messages to the members with listeners, batched per member and topic
+     * if publish batching is enabled. Waits for the write queues to drain first if flow control
+     * is enabled.
+     */
+    void flushPublishes() {
+        if (FLOW_CONTROL_ENABLED && node.connectionManager.getTotalWriteQueueSize() > MAX_PENDING_PUBLISHES) {
+            node.executorManager.getScheduledExecutorService().schedule(new Runnable() {
+                public void run() {
+                    enqueueAndReturn(flushProcess);
+                }
+            }, 10, TimeUnit.MILLISECONDS);
+            return;
+        }
+        flushScheduled.set(false);
+        final Map<Address, Map<String, Batch>> batches = new HashMap<Address, Map<String, Batch>>();
+        int count = 0;
+        PendingMessage message;
+        while ((message = pendingPublishes.poll()) != null) {
+            count++;
+            final TopicInstance instance = getTopicInstance(message.name);
+            for (Address address : instance.mapListeners.keySet()) {
+                if (address.equals(thisAddress)) {
+                    continue;
+                }
+                if (!PUBLISH_BATCH_ENABLED) {
+                    node.listenerManager.sendEvent(address, EntryEvent.TYPE_ADDED, message.name, null,
+                            message.data, thisAddress);
+                    continue;
+                }
+                Map<String, Batch> memberBatches = batches.get(address);
+                if (memberBatches == null) {
+                    memberBatches = new HashMap<String, Batch>();
+                    batches.put(address, memberBatches);
+                }
+                Batch batch = memberBatches.get(message.name);
+                if (batch == null) {
+                    batch = new Batch();
+                    memberBatches.put(message.name, batch);
+                }
+                batch.add(message.data);
+                if (batch.bytes >= MAX_BATCH_BYTES) {
+                    sendBatch(address, message.name, batch);
+                    memberBatches.remove(message.name);
+                }
+            }
+        }
+        publishPermits.release(count);
+        for (Map.Entry<Address, Map<String, Batch>> memberBatches : batches.entrySet()) {
+            for (Map.Entry<String, Batch> batch : memberBatches.getValue().entrySet()) {
+                sendBatch(memberBatches.getKey(), batch.getKey(), batch.getValue());
+            }
+        }
+    }
+
+    private void sendBatch(Address address, String name, Batch batch) {
+        final Packet packet = obtainPacket();
+        packet.set(name, ClusterOperation.TOPIC_PUBLISH_BATCH, null, toData(batch.messages));
+        packet.lockAddress = thisAddress;
+        if (!send(packet, address)) {
+            releasePacket(packet);
+        }
+    }
+
+    private void handlePublishBatch(Packet packet) {
+        final String name = packet.name;
+        final Data value = packet.getValueData();
+        final Address from = packet.lockAddress;
+        releasePacket(packet);
+        Member member = getMember(from);
+        if (member == null) {
+            member = new MemberImpl(from, false);
+        }
+        final Member publisher = member;
+        node.executorManager.getEventExecutorService().executeOrderedRunnable(hashTwo(from.hashCode(), name.hashCode()),
+                new Runnable() {
+                    public void run() {
+                        final Keys messages = (Keys) toObject(value);
+                        for (Data message : messages.getKeys()) {
+                            deliverLocally(name, message, publisher, false);
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Queues the message for each message listener of the topic on this member.
+     * A message published on this member is queued for none of the listeners if one of them
+     * would reject it. Messages of the other members never wait for a listener, they are
+     * delivered by the event threads.
+     *
+     * @return false if the queue of a listener rejected the message
+     */
+    boolean deliverLocally(String name, Data message, Member publisher, boolean localEvent) {
+        final List<ListenerItem> listenerItems = node.listenerManager.namedListeners.get(name);
+        if (listenerItems == null || listenerItems.isEmpty()) {
+            return true;
+        }
+        if (localEvent) {
+            for (ListenerItem listenerItem : listenerItems) {
+                if (listenerItem.instanceType == InstanceType.TOPIC && getOrCreateSubscriber(listenerItem).rejects()) {
+                    return false;
+                }
+            }
+        }
+        boolean accepted = true;
+        DataAwareEntryEvent event = null;
+        for (ListenerItem listenerItem : listenerItems) {
+            if (listenerItem.instanceType == InstanceType.TOPIC) {
+                if (event == null) {
+                    event = new DataAwareEntryEvent(publisher, EntryEvent.TYPE_ADDED, name, null, message, null, localEvent);
                 }
+                accepted &= getOrCreateSubscriber(listenerItem).offer(event, localEvent);
             }
         }
-        enqueueAndReturn(new TopicPublishProcess(name, dataMsg));
+        return accepted;
     }
 
-    class TopicPublishProcess implements Processable {
-        final Data dataMsg;
+    private TopicSubscriber getOrCreateSubscriber(ListenerItem listenerItem) {
+        TopicSubscriber subscriber = subscribers.get(listenerItem);
+        if (subscriber == null) {
+            final TopicConfig topicConfig = node.config.findMatchingTopicConfig(listenerItem.name.substring(Prefix.TOPIC.length()));
+            subscriber = new TopicSubscriber(node, listenerItem, topicConfig.getSubscriberQueueCapacity(),
+                    topicConfig.getOverflowPolicy());
+            final TopicSubscriber existing = subscribers.putIfAbsent(listenerItem, subscriber);
+            if (existing != null) {
+                subscriber = existing;
+            }
+        }
+        return subscriber;
+    }
+
+    void removeSubscriber(ListenerItem listenerItem) {
+        final TopicSubscriber subscriber = subscribers.remove(listenerItem);
+        if (subscriber != null) {
+            subscriber.remove();
+        }
+    }
+
+    public LocalTopicStatsImpl getTopicStats(String name) {
+        final LocalTopicStatsImpl localTopicStats = new LocalTopicStatsImpl();
+        long queueSize = 0;
+        long maxQueueSize = 0;
+        long droppedCount = 0;
+        for (TopicSubscriber subscriber : subscribers.values()) {
+            if (subscriber.getListenerItem().name.equals(name)) {
+                final int size = subscriber.size();
+                queueSize += size;
+                maxQueueSize = Math.max(maxQueueSize, size);
+                droppedCount += subscriber.getDroppedCount();
+            }
+        }
+        localTopicStats.setSubscriberQueueSize(queueSize);
+        localTopicStats.setMaxSubscriberQueueSize(maxQueueSize);
+        localTopicStats.setDroppedMessageCount(droppedCount);
+        localTopicStats.setPendingPublishCount(MAX_PENDING_PUBLISHES - publishPermits.availablePermits());
+        return localTopicStats;
+    }
+
+    private static class PendingMessage {
         final String name;
+        final Data data;
 
-        public TopicPublishProcess(String name, Data dataMsg) {
-            super();
-            this.dataMsg = dataMsg;
+        PendingMessage(String name, Data data) {
             this.name = name;
+            this.data = data;
         }
+    }
 
-        public void process() {
-            getTopicInstance(name).publish(dataMsg);
+    private static class Batch {
+        final Keys messages = new Keys();
+        int bytes = 0;
+
+        void add(Data message) {
+            messages.add(message);
+            bytes += message.size();
         }
     }
 
@@ -154,12 +367,5 @@ public class TopicManager extends BaseManager {
             mapListeners.remove(address);
         }
 
-        public void publish(final Data msg) {
-            topicManager.fireMapEvent(mapListeners, name, EntryEvent.TYPE_ADDED, msg, thisAddress);
-        }
-
-        public LocalTopicStatsImpl getTopicStats() {
-            return new LocalTopicStatsImpl();
-        }
     }
 }
@@ -162,7 +162,7 @@ public class TopicProxyImpl extends FactoryAwareNamedProxy implements TopicProxy
         }
 
         public LocalTopicStats getLocalTopicStats() {
-            LocalTopicStatsImpl localTopicStats = topicManager.getTopicInstance(name).getTopicStats();
+            LocalTopicStatsImpl localTopicStats = topicManager.getTopicStats(name);
             localTopicStats.setOperationStats(topicOperationsCounter.getPublishedStats());
             return localTopicStats;
         }
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2008-2012, Hazel Bilisim Ltd. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.impl;
+
+import com.hazelcast.config.TopicConfig.OverflowPolicy;
+import com.hazelcast.impl.ListenerManager.ListenerItem;
+import com.hazelcast.logging.ILogger;
+
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+
+/**
+ * Messages waiting to be delivered to a message listener of a topic on this member.
+ * Messages are delivered in order by one thread at a time, so a slow listener holds up
+ * neither the other listeners nor the publishers until its queue is full.
+ */
+class TopicSubscriber {
+    private final Node node;
+    private final ListenerItem listenerItem;
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final ILogger logger;
+    private final LinkedList<DataAwareEntryEvent> queue = new LinkedList<DataAwareEntryEvent>();
+    private final Lock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final AtomicBoolean delivering = new AtomicBoolean(false);
+    private final AtomicLong droppedCount = new AtomicLong();
+    private volatile boolean active = true;
+
+    private final Runnable deliveryTask = new Runnable() {
+        public void run() {
+            deliver();
+        }
+    };
+
+    /**
+     * @param capacity max number of queued messages, 0 means unbounded
+     */
+    TopicSubscriber(Node node, ListenerItem listenerItem, int capacity, OverflowPolicy overflowPolicy) {
+        this.node = node;
+        this.listenerItem = listenerItem;
+        this.capacity = (capacity <= 0) ? Integer.MAX_VALUE : capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.logger = node.getLogger(TopicSubscriber.class.getName());
+    }
+
+    /**
+     * Queues the message to be delivered to the listener. When the queue is full
+     * waits, drops the oldest message or rejects the message depending on the overflow policy.
+     *
+     * @param mayBlock false to queue the message beyond the capacity instead of waiting
+     *                 with the BLOCK policy, event threads delivering the messages
+     *                 of the other members must not wait for a listener
+     * @return false if the message is rejected
+     */
+    boolean offer(DataAwareEntryEvent event, boolean mayBlock) {
+        lock.lock();
+        try {
+            while (active && queue.size() >= capacity) {
+                if (overflowPolicy == OverflowPolicy.DROP_OLDEST) {
+                    queue.removeFirst();
+                    droppedCount.incrementAndGet();
+                } else if (overflowPolicy == OverflowPolicy.FAIL || !node.isActive()) {
+                    droppedCount.incrementAndGet();
+                    return false;
+                } else if (!mayBlock) {
+                    break;
+                } else {
+                    try {
+                        notFull.await(100, TimeUnit.MILLISECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        droppedCount.incrementAndGet();
+                        return false;
+                    }
+                }
+            }
+            if (!active) {
+                return true;
+            }
+            queue.addLast(event);
+        } finally {
+            lock.unlock();
+        }
+        if (delivering.compareAndSet(false, true)) {
+            node.executorManager.executeNow(deliveryTask);
+        }
+        return true;
+    }
+
+    private void deliver() {
+        while (true) {
+            final DataAwareEntryEvent event;
+            lock.lock();
+            try {
+                event = queue.poll();
+                if (event == null) {
+                    delivering.set(false);
+                    return;
+                }
+                notFull.signal();
+            } finally {
+                lock.unlock();
+            }
+            try {
+                node.listenerManager.callListener(listenerItem, event);
+            } catch (Throwable e) {
+                logger.log(Level.SEVERE, "Caught error while calling message listener; cause: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Drops the queued messages and releases the waiting publishers once the listener is removed.
+     */
+    void remove() {
+        lock.lock();
+        try {
+            active = false;
+            queue.clear();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return true if the queue is full and the overflow policy is FAIL,
+     *         so a message offered now would be rejected
+     */
+    boolean rejects() {
+        lock.lock();
+        try {
+            if (active && overflowPolicy == OverflowPolicy.FAIL && queue.size() >= capacity) {
+                droppedCount.incrementAndGet();
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    ListenerItem getListenerItem() {
+        return listenerItem;
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long getDroppedCount() {
+        return droppedCount.get();
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2008-2012, Hazel Bilisim Ltd. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.impl;
+
+import com.hazelcast.nio.Data;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Dirty records of a write-behind map in the order they became dirty. Updates of a key
+ * are coalesced; a key is queued once until it is drained, and the store writes the value
+ * of the record at the time of the store.
+ * <p/>
+ * Records are offered by the service thread and drained by the cleanup and store threads.
+ */
+class WriteBehindQueue {
+    private final LinkedHashMap<Data, Record> records = new LinkedHashMap<Data, Record>();
+    private final long writeDelayMillis;
+    private final int capacity;
+    private final int batchSize;
+    private final AtomicLong storeCallCount = new AtomicLong();
+    private final AtomicLong totalStoreMillis = new AtomicLong();
+    private final AtomicLong failedStoreCount = new AtomicLong();
+
+    /**
+     * @param capacity  max number of queued keys, 0 means unbounded
+     * @param batchSize max number of records drained at once, 0 means unlimited
+     */
+    WriteBehindQueue(long writeDelayMillis, int capacity, int batchSize) {
+        this.writeDelayMillis = writeDelayMillis;
+        this.capacity = (capacity <= 0) ? Integer.MAX_VALUE : capacity;
+        this.batchSize = (batchSize <= 0) ? Integer.MAX_VALUE : batchSize;
+    }
+
+    /**
+     * Queues the record which just became dirty, behind the records that became dirty before it.
+     */
+    synchronized void offer(Record record) {
+        final Data key = record.getKeyData();
+        records.remove(key);
+        records.put(key, record);
+    }
+
+    /**
+     * @return true if the queue is full and the key is not queued yet,
+     *         so an update of the key would grow the queue beyond its capacity
+     */
+    synchronized boolean isFull(Data key) {
+        return records.size() >= capacity && !records.containsKey(key);
+    }
+
+    /**
+     * Removes the records whose write time has come, at most as many as the batch size.
+     * Records which are not dirty anymore, stored by an eviction for example, are dropped.
+     *
+     * @param all true to drain the records regardless of their write time
+     */
+    synchronized List<Record> drain(long now, boolean all) {
+        final List<Record> drained = new ArrayList<Record>(Math.min(records.size(), batchSize));
+        final Iterator<Record> it = records.values().iterator();
+        while (it.hasNext() && drained.size() < batchSize) {
+            final Record record = it.next();
+            if (!record.isDirty()) {
+                it.remove();
+            } else if (all || now > record.getWriteTime()) {
+                drained.add(record);
+                it.remove();
+            } else {
+                break;
+            }
+        }
+        return drained;
+    }
+
+    synchronized int size() {
+        return records.size();
+    }
+
+    /**
+     * @return millis since the oldest queued record became dirty, 0 if the queue is empty
+     */
+    synchronized long getOldestDirtyAge(long now) {
+        for (Record record : records.values()) {
+            if (record.isDirty()) {
+                return Math.max(0, now - (record.getWriteTime() - writeDelayMillis));
+            }
+        }
+        return 0;
+    }
+
+    synchronized void clear() {
+        records.clear();
+    }
+
+    /**
+     * Records the duration of a drained batch's store and delete calls
+     * and the number of records that could not be stored.
+     */
+    void onStore(long storeMillis, int failedCount) {
+        storeCallCount.incrementAndGet();
+        totalStoreMillis.addAndGet(storeMillis);
+        failedStoreCount.addAndGet(failedCount);
+    }
+
+    /**
+     * @return average millis spent storing a drained batch
+     */
+    long getAverageStoreLatency() {
+        final long count = storeCallCount.get();
+        return (count == 0) ? 0 : totalStoreMillis.get() / count;
+    }
+
+    long getFailedStoreCount() {
+        return failedStoreCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "WriteBehindQueue{" +
+                "size=" + size() +
+                ", capacity=" + capacity +
+                ", batchSize=" + batchSize +
+                ", storeCallCount=" + storeCallCount.get() +
+                ", failedStoreCount=" + failedStoreCount.get() +
+                '}';
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2008-2012, Hazel Bilisim Ltd. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.impl.base;
+
+import com.hazelcast.nio.Packet;
+
+/**
+ * Processes a partition bound packet on one of the partition threads instead of the ServiceThread.
+ * Implementations may only touch state that is safe to read concurrently with the ServiceThread.
+ */
+public interface PartitionPacketProcessor {
+
+    /**
+     * @return false if the packet could not be completed on the partition thread and
+     *         should be handed over to the ServiceThread.
+     */
+    boolean processOnPartitionThread(Packet packet);
+}
@@ -33,6 +33,12 @@ public class DefaultRecordFactory implements RecordFactory {
         if (simple) {
             return new SimpleRecord(blockId, cmap, id, key, value);
         }
+        if (cmap.isOffHeapStorage()) {
+            return new OffHeapRecord(cmap, blockId, key, value, ttl, maxIdleMillis, id);
+        }
+        if (cmap.isCompactRecords()) {
+            return new CompactRecord(cmap, blockId, key, value, ttl, id);
+        }
         return new DefaultRecord(cmap, blockId, key, value, ttl, maxIdleMillis, id);
     }
 
@@ -26,38 +26,70 @@ import com.hazelcast.query.Predicate;
 
 import java.io.DataInput;
 import java.io.DataOutput;
+import java.io.EOFException;
 import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.concurrent.Callable;
 
 import static com.hazelcast.nio.IOUtil.toObject;
 
-public class MapQueryCallable implements Callable<Pairs>, DataSerializable, HazelcastInstanceAware {
+/**
+ * Queries the partitions of the map owned by this member, or only the given ones of them.
+ * The result tells the partitions this member owned during the whole query, the caller
+ * queries the others again.
+ * <p/>
+ * Compatibility: the form of the previous versions, with the partition table version of the
+ * caller, is kept and the partition ids follow it at the end; -1 for all owned partitions.
+ * Members of the previous versions don't read the ids and answer with the Pairs of all their
+ * partitions, or null if the partition table version differs. A callable without the ids, sent by
+ * a member of the previous versions, is answered that way too.
+ */
+public class MapQueryCallable implements Callable<Object>, DataSerializable, HazelcastInstanceAware {
     private Data predicateData;
     private int partitionVersion;
+    private Set<Integer> partitionIds;
+    private boolean partitionAware;
     private String mapName;
     private ClusterOperation operation;
     private transient HazelcastInstance hazelcast;
 
-    public MapQueryCallable(String mapName, ClusterOperation operation, Data predicateData, int partitionVersion) {
+    /**
+     * @param partitionIds partitions to query, or null for all owned partitions
+     */
+    public MapQueryCallable(String mapName, ClusterOperation operation, Data predicateData, int partitionVersion,
+                            Set<Integer> partitionIds) {
         this.mapName = mapName;
         this.operation = operation;
         this.predicateData = predicateData;
         this.partitionVersion = partitionVersion;
+        this.partitionIds = partitionIds;
+        this.partitionAware = true;
     }
 
     public MapQueryCallable() {
     }
 
-    public Pairs call() throws Exception {
+    /**
+     * @return a QueryResult, or for a caller of the previous versions the Pairs, null if the
+     *         partition table version differs
+     */
+    public Object call() throws Exception {
         FactoryImpl factory = (FactoryImpl) hazelcast;
         ConcurrentMapManager concurrentMapManager = factory.node.concurrentMapManager;
         CMap cmap = concurrentMapManager.getMap(mapName);
-        if (cmap == null) return new Pairs();
-        PartitionManager partitionManager = concurrentMapManager.getPartitionManager();
-        if (partitionManager.getVersion() != partitionVersion) return null;
-        Pairs pairs = factory.node.concurrentMapManager.queryMap(cmap, operation, (Predicate) toObject(predicateData));
-        if (partitionManager.getVersion() != partitionVersion) return null;
-        return pairs;
+        if (!partitionAware) {
+            if (cmap == null) return new Pairs();
+            PartitionManager partitionManager = concurrentMapManager.getPartitionManager();
+            if (partitionManager.getVersion() != partitionVersion) return null;
+            Pairs pairs = concurrentMapManager.queryMap(cmap, operation, (Predicate) toObject(predicateData));
+            if (partitionManager.getVersion() != partitionVersion) return null;
+            return pairs;
+        }
+        if (cmap == null) {
+            return new QueryResult(concurrentMapManager.getOwnedPartitionIds(partitionIds), new Pairs());
+        }
+        return concurrentMapManager.queryOwnedPartitions(cmap, operation, (Predicate) toObject(predicateData), partitionIds);
     }
 
     public void writeData(DataOutput out) throws IOException {
@@ -69,6 +101,12 @@ public class MapQueryCallable implements Callable<Pairs>, DataSerializable, Haze
         if (hasPredicate) {
             predicateData.writeData(out);
         }
+        out.writeInt((partitionIds == null) ? -1 : partitionIds.size());
+        if (partitionIds != null) {
+            for (Integer partitionId : partitionIds) {
+                out.writeInt(partitionId);
+            }
+        }
     }
 
     public void readData(DataInput in) throws IOException {
@@ -80,6 +118,21 @@ public class MapQueryCallable implements Callable<Pairs>, DataSerializable, Haze
             predicateData = new Data();
             predicateData.readData(in);
         }
+        final int partitionCount;
+        try {
+            partitionCount = in.readInt();
+        } catch (EOFException e) {
+            // sent by a member of the previous versions
+            partitionAware = false;
+            return;
+        }
+        partitionAware = true;
+        if (partitionCount >= 0) {
+            partitionIds = new HashSet<Integer>(partitionCount);
+            for (int i = 0; i < partitionCount; i++) {
+                partitionIds.add(in.readInt());
+            }
+        }
     }
 
     public void setHazelcastInstance(HazelcastInstance hazelcastInstance) {
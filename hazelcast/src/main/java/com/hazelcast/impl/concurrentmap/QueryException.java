@@ -21,8 +21,12 @@ public class QueryException extends RuntimeException {
         super(cause);
     }
 
+    public QueryException(String message) {
+        super(message);
+    }
+
     @Override
     public String getMessage() {
-        return getCause().getMessage();
+        return (getCause() != null) ? getCause().getMessage() : super.getMessage();
     }
 }
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2008-2012, Hazel Bilisim Ltd. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.impl.concurrentmap;
+
+import com.hazelcast.impl.base.Pairs;
+import com.hazelcast.nio.DataSerializable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Entries a member returned for a query and the partitions they belong to,
+ * that is the partitions the member owned during the whole query.
+ */
+public class QueryResult implements DataSerializable {
+    private Set<Integer> partitionIds;
+    private Pairs pairs;
+
+    public QueryResult() {
+    }
+
+    public QueryResult(Set<Integer> partitionIds, Pairs pairs) {
+        this.partitionIds = partitionIds;
+        this.pairs = pairs;
+    }
+
+    public Set<Integer> getPartitionIds() {
+        return partitionIds;
+    }
+
+    public Pairs getPairs() {
+        return pairs;
+    }
+
+    public void writeData(DataOutput out) throws IOException {
+        out.writeInt(partitionIds.size());
+        for (Integer partitionId : partitionIds) {
+            out.writeInt(partitionId);
+        }
+        pairs.writeData(out);
+    }
+
+    public void readData(DataInput in) throws IOException {
+        final int size = in.readInt();
+        partitionIds = new HashSet<Integer>(size);
+        for (int i = 0; i < size; i++) {
+            partitionIds.add(in.readInt());
+        }
+        pairs = new Pairs();
+        pairs.readData(in);
+    }
+
+    @Override
+    public String toString() {
+        return "QueryResult{partitions=" + partitionIds.size() + ", pairs=" + pairs + '}';
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2008-2012, Hazel Bilisim Ltd. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.impl.concurrentmap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Selects eviction candidates without sorting all of them. Offered entries are collected into
+ * a pool of twice the sample size; when it is full, a sample of sampleSize entries is drawn
+ * from it at random and the smallest entries of the sample according to the eviction comparator
+ * are selected, so that the selected count follows evictionRate. The entries not drawn stay in
+ * the pool, so the samples are not made of entries that happen to be next to each other in
+ * the iteration order and the same entries are not compared with each other on every run.
+ * Work is O(sampleSize) per entry and memory is bounded by the pool plus the selection,
+ * instead of a TreeSet holding every candidate.
+ */
+public class SampledEvictionSelector<T> {
+
+    private final Comparator<? super T> comparator;
+
+    private final Object[] pool;
+
+    private final int sampleSize;
+
+    private final float evictionRate;
+
+    private final List<T> selected = new ArrayList<T>();
+
+    private final Random random = new Random();
+
+    private int poolCount = 0;
+
+    private float credit = 0;
+
+    public SampledEvictionSelector(Comparator<? super T> comparator, int sampleSize, float evictionRate) {
+        if (sampleSize < 1) {
+            throw new IllegalArgumentException("sample size must be greater than 0");
+        }
+        this.comparator = comparator;
+        this.sampleSize = sampleSize;
+        this.pool = new Object[sampleSize * 2];
+        this.evictionRate = evictionRate;
+    }
+
+    public void offer(T entry) {
+        pool[poolCount++] = entry;
+        if (poolCount == pool.length) {
+            selectFromSample(sampleSize);
+        }
+    }
+
+    public List<T> getSelected() {
+        while (poolCount > 0) {
+            selectFromSample(Math.min(sampleSize, poolCount));
+        }
+        return selected;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void selectFromSample(int sampleCount) {
+        // moves a random sample of the pool to its head
+        for (int i = 0; i < sampleCount; i++) {
+            swap(i, i + random.nextInt(poolCount - i));
+        }
+        credit += sampleCount * evictionRate;
+        final int selectCount = Math.min((int) credit, sampleCount);
+        credit -= selectCount;
+        for (int i = 0; i < selectCount; i++) {
+            int min = i;
+            for (int j = i + 1; j < sampleCount; j++) {
+                if (comparator.compare((T) pool[j], (T) pool[min]) < 0) {
+                    min = j;
+                }
+            }
+            swap(i, min);
+            selected.add((T) pool[i]);
+        }
+        final int remaining = poolCount - sampleCount;
+        System.arraycopy(pool, sampleCount, pool, 0, remaining);
+        Arrays.fill(pool, remaining, poolCount, null);
+        poolCount = remaining;
+    }
+
+    private void swap(int i, int j) {
+        final Object entry = pool[i];
+        pool[i] = pool[j];
+        pool[j] = entry;
+    }
+}
@@ -33,12 +33,24 @@ public class LocalMapStatsImpl extends LocalInstanceStatsSupport<LocalMapOperati
     private long ownedEntryMemoryCost;
     private long backupEntryMemoryCost;
     private long markedAsRemovedMemoryCost;
+    private long heapCost;
+    private long offHeapCost;
     private long creationTime;
     private long lastUpdateTime;
     private long lastEvictionTime;
     private long lockedEntryCount;
     private long lockWaitCount;
     private long dirtyEntryCount;
+    private long nearCacheEntryCount;
+    private long nearCacheHits;
+    private long nearCacheMisses;
+    private long nearCacheEvictions;
+    private long writeBehindQueueSize;
+    private long oldestDirtyEntryAge;
+    private long averageStoreLatency;
+    private long failedStoreCount;
+    private long loadedEntryCount;
+    private long pendingLoadEntryCount;
 
     enum Op {
         CREATE,
@@ -63,12 +75,24 @@ public class LocalMapStatsImpl extends LocalInstanceStatsSupport<LocalMapOperati
         out.writeLong(ownedEntryMemoryCost);
         out.writeLong(backupEntryMemoryCost);
         out.writeLong(markedAsRemovedMemoryCost);
+        out.writeLong(heapCost);
+        out.writeLong(offHeapCost);
         out.writeLong(creationTime);
         out.writeLong(lastUpdateTime);
         out.writeLong(lastEvictionTime);
         out.writeLong(lockedEntryCount);
         out.writeLong(lockWaitCount);
         out.writeLong(dirtyEntryCount);
+        out.writeLong(nearCacheEntryCount);
+        out.writeLong(nearCacheHits);
+        out.writeLong(nearCacheMisses);
+        out.writeLong(nearCacheEvictions);
+        out.writeLong(writeBehindQueueSize);
+        out.writeLong(oldestDirtyEntryAge);
+        out.writeLong(averageStoreLatency);
+        out.writeLong(failedStoreCount);
+        out.writeLong(loadedEntryCount);
+        out.writeLong(pendingLoadEntryCount);
     }
 
     void readDataInternal(DataInput in) throws IOException {
@@ -80,12 +104,24 @@ public class LocalMapStatsImpl extends LocalInstanceStatsSupport<LocalMapOperati
         ownedEntryMemoryCost = in.readLong();
         backupEntryMemoryCost = in.readLong();
         markedAsRemovedMemoryCost = in.readLong();
+        heapCost = in.readLong();
+        offHeapCost = in.readLong();
         creationTime = in.readLong();
         lastUpdateTime = in.readLong();
         lastEvictionTime = in.readLong();
         lockedEntryCount = in.readLong();
         lockWaitCount = in.readLong();
         dirtyEntryCount = in.readLong();
+        nearCacheEntryCount = in.readLong();
+        nearCacheHits = in.readLong();
+        nearCacheMisses = in.readLong();
+        nearCacheEvictions = in.readLong();
+        writeBehindQueueSize = in.readLong();
+        oldestDirtyEntryAge = in.readLong();
+        averageStoreLatency = in.readLong();
+        failedStoreCount = in.readLong();
+        loadedEntryCount = in.readLong();
+        pendingLoadEntryCount = in.readLong();
     }
 
     @Override
@@ -141,6 +177,22 @@ public class LocalMapStatsImpl extends LocalInstanceStatsSupport<LocalMapOperati
         this.markedAsRemovedMemoryCost = markedAsRemovedMemoryCost;
     }
 
+    public long getHeapCost() {
+        return heapCost;
+    }
+
+    public void setHeapCost(long heapCost) {
+        this.heapCost = heapCost;
+    }
+
+    public long getOffHeapCost() {
+        return offHeapCost;
+    }
+
+    public void setOffHeapCost(long offHeapCost) {
+        this.offHeapCost = offHeapCost;
+    }
+
     public long getCreationTime() {
         return creationTime;
     }
@@ -181,6 +233,38 @@ public class LocalMapStatsImpl extends LocalInstanceStatsSupport<LocalMapOperati
         this.hits.set(hits);
     }
 
+    public long getNearCacheEntryCount() {
+        return nearCacheEntryCount;
+    }
+
+    public void setNearCacheEntryCount(long nearCacheEntryCount) {
+        this.nearCacheEntryCount = nearCacheEntryCount;
+    }
+
+    public long getNearCacheHits() {
+        return nearCacheHits;
+    }
+
+    public void setNearCacheHits(long nearCacheHits) {
+        this.nearCacheHits = nearCacheHits;
+    }
+
+    public long getNearCacheMisses() {
+        return nearCacheMisses;
+    }
+
+    public void setNearCacheMisses(long nearCacheMisses) {
+        this.nearCacheMisses = nearCacheMisses;
+    }
+
+    public long getNearCacheEvictions() {
+        return nearCacheEvictions;
+    }
+
+    public void setNearCacheEvictions(long nearCacheEvictions) {
+        this.nearCacheEvictions = nearCacheEvictions;
+    }
+
     public long getLockedEntryCount() {
         return lockedEntryCount;
     }
@@ -205,6 +289,54 @@ public class LocalMapStatsImpl extends LocalInstanceStatsSupport<LocalMapOperati
         this.dirtyEntryCount = l;
     }
 
+    public long getWriteBehindQueueSize() {
+        return writeBehindQueueSize;
+    }
+
+    public void setWriteBehindQueueSize(long writeBehindQueueSize) {
+        this.writeBehindQueueSize = writeBehindQueueSize;
+    }
+
+    public long getOldestDirtyEntryAge() {
+        return oldestDirtyEntryAge;
+    }
+
+    public void setOldestDirtyEntryAge(long oldestDirtyEntryAge) {
+        this.oldestDirtyEntryAge = oldestDirtyEntryAge;
+    }
+
+    public long getAverageStoreLatency() {
+        return averageStoreLatency;
+    }
+
+    public void setAverageStoreLatency(long averageStoreLatency) {
+        this.averageStoreLatency = averageStoreLatency;
+    }
+
+    public long getFailedStoreCount() {
+        return failedStoreCount;
+    }
+
+    public void setFailedStoreCount(long failedStoreCount) {
+        this.failedStoreCount = failedStoreCount;
+    }
+
+    public long getLoadedEntryCount() {
+        return loadedEntryCount;
+    }
+
+    public void setLoadedEntryCount(long loadedEntryCount) {
+        this.loadedEntryCount = loadedEntryCount;
+    }
+
+    public long getPendingLoadEntryCount() {
+        return pendingLoadEntryCount;
+    }
+
+    public void setPendingLoadEntryCount(long pendingLoadEntryCount) {
+        this.pendingLoadEntryCount = pendingLoadEntryCount;
+    }
+
     @Override
     public String toString() {
         return "LocalMapStatsImpl{" +
@@ -214,6 +346,8 @@ public class LocalMapStatsImpl extends LocalInstanceStatsSupport<LocalMapOperati
                 ", ownedEntryMemoryCost=" + ownedEntryMemoryCost +
                 ", backupEntryMemoryCost=" + backupEntryMemoryCost +
                 ", markedAsRemovedMemoryCost=" + markedAsRemovedMemoryCost +
+                ", heapCost=" + heapCost +
+                ", offHeapCost=" + offHeapCost +
                 ", creationTime=" + creationTime +
                 ", lastAccessTime=" + lastAccessTime.get() +
                 ", lastUpdateTime=" + lastUpdateTime +
@@ -222,6 +356,16 @@ public class LocalMapStatsImpl extends LocalInstanceStatsSupport<LocalMapOperati
                 ", lockedEntryCount=" + lockedEntryCount +
                 ", lockWaitCount=" + lockWaitCount +
                 ", dirtyEntryCount=" + dirtyEntryCount +
+                ", nearCacheEntryCount=" + nearCacheEntryCount +
+                ", nearCacheHits=" + nearCacheHits +
+                ", nearCacheMisses=" + nearCacheMisses +
+                ", nearCacheEvictions=" + nearCacheEvictions +
+                ", writeBehindQueueSize=" + writeBehindQueueSize +
+                ", oldestDirtyEntryAge=" + oldestDirtyEntryAge +
+                ", averageStoreLatency=" + averageStoreLatency +
+                ", failedStoreCount=" + failedStoreCount +
+                ", loadedEntryCount=" + loadedEntryCount +
+                ", pendingLoadEntryCount=" + pendingLoadEntryCount +
                 ", " + operationStats +
                 '}';
     }
@@ -19,11 +19,92 @@ package com.hazelcast.impl.monitor;
 import com.hazelcast.monitor.LocalTopicOperationStats;
 import com.hazelcast.monitor.LocalTopicStats;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 public class LocalTopicStatsImpl extends LocalInstanceStatsSupport<LocalTopicOperationStats>
         implements LocalTopicStats {
 
+    private long subscriberQueueSize;
+    private long maxSubscriberQueueSize;
+    private long droppedMessageCount;
+    private long pendingPublishCount;
+
     @Override
     LocalTopicOperationStats newOperationStatsInstance() {
         return new LocalTopicOperationStatsImpl();
     }
+
+    @Override
+    void writeDataInternal(DataOutput out) throws IOException {
+        out.writeLong(subscriberQueueSize);
+        out.writeLong(maxSubscriberQueueSize);
+        out.writeLong(droppedMessageCount);
+        out.writeLong(pendingPublishCount);
+    }
+
+    @Override
+    void readDataInternal(DataInput in) throws IOException {
+        subscriberQueueSize = in.readLong();
+        maxSubscriberQueueSize = in.readLong();
+        droppedMessageCount = in.readLong();
+        pendingPublishCount = in.readLong();
+    }
+
+    public double getPublishRate() {
+        return (operationStats == null) ? 0 : perSecond(operationStats.getNumberOfPublishes());
+    }
+
+    public double getDeliverRate() {
+        return (operationStats == null) ? 0 : perSecond(operationStats.getNumberOfReceivedMessages());
+    }
+
+    private double perSecond(long count) {
+        final long period = operationStats.getPeriodEnd() - operationStats.getPeriodStart();
+        return (period <= 0) ? 0 : count * 1000d / period;
+    }
+
+    public long getSubscriberQueueSize() {
+        return subscriberQueueSize;
+    }
+
+    public void setSubscriberQueueSize(long subscriberQueueSize) {
+        this.subscriberQueueSize = subscriberQueueSize;
+    }
+
+    public long getMaxSubscriberQueueSize() {
+        return maxSubscriberQueueSize;
+    }
+
+    public void setMaxSubscriberQueueSize(long maxSubscriberQueueSize) {
+        this.maxSubscriberQueueSize = maxSubscriberQueueSize;
+    }
+
+    public long getDroppedMessageCount() {
+        return droppedMessageCount;
+    }
+
+    public void setDroppedMessageCount(long droppedMessageCount) {
+        this.droppedMessageCount = droppedMessageCount;
+    }
+
+    public long getPendingPublishCount() {
+        return pendingPublishCount;
+    }
+
+    public void setPendingPublishCount(long pendingPublishCount) {
+        this.pendingPublishCount = pendingPublishCount;
+    }
+
+    @Override
+    public String toString() {
+        return "LocalTopicStatsImpl{" +
+                "subscriberQueueSize=" + subscriberQueueSize +
+                ", maxSubscriberQueueSize=" + maxSubscriberQueueSize +
+                ", droppedMessageCount=" + droppedMessageCount +
+                ", pendingPublishCount=" + pendingPublishCount +
+                ", " + operationStats +
+                '}';
+    }
 }
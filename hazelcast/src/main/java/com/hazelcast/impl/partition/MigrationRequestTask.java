@@ -20,7 +20,6 @@ import com.hazelcast.core.*;
 import com.hazelcast.impl.FactoryImpl;
 import com.hazelcast.impl.Node;
 import com.hazelcast.impl.PartitionManager;
-import com.hazelcast.impl.concurrentmap.CostAwareRecordList;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.nio.Address;
 import com.hazelcast.nio.DataSerializable;
@@ -30,8 +29,6 @@ import java.io.DataOutput;
 import java.io.IOException;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 public class MigrationRequestTask extends MigratingPartition implements Callable<Boolean>, DataSerializable, HazelcastInstanceAware {
@@ -86,11 +83,7 @@ public class MigrationRequestTask extends MigratingPartition implements Callable
                 getLogger().log(Level.WARNING, "Target member of task could not be found! => " + toString());
                 return Boolean.FALSE;
             }
-            final CostAwareRecordList costAwareRecordList = pm.getActivePartitionRecords(partitionId, replicaIndex, to, diffOnly);
-            DistributedTask task = new DistributedTask(new MigrationTask(partitionId, costAwareRecordList,
-                    replicaIndex, from), target);
-            Future future = node.factory.getExecutorService().submit(task);
-            return (Boolean) future.get(400, TimeUnit.SECONDS);
+            return pm.streamPartition(partitionId, replicaIndex, from, target, diffOnly);
         } catch (Throwable e) {
             Level level = Level.WARNING;
             if (e instanceof ExecutionException) {
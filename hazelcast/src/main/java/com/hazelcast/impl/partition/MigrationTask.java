@@ -27,17 +27,29 @@ import com.hazelcast.impl.base.RecordSet;
 import com.hazelcast.impl.concurrentmap.CostAwareRecordList;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.nio.Address;
+import com.hazelcast.nio.Data;
 import com.hazelcast.nio.DataSerializable;
 import com.hazelcast.nio.IOUtil;
 
 import java.io.*;
-import java.util.List;
+import java.util.*;
 import java.util.concurrent.Callable;
 import java.util.logging.Level;
 import java.util.zip.DeflaterOutputStream;
 import java.util.zip.InflaterInputStream;
 
+/**
+ * A chunk of the records of a migrating partition. Keys written on the source member while
+ * the partition is streamed are sent again in replay chunks; records of a replayed key replace
+ * the ones stored for it by an earlier chunk, and the key is removed if it has no records.
+ * <p/>
+ * The replayed keys follow the records behind a marker byte, and only in replay chunks, so a
+ * regular chunk has the form of the previous versions and a chunk of an older member, which
+ * ends after the records, is read as a regular chunk.
+ */
 public class MigrationTask implements Callable<Boolean>, DataSerializable, HazelcastInstanceAware {
+    private static final int REPLAYED_KEYS_MARKER = 1;
+
     private int partitionId;
     private int replicaIndex;
     private byte[] bytesRecordSet;
@@ -48,7 +60,10 @@ public class MigrationTask implements Callable<Boolean>, DataSerializable, Hazel
     public MigrationTask() {
     }
 
-    public MigrationTask(int partitionId, CostAwareRecordList costAwareRecordList,
+    /**
+     * @param replayedKeys keys to be replaced by the given records, by map name; null for a regular chunk
+     */
+    public MigrationTask(int partitionId, CostAwareRecordList costAwareRecordList, Map<String, Set<Data>> replayedKeys,
                          int replicaIndex, Address from) throws IOException {
         this.partitionId = partitionId;
         this.replicaIndex = replicaIndex;
@@ -63,6 +78,17 @@ public class MigrationTask implements Callable<Boolean>, DataSerializable, Hazel
             for (Record record : lsRecordsToMigrate) {
                 new DataRecordEntry(record, true).writeData(dos);
             }
+            if (replayedKeys != null) {
+                dos.writeByte(REPLAYED_KEYS_MARKER);
+                dos.writeInt(replayedKeys.size());
+                for (Map.Entry<String, Set<Data>> entry : replayedKeys.entrySet()) {
+                    dos.writeUTF(entry.getKey());
+                    dos.writeInt(entry.getValue().size());
+                    for (Data key : entry.getValue()) {
+                        key.writeData(dos);
+                    }
+                }
+            }
         } finally {
             IOUtil.closeResource(dos);
         }
@@ -83,12 +109,26 @@ public class MigrationTask implements Callable<Boolean>, DataSerializable, Hazel
                 r.readData(dis);
                 recordSet.addDataRecordEntry(r);
             }
+            // the stream ends after the records unless the chunk is a replay
+            final int replayedMapCount = (dis.read() == REPLAYED_KEYS_MARKER) ? dis.readInt() : 0;
+            final Map<String, Set<Data>> replayedKeys = new HashMap<String, Set<Data>>(replayedMapCount);
+            for (int i = 0; i < replayedMapCount; i++) {
+                final String name = dis.readUTF();
+                final int keyCount = dis.readInt();
+                final Set<Data> keys = new HashSet<Data>(keyCount);
+                for (int k = 0; k < keyCount; k++) {
+                    final Data key = new Data();
+                    key.readData(dis);
+                    keys.add(key);
+                }
+                replayedKeys.put(name, keys);
+            }
             if (recordCount != recordSet.getRecords().size()) {
                 getLogger().log(Level.SEVERE, "Migration record count mismatch! => " +
                         "expected-count: " + size + ", actual-count: " + recordSet.getRecords().size() +
                         "\nfrom: " + from + ", partition: " + partitionId + ", replica: " + replicaIndex);
             }
-            pm.doMigrate(partitionId, replicaIndex, recordSet, from);
+            pm.doMigrate(partitionId, replicaIndex, recordSet, replayedKeys, from);
             return Boolean.TRUE;
         } catch (Throwable e) {
             Level level = Level.WARNING;
@@ -102,6 +142,17 @@ public class MigrationTask implements Callable<Boolean>, DataSerializable, Hazel
         return Boolean.FALSE;
     }
 
+    /**
+     * @return size of the compressed records
+     */
+    public int getByteCount() {
+        return bytesRecordSet.length;
+    }
+
+    public int getRecordCount() {
+        return recordCount;
+    }
+
     private ILogger getLogger() {
         return ((FactoryImpl) hazelcast).node.getLogger(MigrationTask.class.getName());
     }
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2008-2012, Hazel Bilisim Ltd. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.impl.storage;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Stores values in direct memory slabs outside of the java heap.
+ * <p/>
+ * Memory is split into segments, each one a direct buffer divided into fixed size chunks.
+ * A value is written into as many free chunks of a segment as it needs, so the heap only
+ * holds the small {@link DataRef} of the value. Segments are locked separately; the segment
+ * of a value is picked by its hash and the next segments are tried when it is full.
+ */
+public class OffHeapStorage implements Storage {
+
+    private static final int MAX_SEGMENT_SIZE = 1 << 30;
+
+    private static final int MIN_SEGMENT_SIZE = 1 << 20;
+
+    private static final int DEFAULT_SEGMENT_COUNT = 16;
+
+    private final Segment[] segments;
+
+    private final int chunkSize;
+
+    public OffHeapStorage(long totalSize, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive! " + chunkSize);
+        }
+        final long totalChunks = totalSize / chunkSize;
+        if (totalChunks <= 0) {
+            throw new IllegalArgumentException("Total size " + totalSize + " is less than chunk size " + chunkSize);
+        }
+        final int chunksPerSegmentLimit = MAX_SEGMENT_SIZE / chunkSize;
+        int segmentCount = (int) Math.max(1, Math.min(DEFAULT_SEGMENT_COUNT, totalSize / MIN_SEGMENT_SIZE));
+        segmentCount = (int) Math.max(segmentCount, (totalChunks + chunksPerSegmentLimit - 1) / chunksPerSegmentLimit);
+        this.chunkSize = chunkSize;
+        this.segments = new Segment[segmentCount];
+        final int chunksPerSegment = (int) (totalChunks / segmentCount);
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(i, chunksPerSegment);
+        }
+    }
+
+    public DataRef put(int hash, byte[] value) {
+        final int chunkCount = (value.length + chunkSize - 1) / chunkSize;
+        final int start = (hash & Integer.MAX_VALUE) % segments.length;
+        for (int i = 0; i < segments.length; i++) {
+            DataRef ref = segments[(start + i) % segments.length].put(value, chunkCount);
+            if (ref != null) {
+                return ref;
+            }
+        }
+        return null;
+    }
+
+    public byte[] get(DataRef ref) {
+        return segments[ref.segment].get(ref);
+    }
+
+    public void remove(DataRef ref) {
+        segments[ref.segment].remove(ref);
+    }
+
+    public long getTotalSize() {
+        long total = 0;
+        for (Segment segment : segments) {
+            total += (long) segment.chunkCount * chunkSize;
+        }
+        return total;
+    }
+
+    public long getUsedSize() {
+        long used = 0;
+        for (Segment segment : segments) {
+            used += (long) segment.usedChunks() * chunkSize;
+        }
+        return used;
+    }
+
+    public void destroy() {
+        for (Segment segment : segments) {
+            segment.destroy();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "OffHeapStorage{" +
+                "segments=" + segments.length +
+                ", chunkSize=" + chunkSize +
+                ", total=" + getTotalSize() +
+                ", used=" + getUsedSize() +
+                '}';
+    }
+
+    private class Segment {
+        final int index;
+        final int chunkCount;
+        final Lock lock = new ReentrantLock();
+        final int[] freeChunks;
+        int freeCount;
+        ByteBuffer buffer;
+
+        Segment(int index, int chunkCount) {
+            this.index = index;
+            this.chunkCount = chunkCount;
+            this.buffer = ByteBuffer.allocateDirect(chunkCount * chunkSize);
+            this.freeChunks = new int[chunkCount];
+            for (int i = 0; i < chunkCount; i++) {
+                freeChunks[i] = chunkCount - 1 - i;
+            }
+            this.freeCount = chunkCount;
+        }
+
+        DataRef put(byte[] value, int count) {
+            lock.lock();
+            try {
+                if (buffer == null || freeCount < count) {
+                    return null;
+                }
+                final int[] chunks = new int[count];
+                int offset = 0;
+                for (int i = 0; i < count; i++) {
+                    final int chunk = freeChunks[--freeCount];
+                    final int len = Math.min(chunkSize, value.length - offset);
+                    chunks[i] = chunk;
+                    buffer.position(chunk * chunkSize);
+                    buffer.put(value, offset, len);
+                    offset += len;
+                }
+                return new DataRef(index, chunks, value.length);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        byte[] get(DataRef ref) {
+            lock.lock();
+            try {
+                if (buffer == null || ref.removed) {
+                    return null;
+                }
+                final byte[] value = new byte[ref.length];
+                int offset = 0;
+                for (int chunk : ref.chunks) {
+                    final int len = Math.min(chunkSize, value.length - offset);
+                    buffer.position(chunk * chunkSize);
+                    buffer.get(value, offset, len);
+                    offset += len;
+                }
+                return value;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void remove(DataRef ref) {
+            lock.lock();
+            try {
+                if (buffer == null || ref.removed) {
+                    return;
+                }
+                ref.removed = true;
+                for (int chunk : ref.chunks) {
+                    freeChunks[freeCount++] = chunk;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int usedChunks() {
+            lock.lock();
+            try {
+                return chunkCount - freeCount;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void destroy() {
+            lock.lock();
+            try {
+                buffer = null;
+                freeCount = chunkCount;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2008-2012, Hazel Bilisim Ltd. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.impl.storage;
+
+/**
+ * Storage for serialized record values kept outside of the record objects.
+ */
+public interface Storage {
+
+    /**
+     * Stores the value and returns the reference to read it back,
+     * or null if the storage has no room left for it.
+     */
+    DataRef put(int hash, byte[] value);
+
+    /**
+     * Returns a copy of the value or null if the reference was already removed.
+     */
+    byte[] get(DataRef ref);
+
+    void remove(DataRef ref);
+
+    long getTotalSize();
+
+    long getUsedSize();
+
+    void destroy();
+}
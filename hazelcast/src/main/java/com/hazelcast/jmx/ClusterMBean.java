@@ -18,6 +18,10 @@ package com.hazelcast.jmx;
 
 import com.hazelcast.config.Config;
 import com.hazelcast.core.*;
+import com.hazelcast.impl.ConcurrentMapManager;
+import com.hazelcast.impl.FactoryImpl;
+import com.hazelcast.impl.ListenerManager;
+import com.hazelcast.impl.PartitionManager;
 
 import javax.management.MBeanServer;
 import java.io.File;
@@ -42,6 +46,9 @@ public class ClusterMBean extends AbstractMBean<HazelcastInstance> {
 
     private final Config config;
     private final Cluster cluster;
+    private final ConcurrentMapManager concurrentMapManager;
+    private final PartitionManager partitionManager;
+    private final ListenerManager listenerManager;
     private final String name;
 
     public ClusterMBean(ManagementService service, String name) {
@@ -49,6 +56,9 @@ public class ClusterMBean extends AbstractMBean<HazelcastInstance> {
         this.name = name;
         this.config = service.getInstance().getConfig();
         this.cluster = service.getInstance().getCluster();
+        this.concurrentMapManager = ((FactoryImpl) service.getInstance()).node.concurrentMapManager;
+        this.partitionManager = concurrentMapManager.getPartitionManager();
+        this.listenerManager = ((FactoryImpl) service.getInstance()).node.listenerManager;
         clusterObjectNames = new ObjectNameSpec(name);
     }
 
@@ -205,6 +215,90 @@ public class ClusterMBean extends AbstractMBean<HazelcastInstance> {
         return result;
     }
 
+    @JMXAttribute("MigratedBytes")
+    @JMXDescription("Compressed bytes of the partition records migrated from this member")
+    public long getMigratedBytes() {
+        return partitionManager.getMigratedBytes();
+    }
+
+    @JMXAttribute("MigratedRecordCount")
+    @JMXDescription("Number of partition records migrated from this member")
+    public long getMigratedRecordCount() {
+        return partitionManager.getMigratedRecordCount();
+    }
+
+    @JMXAttribute("MigrationBytesInFlight")
+    @JMXDescription("Compressed bytes of the migration chunks sent and not stored yet")
+    public long getMigrationBytesInFlight() {
+        return partitionManager.getMigrationBytesInFlight();
+    }
+
+    @JMXAttribute("MigrationThroughput")
+    @JMXDescription("Bytes per second of the partitions migrated from this member")
+    public long getMigrationThroughput() {
+        return partitionManager.getMigrationThroughput();
+    }
+
+    @JMXAttribute("ReplayedMigrationRecordCount")
+    @JMXDescription("Number of records sent again since they are written during migration")
+    public long getReplayedMigrationRecordCount() {
+        return partitionManager.getReplayedRecordCount();
+    }
+
+    @JMXAttribute("MaxBackupLag")
+    @JMXDescription("Max number of backup operations of a partition not acknowledged yet")
+    public int getMaxBackupLag() {
+        return concurrentMapManager.getMaxBackupLag();
+    }
+
+    @JMXAttribute("BackupBatchCount")
+    @JMXDescription("Number of backup batches sent by this member")
+    public long getBackupBatchCount() {
+        return concurrentMapManager.getBackupBatchCount();
+    }
+
+    @JMXAttribute("BatchedBackupCount")
+    @JMXDescription("Number of backup operations sent in batches by this member")
+    public long getBatchedBackupCount() {
+        return concurrentMapManager.getBatchedBackupCount();
+    }
+
+    @JMXAttribute("BackupDeltaBytesSaved")
+    @JMXDescription("Bytes of backup values not sent since the backups are sent as deltas")
+    public long getBackupDeltaBytesSaved() {
+        return concurrentMapManager.getBackupDeltaBytesSaved();
+    }
+
+    @JMXAttribute("QueryRetryCount")
+    @JMXDescription("Number of times queries of this member queried the partitions not answered again")
+    public long getQueryRetryCount() {
+        return concurrentMapManager.getQueryRetryCount();
+    }
+
+    @JMXAttribute("QueryRetryPartitionCount")
+    @JMXDescription("Number of partitions queried again by the queries of this member")
+    public long getQueryRetryPartitionCount() {
+        return concurrentMapManager.getQueryRetryPartitionCount();
+    }
+
+    @JMXAttribute("QueuedEventCount")
+    @JMXDescription("Number of events waiting to be delivered to the listeners of this member")
+    public long getQueuedEventCount() {
+        return listenerManager.getQueuedEventCount();
+    }
+
+    @JMXAttribute("DroppedEventCount")
+    @JMXDescription("Number of events dropped since too many events are waiting to be delivered")
+    public long getDroppedEventCount() {
+        return listenerManager.getDroppedEventCount();
+    }
+
+    @JMXAttribute("EventBatchCount")
+    @JMXDescription("Number of event batches sent by this member")
+    public long getEventBatchCount() {
+        return listenerManager.getSentEventBatchCount();
+    }
+
     @JMXAttribute("Running")
     @JMXDescription("Node's running state")
     public boolean isRunning() {
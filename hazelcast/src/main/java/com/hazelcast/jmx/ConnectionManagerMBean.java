@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2008-2012, Hazel Bilisim Ltd. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jmx;
+
+import com.hazelcast.nio.ConnectionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The instrumentation MBean for the connections and the IO selectors of a member.
+ */
+@JMXDescription("Connections and IO selectors of the member")
+public class ConnectionManagerMBean extends AbstractMBean<ConnectionManager> {
+
+    public ConnectionManagerMBean(ConnectionManager connectionManager, ManagementService managementService) {
+        super(connectionManager, managementService);
+    }
+
+    @Override
+    public ObjectNameSpec getNameSpec() {
+        return getParentName().getNested("ConnectionManager");
+    }
+
+    @JMXAttribute("ActiveConnectionCount")
+    @JMXDescription("Number of the active connections")
+    public int getActiveConnectionCount() {
+        return getManagedObject().getActiveConnectionCount();
+    }
+
+    @JMXAttribute("ClientConnectionCount")
+    @JMXDescription("Number of the live client connections")
+    public int getClientConnectionCount() {
+        return getManagedObject().getCurrentClientConnections();
+    }
+
+    @JMXAttribute("SelectorUtilizations")
+    @JMXDescription("Utilization percentage and connection count of each IO selector")
+    public List<String> getSelectorUtilizations() {
+        final int[] utilizations = getManagedObject().getSelectorUtilizations();
+        final int[] counts = getManagedObject().getSelectorConnectionCounts();
+        final List<String> result = new ArrayList<String>(utilizations.length);
+        for (int i = 0; i < utilizations.length; i++) {
+            result.add("selector-" + i + " utilization=" + utilizations[i] + "% connections=" + counts[i]);
+        }
+        return result;
+    }
+
+    @JMXAttribute("MaxSelectorUtilization")
+    @JMXDescription("Utilization percentage of the busiest IO selector")
+    public int getMaxSelectorUtilization() {
+        int max = 0;
+        for (int utilization : getManagedObject().getSelectorUtilizations()) {
+            max = Math.max(max, utilization);
+        }
+        return max;
+    }
+
+    @JMXAttribute("ConnectionMoveCount")
+    @JMXDescription("Number of connections moved to a less busy IO selector")
+    public long getConnectionMoveCount() {
+        return getManagedObject().getConnectionMoveCount();
+    }
+
+    @JMXAttribute("PacketsPerWrite")
+    @JMXDescription("Average number of packets written by a socket write")
+    public double getPacketsPerWrite() {
+        return getManagedObject().getPacketsPerWrite();
+    }
+
+    @JMXAttribute("WriteWakeupCount")
+    @JMXDescription("Number of selector wake ups done to write packets")
+    public long getWriteWakeupCount() {
+        return getManagedObject().getWriteWakeupCount();
+    }
+}
@@ -128,6 +128,9 @@ public class ManagementService {
                 DataMBean dataMBean = new DataMBean(this);
                 dataMBean.setParentName(clusterMBean.getRootName());
                 mbs.registerMBean(dataMBean, dataMBean.getObjectName());
+                ConnectionManagerMBean connectionManagerMBean = new ConnectionManagerMBean(instance.node.connectionManager, this);
+                connectionManagerMBean.setParentName(clusterMBean.getRootName());
+                mbs.registerMBean(connectionManagerMBean, connectionManagerMBean.getObjectName());
             } catch (Exception e) {
                 logger.log(Level.WARNING, "Unable to start JMX service", e);
                 return;
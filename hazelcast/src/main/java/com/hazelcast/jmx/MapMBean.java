@@ -181,4 +181,16 @@ public class MapMBean extends AbstractMBean<IMap> {
     public int getSize() {
         return getManagedObject().size();
     }
+
+    @JMXAttribute("LoadedEntryCount")
+    @JMXDescription("Number of entries put by the initial load of this member")
+    public long getLoadedEntryCount() {
+        return getManagedObject().getLocalMapStats().getLoadedEntryCount();
+    }
+
+    @JMXAttribute("PendingLoadEntryCount")
+    @JMXDescription("Number of keys the initial load of this member has not loaded yet")
+    public long getPendingLoadEntryCount() {
+        return getManagedObject().getLocalMapStats().getPendingLoadEntryCount();
+    }
 }
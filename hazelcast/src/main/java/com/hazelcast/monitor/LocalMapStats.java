@@ -76,6 +76,24 @@ public interface LocalMapStats extends LocalInstanceStats<LocalMapOperationStats
      */
     long getMarkedAsRemovedMemoryCost();
 
+    /**
+     * Returns estimated heap memory (number of bytes) held by all
+     * entries of this map in this member; owned, backup and marked
+     * as removed ones, including the record overhead and excluding
+     * the values stored off-heap.
+     *
+     * @return heap memory cost of the entries in this member.
+     */
+    long getHeapCost();
+
+    /**
+     * Returns off-heap memory (number of bytes) used by the values
+     * of this map in this member.
+     *
+     * @return off-heap memory cost of the entries in this member.
+     */
+    long getOffHeapCost();
+
     /**
      * Returns the creation time of this map on this member.
      *
@@ -111,6 +129,38 @@ public interface LocalMapStats extends LocalInstanceStats<LocalMapOperationStats
      */
     long getHits();
 
+    /**
+     * Returns the number of entries in the near cache of this map
+     * in this member, 0 if the map has no near cache.
+     *
+     * @return number of near cache entries.
+     */
+    long getNearCacheEntryCount();
+
+    /**
+     * Returns the approximate number of reads served by the near cache
+     * of this map in this member.
+     *
+     * @return number of near cache hits.
+     */
+    long getNearCacheHits();
+
+    /**
+     * Returns the number of reads not found in the near cache
+     * of this map in this member.
+     *
+     * @return number of near cache misses.
+     */
+    long getNearCacheMisses();
+
+    /**
+     * Returns the number of near cache entries removed because of
+     * the max size, time to live or max idle time of the near cache.
+     *
+     * @return number of near cache evictions.
+     */
+    long getNearCacheEvictions();
+
     /**
      * Returns the number of currently locked locally owned keys.
      *
@@ -133,4 +183,49 @@ public interface LocalMapStats extends LocalInstanceStats<LocalMapOperationStats
      * @return
      */
     long getDirtyEntryCount();
+
+    /**
+     * Returns the number of dirty entries waiting in the write-behind queue of this member.
+     *
+     * @return write-behind queue size, 0 if the map is not write-behind
+     */
+    long getWriteBehindQueueSize();
+
+    /**
+     * Returns the number of milliseconds since the oldest entry waiting
+     * in the write-behind queue became dirty.
+     *
+     * @return age of the oldest dirty entry in milliseconds
+     */
+    long getOldestDirtyEntryAge();
+
+    /**
+     * Returns the average number of milliseconds the map store took
+     * to store a batch of write-behind entries.
+     *
+     * @return average store latency in milliseconds
+     */
+    long getAverageStoreLatency();
+
+    /**
+     * Returns the number of write-behind entries that could not be stored and
+     * were queued again to be retried.
+     *
+     * @return number of failed entry stores
+     */
+    long getFailedStoreCount();
+
+    /**
+     * Returns the number of entries the initial load of this member put into the map.
+     *
+     * @return number of loaded entries
+     */
+    long getLoadedEntryCount();
+
+    /**
+     * Returns the number of keys the initial load of this member has not loaded yet.
+     *
+     * @return number of keys waiting to be loaded, 0 once the initial load is completed
+     */
+    long getPendingLoadEntryCount();
 }
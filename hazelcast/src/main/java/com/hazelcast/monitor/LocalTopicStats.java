@@ -18,4 +18,47 @@ package com.hazelcast.monitor;
 
 public interface LocalTopicStats extends LocalInstanceStats<LocalTopicOperationStats> {
 
+    /**
+     * Returns the number of messages published per second on this member
+     * during the period of the operation stats.
+     *
+     * @return publish rate
+     */
+    double getPublishRate();
+
+    /**
+     * Returns the number of messages delivered per second to the listeners on this member
+     * during the period of the operation stats.
+     *
+     * @return delivery rate
+     */
+    double getDeliverRate();
+
+    /**
+     * Returns the number of messages waiting to be delivered to the listeners on this member.
+     *
+     * @return total size of the listener queues
+     */
+    long getSubscriberQueueSize();
+
+    /**
+     * Returns the number of messages waiting in the fullest listener queue on this member.
+     *
+     * @return size of the largest listener queue
+     */
+    long getMaxSubscriberQueueSize();
+
+    /**
+     * Returns the number of messages dropped because a listener queue on this member was full.
+     *
+     * @return number of dropped messages
+     */
+    long getDroppedMessageCount();
+
+    /**
+     * Returns the number of messages published on this member and not sent to the other members yet.
+     *
+     * @return number of pending publishes
+     */
+    long getPendingPublishCount();
 }
@@ -32,18 +32,17 @@ abstract class AbstractSelectionHandler implements SelectionHandler {
 
     protected final Connection connection;
 
-    protected final InOutSelector inOutSelector;
-
     protected final ConnectionManager connectionManager;
 
     protected final SystemLogService systemLogService;
 
     protected SelectionKey sk = null;
 
-    public AbstractSelectionHandler(final Connection connection, final InOutSelector inOutSelector) {
+    volatile long handleCount = 0;
+
+    public AbstractSelectionHandler(final Connection connection) {
         super();
         this.connection = connection;
-        this.inOutSelector = inOutSelector;
         this.socketChannel = connection.getSocketChannelWrapper();
         this.connectionManager = connection.getConnectionManager();
         this.logger = connectionManager.ioService.getLogger(this.getClass().getName());
@@ -53,6 +52,31 @@ abstract class AbstractSelectionHandler implements SelectionHandler {
     protected void shutdown() {
     }
 
+    /**
+     * Queues the task to the selector currently serving the connection.
+     */
+    final void addTask(Runnable task) {
+        final InOutSelector inOutSelector = connection.getInOutSelector();
+        inOutSelector.addTask(task);
+        inOutSelector.selector.wakeup();
+    }
+
+    /**
+     * Tasks queued just before the connection is moved to another selector are run by
+     * the old selector thread; hands such a task over to the current selector.
+     *
+     * @return true if the task is handed over and should not run on this thread
+     */
+    final boolean handOver(Runnable task) {
+        final InOutSelector inOutSelector = connection.getInOutSelector();
+        if (inOutSelector.isSelectorThread()) {
+            return false;
+        }
+        inOutSelector.addTask(task);
+        inOutSelector.selector.wakeup();
+        return true;
+    }
+
     final void handleSocketException(Throwable e) {
         if (e instanceof OutOfMemoryError) {
             connectionManager.ioService.onOutOfMemory((OutOfMemoryError) e);
@@ -34,7 +34,7 @@ public final class Connection {
 
     final ConnectionManager connectionManager;
 
-    final InOutSelector inOutSelector;
+    private volatile InOutSelector inOutSelector;
 
     private volatile boolean live = true;
 
@@ -52,6 +52,11 @@ public final class Connection {
 
     private ConnectionMonitor monitor;
 
+    // accessed only by the balancer of the ConnectionManager
+    long balancerHandleCount = 0;
+
+    long balancerLoad = 0;
+
     public Connection(ConnectionManager connectionManager, InOutSelector inOutSelector, int connectionId, SocketChannelWrapper socketChannel) {
         this.inOutSelector = inOutSelector;
         this.connectionId = connectionId;
@@ -71,17 +76,24 @@ public final class Connection {
         return type;
     }
 
+    /**
+     * should be called by the InOutSelector thread of the connection
+     */
     public void releasePacket(Packet packet) {
-        packetQueue.offer(packet);
+        if (!packetQueue.offer(packet)) {
+            connectionManager.getPacketPool().release(packet);
+        }
     }
 
+    /**
+     * should be called by the InOutSelector thread of the connection
+     */
     public Packet obtainPacket() {
         Packet packet = packetQueue.poll();
         if (packet == null) {
-            packet = new Packet();
-        } else {
-            packet.reset();
+            return connectionManager.getPacketPool().obtain();
         }
+        packet.reset();
         return packet;
     }
 
@@ -139,6 +151,13 @@ public final class Connection {
         return inOutSelector;
     }
 
+    /**
+     * should be called by the InOutSelector thread of the connection
+     */
+    void setInOutSelector(InOutSelector inOutSelector) {
+        this.inOutSelector = inOutSelector;
+    }
+
     public boolean live() {
         return live;
     }
@@ -29,12 +29,16 @@ import com.hazelcast.util.ConcurrentHashSet;
 
 import java.io.IOException;
 import java.net.Socket;
+import java.nio.ByteBuffer;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 
 import static com.hazelcast.impl.Constants.IO.KILO_BYTE;
@@ -53,6 +57,12 @@ public class ConnectionManager {
 
     final boolean SOCKET_NO_DELAY;
 
+    final boolean PACKET_COMPACT_HEADER;
+
+    private static final int MAX_POOLED_SOCKET_BUFFERS = 100;
+
+    private static final int MAX_POOLED_PACKETS = 1000;
+
     private final Map<Address, Connection> mapConnections = new ConcurrentHashMap<Address, Connection>(100);
 
     private final ConcurrentMap<Address, ConnectionMonitor> mapMonitors = new ConcurrentHashMap<Address, ConnectionMonitor>(100);
@@ -69,6 +79,10 @@ public class ConnectionManager {
 
     private volatile boolean live = false;
 
+    private long lastStateTime = 0;
+
+    private long lastStateWakeups = 0;
+
     final IOService ioService;
 
     private final ServerSocketChannel serverSocketChannel;
@@ -77,12 +91,24 @@ public class ConnectionManager {
 
     private final AtomicInteger nextSelectorIndex = new AtomicInteger();
 
+    private final boolean balancerEnabled;
+
+    private final int balancerThreshold;
+
+    private final AtomicLong connectionMoves = new AtomicLong();
+
     private final MemberSocketInterceptor memberSocketInterceptor;
 
     private final ExecutorService es = Executors.newCachedThreadPool();
 
     private final SocketChannelWrapperFactory socketChannelWrapperFactory;
 
+    private final DirectBufferPool receiveBufferPool;
+
+    private final DirectBufferPool sendBufferPool;
+
+    private final PacketPool packetPool = new PacketPool(MAX_POOLED_PACKETS);
+
     final String ipV6ScopeId;
 
     private Thread socketAcceptorThread; // accessed only in synchronized block
@@ -97,8 +123,18 @@ public class ConnectionManager {
         this.SOCKET_LINGER_SECONDS = ioService.getSocketLingerSeconds();
         this.SOCKET_KEEP_ALIVE = ioService.getSocketKeepAlive();
         this.SOCKET_NO_DELAY = ioService.getSocketNoDelay();
+        this.PACKET_COMPACT_HEADER = ioService.isPacketCompactHeader();
+        if (ioService.isSocketBufferDirect()) {
+            receiveBufferPool = new DirectBufferPool(SOCKET_RECEIVE_BUFFER_SIZE, MAX_POOLED_SOCKET_BUFFERS);
+            sendBufferPool = new DirectBufferPool(SOCKET_SEND_BUFFER_SIZE, MAX_POOLED_SOCKET_BUFFERS);
+        } else {
+            receiveBufferPool = null;
+            sendBufferPool = null;
+        }
         int selectorCount = ioService.getSelectorThreadCount();
         selectors = new InOutSelector[selectorCount];
+        balancerEnabled = selectorCount > 1 && ioService.getBalancerIntervalSeconds() > 0;
+        balancerThreshold = ioService.getBalancerThreshold();
         SSLConfig sslConfig = ioService.getSSLConfig();
         if (sslConfig != null && sslConfig.isEnabled()) {
             socketChannelWrapperFactory = new SSLSocketChannelWrapperFactory(sslConfig);
@@ -135,6 +171,34 @@ public class ConnectionManager {
         }
     }
 
+    public PacketPool getPacketPool() {
+        return packetPool;
+    }
+
+    ByteBuffer newReceiveBuffer() {
+        return (receiveBufferPool != null) ? receiveBufferPool.take() : ByteBuffer.allocate(SOCKET_RECEIVE_BUFFER_SIZE);
+    }
+
+    ByteBuffer newSendBuffer() {
+        return (sendBufferPool != null) ? sendBufferPool.take() : ByteBuffer.allocate(SOCKET_SEND_BUFFER_SIZE);
+    }
+
+    /**
+     * should be called by the InOutSelector thread of the connection
+     * so that the buffer is not in use anymore.
+     */
+    void releaseReceiveBuffer(ByteBuffer bb) {
+        if (receiveBufferPool != null && bb.isDirect()) {
+            receiveBufferPool.release(bb);
+        }
+    }
+
+    void releaseSendBuffer(ByteBuffer bb) {
+        if (sendBufferPool != null && bb.isDirect()) {
+            sendBufferPool.release(bb);
+        }
+    }
+
     interface SocketChannelWrapperFactory {
         SocketChannelWrapper wrapSocketChannel(SocketChannel socketChannel, boolean client) throws Exception;
     }
@@ -188,11 +252,135 @@ public class ConnectionManager {
         return memberSocketInterceptor;
     }
 
+    /**
+     * Selects the selector serving the least connections, round robin among the equal ones.
+     */
     private InOutSelector nextSelector() {
         if (nextSelectorIndex.get() > 1000000) {
             nextSelectorIndex.set(0);
         }
-        return selectors[Math.abs(nextSelectorIndex.incrementAndGet()) % selectors.length];
+        final int start = Math.abs(nextSelectorIndex.incrementAndGet());
+        final int[] counts = getSelectorConnectionCounts();
+        int selected = start % selectors.length;
+        for (int i = 1; i < selectors.length; i++) {
+            int index = (start + i) % selectors.length;
+            if (counts[index] < counts[selected]) {
+                selected = index;
+            }
+        }
+        return selectors[selected];
+    }
+
+    private int indexOf(InOutSelector inOutSelector) {
+        for (int i = 0; i < selectors.length; i++) {
+            if (selectors[i] == inOutSelector) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return number of active connections served by each selector
+     */
+    public int[] getSelectorConnectionCounts() {
+        final int[] counts = new int[selectors.length];
+        for (Connection conn : setActiveConnections) {
+            int index = indexOf(conn.getInOutSelector());
+            if (index != -1) {
+                counts[index]++;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * @return utilization percentage of each selector, see {@link InOutSelector#getUtilization()}
+     */
+    public int[] getSelectorUtilizations() {
+        final int[] utilizations = new int[selectors.length];
+        for (int i = 0; i < selectors.length; i++) {
+            InOutSelector inOutSelector = selectors[i];
+            utilizations[i] = (inOutSelector == null) ? 0 : inOutSelector.getUtilization();
+        }
+        return utilizations;
+    }
+
+    /**
+     * @return number of connections moved to another selector by the balancer
+     */
+    public long getConnectionMoveCount() {
+        return connectionMoves.get();
+    }
+
+    public int getActiveConnectionCount() {
+        return setActiveConnections.size();
+    }
+
+    void onUtilizationPublished(InOutSelector inOutSelector) {
+        if (balancerEnabled && live && inOutSelector == selectors[0]) {
+            balance();
+        }
+    }
+
+    /**
+     * Moves a connection from the busiest selector to the idlest one when the busiest
+     * selector is utilized more than the threshold. Moved connection is the one whose
+     * handled events since the last run are closest to the half of the difference
+     * between the two selectors, so that the move never swaps the imbalance.
+     * Called by the first selector thread after it publishes its utilization.
+     */
+    private void balance() {
+        final int count = selectors.length;
+        final long[] loads = new long[count];
+        final int[] counts = new int[count];
+        for (Connection conn : setActiveConnections) {
+            int index = indexOf(conn.getInOutSelector());
+            long handled = conn.getReadHandler().handleCount + conn.getWriteHandler().handleCount;
+            conn.balancerLoad = handled - conn.balancerHandleCount;
+            conn.balancerHandleCount = handled;
+            if (index != -1) {
+                loads[index] += conn.balancerLoad;
+                counts[index]++;
+            }
+        }
+        int busiest = -1;
+        int idlest = -1;
+        for (int i = 0; i < count; i++) {
+            InOutSelector inOutSelector = selectors[i];
+            if (inOutSelector == null) {
+                return;
+            }
+            if (busiest == -1 || inOutSelector.getUtilization() > selectors[busiest].getUtilization()) {
+                busiest = i;
+            }
+            if (idlest == -1 || inOutSelector.getUtilization() < selectors[idlest].getUtilization()) {
+                idlest = i;
+            }
+        }
+        if (busiest == idlest || counts[busiest] < 2 || selectors[busiest].getUtilization() < balancerThreshold) {
+            return;
+        }
+        final long imbalance = loads[busiest] - loads[idlest];
+        Connection candidate = null;
+        long candidateDistance = Long.MAX_VALUE;
+        for (Connection conn : setActiveConnections) {
+            long load = conn.balancerLoad;
+            if (conn.getInOutSelector() == selectors[busiest] && conn.live() && load > 0 && load < imbalance) {
+                long distance = Math.abs(imbalance - 2 * load);
+                if (distance < candidateDistance) {
+                    candidate = conn;
+                    candidateDistance = distance;
+                }
+            }
+        }
+        if (candidate != null) {
+            connectionMoves.incrementAndGet();
+            logger.log(Level.FINEST, "Moving " + candidate + " from selector " + busiest + " ["
+                    + selectors[busiest].getUtilization() + "%] to selector " + idlest + " ["
+                    + selectors[idlest].getUtilization() + "%]");
+            selectors[busiest].moveConnection(candidate, selectors[idlest]);
+        }
     }
 
     public void addConnectionListener(ConnectionListener listener) {
@@ -398,6 +586,7 @@ public class ConnectionManager {
         mapConnections.clear();
         mapMonitors.clear();
         setActiveConnections.clear();
+        packetPool.clear();
     }
 
     private synchronized void shutdownIOSelectors() {
@@ -439,9 +628,41 @@ public class ConnectionManager {
         return live;
     }
 
+    /**
+     * @return number of selector wake ups done to write the packets of the current connections
+     */
+    public long getWriteWakeupCount() {
+        long count = 0;
+        for (Connection conn : mapConnections.values()) {
+            count += conn.getWriteHandler().wakeups;
+        }
+        return count;
+    }
+
+    /**
+     * @return average number of packets written by a socket write on the current connections
+     */
+    public double getPacketsPerWrite() {
+        long packets = 0;
+        long writes = 0;
+        for (Connection conn : mapConnections.values()) {
+            packets += conn.getWriteHandler().packetsWritten;
+            writes += conn.getWriteHandler().socketWrites;
+        }
+        return (writes == 0) ? 0 : (double) packets / writes;
+    }
+
     public void appendState(StringBuffer sbState) {
         long now = System.currentTimeMillis();
+        long wakeups = getWriteWakeupCount();
+        long elapsed = now - lastStateTime;
         sbState.append("\nConnectionManager {");
+        sbState.append("\n\tpackets/write: ").append(String.format("%.2f", getPacketsPerWrite()));
+        if (lastStateTime > 0 && elapsed > 0) {
+            sbState.append("  wakeups/sec: ").append(Math.max(0, wakeups - lastStateWakeups) * 1000 / elapsed);
+        }
+        lastStateTime = now;
+        lastStateWakeups = wakeups;
         for (Connection conn : mapConnections.values()) {
             long wr = (now - conn.getWriteHandler().lastRegistration) / 1000;
             long wh = (now - conn.getWriteHandler().lastHandle) / 1000;
@@ -452,6 +673,20 @@ public class ConnectionManager {
             sbState.append("  ").append(conn.getWriteHandler().size());
             sbState.append("  w:").append(wr).append("/").append(wh);
             sbState.append("  r:").append(rr).append("/").append(rh);
+            conn.getWriteHandler().appendState(sbState);
+        }
+        final int[] utilizations = getSelectorUtilizations();
+        final int[] counts = getSelectorConnectionCounts();
+        for (int i = 0; i < selectors.length; i++) {
+            sbState.append("\n\tSelector ").append(i);
+            sbState.append("  utilization:").append(utilizations[i]).append("%");
+            sbState.append("  connections:").append(counts[i]);
+        }
+        sbState.append("\n\tconnection moves: ").append(connectionMoves.get());
+        sbState.append("\n\t").append(packetPool);
+        if (receiveBufferPool != null) {
+            sbState.append("\n\tReceive ").append(receiveBufferPool);
+            sbState.append("\n\tSend ").append(sendBufferPool);
         }
         sbState.append("\n}");
     }
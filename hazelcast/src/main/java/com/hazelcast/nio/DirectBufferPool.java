@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2008-2012, Hazel Bilisim Ltd. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.nio;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of same sized direct buffers for the socket buffers of the connections.
+ * Direct buffers are expensive to allocate and only freed by the garbage collector,
+ * so buffers of closed connections are kept to be used by the new ones.
+ */
+final class DirectBufferPool {
+
+    private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<ByteBuffer>();
+
+    private final AtomicInteger pooledCount = new AtomicInteger();
+
+    private final AtomicLong createdCount = new AtomicLong();
+
+    private final int bufferSize;
+
+    private final int maxPooledCount;
+
+    DirectBufferPool(int bufferSize, int maxPooledCount) {
+        this.bufferSize = bufferSize;
+        this.maxPooledCount = maxPooledCount;
+    }
+
+    ByteBuffer take() {
+        ByteBuffer bb = buffers.poll();
+        if (bb == null) {
+            createdCount.incrementAndGet();
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+        pooledCount.decrementAndGet();
+        bb.clear();
+        return bb;
+    }
+
+    void release(ByteBuffer bb) {
+        if (bb.capacity() == bufferSize && pooledCount.incrementAndGet() <= maxPooledCount) {
+            buffers.offer(bb);
+        } else {
+            pooledCount.decrementAndGet();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DirectBufferPool{" +
+                "bufferSize=" + bufferSize +
+                ", created=" + createdCount.get() +
+                ", pooled=" + pooledCount.get() +
+                '}';
+    }
+}
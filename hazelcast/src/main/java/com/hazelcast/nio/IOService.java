@@ -88,8 +88,20 @@ public interface IOService {
 
     boolean getSocketNoDelay();
 
+    boolean isSocketBufferDirect();
+
     int getSelectorThreadCount();
 
+    int getBalancerIntervalSeconds();
+
+    int getBalancerThreshold();
+
+    /**
+     * @return true if packets to members are written with the compact header,
+     *         which the members of the previous versions cannot read
+     */
+    boolean isPacketCompactHeader();
+
     long getConnectionMonitorInterval();
 
     int getConnectionMonitorMaxFaults();
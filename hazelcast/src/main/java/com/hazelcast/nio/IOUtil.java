@@ -63,12 +63,15 @@ public final class IOUtil {
                 for (int i = 0; i < n; i++) {
                     dest.put(src.get());
                 }
-            } else {
+            } else if (src.hasArray() && dest.hasArray()) {
                 int srcPosition = src.position();
                 int destPosition = dest.position();
                 System.arraycopy(src.array(), srcPosition, dest.array(), destPosition, n);
                 src.position(srcPosition + n);
                 dest.position(destPosition + n);
+            } else {
+                // one of them is a direct socket buffer
+                copyFromDirectToDirectBuffer(src, dest);
             }
         }
         return n;
@@ -126,6 +129,31 @@ public final class IOUtil {
         return bb.get() == 1;
     }
 
+    /**
+     * Writes the value zigzag encoded in 7 bit groups, so that small positive
+     * and negative values like -1 take a single byte.
+     */
+    public static void putVarLong(ByteBuffer bb, long value) {
+        long v = (value << 1) ^ (value >> 63);
+        while ((v & ~0x7FL) != 0) {
+            bb.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        bb.put((byte) v);
+    }
+
+    public static long getVarLong(ByteBuffer bb) {
+        long v = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = bb.get();
+            v |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (v >>> 1) ^ -(v & 1);
+    }
+
     public static Data toData(Object obj) {
         if (obj == null) {
             return null;
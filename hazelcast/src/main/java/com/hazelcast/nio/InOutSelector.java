@@ -48,12 +48,20 @@ public final class InOutSelector implements Runnable {
 
     final static long TEN_SECOND_MILLIS = TimeUnit.SECONDS.toMillis(10);
 
+    private final long publishInterval;
+
     private long lastPublish = 0;
 
+    private volatile Thread selectorThread = null;
+
+    private volatile int utilization = 0;
+
     public InOutSelector(ConnectionManager connectionManager) {
         this.connectionManager = connectionManager;
         logger = connectionManager.ioService.getLogger(this.getClass().getName());
         this.waitTime = 1;
+        int balancerInterval = connectionManager.ioService.getBalancerIntervalSeconds();
+        this.publishInterval = (balancerInterval > 0) ? TimeUnit.SECONDS.toMillis(balancerInterval) : TEN_SECOND_MILLIS;
         Selector selectorTemp = null;
         try {
             selectorTemp = Selector.open();
@@ -99,16 +107,68 @@ public final class InOutSelector implements Runnable {
     }
 
     public void publishUtilization() {
+        utilization = threadWatcher.publish(live).getUtilizationPercentage();
+        connectionManager.onUtilizationPublished(this);
+    }
+
+    /**
+     * @return percentage of the time this selector spent handling its connections
+     *         rather than waiting on select, during the last publish interval
+     */
+    public int getUtilization() {
+        return utilization;
+    }
+
+    boolean isSelectorThread() {
+        return Thread.currentThread() == selectorThread;
+    }
+
+    /**
+     * Moves the connection to the target selector. Key of the connection is cancelled
+     * by this selector thread and the connection is registered to the target selector
+     * by the target selector thread, so handlers are never run by both threads at once.
+     */
+    void moveConnection(final Connection connection, final InOutSelector target) {
+        addTask(new Runnable() {
+            public void run() {
+                if (!connection.live() || connection.getInOutSelector() != InOutSelector.this) {
+                    return;
+                }
+                final SelectionKey key = connection.getSocketChannelWrapper().keyFor(selector);
+                if (key == null || !key.isValid()) {
+                    return;
+                }
+                final boolean writing = (key.interestOps() & SelectionKey.OP_WRITE) != 0;
+                key.cancel();
+                final ReadHandler readHandler = connection.getReadHandler();
+                final WriteHandler writeHandler = connection.getWriteHandler();
+                readHandler.sk = null;
+                writeHandler.sk = null;
+                connection.setInOutSelector(target);
+                target.addTask(new Runnable() {
+                    public void run() {
+                        readHandler.run();
+                        if (writing) {
+                            writeHandler.registerWrite();
+                        }
+                    }
+                });
+                target.selector.wakeup();
+                logger.log(Level.FINEST, "Moved " + connection + " from " + selectorThread.getName());
+            }
+        });
+        selector.wakeup();
     }
 
     public final void run() {
+        selectorThread = Thread.currentThread();
         try {
             connectionManager.ioService.onIOThreadStart();
             //noinspection WhileLoopSpinsOnField
             while (live) {
                 threadWatcher.incrementRunCount();
                 long currentMillis = System.currentTimeMillis();
-                if ((currentMillis - lastPublish) > TEN_SECOND_MILLIS) {
+                if ((currentMillis - lastPublish) > publishInterval) {
                     publishUtilization();
                     lastPublish = currentMillis;
                 }
@@ -167,10 +167,26 @@ public class NodeIOService implements IOService {
         return this.node.getGroupProperties().SOCKET_NO_DELAY.getBoolean();
     }
 
+    public boolean isSocketBufferDirect() {
+        return this.node.getGroupProperties().SOCKET_DIRECT_BUFFER.getBoolean();
+    }
+
+    public boolean isPacketCompactHeader() {
+        return node.groupProperties.PACKET_COMPACT_HEADER.getBoolean();
+    }
+
     public int getSelectorThreadCount() {
         return node.groupProperties.IO_THREAD_COUNT.getInteger();
     }
 
+    public int getBalancerIntervalSeconds() {
+        return node.groupProperties.IO_BALANCER_INTERVAL_SECONDS.getInteger();
+    }
+
+    public int getBalancerThreshold() {
+        return node.groupProperties.IO_BALANCER_THRESHOLD.getInteger();
+    }
+
     public void disconnectExistingCalls(final Address deadEndpoint) {
         if (deadEndpoint != null) {
             node.clusterManager.enqueueAndReturn(new Processable() {
@@ -82,8 +82,16 @@ public final class Packet implements SocketWritable, CallStateAware {
 
     public CallState callState = null;
 
+    boolean compactHeader = false;
+
     public static final byte PACKET_VERSION = GroupProperties.PACKET_VERSION.getByte();
 
+    /**
+     * Version of the packets having the compact header. Compact header is only
+     * sent over member connections; clients keep reading and writing the plain one.
+     */
+    static final byte PACKET_VERSION_COMPACT = (byte) (PACKET_VERSION | 0x40);
+
     public Packet() {
     }
 
@@ -100,21 +108,26 @@ public final class Packet implements SocketWritable, CallStateAware {
         if (str == null) {
             bb.putInt(0);
         } else {
-            // this part is not atomic but
-            // it doesn't have to be.
-            byte[] bytes = mapStringByteCache.get(str);
-            if (bytes == null) {
-                bytes = str.getBytes();
-                if (mapStringByteCache.size() >= 10000) {
-                    mapStringByteCache.clear();
-                }
-                mapStringByteCache.put(str, bytes);
-            }
+            byte[] bytes = getStringBytes(str);
             bb.putInt(bytes.length);
             bb.put(bytes);
         }
     }
 
+    private static byte[] getStringBytes(String str) {
+        // this part is not atomic but
+        // it doesn't have to be.
+        byte[] bytes = mapStringByteCache.get(str);
+        if (bytes == null) {
+            bytes = str.getBytes();
+            if (mapStringByteCache.size() >= 10000) {
+                mapStringByteCache.clear();
+            }
+            mapStringByteCache.put(str, bytes);
+        }
+        return bytes;
+    }
+
     private static String getString(ByteBuffer bb) {
         int length = bb.getInt();
         if (length == 0) return null;
@@ -134,9 +147,25 @@ public final class Packet implements SocketWritable, CallStateAware {
     public void onEnqueue() {
         bbSizes.clear();
         bbHeader.clear();
-        bbHeader.putShort(operation.getValue());
-        bbHeader.putInt(blockId);
-        bbHeader.putInt(threadId);
+        if (compactHeader) {
+            writeCompactHeader();
+        } else {
+            writeHeader();
+        }
+        bbHeader.flip();
+        bbSizes.putInt(bbHeader.limit());
+        bbSizes.putInt(key == null ? 0 : key.size);
+        bbSizes.putInt(value == null ? 0 : value.size);
+        bbSizes.put(compactHeader ? PACKET_VERSION_COMPACT : PACKET_VERSION);
+        bbSizes.flip();
+        totalSize = 0;
+        totalSize += bbSizes.limit();
+        totalSize += bbHeader.limit();
+        totalSize += key == null ? 0 : key.size;
+        totalSize += value == null ? 0 : value.size;
+    }
+
+    private byte getBooleans() {
         byte booleans = 0;
         if (lockCount != 0) {
             booleans = ByteUtil.setTrue(booleans, 0);
@@ -162,7 +191,14 @@ public final class Packet implements SocketWritable, CallStateAware {
         if (lockAddress == null) {
             booleans = ByteUtil.setTrue(booleans, 7);
         }
-        bbHeader.put(booleans);
+        return booleans;
+    }
+
+    private void writeHeader() {
+        bbHeader.putShort(operation.getValue());
+        bbHeader.putInt(blockId);
+        bbHeader.putInt(threadId);
+        bbHeader.put(getBooleans());
         if (lockCount != 0) {
             bbHeader.putInt(lockCount);
         }
@@ -195,20 +231,144 @@ public final class Packet implements SocketWritable, CallStateAware {
         }
         bbHeader.putInt(key == null ? -1 : key.partitionHash);
         bbHeader.putInt(value == null ? -1 : value.partitionHash);
-        bbHeader.flip();
-        bbSizes.putInt(bbHeader.limit());
-        bbSizes.putInt(key == null ? 0 : key.size);
-        bbSizes.putInt(value == null ? 0 : value.size);
-        bbSizes.put(PACKET_VERSION);
-        bbSizes.flip();
-        totalSize = 0;
-        totalSize += bbSizes.limit();
-        totalSize += bbHeader.limit();
-        totalSize += key == null ? 0 : key.size;
-        totalSize += value == null ? 0 : value.size;
+    }
+
+    /**
+     * Same fields as the plain header but numbers are written as var longs,
+     * fields having their default values are skipped and partition hashes
+     * are only written for the existing key and value.
+     */
+    private void writeCompactHeader() {
+        bbHeader.putShort(operation.getValue());
+        byte booleans = getBooleans();
+        byte defaults = 0;
+        if (blockId != -1) {
+            defaults = ByteUtil.setTrue(defaults, 0);
+        }
+        if (threadId != -1) {
+            defaults = ByteUtil.setTrue(defaults, 1);
+        }
+        if (callId != -1) {
+            defaults = ByteUtil.setTrue(defaults, 2);
+        }
+        if (responseType != Constants.ResponseTypes.RESPONSE_NONE) {
+            defaults = ByteUtil.setTrue(defaults, 3);
+        }
+        if (name != null) {
+            defaults = ByteUtil.setTrue(defaults, 4);
+        }
+        if (indexes != null && indexes.length > 0) {
+            defaults = ByteUtil.setTrue(defaults, 5);
+        }
+        bbHeader.put(booleans);
+        bbHeader.put(defaults);
+        if (blockId != -1) {
+            IOUtil.putVarLong(bbHeader, blockId);
+        }
+        if (threadId != -1) {
+            IOUtil.putVarLong(bbHeader, threadId);
+        }
+        if (lockCount != 0) {
+            IOUtil.putVarLong(bbHeader, lockCount);
+        }
+        if (timeout != -1) {
+            IOUtil.putVarLong(bbHeader, timeout);
+        }
+        if (ttl != -1) {
+            IOUtil.putVarLong(bbHeader, ttl);
+        }
+        if (txnId != -1) {
+            IOUtil.putVarLong(bbHeader, txnId);
+        }
+        if (longValue != Long.MIN_VALUE) {
+            IOUtil.putVarLong(bbHeader, longValue);
+        }
+        if (version != -1) {
+            IOUtil.putVarLong(bbHeader, version);
+        }
+        if (lockAddress != null) {
+            lockAddress.writeObject(bbHeader);
+        }
+        if (callId != -1) {
+            IOUtil.putVarLong(bbHeader, callId);
+        }
+        if (responseType != Constants.ResponseTypes.RESPONSE_NONE) {
+            bbHeader.put(responseType);
+        }
+        if (name != null) {
+            byte[] bytes = getStringBytes(name);
+            IOUtil.putVarLong(bbHeader, bytes.length);
+            bbHeader.put(bytes);
+        }
+        if (indexes != null && indexes.length > 0) {
+            bbHeader.put((byte) indexes.length);
+            for (int i = 0; i < indexes.length; i++) {
+                bbHeader.putLong(indexes[i]);
+                bbHeader.put(indexTypes[i]);
+            }
+        }
+        if (key != null) {
+            bbHeader.putInt(key.partitionHash);
+        }
+        if (value != null) {
+            bbHeader.putInt(value.partitionHash);
+        }
+    }
+
+    private void readCompactHeader() {
+        operation = ClusterOperation.create(bbHeader.getShort());
+        byte booleans = bbHeader.get();
+        byte defaults = bbHeader.get();
+        blockId = ByteUtil.isTrue(defaults, 0) ? (int) IOUtil.getVarLong(bbHeader) : -1;
+        threadId = ByteUtil.isTrue(defaults, 1) ? (int) IOUtil.getVarLong(bbHeader) : -1;
+        if (ByteUtil.isTrue(booleans, 0)) {
+            lockCount = (int) IOUtil.getVarLong(bbHeader);
+        }
+        if (ByteUtil.isTrue(booleans, 1)) {
+            timeout = IOUtil.getVarLong(bbHeader);
+        }
+        if (ByteUtil.isTrue(booleans, 2)) {
+            ttl = IOUtil.getVarLong(bbHeader);
+        }
+        if (ByteUtil.isTrue(booleans, 3)) {
+            txnId = IOUtil.getVarLong(bbHeader);
+        }
+        if (ByteUtil.isTrue(booleans, 4)) {
+            longValue = IOUtil.getVarLong(bbHeader);
+        }
+        if (ByteUtil.isTrue(booleans, 5)) {
+            version = IOUtil.getVarLong(bbHeader);
+        }
+        client = ByteUtil.isTrue(booleans, 6);
+        if (ByteUtil.isFalse(booleans, 7)) {
+            lockAddress = new Address();
+            lockAddress.readObject(bbHeader);
+        }
+        callId = ByteUtil.isTrue(defaults, 2) ? IOUtil.getVarLong(bbHeader) : -1;
+        responseType = ByteUtil.isTrue(defaults, 3) ? bbHeader.get() : Constants.ResponseTypes.RESPONSE_NONE;
+        if (ByteUtil.isTrue(defaults, 4)) {
+            byte[] bytes = new byte[(int) IOUtil.getVarLong(bbHeader)];
+            bbHeader.get(bytes);
+            name = new String(bytes);
+        }
+        if (ByteUtil.isTrue(defaults, 5)) {
+            byte indexCount = bbHeader.get();
+            indexes = new Long[indexCount];
+            indexTypes = new byte[indexCount];
+            for (byte i = 0; i < indexCount; i++) {
+                indexes[i] = bbHeader.getLong();
+                indexTypes[i] = bbHeader.get();
+            }
+        }
+        if (key != null) key.setPartitionHash(bbHeader.getInt());
+        if (value != null) value.setPartitionHash(bbHeader.getInt());
     }
 
     public void read() {
+        if (compactHeader) {
+            readCompactHeader();
+            return;
+        }
         operation = ClusterOperation.create(bbHeader.getShort());
         blockId = bbHeader.getInt();
         threadId = bbHeader.getInt();
@@ -287,6 +447,7 @@ public final class Packet implements SocketWritable, CallStateAware {
         version = -1;
         callId = -1;
         client = false;
+        compactHeader = false;
         bbSizes.clear();
         bbHeader.clear();
         key = null;
@@ -338,6 +499,28 @@ public final class Packet implements SocketWritable, CallStateAware {
         return totalWritten >= totalSize;
     }
 
+    /**
+     * Buffers of this packet that are not written yet, so that
+     * they can be written to the socket at once without copying
+     * into the socket buffer.
+     */
+    final ByteBuffer[] getRemainingBuffers() {
+        ByteBuffer keyBuffer = (key != null && key.size() > 0) ? key.buffer : null;
+        ByteBuffer valueBuffer = (value != null && value.size() > 0) ? value.buffer : null;
+        int count = 2 + ((keyBuffer == null) ? 0 : 1) + ((valueBuffer == null) ? 0 : 1);
+        ByteBuffer[] buffers = new ByteBuffer[count];
+        int index = 0;
+        buffers[index++] = bbSizes;
+        buffers[index++] = bbHeader;
+        if (keyBuffer != null) {
+            buffers[index++] = keyBuffer;
+        }
+        if (valueBuffer != null) {
+            buffers[index] = valueBuffer;
+        }
+        return buffers;
+    }
+
     public final boolean read(ByteBuffer bb) {
         while (!sizeRead && bb.hasRemaining() && bbSizes.hasRemaining()) {
             IOUtil.copyToHeapBuffer(bb, bbSizes);
@@ -354,7 +537,8 @@ public final class Packet implements SocketWritable, CallStateAware {
                 throw new RuntimeException("read.bbHeader size cannot be 0");
             }
             byte packetVersion = bbSizes.get();
-            if (packetVersion != PACKET_VERSION) {
+            compactHeader = (packetVersion == PACKET_VERSION_COMPACT);
+            if (!compactHeader && packetVersion != PACKET_VERSION) {
                 String msg = "Packet versions are not the same. Expected " + PACKET_VERSION
                         + " Found: " + packetVersion;
                 throw new RuntimeException(msg);
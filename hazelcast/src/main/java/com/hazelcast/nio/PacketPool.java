@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2008-2012, Hazel Bilisim Ltd. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.nio;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe pool of packets shared by the threads having no packet queue of their own.
+ * Service thread and the IO threads keep their own non thread-safe queues and use this
+ * pool only when their queue is empty or full.
+ * A packet should be released only once and only when it is not referenced anymore;
+ * pooled packets are reset when they are obtained.
+ */
+public final class PacketPool {
+
+    private final Queue<Packet> packets = new ConcurrentLinkedQueue<Packet>();
+
+    private final AtomicInteger pooledCount = new AtomicInteger();
+
+    private final AtomicLong createdCount = new AtomicLong();
+
+    private final AtomicLong recycledCount = new AtomicLong();
+
+    private final int maxPooledCount;
+
+    public PacketPool(int maxPooledCount) {
+        this.maxPooledCount = maxPooledCount;
+    }
+
+    public Packet obtain() {
+        Packet packet = packets.poll();
+        if (packet == null) {
+            createdCount.incrementAndGet();
+            return new Packet();
+        }
+        pooledCount.decrementAndGet();
+        recycledCount.incrementAndGet();
+        packet.reset();
+        return packet;
+    }
+
+    public void release(Packet packet) {
+        if (pooledCount.incrementAndGet() <= maxPooledCount) {
+            packets.offer(packet);
+        } else {
+            pooledCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return number of packets created since the pool was empty
+     */
+    public long getCreatedCount() {
+        return createdCount.get();
+    }
+
+    public long getRecycledCount() {
+        return recycledCount.get();
+    }
+
+    public void clear() {
+        packets.clear();
+        pooledCount.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return "PacketPool{" +
+                "created=" + createdCount.get() +
+                ", recycled=" + recycledCount.get() +
+                ", pooled=" + pooledCount.get() +
+                '}';
+    }
+}
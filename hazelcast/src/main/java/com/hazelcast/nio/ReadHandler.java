@@ -37,12 +37,13 @@ class ReadHandler extends AbstractSelectionHandler implements Runnable {
     volatile long lastHandle;
 
     public ReadHandler(Connection connection) {
-        super(connection, connection.getInOutSelector());
-        inBuffer = ByteBuffer.allocate(connectionManager.SOCKET_RECEIVE_BUFFER_SIZE);
+        super(connection);
+        inBuffer = connectionManager.newReceiveBuffer();
     }
 
     public final void handle() {
         lastHandle = System.currentTimeMillis();
+        handleCount++;
         if (!connection.live()) {
             String message = "We are being to asked to read, but connection is not live so we won't";
             logger.log(Level.FINEST, message);
@@ -92,8 +93,19 @@ class ReadHandler extends AbstractSelectionHandler implements Runnable {
         }
     }
 
+    @Override
+    protected void shutdown() {
+        addTask(new Runnable() {
+            public void run() {
+                if (handOver(this)) return;
+                connectionManager.releaseReceiveBuffer(inBuffer);
+            }
+        });
+    }
+
     public final void run() {
+        if (handOver(this)) return;
         lastRegistration = System.currentTimeMillis();
-        registerOp(inOutSelector.selector, SelectionKey.OP_READ);
+        registerOp(connection.getInOutSelector().selector, SelectionKey.OP_READ);
     }
 }
@@ -57,6 +57,14 @@ public class SocketPacketWriter implements SocketWriter<Packet> {
         return packetWriter.writePacket(socketWritable, socketBuffer);
     }
 
+    /**
+     * Packets can be written to the socket as they are
+     * only if they are not encrypted.
+     */
+    boolean isGatheringWriteSupported() {
+        return packetWriter instanceof DefaultPacketWriter;
+    }
+
     interface PacketWriter {
         boolean writePacket(Packet packet, ByteBuffer socketBB) throws Exception;
     }
@@ -56,10 +56,22 @@ public final class WriteHandler extends AbstractSelectionHandler implements Runn
         }
     };
 
+    // socket writes done in one handle() while the socket takes all the bytes
+    private static final int MAX_WRITES_PER_HANDLE = 8;
+
+    // true only while this handler is idle; neither registered for write
+    // nor in the task queue of the selector, so that only the first enqueue
+    // after a flush wakes up the selector.
     private final AtomicBoolean informSelector = new AtomicBoolean(true);
 
     private final ByteBuffer socketBB;
 
+    // packets bigger than this are copied into socketBB in pieces as
+    // the channel copies whole heap buffers into temporary direct buffers.
+    private final int maxGatheringWriteSize;
+
+    private boolean gatheringWrite = false;
+
     private boolean ready = false;
 
     private volatile SocketWritable lastWritable = null;
@@ -70,17 +82,31 @@ public final class WriteHandler extends AbstractSelectionHandler implements Runn
 
     volatile long lastHandle = 0;
 
+    volatile long packetsWritten = 0;
+
+    volatile long bytesCopied = 0;
+
+    volatile long bytesGathered = 0;
+
+    volatile long socketWrites = 0;
+
+    volatile long wakeups = 0;
+
     WriteHandler(Connection connection) {
-        super(connection, connection.getInOutSelector());
-        socketBB = ByteBuffer.allocate(connectionManager.SOCKET_SEND_BUFFER_SIZE);
+        super(connection);
+        socketBB = connectionManager.newSendBuffer();
+        maxGatheringWriteSize = 8 * connectionManager.SOCKET_SEND_BUFFER_SIZE;
     }
 
     public void setProtocol(String protocol) {
         if (socketWriter == null) {
             if ("HZC".equals(protocol)) {
-                socketWriter = new SocketPacketWriter(connection);
+                SocketPacketWriter socketPacketWriter = new SocketPacketWriter(connection);
+                gatheringWrite = socketPacketWriter.isGatheringWriteSupported()
+                        && socketChannel instanceof DefaultSocketChannelWrapper;
+                socketWriter = socketPacketWriter;
                 socketBB.put("HZC".getBytes());
-                inOutSelector.addTask(this);
+                connection.getInOutSelector().addTask(this);
             } else {
                 socketWriter = new SocketTextWriter(connection);
             }
@@ -92,15 +118,17 @@ public final class WriteHandler extends AbstractSelectionHandler implements Runn
     }
 
     public void enqueueSocketWritable(SocketWritable socketWritable) {
+        if (socketWritable instanceof Packet) {
+            ((Packet) socketWritable).compactHeader = connectionManager.PACKET_COMPACT_HEADER
+                    && connection.getType() == Connection.Type.MEMBER;
+        }
         socketWritable.onEnqueue();
         writeQueue.offer(socketWritable);
         if (informSelector.compareAndSet(true, false)) {
-            // we don't have to call wake up if this WriteHandler is
-            // already in the task queue.
-            // we can have a counter to check this later on.
-            // for now, wake up regardless.
-            inOutSelector.addTask(this);
-            inOutSelector.selector.wakeup();
+            // handler is idle; the ones in the task queue or registered
+            // for write will poll this writable without a wake up.
+            wakeups++;
+            addTask(this);
         }
     }
 
@@ -110,6 +138,9 @@ public final class WriteHandler extends AbstractSelectionHandler implements Runn
 
     public void handle() {
         lastHandle = System.currentTimeMillis();
+        handleCount++;
+        if (!connection.live())
+            return;
         if (socketWriter == null) {
             setProtocol("HZC");
         }
@@ -117,51 +148,90 @@ public final class WriteHandler extends AbstractSelectionHandler implements Runn
             lastWritable = poll();
             if (lastWritable == null && socketBB.position() == 0) {
                 ready = true;
-                return;
+                informSelector.set(true);
+                // a writable enqueued before the flag was set didn't inform the selector
+                if (writeQueue.isEmpty() || !informSelector.compareAndSet(true, false)) {
+                    return;
+                }
+                ready = false;
+                lastWritable = poll();
             }
         }
-        if (!connection.live())
-            return;
         try {
-            while (socketBB.hasRemaining()) {
-                if (lastWritable == null) {
-                    lastWritable = poll();
+            int writes = 0;
+            while (true) {
+                if (gatheringWrite && socketBB.position() == 0 && lastWritable instanceof Packet) {
+                    Packet packet = (Packet) lastWritable;
+                    int remaining = packet.totalSize - packet.totalWritten;
+                    if (remaining > socketBB.remaining() && remaining <= maxGatheringWriteSize) {
+                        long written;
+                        try {
+                            written = socketChannel.write(packet.getRemainingBuffers());
+                        } catch (Exception e) {
+                            lastWritable = null;
+                            handleSocketException(e);
+                            return;
+                        }
+                        socketWrites++;
+                        writes++;
+                        packet.totalWritten += written;
+                        bytesGathered += written;
+                        if (packet.totalWritten < packet.totalSize) {
+                            return;
+                        }
+                        onWritten(packet);
+                        lastWritable = null;
+                    }
                 }
-                if (lastWritable != null) {
-                    boolean complete = socketWriter.write(lastWritable, socketBB);
-                    if (complete) {
-                        if (lastWritable instanceof Packet) {
-                            Packet packet = (Packet) lastWritable;
-                            connection.releasePacket(packet);
-                            if (systemLogService.shouldTrace()) {
-                                systemLogService.trace(packet,
-                                        new SystemArgsLog("WrittenOut ",
-                                                connection.getEndPoint(), packet.operation));
+                while (socketBB.hasRemaining()) {
+                    if (lastWritable == null) {
+                        lastWritable = poll();
+                    }
+                    if (lastWritable != null) {
+                        int position = socketBB.position();
+                        boolean complete = socketWriter.write(lastWritable, socketBB);
+                        bytesCopied += socketBB.position() - position;
+                        if (complete) {
+                            onWritten(lastWritable);
+                            lastWritable = null;
+                        } else {
+                            if (socketBB.hasRemaining()) {
+                                break;
                             }
                         }
+                    } else {
+                        break;
+                    }
+                }
+                if (socketBB.position() > 0) {
+                    socketBB.flip();
+                    try {
+                        socketChannel.write(socketBB);
+                    } catch (Exception e) {
                         lastWritable = null;
+                        handleSocketException(e);
+                        return;
+                    }
+                    socketWrites++;
+                    writes++;
+                    if (socketBB.hasRemaining()) {
+                        // socket is full; continue when it is writable again
+                        socketBB.compact();
+                        break;
                     } else {
-                        if (socketBB.hasRemaining()) {
-                            break;
-                        }
+                        socketBB.clear();
                     }
-                } else {
-                    break;
                 }
-            }
-            if (socketBB.position() > 0) {
-                socketBB.flip();
-                try {
-                    socketChannel.write(socketBB);
-                } catch (Exception e) {
-                    lastWritable = null;
-                    handleSocketException(e);
-                    return;
+                // socket took all the bytes; keep writing the queued ones
+                // without another round of the selector
+                if (writes >= MAX_WRITES_PER_HANDLE) {
+                    break;
                 }
-                if (socketBB.hasRemaining()) {
-                    socketBB.compact();
-                } else {
-                    socketBB.clear();
+                if (lastWritable == null) {
+                    lastWritable = poll();
+                    if (lastWritable == null) {
+                        break;
+                    }
                 }
             }
         } catch (Throwable t) {
@@ -174,19 +244,31 @@ public final class WriteHandler extends AbstractSelectionHandler implements Runn
         }
     }
 
+    private void onWritten(SocketWritable socketWritable) {
+        if (socketWritable instanceof Packet) {
+            Packet packet = (Packet) socketWritable;
+            packetsWritten++;
+            connection.releasePacket(packet);
+            if (systemLogService.shouldTrace()) {
+                systemLogService.trace(packet,
+                        new SystemArgsLog("WrittenOut ",
+                                connection.getEndPoint(), packet.operation));
+            }
+        }
+    }
+
     public void run() {
-        informSelector.set(true);
+        if (handOver(this)) return;
         if (ready) {
             handle();
         } else {
             registerWrite();
         }
-        ready = false;
     }
 
-    private void registerWrite() {
+    void registerWrite() {
         lastRegistration = System.currentTimeMillis();
-        registerOp(inOutSelector.selector, SelectionKey.OP_WRITE);
+        registerOp(connection.getInOutSelector().selector, SelectionKey.OP_WRITE);
     }
 
     @Override
@@ -195,6 +277,22 @@ public final class WriteHandler extends AbstractSelectionHandler implements Runn
         while (obj != null) {
             obj = poll();
         }
+        addTask(new Runnable() {
+            public void run() {
+                if (handOver(this)) return;
+                connectionManager.releaseSendBuffer(socketBB);
+            }
+        });
+    }
+
+    void appendState(StringBuffer sbState) {
+        long packets = packetsWritten;
+        long writes = socketWrites;
+        sbState.append("  packets:").append(packets);
+        sbState.append("  packets/write:").append(String.format("%.2f", (writes == 0) ? 0d : (double) packets / writes));
+        sbState.append("  wakeups:").append(wakeups);
+        sbState.append("  copied/packet:").append((packets == 0) ? 0 : bytesCopied / packets);
+        sbState.append("  gathered:").append(bytesGathered);
     }
 
     public int size() {
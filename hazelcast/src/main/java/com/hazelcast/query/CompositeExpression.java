@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2008-2012, Hazel Bilisim Ltd. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.query;
+
+import com.hazelcast.nio.DataSerializable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Expression over several attributes of the value, used to create
+ * a single composite index for attributes that are mostly queried together.
+ * Value of the expression is the array of the attribute values.
+ */
+public class CompositeExpression extends Predicates.AbstractExpression implements DataSerializable {
+    private Expression[] expressions;
+
+    public CompositeExpression() {
+    }
+
+    public CompositeExpression(String... attributes) {
+        if (attributes.length < 2) {
+            throw new IllegalArgumentException("Composite index needs at least two attributes: "
+                    + Arrays.toString(attributes));
+        }
+        expressions = new Expression[attributes.length];
+        for (int i = 0; i < attributes.length; i++) {
+            expressions[i] = Predicates.get(attributes[i].trim());
+        }
+    }
+
+    public Object[] getValue(Object obj) {
+        Object[] values = new Object[expressions.length];
+        for (int i = 0; i < expressions.length; i++) {
+            values[i] = expressions[i].getValue(obj);
+        }
+        return values;
+    }
+
+    public Expression[] getExpressions() {
+        return expressions;
+    }
+
+    public void writeData(DataOutput out) throws IOException {
+        out.writeInt(expressions.length);
+        for (Expression expression : expressions) {
+            out.writeUTF(expression.toString());
+        }
+    }
+
+    public void readData(DataInput in) throws IOException {
+        int length = in.readInt();
+        expressions = new Expression[length];
+        for (int i = 0; i < length; i++) {
+            expressions[i] = Predicates.get(in.readUTF());
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CompositeExpression)) return false;
+        CompositeExpression that = (CompositeExpression) o;
+        return Arrays.equals(expressions, that.expressions);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(expressions);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < expressions.length; i++) {
+            if (i > 0) sb.append(",");
+            sb.append(expressions[i]);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2008-2012, Hazel Bilisim Ltd. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.query;
+
+import com.hazelcast.core.MapEntry;
+import com.hazelcast.impl.Record;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Single index over several attributes. Index value is combined from the
+ * index values of all attributes so it answers equality on every attribute.
+ * An ordered composite index also keeps the attribute values of its records
+ * sorted attribute by attribute, so it answers equality on its first
+ * attributes followed by an optional range on the next one.
+ * Results are not strong, records sharing the same combined value should be
+ * checked by applying the predicate.
+ */
+public class CompositeIndex extends Index {
+    private static final int MAX_SAMPLED_RECORDS = 100;
+    // bounds of the attributes after the searched ones
+    private static final Object LOWEST = new Object();
+    private static final Object HIGHEST = new Object();
+
+    private final CompositeExpression compositeExpression;
+    // attribute values of an indexed record, used to convert the searched values
+    // into the attribute types, just like the predicates do.
+    private volatile Object[] samples = null;
+
+    CompositeIndex(CompositeExpression expression, boolean ordered, int attributeIndex) {
+        super(expression, ordered, attributeIndex, new UnsortedIndexStore(), ordered);
+        this.compositeExpression = expression;
+    }
+
+    @Override
+    public Long extractLongValue(Object value) {
+        return getCompositeValue(compositeExpression.getValue(value));
+    }
+
+    static long getCompositeValue(Object[] values) {
+        long result = 17;
+        for (Object value : values) {
+            result = 31 * result + getLongValueByType(value);
+        }
+        return result;
+    }
+
+    public Set<MapEntry> findCompositeRecords(Object[] values) {
+        Object[] samples = getSamples();
+        Object[] convertedValues = new Object[values.length];
+        for (int i = 0; i < values.length; i++) {
+            convertedValues[i] = convert(samples, i, values[i]);
+        }
+        return getRecords(getCompositeValue(convertedValues));
+    }
+
+    /**
+     * Returns the records whose first attributes are equal to the given values and whose
+     * next attribute is from and to the given values inclusive, null for no bound.
+     * Returns null if the index is not ordered or a value cannot be converted into the
+     * type of its attribute.
+     */
+    public Set<MapEntry> findCompositeRecords(Object[] values, Object from, Object to) {
+        if (!isOrdered()) {
+            return null;
+        }
+        final int length = compositeExpression.getExpressions().length;
+        Object[] samples = getSamples();
+        Object[] fromValues = new Object[length];
+        Object[] toValues = new Object[length];
+        try {
+            for (int i = 0; i < values.length; i++) {
+                fromValues[i] = toValues[i] = convert(samples, i, values[i]);
+            }
+            fromValues[values.length] = (from == null) ? LOWEST : convert(samples, values.length, from);
+            toValues[values.length] = (to == null) ? HIGHEST : convert(samples, values.length, to);
+            Arrays.fill(fromValues, values.length + 1, length, LOWEST);
+            Arrays.fill(toValues, values.length + 1, length, HIGHEST);
+            final CompositeValue fromValue = new CompositeValue(fromValues);
+            final CompositeValue toValue = new CompositeValue(toValues);
+            if (fromValue.compareTo(toValue) > 0) {
+                return getRecords(new HashSet<Long>());
+            }
+            return findTypedRecords(fromValue, true, toValue, true);
+        } catch (RuntimeException e) {
+            // a value of another type, such as a fraction searched on an integer attribute
+            return null;
+        }
+    }
+
+    private Object convert(Object[] samples, int i, Object value) {
+        if (value != null && samples != null && samples[i] != null) {
+            return Predicates.EqualPredicate.getConvertedRealValue(samples[i], value);
+        }
+        return value;
+    }
+
+    private Object[] getSamples() {
+        Object[] result = samples;
+        if (result != null) {
+            return result;
+        }
+        Object[] found = null;
+        int sampled = 0;
+        for (ConcurrentMap<Long, Record> records : getMapRecords().values()) {
+            for (Record record : records.values()) {
+                Object[] values = compositeExpression.getValue(record);
+                if (found == null) {
+                    found = values;
+                }
+                boolean complete = true;
+                for (int i = 0; i < found.length; i++) {
+                    if (found[i] == null) {
+                        found[i] = values[i];
+                    }
+                    complete &= (found[i] != null);
+                }
+                if (complete) {
+                    samples = found;
+                    return found;
+                }
+                if (++sampled >= MAX_SAMPLED_RECORDS) {
+                    return found;
+                }
+            }
+        }
+        return found;
+    }
+
+    public Expression[] getExpressions() {
+        return compositeExpression.getExpressions();
+    }
+
+    @Override
+    public byte getIndexType() {
+        return TYPE_UNKNOWN;
+    }
+
+    @Override
+    boolean isTyped() {
+        return isOrdered();
+    }
+
+    @Override
+    Comparable extractTypedValue(Record record) {
+        return new CompositeValue(compositeExpression.getValue(record));
+    }
+
+    @Override
+    long getTypedIndexValue(Comparable typedValue) {
+        return getCompositeValue(((CompositeValue) typedValue).values);
+    }
+
+    /**
+     * Attribute values of a record, ordered attribute by attribute with nulls first.
+     */
+    private static final class CompositeValue implements Comparable<CompositeValue> {
+        private final Object[] values;
+
+        CompositeValue(Object[] values) {
+            this.values = values;
+        }
+
+        public int compareTo(CompositeValue other) {
+            for (int i = 0; i < values.length; i++) {
+                int result = compare(values[i], other.values[i]);
+                if (result != 0) {
+                    return result;
+                }
+            }
+            return 0;
+        }
+
+        private static int compare(Object first, Object second) {
+            if (first == second) {
+                return 0;
+            } else if (first == LOWEST || second == HIGHEST) {
+                return -1;
+            } else if (first == HIGHEST || second == LOWEST) {
+                return 1;
+            } else if (first == null) {
+                return -1;
+            } else if (second == null) {
+                return 1;
+            }
+            return ((Comparable) first).compareTo(second);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CompositeValue && Arrays.equals(values, ((CompositeValue) o).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(values);
+        }
+    }
+
+    @Override
+    public boolean isStrong() {
+        return false;
+    }
+}
@@ -18,7 +18,14 @@ package com.hazelcast.query;
 
 import com.hazelcast.core.MapEntry;
 import com.hazelcast.impl.Record;
+import com.hazelcast.util.concurrent.ConcurrentSkipListMap;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -28,6 +35,11 @@ public class Index {
     private final ConcurrentMap<Long, Long> recordValues = new ConcurrentHashMap<Long, Long>(100, 0.75f, 1);
     // indexValue -- Map<recordId, Record>
     private final IndexStore indexStore;
+    // index values of strings and enums are hashes, so ordered indexes keep the typed values
+    // in order to answer ranges of them. recordId -- typed value
+    private final ConcurrentMap<Long, Comparable> recordTypedValues;
+    // typed value -- number of records
+    private final ConcurrentSkipListMap<Comparable, Integer> sortedTypedValues;
     private final Expression expression;
     private final boolean ordered;
     private final int attributeIndex;
@@ -43,16 +55,37 @@ public class Index {
     private static final int TYPE_FLOAT = 106;
     private static final int TYPE_BYTE = 107;
     private static final int TYPE_CLASS = 108;
-    private static final int TYPE_UNKNOWN = 109;
+    static final int TYPE_UNKNOWN = 109;
+    private static final int TYPE_DATE = 110;
+    private static final int TYPE_ENUM = 111;
+    private static final int TYPE_SHORT = 112;
+
+    // which end of a range a searched value is converted for.
+    // a fraction searched on an index of integral values is rounded
+    // up for the lower end and down for the upper end of a range.
+    private static final int BOUND_EXACT = 0;
+    private static final int BOUND_LOWER = 1;
+    private static final int BOUND_UPPER = 2;
 
     Index(Expression expression, boolean ordered, int attributeIndex) {
+        this(expression, ordered, attributeIndex, (ordered) ? new SortedIndexStore() : new UnsortedIndexStore(),
+                ordered && expression != null);
+    }
+
+    /**
+     * @param typed true to keep the typed values of the records in order to answer ranges
+     */
+    Index(Expression expression, boolean ordered, int attributeIndex, IndexStore indexStore, boolean typed) {
         this.expression = expression;
         this.ordered = ordered;
         this.attributeIndex = attributeIndex;
-        if (ordered) {
-            indexStore = new SortedIndexStore();
+        this.indexStore = indexStore;
+        if (typed) {
+            recordTypedValues = new ConcurrentHashMap<Long, Comparable>(100, 0.75f, 1);
+            sortedTypedValues = new ConcurrentSkipListMap<Comparable, Integer>();
         } else {
-            indexStore = new UnsortedIndexStore();
+            recordTypedValues = null;
+            sortedTypedValues = null;
         }
     }
 
@@ -79,6 +112,32 @@ public class Index {
             }
             recordValues.remove(recordId);
         }
+        if (isTyped()) {
+            indexTypedValue(record);
+        }
+    }
+
+    private void indexTypedValue(Record record) {
+        final Long recordId = record.getId();
+        Comparable newValue = null;
+        if (record.isActive() && record.hasValueData()) {
+            newValue = extractTypedValue(record);
+        }
+        final Comparable oldValue = (newValue == null)
+                ? recordTypedValues.remove(recordId)
+                : recordTypedValues.put(recordId, newValue);
+        if (newValue != null && !newValue.equals(oldValue)) {
+            final Integer count = sortedTypedValues.get(newValue);
+            sortedTypedValues.put(newValue, (count == null) ? 1 : count + 1);
+        }
+        if (oldValue != null && !oldValue.equals(newValue)) {
+            final Integer count = sortedTypedValues.get(oldValue);
+            if (count == null || count <= 1) {
+                sortedTypedValues.remove(oldValue);
+            } else {
+                sortedTypedValues.put(oldValue, count - 1);
+            }
+        }
     }
 
     public Long extractLongValue(Object value) {
@@ -89,7 +148,7 @@ public class Index {
         } else {
             returnType = getIndexType(extractedValue.getClass());
             if (!checkedStrength) {
-                if (extractedValue instanceof Boolean || extractedValue instanceof Number) {
+                if ((extractedValue instanceof Boolean || extractedValue instanceof Number) && isExact()) {
                     strong = true;
                 }
                 checkedStrength = true;
@@ -129,7 +188,9 @@ public class Index {
 
     public Set<MapEntry> getSubRecordsBetween(Long from, Long to) {
         MultiResultSet results = new MultiResultSet(recordValues);
-        indexStore.getSubRecordsBetween(results, from, to);
+        if (from <= to) {
+            indexStore.getSubRecordsBetween(results, from, to);
+        }
         return results;
     }
 
@@ -139,6 +200,197 @@ public class Index {
         return results;
     }
 
+    /**
+     * Returns the records whose indexed attribute is equal to the given
+     * typed value. Result may contain extra records if the index is not
+     * strong so the predicate should be re-applied in that case.
+     */
+    public Set<MapEntry> findRecords(Object value) {
+        if (hasFraction(value)) {
+            return new MultiResultSet(recordValues);
+        }
+        Long longValue = getLongValue(value, BOUND_EXACT);
+        if (longValue == null) {
+            return getAllRecords();
+        }
+        return getRecords(longValue);
+    }
+
+    public Set<MapEntry> findRecords(Collection values) {
+        Set<Long> longValues = new HashSet<Long>(values.size());
+        for (Object value : values) {
+            if (hasFraction(value)) {
+                continue;
+            }
+            Long longValue = getLongValue(value, BOUND_EXACT);
+            if (longValue == null) {
+                return getAllRecords();
+            }
+            longValues.add(longValue);
+        }
+        return getRecords(longValues);
+    }
+
+    public Set<MapEntry> findSubRecordsBetween(Object from, Object to) {
+        if (isTyped()) {
+            final Comparable fromValue = getTypedValue(from);
+            final Comparable toValue = getTypedValue(to);
+            if (fromValue == null || toValue == null) {
+                return getAllRecords();
+            }
+            if (fromValue.compareTo(toValue) > 0) {
+                return new MultiResultSet(recordValues);
+            }
+            return findTypedRecords(fromValue, true, toValue, true);
+        }
+        if (!isRangeSupported()) {
+            return getAllRecords();
+        }
+        Long fromValue = getLongValue(from, BOUND_LOWER);
+        Long toValue = getLongValue(to, BOUND_UPPER);
+        if (fromValue == null || toValue == null) {
+            return getAllRecords();
+        }
+        return getSubRecordsBetween(fromValue, toValue);
+    }
+
+    public Set<MapEntry> findSubRecords(boolean equal, boolean lessThan, Object searchedValue) {
+        if (isTyped()) {
+            final Comparable typedValue = getTypedValue(searchedValue);
+            if (typedValue == null) {
+                return getAllRecords();
+            }
+            return getTypedRecords((lessThan)
+                    ? sortedTypedValues.headMap(typedValue, equal).keySet()
+                    : sortedTypedValues.tailMap(typedValue, equal).keySet());
+        }
+        if (!isRangeSupported()) {
+            return getAllRecords();
+        }
+        Long longValue = getLongValue(searchedValue, (lessThan) ? BOUND_UPPER : BOUND_LOWER);
+        if (longValue == null) {
+            return getAllRecords();
+        }
+        // values sharing the same index value might still be greater or less than
+        // the searched one, and a rounded fraction is itself within the range
+        return getSubRecords(equal || !isExact() || hasFraction(searchedValue), lessThan, longValue);
+    }
+
+    private Set<MapEntry> getAllRecords() {
+        MultiResultSet results = new MultiResultSet(recordValues);
+        for (Map.Entry<Long, ConcurrentMap<Long, Record>> entry : indexStore.getMapRecords().entrySet()) {
+            results.addResultSet(entry.getKey(), entry.getValue().values());
+        }
+        return results;
+    }
+
+    /**
+     * Index values of these types are unique per attribute value and
+     * keep the natural ordering of the attribute.
+     */
+    private boolean isExact() {
+        final byte type = returnType;
+        return type == TYPE_INT || type == TYPE_LONG || type == TYPE_BYTE || type == TYPE_DOUBLE
+                || type == TYPE_SHORT || type == TYPE_FLOAT || type == TYPE_BOOLEAN || type == TYPE_CLASS;
+    }
+
+    Set<MapEntry> findTypedRecords(Comparable from, boolean fromInclusive, Comparable to, boolean toInclusive) {
+        return getTypedRecords(sortedTypedValues.subMap(from, fromInclusive, to, toInclusive).keySet());
+    }
+
+    /**
+     * @return the records of the index values of the typed values, strings sharing
+     *         a hash with one of them are included and filtered by the predicate
+     */
+    private Set<MapEntry> getTypedRecords(Set<Comparable> typedValues) {
+        final Set<Long> values = new HashSet<Long>(typedValues.size());
+        for (Comparable typedValue : typedValues) {
+            values.add(getTypedIndexValue(typedValue));
+        }
+        return getRecords(values);
+    }
+
+    Comparable extractTypedValue(Record record) {
+        return (Comparable) expression.getValue(record.getValue());
+    }
+
+    long getTypedIndexValue(Comparable typedValue) {
+        return getLongValueByType(typedValue);
+    }
+
+    /**
+     * Converts the searched value into the typed values of this index,
+     * null if it cannot be converted.
+     */
+    private Comparable getTypedValue(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (returnType == TYPE_STRING) {
+            return (value instanceof String) ? (String) value : null;
+        }
+        if (value instanceof Enum) {
+            return (Enum) value;
+        }
+        if (!(value instanceof String) || sortedTypedValues.isEmpty()) {
+            return null;
+        }
+        final String str = (String) value;
+        // keep the part after the last dot, same as Predicates.getRealObject
+        final String name = str.substring(str.lastIndexOf('.') + 1);
+        try {
+            return Enum.valueOf(((Enum) sortedTypedValues.firstKey()).getDeclaringClass(), name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        } catch (NoSuchElementException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Ordered indexes of strings and enums answer ranges with their typed values.
+     */
+    boolean isTyped() {
+        final byte type = returnType;
+        return sortedTypedValues != null && (type == TYPE_STRING || type == TYPE_ENUM);
+    }
+
+    /**
+     * Index values of strings and enums are hashes, so ranges of them on unordered
+     * indexes go through all the records of the index.
+     */
+    private boolean isRangeSupported() {
+        final byte type = returnType;
+        return type != TYPE_STRING && type != TYPE_ENUM && type != TYPE_UNKNOWN;
+    }
+
+    private boolean isIntegral() {
+        final byte type = returnType;
+        return type == TYPE_INT || type == TYPE_LONG || type == TYPE_BYTE || type == TYPE_SHORT;
+    }
+
+    /**
+     * @return true if the searched value has a fraction that the integral values of this index cannot have
+     */
+    private boolean hasFraction(Object value) {
+        if (!isIntegral()) {
+            return false;
+        }
+        double doubleValue;
+        if (value instanceof Double || value instanceof Float || value instanceof BigDecimal) {
+            doubleValue = ((Number) value).doubleValue();
+        } else if (value instanceof String && ((String) value).indexOf('.') != -1) {
+            try {
+                doubleValue = Double.parseDouble((String) value);
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        } else {
+            return false;
+        }
+        return !Double.isInfinite(doubleValue) && doubleValue != Math.floor(doubleValue);
+    }
+
     void setIndexType(Object extractedValue) {
         if (returnType == -1) {
             if (expression instanceof Predicates.GetExpressionImpl) {
@@ -170,51 +422,97 @@ public class Index {
             return TYPE_FLOAT;
         } else if (klass == byte.class || klass == Byte.class) {
             return TYPE_BYTE;
+        } else if (klass == short.class || klass == Short.class) {
+            return TYPE_SHORT;
         } else if (klass == char.class || klass == Character.class) {
             return TYPE_CLASS;
+        } else if (Date.class.isAssignableFrom(klass)) {
+            return TYPE_DATE;
+        } else if (Enum.class.isAssignableFrom(klass)) {
+            return TYPE_ENUM;
         } else {
             return TYPE_UNKNOWN;
         }
     }
 
-    private static long getLongValueByType(Object value) {
+    static long getLongValueByType(Object value) {
         if (value == null) return Long.MIN_VALUE;
-        if (value instanceof Double) {
-            return Double.doubleToLongBits((Double) value);
-        } else if (value instanceof Float) {
-            return Float.floatToIntBits((Float) value);
+        if (value instanceof Double || value instanceof Float) {
+            return getSortableLong(((Number) value).doubleValue());
         } else if (value instanceof Number) {
             return ((Number) value).longValue();
         } else if (value instanceof Boolean) {
             return (Boolean.TRUE.equals(value)) ? 1 : -1;
+        } else if (value instanceof Character) {
+            return (Character) value;
         } else if (value instanceof String) {
             return value.hashCode();
+        } else if (value instanceof Date) {
+            return ((Date) value).getTime();
+        } else if (value instanceof Enum) {
+            return ((Enum) value).name().hashCode();
         } else {
             return value.hashCode();
         }
     }
 
-    long getLongValue(Object value) {
+    /**
+     * Flips the bits of negative doubles so that comparing the results
+     * as longs gives the same order as {@link Double#compareTo(Double)}.
+     */
+    static long getSortableLong(double value) {
+        long bits = Double.doubleToLongBits(value);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    /**
+     * Converts the searched value into the index value for the type of
+     * this index. Returns null if the value cannot be converted, caller
+     * should then go through all the records of this index.
+     */
+    Long getLongValue(Object value, int bound) {
         if (value == null) return Long.MIN_VALUE;
+        final byte type = returnType;
+        if (value instanceof String && hasFraction(value)) {
+            value = Double.valueOf((String) value);
+        }
         int valueType = getIndexType(value.getClass());
-        if (valueType != returnType) {
+        if (valueType != type) {
             if (value instanceof String) {
                 String str = (String) value;
-                if (returnType == TYPE_INT) {
+                if (type == TYPE_INT) {
                     value = Integer.valueOf(str);
-                } else if (returnType == TYPE_LONG) {
+                } else if (type == TYPE_LONG) {
                     value = Long.valueOf(str);
-                } else if (returnType == TYPE_BOOLEAN) {
+                } else if (type == TYPE_BOOLEAN) {
                     value = Boolean.valueOf(str);
-                } else if (returnType == TYPE_DOUBLE) {
+                } else if (type == TYPE_DOUBLE) {
                     value = Double.valueOf(str);
-                } else if (returnType == TYPE_FLOAT) {
+                } else if (type == TYPE_FLOAT) {
                     value = Float.valueOf(str);
-                } else if (returnType == TYPE_BYTE) {
+                } else if (type == TYPE_BYTE) {
                     value = Byte.valueOf(str);
-                } else if (returnType == TYPE_CLASS) {
+                } else if (type == TYPE_SHORT) {
+                    value = Short.valueOf(str);
+                } else if (type == TYPE_CLASS) {
                     value = str.hashCode();
+                } else if (type == TYPE_ENUM) {
+                    // keep the part after the last dot, same as Predicates.getRealObject
+                    value = str.substring(str.lastIndexOf('.') + 1);
+                } else if (type == TYPE_DATE) {
+                    return null;
+                }
+            } else if (value instanceof Number) {
+                if (type == TYPE_DOUBLE || type == TYPE_FLOAT) {
+                    value = ((Number) value).doubleValue();
+                } else if (hasFraction(value)) {
+                    final double doubleValue = ((Number) value).doubleValue();
+                    value = (long) ((bound == BOUND_LOWER) ? Math.ceil(doubleValue) : Math.floor(doubleValue));
+                } else if (type != TYPE_DATE) {
+                    value = ((Number) value).longValue();
                 }
+            } else if (type == TYPE_DATE || type == TYPE_ENUM) {
+                return null;
             }
         }
         return getLongValueByType(value);
@@ -134,7 +134,11 @@ public class MapIndexService {
             if (attributeIndex == -1) {
                 attributeIndex = mapIndexes.size();
             }
-            index = new Index(expression, ordered, attributeIndex);
+            if (expression instanceof CompositeExpression) {
+                index = new CompositeIndex((CompositeExpression) expression, ordered, attributeIndex);
+            } else {
+                index = new Index(expression, ordered, attributeIndex);
+            }
             mapIndexes.put(expression, index);
             indexTypes = null;
             //todo build the indexes
@@ -148,6 +152,20 @@ public class MapIndexService {
         Set<MapEntry> results;
         Predicate predicate = queryContext.getPredicate();
         try {
+            Predicate conjunction = predicate;
+            if (conjunction instanceof SqlPredicate) {
+                conjunction = ((SqlPredicate) conjunction).getPredicate();
+            } else if (conjunction instanceof PredicateBuilder) {
+                List<Predicate> builderPredicates = ((PredicateBuilder) conjunction).lsPredicates;
+                conjunction = builderPredicates.isEmpty() ? null : builderPredicates.get(0);
+            }
+            if (conjunction instanceof Predicates.AndOrPredicate) {
+                Set<MapEntry> compositeResults = queryCompositeIndex((Predicates.AndOrPredicate) conjunction);
+                if (compositeResults != null) {
+                    strong = true;
+                    return (compositeResults.size() == 0) ? null : compositeResults;
+                }
+            }
             if (predicate != null && mapIndexes != null && predicate instanceof IndexAwarePredicate) {
                 List<IndexAwarePredicate> lsIndexAwarePredicates = new ArrayList<IndexAwarePredicate>();
                 IndexAwarePredicate iap = (IndexAwarePredicate) predicate;
@@ -178,7 +196,9 @@ public class MapIndexService {
                     if (subFirst != null && subFirst.size() < 11) {
                         strong = true;
                         Set<MapEntry> resultSet = new HashSet<MapEntry>(subFirst);
-                        for (int i = 1; i < lsIndexAwarePredicates.size(); i++) {
+                        // first predicate is applied too as index results
+                        // for a weak index might contain extra records
+                        for (int i = 0; i < lsIndexAwarePredicates.size(); i++) {
                             IndexAwarePredicate p = lsIndexAwarePredicates.get(i);
                             Iterator<MapEntry> it = resultSet.iterator();
                             while (it.hasNext()) {
@@ -235,6 +255,135 @@ public class MapIndexService {
         }
     }
 
+    /**
+     * Picks the composite index whose first attributes all have an equal predicate in the
+     * given conjunction, preferring the one covering all its attributes, then the most
+     * attributes, then the one with a range predicate on the attribute after them, and
+     * filters its records by the whole predicate. Only ordered composite indexes answer
+     * a part of their attributes. The records of a single attribute index are filtered
+     * instead if it has less records for its equal value, as a composite index is not
+     * always more selective than one of its attributes.
+     * Returns null if there is no such composite index.
+     */
+    private Set<MapEntry> queryCompositeIndex(Predicates.AndOrPredicate predicate) {
+        CompositeIndex bestIndex = null;
+        int bestScore = 0;
+        int bestPrefix = 0;
+        Map<Expression, Object> equalValues = null;
+        Map<Expression, Object[]> rangeValues = null;
+        for (Index index : mapIndexes.values()) {
+            if (index instanceof CompositeIndex) {
+                if (equalValues == null) {
+                    equalValues = new HashMap<Expression, Object>();
+                    rangeValues = new HashMap<Expression, Object[]>();
+                    if (!collectConditions(predicate, equalValues, rangeValues)) {
+                        return null;
+                    }
+                }
+                CompositeIndex compositeIndex = (CompositeIndex) index;
+                Expression[] expressions = compositeIndex.getExpressions();
+                int prefix = 0;
+                while (prefix < expressions.length && equalValues.containsKey(expressions[prefix])) {
+                    prefix++;
+                }
+                int score;
+                if (prefix == expressions.length) {
+                    score = 4 * prefix + 2;
+                } else if (prefix > 0 && compositeIndex.isOrdered()) {
+                    score = 4 * prefix + (rangeValues.containsKey(expressions[prefix]) ? 1 : 0);
+                } else {
+                    score = 0;
+                }
+                if (score > bestScore) {
+                    bestIndex = compositeIndex;
+                    bestScore = score;
+                    bestPrefix = prefix;
+                }
+            }
+        }
+        if (bestIndex == null) {
+            return null;
+        }
+        Expression[] expressions = bestIndex.getExpressions();
+        Object[] values = new Object[bestPrefix];
+        for (int i = 0; i < bestPrefix; i++) {
+            values[i] = equalValues.get(expressions[i]);
+        }
+        Set<MapEntry> candidates;
+        if (bestPrefix == expressions.length) {
+            candidates = bestIndex.findCompositeRecords(values);
+        } else {
+            Object[] range = rangeValues.get(expressions[bestPrefix]);
+            candidates = (range == null)
+                    ? bestIndex.findCompositeRecords(values, null, null)
+                    : bestIndex.findCompositeRecords(values, range[0], range[1]);
+            if (candidates == null) {
+                return null;
+            }
+        }
+        for (Map.Entry<Expression, Object> equalValue : equalValues.entrySet()) {
+            Index index = mapIndexes.get(equalValue.getKey());
+            if (index != null && !(index instanceof CompositeIndex)) {
+                Set<MapEntry> indexCandidates = index.findRecords(equalValue.getValue());
+                if (indexCandidates.size() < candidates.size()) {
+                    candidates = indexCandidates;
+                }
+            }
+        }
+        Set<MapEntry> results = new HashSet<MapEntry>();
+        for (MapEntry entry : candidates) {
+            if (predicate.apply(entry)) {
+                results.add(entry);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Collects the attribute = value predicates and the from and to values of the
+     * attribute range predicates of a conjunction, including the nested conjunctions.
+     * Range bounds are collected inclusive, the predicate is applied to the results.
+     * Returns false if the predicate is not a conjunction.
+     */
+    private static boolean collectConditions(Predicates.AndOrPredicate predicate, Map<Expression, Object> equalValues,
+                                             Map<Expression, Object[]> rangeValues) {
+        if (!predicate.and) {
+            return false;
+        }
+        for (Predicate p : predicate.predicates) {
+            if (p instanceof Predicates.AndOrPredicate) {
+                collectConditions((Predicates.AndOrPredicate) p, equalValues, rangeValues);
+            } else if (p instanceof Predicates.EqualPredicate) {
+                Predicates.EqualPredicate equalPredicate = (Predicates.EqualPredicate) p;
+                if (equalPredicate.secondIsExpression || equalPredicate.second == null
+                        || !(equalPredicate.first instanceof Predicates.GetExpression)) {
+                    continue;
+                }
+                if (p.getClass() == Predicates.EqualPredicate.class) {
+                    equalValues.put(equalPredicate.first, equalPredicate.second);
+                } else if (p.getClass() == Predicates.GreaterLessPredicate.class) {
+                    Object[] range = getRange(rangeValues, equalPredicate.first);
+                    range[((Predicates.GreaterLessPredicate) p).less ? 1 : 0] = equalPredicate.second;
+                } else if (p.getClass() == Predicates.BetweenPredicate.class
+                        && ((Predicates.BetweenPredicate) p).to != null) {
+                    Object[] range = getRange(rangeValues, equalPredicate.first);
+                    range[0] = equalPredicate.second;
+                    range[1] = ((Predicates.BetweenPredicate) p).to;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static Object[] getRange(Map<Expression, Object[]> rangeValues, Expression expression) {
+        Object[] range = rangeValues.get(expression);
+        if (range == null) {
+            range = new Object[2];
+            rangeValues.put(expression, range);
+        }
+        return range;
+    }
+
     public Map<Expression, Index> getIndexes() {
         return mapIndexes;
     }
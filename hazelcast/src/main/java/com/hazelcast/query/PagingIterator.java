@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2008-2012, Hazel Bilisim Ltd. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.query;
+
+import com.hazelcast.core.IMap;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over the entries matching the paging predicate, querying the next page
+ * when the entries of the current one are consumed, so only one page is held at a time.
+ * Works with the maps of both members and clients.
+ */
+public class PagingIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+    private final IMap<K, V> map;
+    private final PagingPredicate pagingPredicate;
+    private Iterator<Map.Entry<K, V>> pageIterator;
+    private Map.Entry<K, V> nextEntry;
+
+    public PagingIterator(IMap<K, V> map, PagingPredicate pagingPredicate) {
+        this.map = map;
+        this.pagingPredicate = pagingPredicate;
+    }
+
+    public boolean hasNext() {
+        if (nextEntry != null) {
+            return true;
+        }
+        if (pageIterator == null) {
+            pageIterator = map.entrySet(pagingPredicate).iterator();
+        }
+        while (!pageIterator.hasNext()) {
+            if (pagingPredicate.isLastPage()) {
+                return false;
+            }
+            pagingPredicate.nextPage();
+            pageIterator = map.entrySet(pagingPredicate).iterator();
+        }
+        nextEntry = pageIterator.next();
+        return true;
+    }
+
+    public Map.Entry<K, V> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final Map.Entry<K, V> entry = nextEntry;
+        nextEntry = null;
+        return entry;
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2008-2012, Hazel Bilisim Ltd. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.query;
+
+import com.hazelcast.core.MapEntry;
+import com.hazelcast.impl.base.KeyValue;
+import com.hazelcast.nio.Data;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+
+import static com.hazelcast.query.Predicates.AbstractPredicate;
+
+/**
+ * Returns the matching entries of a map one page at a time, sorted by the comparator,
+ * or by the natural order of the keys if no comparator is given.
+ * <p/>
+ * Each member returns at most page size entries coming after the last entry of the
+ * previous page, the anchor, so a query returns at most page size entries per member
+ * to the caller however many entries match.
+ * <pre>
+ * PagingPredicate pagingPredicate = new PagingPredicate(new SqlPredicate("active"), 100);
+ * Collection&lt;Employee&gt; page1 = map.values(pagingPredicate);
+ * pagingPredicate.nextPage();
+ * Collection&lt;Employee&gt; page2 = map.values(pagingPredicate);
+ * </pre>
+ * The anchor of the current page can be kept with {@link #getAnchor()} and passed to
+ * {@link #setAnchor(int, KeyValue)} of a new paging predicate to continue from that page later.
+ * Paging is supported for maps, not for multimaps.
+ */
+public class PagingPredicate extends AbstractPredicate {
+    private Predicate predicate;
+    private Comparator<Map.Entry> comparator;
+    private int pageSize;
+    private int page = 0;
+    // anchors.get(i) is the last entry of page i
+    private final List<KeyValue> anchors = new ArrayList<KeyValue>();
+
+    public PagingPredicate() {
+    }
+
+    public PagingPredicate(int pageSize) {
+        this(null, null, pageSize);
+    }
+
+    public PagingPredicate(Predicate predicate, int pageSize) {
+        this(predicate, null, pageSize);
+    }
+
+    public PagingPredicate(Comparator<Map.Entry> comparator, int pageSize) {
+        this(null, comparator, pageSize);
+    }
+
+    public PagingPredicate(Predicate predicate, Comparator<Map.Entry> comparator, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        if (predicate instanceof PagingPredicate) {
+            throw new IllegalArgumentException("Nested paging predicates are not supported");
+        }
+        this.predicate = predicate;
+        this.comparator = comparator;
+        this.pageSize = pageSize;
+    }
+
+    public boolean apply(MapEntry mapEntry) {
+        return predicate == null || predicate.apply(mapEntry);
+    }
+
+    /**
+     * Moves to the next page. Does nothing if the current page is not queried yet
+     * or it is the last page.
+     */
+    public void nextPage() {
+        if (anchors.size() > page && anchors.get(page) != null) {
+            page++;
+        }
+    }
+
+    public void previousPage() {
+        if (page > 0) {
+            page--;
+        }
+    }
+
+    public void reset() {
+        page = 0;
+        anchors.clear();
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public Predicate getPredicate() {
+        return predicate;
+    }
+
+    public Comparator<Map.Entry> getComparator() {
+        return comparator;
+    }
+
+    /**
+     * @return the last entry of the previous page, the entries of the current page come after it,
+     *         or null for the first page
+     */
+    public KeyValue getAnchor() {
+        return (page == 0 || anchors.size() < page) ? null : anchors.get(page - 1);
+    }
+
+    /**
+     * Continues from the given page whose entries come after the anchor.
+     *
+     * @param page   page to move to
+     * @param anchor last entry of the previous page, as returned by {@link #getAnchor()}
+     */
+    public void setAnchor(int page, KeyValue anchor) {
+        anchors.clear();
+        for (int i = 0; i < page - 1; i++) {
+            anchors.add(null);
+        }
+        if (page > 0) {
+            anchors.add(anchor);
+        }
+        this.page = page;
+    }
+
+    /**
+     * Records the last entry of the current page returned by a query.
+     * Called by the caller of the query with the sorted page.
+     */
+    public void setPageResult(List<KeyValue> pageEntries) {
+        while (anchors.size() > page) {
+            anchors.remove(anchors.size() - 1);
+        }
+        // a page not filled up is the last one
+        if (pageEntries.size() == pageSize) {
+            anchors.add(pageEntries.get(pageSize - 1));
+        }
+    }
+
+    /**
+     * @return true if the query of the current page returned less than page size entries
+     */
+    public boolean isLastPage() {
+        return anchors.size() <= page;
+    }
+
+    /**
+     * Sorts the entries and returns the first page size entries coming after the anchor.
+     */
+    public List<KeyValue> getPage(Collection<KeyValue> entries) {
+        final KeyValue anchor = getAnchor();
+        final List<KeyValue> result = new ArrayList<KeyValue>(entries.size());
+        for (KeyValue entry : entries) {
+            if (anchor == null || compare(entry, anchor) > 0) {
+                result.add(entry);
+            }
+        }
+        Collections.sort(result, new Comparator<KeyValue>() {
+            public int compare(KeyValue entry1, KeyValue entry2) {
+                return PagingPredicate.this.compare(entry1, entry2);
+            }
+        });
+        return (result.size() > pageSize) ? new ArrayList<KeyValue>(result.subList(0, pageSize)) : result;
+    }
+
+    int compare(KeyValue entry1, KeyValue entry2) {
+        int result = 0;
+        if (comparator != null) {
+            result = comparator.compare(entry1, entry2);
+        } else {
+            Object key1 = entry1.getKey();
+            Object key2 = entry2.getKey();
+            if (key1 instanceof Comparable && key1.getClass() == key2.getClass()) {
+                result = ((Comparable) key1).compareTo(key2);
+            }
+        }
+        return (result != 0) ? result : compare(entry1.getKeyData(), entry2.getKeyData());
+    }
+
+    private static int compare(Data data1, Data data2) {
+        final byte[] buffer1 = data1.buffer;
+        final byte[] buffer2 = data2.buffer;
+        final int length = Math.min(buffer1.length, buffer2.length);
+        for (int i = 0; i < length; i++) {
+            if (buffer1[i] != buffer2[i]) {
+                return buffer1[i] - buffer2[i];
+            }
+        }
+        return buffer1.length - buffer2.length;
+    }
+
+    public void writeData(DataOutput out) throws IOException {
+        writeObject(out, predicate);
+        writeObject(out, comparator);
+        out.writeInt(pageSize);
+        out.writeInt(page);
+        final KeyValue anchor = getAnchor();
+        out.writeBoolean(anchor != null);
+        if (anchor != null) {
+            anchor.writeData(out);
+        }
+    }
+
+    public void readData(DataInput in) throws IOException {
+        predicate = (Predicate) readObject(in);
+        comparator = (Comparator<Map.Entry>) readObject(in);
+        pageSize = in.readInt();
+        final int page = in.readInt();
+        KeyValue anchor = null;
+        if (in.readBoolean()) {
+            anchor = new KeyValue();
+            anchor.readData(in);
+        }
+        setAnchor(page, anchor);
+    }
+
+    @Override
+    public String toString() {
+        return "PagingPredicate{" +
+                "predicate=" + predicate +
+                ", pageSize=" + pageSize +
+                ", page=" + page +
+                '}';
+    }
+}
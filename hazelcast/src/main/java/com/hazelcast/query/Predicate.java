@@ -20,6 +20,13 @@ import com.hazelcast.core.MapEntry;
 
 import java.io.Serializable;
 
+/**
+ * Query condition applied to the entries of a map on the members.
+ * <p/>
+ * If hazelcast.executor.query.partition.thread.count is above 1, the same predicate instance
+ * is applied to the entries of different partitions by several threads at once,
+ * so it must be thread safe then.
+ */
 public interface Predicate<K, V> extends Serializable {
     boolean apply(MapEntry<K, V> mapEntry);
 }
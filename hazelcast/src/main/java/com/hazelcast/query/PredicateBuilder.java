@@ -28,12 +28,13 @@ public class PredicateBuilder implements Predicate, IndexAwarePredicate {
     List<Predicate> lsPredicates = new ArrayList<Predicate>();
 
     public boolean apply(MapEntry mapEntry) {
-        return lsPredicates.get(0).apply(mapEntry);
+        // a builder without predicates matches all the entries
+        return lsPredicates.isEmpty() || lsPredicates.get(0).apply(mapEntry);
     }
 
     public boolean collectIndexAwarePredicates(List<IndexAwarePredicate> lsIndexPredicates, Map<Expression, Index> mapIndexes) {
         boolean strong = true;
-        Predicate predicate = lsPredicates.get(0);
+        Predicate predicate = lsPredicates.isEmpty() ? null : lsPredicates.get(0);
         if (predicate instanceof IndexAwarePredicate) {
             IndexAwarePredicate p = (IndexAwarePredicate) predicate;
             if (!p.collectIndexAwarePredicates(lsIndexPredicates, mapIndexes)) {
@@ -54,7 +55,7 @@ public class PredicateBuilder implements Predicate, IndexAwarePredicate {
     }
 
     public void collectAppliedIndexes(Set<Index> setAppliedIndexes, Map<Expression, Index> mapIndexes) {
-        Predicate predicate = lsPredicates.get(0);
+        Predicate predicate = lsPredicates.isEmpty() ? null : lsPredicates.get(0);
         if (predicate instanceof IndexAwarePredicate) {
             IndexAwarePredicate p = (IndexAwarePredicate) predicate;
             p.collectAppliedIndexes(setAppliedIndexes, mapIndexes);
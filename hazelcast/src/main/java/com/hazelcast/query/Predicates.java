@@ -20,12 +20,11 @@ import com.hazelcast.core.MapEntry;
 import com.hazelcast.impl.Util;
 import com.hazelcast.nio.DataSerializable;
 import com.hazelcast.nio.SerializationHelper;
+import com.hazelcast.query.ReflectionHelper.Getter;
 
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
 import java.sql.Timestamp;
 import java.text.DateFormat;
 import java.text.ParseException;
@@ -67,7 +66,7 @@ public final class Predicates {
 
         public Set<MapEntry> filter(QueryContext queryContext) {
             Index index = queryContext.getMapIndexes().get(first);
-            return index.getSubRecords(equal, less, index.getLongValue(second));
+            return index.findSubRecords(equal, less, second);
         }
 
         @Override
@@ -119,17 +118,22 @@ public final class Predicates {
             if (firstValue == null) {
                 return false;
             }
-            if (fromConvertedValue == null) {
-                fromConvertedValue = (Comparable) getConvertedRealValue(firstValue, second);
-                toConvertedValue = (Comparable) getConvertedRealValue(firstValue, to);
+            // read the converted values once, apply can be called by several threads
+            Comparable fromValue = fromConvertedValue;
+            Comparable toValue = toConvertedValue;
+            if (fromValue == null || toValue == null) {
+                fromValue = (Comparable) getConvertedRealValue(firstValue, second);
+                toValue = (Comparable) getConvertedRealValue(firstValue, to);
+                fromConvertedValue = fromValue;
+                toConvertedValue = toValue;
             }
-            if (firstValue == null || fromConvertedValue == null || toConvertedValue == null) return false;
-            return firstValue.compareTo(fromConvertedValue) >= 0 && firstValue.compareTo(toConvertedValue) <= 0;
+            if (fromValue == null || toValue == null) return false;
+            return firstValue.compareTo(fromValue) >= 0 && firstValue.compareTo(toValue) <= 0;
         }
 
         public Set<MapEntry> filter(QueryContext queryContext) {
             Index index = queryContext.getMapIndexes().get(first);
-            return index.getSubRecordsBetween(index.getLongValue(second), index.getLongValue(to));
+            return index.findSubRecordsBetween(second, to);
         }
 
         public void writeData(DataOutput out) throws IOException {
@@ -167,7 +171,7 @@ public final class Predicates {
         public Set<MapEntry> filter(QueryContext queryContext) {
             Index index = queryContext.getMapIndexes().get(first);
             if (index != null) {
-                return index.getSubRecords(false, false, index.getLongValue(second));
+                return index.findSubRecords(false, false, second);
             } else {
                 return null;
             }
@@ -224,10 +228,11 @@ public final class Predicates {
 
         private void checkInValues() {
             if (inValues == null) {
-                this.inValues = new HashSet(inValueArray.length);
+                final Set values = new HashSet(inValueArray.length);
                 for (Object o : inValueArray) {
-                    inValues.add(o);
+                    values.add(o);
                 }
+                this.inValues = values;
             }
         }
 
@@ -244,11 +249,12 @@ public final class Predicates {
                 if (entryValue.getClass() == firstValueObject.getClass()) {
                     return in(entryValue, inValues);
                 } else if (firstValueObject instanceof String) {
-                    convertedInValues = new HashSet(inValues.size());
+                    final Set values = new HashSet(inValues.size());
                     for (Object objValue : inValues) {
-                        convertedInValues.add(getRealObject(entryValue, objValue));
+                        values.add(getRealObject(entryValue, objValue));
                     }
-                    return in(entryValue, convertedInValues);
+                    convertedInValues = values;
+                    return in(entryValue, values);
                 }
             }
             return in(entryValue, inValues);
@@ -284,12 +290,7 @@ public final class Predicates {
             checkInValues();
             Index index = queryContext.getMapIndexes().get(first);
             if (index != null) {
-                Set<Long> setLongValues = new HashSet<Long>(inValues.size());
-                for (Object valueObj : inValues) {
-                    final Long value = index.getLongValue(valueObj);
-                    setLongValues.add(value);
-                }
-                return index.getRecords(setLongValues);
+                return index.findRecords(inValues);
             } else {
                 return null;
             }
@@ -506,7 +507,7 @@ public final class Predicates {
         public Set<MapEntry> filter(QueryContext queryContext) {
             Index index = queryContext.getMapIndexes().get(first);
             if (index != null) {
-                return index.getRecords(index.getLongValue(second));
+                return index.findRecords(second);
             } else {
                 return null;
             }
@@ -694,7 +695,7 @@ public final class Predicates {
 
         public Set<MapEntry> filter(QueryContext queryContext) {
             Set<MapEntry> results = null;
-            for (Predicate predicate : predicates) {
+            for (Predicate predicate : and ? indexedFirst(queryContext) : Arrays.asList(predicates)) {
                 Set<MapEntry> filter = null;
                 if (predicate instanceof IndexAwarePredicate && ((IndexAwarePredicate) predicate).isIndexed(queryContext)) {
                     IndexAwarePredicate p = (IndexAwarePredicate) predicate;
@@ -746,6 +747,24 @@ public final class Predicates {
             return results;
         }
 
+        /**
+         * Orders the indexed predicates first, so the others are applied to the entries the indexes
+         * return instead of to all the owned records.
+         */
+        private List<Predicate> indexedFirst(QueryContext queryContext) {
+            final List<Predicate> ordered = new ArrayList<Predicate>(predicates.length);
+            final List<Predicate> notIndexed = new ArrayList<Predicate>(predicates.length);
+            for (Predicate predicate : predicates) {
+                if (predicate instanceof IndexAwarePredicate && ((IndexAwarePredicate) predicate).isIndexed(queryContext)) {
+                    ordered.add(predicate);
+                } else {
+                    notIndexed.add(predicate);
+                }
+            }
+            ordered.addAll(notIndexed);
+            return ordered;
+        }
+
         public void collectAppliedIndexes(Set<Index> setAppliedIndexes, Map<Expression, Index> mapIndexes) {
             if (and) {
                 for (Predicate predicate : predicates) {
@@ -867,6 +886,13 @@ public final class Predicates {
         return new GetExpressionImpl(methodName);
     }
 
+    public static Expression getIndexExpression(final String attribute) {
+        if (attribute.indexOf(',') != -1) {
+            return new CompositeExpression(attribute.split(","));
+        }
+        return get(attribute);
+    }
+
     public static abstract class AbstractExpression extends SerializationHelper implements Expression {
 
     }
@@ -876,7 +902,7 @@ public final class Predicates {
     }
 
     public static final class GetExpressionImpl<T> extends AbstractExpression implements GetExpression, DataSerializable {
-        transient Getter getter = null;
+        transient volatile Getter getter = null;
         String input;
         List<GetExpressionImpl<T>> ls = null;
 
@@ -913,144 +939,18 @@ public final class Predicates {
             }
             if (obj == null) return null;
             try {
-                if (getter == null) {
-                    Getter parent = null;
-                    Class clazz = obj.getClass();
-                    List<String> possibleMethodNames = new ArrayList<String>(3);
-                    for (final String name : input.split("\\.")) {
-                        Getter localGetter = null;
-                        possibleMethodNames.clear();
-                        possibleMethodNames.add(name);
-                        final String camelName = Character.toUpperCase(name.charAt(0)) + name.substring(1);
-                        possibleMethodNames.add("get" + camelName);
-                        possibleMethodNames.add("is" + camelName);
-                        if (name.equals("this")) {
-                            localGetter = new ThisGetter(parent, obj);
-                        } else {
-                            for (String methodName : possibleMethodNames) {
-                                try {
-                                    final Method method = clazz.getMethod(methodName, null);
-                                    method.setAccessible(true);
-                                    localGetter = new MethodGetter(parent, method);
-                                    clazz = method.getReturnType();
-                                    break;
-                                } catch (NoSuchMethodException ignored) {
-                                }
-                            }
-                            if (localGetter == null) {
-                                try {
-                                    final Field field = clazz.getField(name);
-                                    localGetter = new FieldGetter(parent, field);
-                                    clazz = field.getType();
-                                } catch (NoSuchFieldException ignored) {
-                                }
-                            }
-                            if (localGetter == null) {
-                                Class c = clazz;
-                                while (!Object.class.equals(c)) {
-                                    try {
-                                        final Field field = c.getDeclaredField(name);
-                                        field.setAccessible(true);
-                                        localGetter = new FieldGetter(parent, field);
-                                        clazz = field.getType();
-                                        break;
-                                    } catch (NoSuchFieldException ignored) {
-                                        c = c.getSuperclass();
-                                    }
-                                }
-                            }
-                        }
-                        if (localGetter == null) {
-                            throw new RuntimeException("There is no suitable accessor for '" + name + "'");
-                        }
-                        parent = localGetter;
-                    }
-                    getter = parent;
+                Getter localGetter = getter;
+                if (localGetter == null || localGetter.getTargetClass() != obj.getClass()) {
+                    localGetter = ReflectionHelper.getGetter(obj.getClass(), input);
+                    getter = localGetter;
                 }
-                return getter.getValue(obj);
+                return localGetter.getValue(obj);
             } catch (Throwable e) {
                 Util.throwUncheckedException(e);
                 return null;
             }
         }
 
-        abstract class Getter {
-            protected final Getter parent;
-
-            public Getter(final Getter parent) {
-                this.parent = parent;
-            }
-
-            abstract Object getValue(Object obj) throws Exception;
-
-            abstract Class getReturnType();
-        }
-
-        class MethodGetter extends Getter {
-            final Method method;
-
-            MethodGetter(Getter parent, Method method) {
-                super(parent);
-                this.method = method;
-            }
-
-            Object getValue(Object obj) throws Exception {
-                obj = parent != null ? parent.getValue(obj) : obj;
-                return obj != null ? method.invoke(obj) : null;
-            }
-
-            Class getReturnType() {
-                return this.method.getReturnType();
-            }
-
-            @Override
-            public String toString() {
-                return "MethodGetter [parent=" + parent + ", method=" + method.getName() + "]";
-            }
-        }
-
-        class FieldGetter extends Getter {
-            final Field field;
-
-            FieldGetter(Getter parent, Field field) {
-                super(parent);
-                this.field = field;
-            }
-
-            Object getValue(Object obj) throws Exception {
-                obj = parent != null ? parent.getValue(obj) : obj;
-                return obj != null ? field.get(obj) : null;
-            }
-
-            Class getReturnType() {
-                return this.field.getType();
-            }
-
-            @Override
-            public String toString() {
-                return "FieldGetter [parent=" + parent + ", field=" + field + "]";
-            }
-        }
-
-        class ThisGetter extends Getter {
-            final Object object;
-
-            public ThisGetter(final Getter parent, Object object) {
-                super(parent);
-                this.object = object;
-            }
-
-            @Override
-            Object getValue(Object obj) throws Exception {
-                return obj;
-            }
-
-            @Override
-            Class getReturnType() {
-                return this.object.getClass();
-            }
-        }
-
         public void writeData(DataOutput out) throws IOException {
             out.writeUTF(input);
         }
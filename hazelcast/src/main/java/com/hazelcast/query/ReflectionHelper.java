@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2008-2012, Hazel Bilisim Ltd. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.query;
+
+import java.lang.ref.SoftReference;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Resolves the getters of attribute paths like "address.city" once per class and keeps them,
+ * so predicates and indexes deserialized for each query do not look the accessors up again
+ * for every query.
+ * <p/>
+ * Classes are weak keys of the cache and their getters are held softly, since the getters
+ * reference the class through their methods and fields; so the cache does not keep the class
+ * loaders of the cached classes alive.
+ * <p/>
+ * Attribute values are still read with {@link Method#invoke} and {@link Field#get} for each
+ * record. Accessors without reflection would need generated bytecode, and the build targets
+ * Java 1.5 (no method handles) with no bytecode library among the dependencies.
+ */
+public final class ReflectionHelper {
+    private static final Object[] NO_ARGS = new Object[0];
+
+    private static final Map<Class, SoftReference<ConcurrentMap<String, Getter>>> getters =
+            new WeakHashMap<Class, SoftReference<ConcurrentMap<String, Getter>>>();
+
+    private ReflectionHelper() {
+    }
+
+    /**
+     * @return the getter of the attribute path for the objects of the class
+     * @throws IllegalArgumentException if there is no accessor for an attribute in the path
+     */
+    public static Getter getGetter(Class clazz, String attributePath) {
+        ConcurrentMap<String, Getter> classGetters;
+        synchronized (getters) {
+            final SoftReference<ConcurrentMap<String, Getter>> ref = getters.get(clazz);
+            classGetters = (ref != null) ? ref.get() : null;
+            if (classGetters == null) {
+                classGetters = new ConcurrentHashMap<String, Getter>();
+                getters.put(clazz, new SoftReference<ConcurrentMap<String, Getter>>(classGetters));
+            }
+        }
+        Getter getter = classGetters.get(attributePath);
+        if (getter == null) {
+            getter = createGetter(clazz, attributePath);
+            final Getter existing = classGetters.putIfAbsent(attributePath, getter);
+            if (existing != null) {
+                getter = existing;
+            }
+        }
+        return getter;
+    }
+
+    private static Getter createGetter(final Class targetClass, String attributePath) {
+        Getter parent = null;
+        Class clazz = targetClass;
+        List<String> possibleMethodNames = new ArrayList<String>(3);
+        for (final String name : attributePath.split("\\.")) {
+            Getter localGetter = null;
+            possibleMethodNames.clear();
+            possibleMethodNames.add(name);
+            final String camelName = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+            possibleMethodNames.add("get" + camelName);
+            possibleMethodNames.add("is" + camelName);
+            if (name.equals("this")) {
+                localGetter = new ThisGetter(parent, targetClass, clazz);
+            } else {
+                for (String methodName : possibleMethodNames) {
+                    try {
+                        final Method method = clazz.getMethod(methodName);
+                        method.setAccessible(true);
+                        localGetter = new MethodGetter(parent, targetClass, method);
+                        clazz = method.getReturnType();
+                        break;
+                    } catch (NoSuchMethodException ignored) {
+                    }
+                }
+                if (localGetter == null) {
+                    try {
+                        final Field field = clazz.getField(name);
+                        localGetter = new FieldGetter(parent, targetClass, field);
+                        clazz = field.getType();
+                    } catch (NoSuchFieldException ignored) {
+                    }
+                }
+                if (localGetter == null) {
+                    Class c = clazz;
+                    while (c != null && !Object.class.equals(c)) {
+                        try {
+                            final Field field = c.getDeclaredField(name);
+                            field.setAccessible(true);
+                            localGetter = new FieldGetter(parent, targetClass, field);
+                            clazz = field.getType();
+                            break;
+                        } catch (NoSuchFieldException ignored) {
+                            c = c.getSuperclass();
+                        }
+                    }
+                }
+            }
+            if (localGetter == null) {
+                throw new IllegalArgumentException("There is no suitable accessor for '" + name + "'");
+            }
+            parent = localGetter;
+        }
+        return parent;
+    }
+
+    public static abstract class Getter {
+        protected final Getter parent;
+        protected final Class targetClass;
+
+        Getter(Getter parent, Class targetClass) {
+            this.parent = parent;
+            this.targetClass = targetClass;
+        }
+
+        /**
+         * @return class of the objects this getter is resolved for
+         */
+        public Class getTargetClass() {
+            return targetClass;
+        }
+
+        public abstract Object getValue(Object obj) throws Exception;
+
+        public abstract Class getReturnType();
+    }
+
+    static class MethodGetter extends Getter {
+        final Method method;
+
+        MethodGetter(Getter parent, Class targetClass, Method method) {
+            super(parent, targetClass);
+            this.method = method;
+        }
+
+        public Object getValue(Object obj) throws Exception {
+            obj = parent != null ? parent.getValue(obj) : obj;
+            return obj != null ? method.invoke(obj, NO_ARGS) : null;
+        }
+
+        public Class getReturnType() {
+            return this.method.getReturnType();
+        }
+
+        @Override
+        public String toString() {
+            return "MethodGetter [parent=" + parent + ", method=" + method.getName() + "]";
+        }
+    }
+
+    static class FieldGetter extends Getter {
+        final Field field;
+
+        FieldGetter(Getter parent, Class targetClass, Field field) {
+            super(parent, targetClass);
+            this.field = field;
+        }
+
+        public Object getValue(Object obj) throws Exception {
+            obj = parent != null ? parent.getValue(obj) : obj;
+            return obj != null ? field.get(obj) : null;
+        }
+
+        public Class getReturnType() {
+            return this.field.getType();
+        }
+
+        @Override
+        public String toString() {
+            return "FieldGetter [parent=" + parent + ", field=" + field + "]";
+        }
+    }
+
+    static class ThisGetter extends Getter {
+        final Class returnType;
+
+        ThisGetter(Getter parent, Class targetClass, Class returnType) {
+            super(parent, targetClass);
+            this.returnType = returnType;
+        }
+
+        public Object getValue(Object obj) throws Exception {
+            return obj;
+        }
+
+        public Class getReturnType() {
+            return returnType;
+        }
+    }
+}
@@ -25,13 +25,55 @@ import java.util.*;
 
 import static com.hazelcast.query.Predicates.*;
 
+/**
+ * Predicate written in a subset of SQL, like "active AND age &gt; 30".
+ * <p/>
+ * Parsed statements are cached by their text, so predicates of the same statement, including
+ * the ones deserialized on each member for a query, are not parsed again. Values can be given
+ * as parameters to share a statement between queries:
+ * <pre>
+ * map.values(new SqlPredicate("name = ? AND age BETWEEN ? AND ?", name, 20, 30));
+ * </pre>
+ * A predicate without parameters is serialized as before, so older members can read it.
+ * Parameters are written after a marker at the start of the statement, which older members
+ * reject as invalid sql.
+ */
 public class SqlPredicate extends AbstractPredicate implements IndexAwarePredicate {
+    private static final int PLAN_CACHE_SIZE = 1000;
+    private static final char PARAMETERS_MARKER = '\u0000';
+
+    private static final Map<String, Plan> plans = Collections.synchronizedMap(
+            new LinkedHashMap<String, Plan>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Plan> eldest) {
+                    return size() > PLAN_CACHE_SIZE;
+                }
+            });
+
     private transient Predicate predicate;
     private String sql;
+    private Object[] parameters;
 
     public SqlPredicate(String sql) {
+        this(sql, new Object[0]);
+    }
+
+    /**
+     * @param sql        statement with a ? in place of each parameter
+     * @param parameters values of the parameters in the order they appear in the statement
+     */
+    public SqlPredicate(String sql, Object... parameters) {
+        if (parameters == null) {
+            throw new IllegalArgumentException("Parameters can't be null");
+        }
+        for (int i = 0; i < parameters.length; i++) {
+            if (parameters[i] == null) {
+                throw new IllegalArgumentException("Parameter " + (i + 1) + " is null");
+            }
+        }
         this.sql = sql;
-        predicate = createPredicate(sql);
+        this.parameters = parameters;
+        predicate = createPredicate(sql, parameters);
     }
 
     public SqlPredicate() {
@@ -62,29 +104,58 @@ public class SqlPredicate extends AbstractPredicate implements IndexAwarePredica
         }
     }
 
+    Predicate getPredicate() {
+        return predicate;
+    }
+
     public void writeData(DataOutput out) throws IOException {
-        out.writeUTF(sql);
+        if (parameters.length == 0) {
+            out.writeUTF(sql);
+            return;
+        }
+        out.writeUTF(PARAMETERS_MARKER + sql);
+        out.writeInt(parameters.length);
+        for (Object parameter : parameters) {
+            writeObject(out, parameter);
+        }
     }
 
     public void readData(DataInput in) throws IOException {
         sql = in.readUTF();
-        predicate = createPredicate(sql);
+        if (sql.length() > 0 && sql.charAt(0) == PARAMETERS_MARKER) {
+            sql = sql.substring(1);
+            parameters = new Object[in.readInt()];
+            for (int i = 0; i < parameters.length; i++) {
+                parameters[i] = readObject(in);
+            }
+        } else {
+            parameters = new Object[0];
+        }
+        predicate = createPredicate(sql, parameters);
     }
 
-    private int getApostropheIndex(String str, int start) {
-        return str.indexOf("'", start);
+    /**
+     * @return the parsed statement, from the cache if it is parsed before
+     */
+    static Plan getPlan(String sql) {
+        Plan plan = plans.get(sql);
+        if (plan == null) {
+            plan = createPlan(sql);
+            plans.put(sql, plan);
+        }
+        return plan;
     }
 
-    private Predicate createPredicate(String sql) {
+    private static Plan createPlan(String sql) {
         Map<String, String> mapPhrases = new HashMap<String, String>(1);
-        int apoIndex = getApostropheIndex(sql, 0);
+        int apoIndex = sql.indexOf("'");
         if (apoIndex != -1) {
             int phraseId = 0;
             StringBuilder newSql = new StringBuilder();
             while (apoIndex != -1) {
                 phraseId++;
                 int start = apoIndex + 1;
-                int end = getApostropheIndex(sql, apoIndex + 1);
+                int end = sql.indexOf("'", apoIndex + 1);
                 if (end == -1) {
                     throw new RuntimeException("Missing ' in sql");
                 }
@@ -95,14 +166,57 @@ public class SqlPredicate extends AbstractPredicate implements IndexAwarePredica
                 sql = sql.substring(end + 1);
                 newSql.append(before);
                 newSql.append(key);
-                apoIndex = getApostropheIndex(sql, 0);
+                apoIndex = sql.indexOf("'");
             }
             newSql.append(sql);
             sql = newSql.toString();
         }
+        // quoted phrases are taken out, so each ? left is a parameter
+        int parameterCount = 0;
+        int parameterIndex = sql.indexOf('?');
+        if (parameterIndex != -1) {
+            StringBuilder newSql = new StringBuilder();
+            int start = 0;
+            while (parameterIndex != -1) {
+                newSql.append(sql, start, parameterIndex).append('?').append(parameterCount++);
+                start = parameterIndex + 1;
+                parameterIndex = sql.indexOf('?', start);
+            }
+            newSql.append(sql.substring(start));
+            sql = newSql.toString();
+        }
+        List<String> tokens = new Parser().toPrefix(sql);
+        return new Plan(sql, Collections.unmodifiableList(tokens), Collections.unmodifiableMap(mapPhrases), parameterCount);
+    }
+
+    /**
+     * Statement parsed into tokens in postfix order, with the quoted phrases replaced by $n
+     * and the parameters replaced by ?n. Shared by the predicates of the same statement.
+     */
+    static class Plan {
+        final String sql;
+        final List<String> tokens;
+        final Map<String, String> phrases;
+        final int parameterCount;
+
+        Plan(String sql, List<String> tokens, Map<String, String> phrases, int parameterCount) {
+            this.sql = sql;
+            this.tokens = tokens;
+            this.phrases = phrases;
+            this.parameterCount = parameterCount;
+        }
+    }
+
+    private Predicate createPredicate(String sql, Object[] parameters) {
+        Plan plan = getPlan(sql);
+        if (parameters.length != plan.parameterCount) {
+            throw new IllegalArgumentException("Expected " + plan.parameterCount + " parameters but got "
+                    + parameters.length + " for sql: [" + sql + "]");
+        }
+        Map<String, String> mapPhrases = plan.phrases;
+        sql = plan.sql;
         Parser parser = new Parser();
-        List<String> sqlTokens = parser.toPrefix(sql);
-        List<Object> tokens = new ArrayList<Object>(sqlTokens);
+        List<Object> tokens = new ArrayList<Object>(plan.tokens);
         if (tokens.size() == 0) throw new RuntimeException("Invalid SQL: [" + sql + "]");
         if (tokens.size() == 1) {
             return eval(tokens.get(0));
@@ -118,75 +232,75 @@ public class SqlPredicate extends AbstractPredicate implements IndexAwarePredica
                     if ("=".equals(token) || "==".equals(token)) {
                         int position = (i - 2);
                         validateOperandPosition(position);
-                        Object first = toValue(tokens.remove(position), mapPhrases);
-                        Object second = toValue(tokens.remove(position), mapPhrases);
+                        Object first = toValue(tokens.remove(position), mapPhrases, parameters);
+                        Object second = toValue(tokens.remove(position), mapPhrases, parameters);
                         setOrAdd(tokens, position, equal(get((String) first), second));
                     } else if ("!=".equals(token)) {
                         int position = (i - 2);
                         validateOperandPosition(position);
-                        Object first = toValue(tokens.remove(position), mapPhrases);
-                        Object second = toValue(tokens.remove(position), mapPhrases);
+                        Object first = toValue(tokens.remove(position), mapPhrases, parameters);
+                        Object second = toValue(tokens.remove(position), mapPhrases, parameters);
                         setOrAdd(tokens, position, notEqual(get((String) first), second));
                     } else if (">".equals(token)) {
                         int position = (i - 2);
                         validateOperandPosition(position);
-                        Object first = toValue(tokens.remove(position), mapPhrases);
-                        Object second = toValue(tokens.remove(position), mapPhrases);
+                        Object first = toValue(tokens.remove(position), mapPhrases, parameters);
+                        Object second = toValue(tokens.remove(position), mapPhrases, parameters);
                         setOrAdd(tokens, position, greaterThan(get((String) first), (Comparable) second));
                     } else if (">=".equals(token)) {
                         int position = (i - 2);
                         validateOperandPosition(position);
-                        Object first = toValue(tokens.remove(position), mapPhrases);
-                        Object second = toValue(tokens.remove(position), mapPhrases);
+                        Object first = toValue(tokens.remove(position), mapPhrases, parameters);
+                        Object second = toValue(tokens.remove(position), mapPhrases, parameters);
                         setOrAdd(tokens, position, greaterEqual(get((String) first), (Comparable) second));
                     } else if ("<=".equals(token)) {
                         int position = (i - 2);
                         validateOperandPosition(position);
-                        Object first = toValue(tokens.remove(position), mapPhrases);
-                        Object second = toValue(tokens.remove(position), mapPhrases);
+                        Object first = toValue(tokens.remove(position), mapPhrases, parameters);
+                        Object second = toValue(tokens.remove(position), mapPhrases, parameters);
                         setOrAdd(tokens, position, lessEqual(get((String) first), (Comparable) second));
                     } else if ("<".equals(token)) {
                         int position = (i - 2);
                         validateOperandPosition(position);
-                        Object first = toValue(tokens.remove(position), mapPhrases);
-                        Object second = toValue(tokens.remove(position), mapPhrases);
+                        Object first = toValue(tokens.remove(position), mapPhrases, parameters);
+                        Object second = toValue(tokens.remove(position), mapPhrases, parameters);
                         setOrAdd(tokens, position, lessThan(get((String) first), (Comparable) second));
                     } else if ("LIKE".equalsIgnoreCase(token)) {
                         int position = (i - 2);
                         validateOperandPosition(position);
-                        Object first = toValue(tokens.remove(position), mapPhrases);
-                        Object second = toValue(tokens.remove(position), mapPhrases);
+                        Object first = toValue(tokens.remove(position), mapPhrases, parameters);
+                        Object second = toValue(tokens.remove(position), mapPhrases, parameters);
                         setOrAdd(tokens, position, like(get((String) first), (String) second));
                     } else if ("IN".equalsIgnoreCase(token)) {
                         int position = i - 2;
                         validateOperandPosition(position);
-                        Object exp = toValue(tokens.remove(position), mapPhrases);
-                        String[] values = toValue(((String) tokens.remove(position)).split(","), mapPhrases);
+                        Object exp = toValue(tokens.remove(position), mapPhrases, parameters);
+                        Comparable[] values = toValue(((String) tokens.remove(position)).split(","), mapPhrases, parameters);
                         setOrAdd(tokens, position, Predicates.in(get((String) exp), values));
                     } else if ("NOT".equalsIgnoreCase(token)) {
                         int position = i - 1;
                         validateOperandPosition(position);
-                        Object exp = toValue(tokens.remove(position), mapPhrases);
+                        Object exp = toValue(tokens.remove(position), mapPhrases, parameters);
                         setOrAdd(tokens, position, Predicates.not(eval(exp)));
                     } else if ("BETWEEN".equalsIgnoreCase(token)) {
                         int position = i - 3;
                         validateOperandPosition(position);
                         Object expression = tokens.remove(position);
-                        Object from = tokens.remove(position);
-                        Object to = tokens.remove(position);
+                        Object from = toValue(tokens.remove(position), mapPhrases, parameters);
+                        Object to = toValue(tokens.remove(position), mapPhrases, parameters);
                         setOrAdd(tokens, position, between(get((String) expression), (Comparable) from, (Comparable) to));
                     } else if ("AND".equalsIgnoreCase(token)) {
                         int position = i - 2;
                         validateOperandPosition(position);
-                        Object first = toValue(tokens.remove(position), mapPhrases);
-                        Object second = toValue(tokens.remove(position), mapPhrases);
-                        setOrAdd(tokens, position, and(eval(first), eval(second)));
+                        Object first = toValue(tokens.remove(position), mapPhrases, parameters);
+                        Object second = toValue(tokens.remove(position), mapPhrases, parameters);
+                        setOrAdd(tokens, position, andOr(true, eval(first), eval(second)));
                     } else if ("OR".equalsIgnoreCase(token)) {
                         int position = i - 2;
                         validateOperandPosition(position);
-                        Object first = toValue(tokens.remove(position), mapPhrases);
-                        Object second = toValue(tokens.remove(position), mapPhrases);
-                        setOrAdd(tokens, position, or(eval(first), eval(second)));
+                        Object first = toValue(tokens.remove(position), mapPhrases, parameters);
+                        Object second = toValue(tokens.remove(position), mapPhrases, parameters);
+                        setOrAdd(tokens, position, andOr(false, eval(first), eval(second)));
                     } else throw new RuntimeException("Unknown token " + token);
                     continue root;
                 }
@@ -204,10 +318,12 @@ public class SqlPredicate extends AbstractPredicate implements IndexAwarePredica
         }
     }
 
-    private Object toValue(final Object key, final Map<String, String> phrases) {
+    private Object toValue(final Object key, final Map<String, String> phrases, final Object[] parameters) {
         final String value = phrases.get(key);
         if (value != null) {
             return value;
+        } else if (key instanceof String && ((String) key).startsWith("?")) {
+            return parameters[Integer.parseInt(((String) key).substring(1))];
         } else if (key instanceof String && ("null".equalsIgnoreCase((String) key))) {
             return null;
         } else {
@@ -215,12 +331,35 @@ public class SqlPredicate extends AbstractPredicate implements IndexAwarePredica
         }
     }
 
-    private String[] toValue(final String[] keys, final Map<String, String> phrases) {
+    private Comparable[] toValue(final String[] keys, final Map<String, String> phrases, final Object[] parameters) {
+        final Comparable[] values = new Comparable[keys.length];
         for (int i = 0; i < keys.length; i++) {
             final String value = phrases.get(keys[i]);
-            if (value != null) keys[i] = value;
+            if (value != null) {
+                values[i] = value;
+            } else if (keys[i].startsWith("?")) {
+                values[i] = (Comparable) parameters[Integer.parseInt(keys[i].substring(1))];
+            } else {
+                values[i] = keys[i];
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Merges the operands that are AND (OR) predicates themselves into one AND (OR) predicate,
+     * so "a AND b AND c" is evaluated as one predicate of three operands.
+     */
+    private Predicate andOr(boolean and, Predicate first, Predicate second) {
+        final List<Predicate> predicates = new ArrayList<Predicate>();
+        for (Predicate p : new Predicate[]{first, second}) {
+            if (p instanceof AndOrPredicate && ((AndOrPredicate) p).and == and) {
+                predicates.addAll(Arrays.asList(((AndOrPredicate) p).predicates));
+            } else {
+                predicates.add(p);
+            }
         }
-        return keys;
+        return new AndOrPredicate(and, predicates.toArray(new Predicate[predicates.size()]));
     }
 
     private void setOrAdd(List tokens, int position, Predicate predicate) {
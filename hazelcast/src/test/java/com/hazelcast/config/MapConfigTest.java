@@ -16,9 +16,12 @@
 
 package com.hazelcast.config;
 
+import com.hazelcast.util.ByteUtil;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.io.*;
+
 import static org.junit.Assert.*;
 
 @RunWith(com.hazelcast.util.RandomBlockJUnit4ClassRunner.class)
@@ -99,6 +102,80 @@ public class MapConfigTest {
         new MapConfig().setEvictionPercentage(MapConfig.MAX_EVICTION_PERCENTAGE + 1);
     }
 
+    /**
+     * Test method for {@link com.hazelcast.config.MapConfig#getEvictionSampleSize()}.
+     */
+    @Test
+    public void testGetEvictionSampleSize() {
+        assertEquals(MapConfig.DEFAULT_EVICTION_SAMPLE_SIZE, new MapConfig().getEvictionSampleSize());
+    }
+
+    /**
+     * Test method for {@link com.hazelcast.config.MapConfig#setEvictionSampleSize(int)}.
+     */
+    @Test
+    public void testSetEvictionSampleSize() {
+        assertEquals(8, new MapConfig().setEvictionSampleSize(8).getEvictionSampleSize());
+    }
+
+    /**
+     * Test method for {@link com.hazelcast.config.MapConfig#setEvictionSampleSize(int)}.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetEvictionSampleSizeLowerLimit() {
+        new MapConfig().setEvictionSampleSize(MapConfig.MIN_EVICTION_SAMPLE_SIZE - 1);
+    }
+
+    @Test
+    public void testEvictionSampleSizeSerialization() throws Exception {
+        MapConfig sampled = serialize(new MapConfig("sampled").setEvictionSampleSize(8));
+        assertEquals(8, sampled.getEvictionSampleSize());
+        MapConfig notSampled = serialize(new MapConfig("sampled"));
+        assertEquals(MapConfig.DEFAULT_EVICTION_SAMPLE_SIZE, notSampled.getEvictionSampleSize());
+        // the default is not written, so the previous versions can read the config
+        assertEquals(toBytes(new MapConfig("sampled")).length + 4,
+                toBytes(new MapConfig("sampled").setEvictionSampleSize(8)).length);
+    }
+
+    @Test
+    public void testStatisticsEnabledSerialization() throws Exception {
+        assertTrue(serialize(new MapConfig("stats")).isStatisticsEnabled());
+        assertFalse(serialize(new MapConfig("stats").setStatisticsEnabled(false)).isStatisticsEnabled());
+        // only the flags differ, and the flags of the default config are the ones the
+        // previous versions write, so their configs are read with statistics enabled
+        byte[] enabled = toBytes(new MapConfig("stats"));
+        byte[] disabled = toBytes(new MapConfig("stats").setStatisticsEnabled(false));
+        assertEquals(enabled.length, disabled.length);
+        int flags = -1;
+        for (int i = 0; i < enabled.length; i++) {
+            if (enabled[i] != disabled[i]) {
+                assertEquals(-1, flags);
+                flags = i;
+            }
+        }
+        assertEquals(ByteUtil.toByte(false, false, new MapConfig().isCacheValue()), enabled[flags]);
+    }
+
+    @Test
+    public void testIsCompatibleIgnoresMemberLocalSettings() {
+        MapConfig mapConfig = new MapConfig("local");
+        assertTrue(mapConfig.isCompatible(new MapConfig("local").setStatisticsEnabled(false)));
+        assertTrue(mapConfig.isCompatible(new MapConfig("local").setEvictionSampleSize(8)));
+        assertFalse(mapConfig.isCompatible(new MapConfig("local").setBackupCount(2)));
+    }
+
+    private static byte[] toBytes(MapConfig mapConfig) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        mapConfig.writeData(new DataOutputStream(bos));
+        return bos.toByteArray();
+    }
+
+    private static MapConfig serialize(MapConfig mapConfig) throws IOException {
+        MapConfig result = new MapConfig();
+        result.readData(new DataInputStream(new ByteArrayInputStream(toBytes(mapConfig))));
+        return result;
+    }
+
     /**
      * Test method for {@link com.hazelcast.config.MapConfig#getEvictionDelaySeconds()}.
      */
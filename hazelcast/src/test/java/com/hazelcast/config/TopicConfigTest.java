@@ -19,6 +19,10 @@ package com.hazelcast.config;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.io.*;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
@@ -63,4 +67,35 @@ public class TopicConfigTest {
         TopicConfig topicConfig = new TopicConfig().setGlobalOrderingEnabled(!TopicConfig.DEFAULT_GLOBAL_ORDERING_ENABLED);
         assertTrue(TopicConfig.DEFAULT_GLOBAL_ORDERING_ENABLED != topicConfig.isGlobalOrderingEnabled());
     }
+
+    @Test
+    public void testSubscriberQueueSerialization() throws Exception {
+        TopicConfig bounded = serialize(new TopicConfig().setName("bounded").setGlobalOrderingEnabled(true)
+                .setSubscriberQueueCapacity(10).setOverflowPolicy(TopicConfig.OverflowPolicy.FAIL));
+        assertTrue(bounded.isGlobalOrderingEnabled());
+        assertEquals(10, bounded.getSubscriberQueueCapacity());
+        assertEquals(TopicConfig.OverflowPolicy.FAIL, bounded.getOverflowPolicy());
+        TopicConfig unbounded = serialize(new TopicConfig().setName("unbounded").setGlobalOrderingEnabled(true));
+        assertTrue(unbounded.isGlobalOrderingEnabled());
+        assertEquals(TopicConfig.DEFAULT_SUBSCRIBER_QUEUE_CAPACITY, unbounded.getSubscriberQueueCapacity());
+        assertEquals(TopicConfig.OverflowPolicy.BLOCK, unbounded.getOverflowPolicy());
+        // the defaults are not written, so the previous versions can read the config
+        ByteArrayOutputStream previous = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(previous);
+        out.writeUTF("unbounded");
+        out.writeBoolean(true);
+        assertArrayEquals(previous.toByteArray(), toBytes(new TopicConfig().setName("unbounded").setGlobalOrderingEnabled(true)));
+    }
+
+    private static byte[] toBytes(TopicConfig topicConfig) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        topicConfig.writeData(new DataOutputStream(bos));
+        return bos.toByteArray();
+    }
+
+    private static TopicConfig serialize(TopicConfig topicConfig) throws IOException {
+        TopicConfig result = new TopicConfig();
+        result.readData(new DataInputStream(new ByteArrayInputStream(toBytes(topicConfig))));
+        return result;
+    }
 }
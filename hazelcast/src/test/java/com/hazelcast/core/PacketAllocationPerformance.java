@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2008-2012, Hazel Bilisim Ltd. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.core;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.impl.FactoryImpl;
+import com.hazelcast.nio.PacketPool;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the bytes allocated by all the threads of the JVM per remote get/put and
+ * the packets created versus recycled by the shared packet pools of the two members.
+ * Needs a JVM supporting com.sun.management.ThreadMXBean#getThreadAllocatedBytes.
+ */
+@RunWith(com.hazelcast.util.RandomBlockJUnit4ClassRunner.class)
+public class PacketAllocationPerformance {
+
+    private static final int ENTRY_COUNT = 10000;
+    private static final int CALLER_THREAD_COUNT = 16;
+    private static final int DURATION_SECONDS = 10;
+
+    @After
+    public void cleanup() {
+        Hazelcast.shutdownAll();
+    }
+
+    @Test
+    public void testGetPutAllocation() throws Exception {
+        final com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        HazelcastInstance owner = Hazelcast.newHazelcastInstance(new Config());
+        HazelcastInstance caller = Hazelcast.newHazelcastInstance(new Config());
+        final IMap<Integer, String> map = caller.getMap("default");
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            map.put(i, "value" + i);
+        }
+        final AtomicLong ops = new AtomicLong();
+        final AtomicLong callerAllocation = new AtomicLong();
+        final long end = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(DURATION_SECONDS);
+        final CountDownLatch latch = new CountDownLatch(CALLER_THREAD_COUNT);
+        final Map<Long, Long> allocationsBefore = getAllocations(threadMXBean);
+        final long createdBefore = getPacketPool(owner).getCreatedCount() + getPacketPool(caller).getCreatedCount();
+        final long recycledBefore = getPacketPool(owner).getRecycledCount() + getPacketPool(caller).getRecycledCount();
+        for (int i = 0; i < CALLER_THREAD_COUNT; i++) {
+            new Thread() {
+                public void run() {
+                    long allocatedBefore = threadMXBean.getThreadAllocatedBytes(getId());
+                    int key = (int) (Math.random() * ENTRY_COUNT);
+                    while (System.currentTimeMillis() < end) {
+                        key = (key + 1) % ENTRY_COUNT;
+                        if ((key & 1) == 0) {
+                            map.put(key, "value" + key);
+                        } else {
+                            map.get(key);
+                        }
+                        ops.incrementAndGet();
+                    }
+                    callerAllocation.addAndGet(threadMXBean.getThreadAllocatedBytes(getId()) - allocatedBefore);
+                    latch.countDown();
+                }
+            }.start();
+        }
+        latch.await();
+        long allocated = callerAllocation.get();
+        for (Map.Entry<Long, Long> entry : getAllocations(threadMXBean).entrySet()) {
+            Long before = allocationsBefore.get(entry.getKey());
+            if (before != null) {
+                allocated += entry.getValue() - before;
+            }
+        }
+        long count = ops.get();
+        long created = getPacketPool(owner).getCreatedCount() + getPacketPool(caller).getCreatedCount() - createdBefore;
+        long recycled = getPacketPool(owner).getRecycledCount() + getPacketPool(caller).getRecycledCount() - recycledBefore;
+        System.out.println("get/put ops/sec=" + (count / DURATION_SECONDS)
+                + " bytes/op=" + (allocated / Math.max(1, count))
+                + " packets created=" + created + " recycled=" + recycled);
+    }
+
+    private static Map<Long, Long> getAllocations(com.sun.management.ThreadMXBean threadMXBean) {
+        final Map<Long, Long> allocations = new HashMap<Long, Long>();
+        for (long id : threadMXBean.getAllThreadIds()) {
+            long allocated = threadMXBean.getThreadAllocatedBytes(id);
+            if (allocated != -1) {
+                allocations.put(id, allocated);
+            }
+        }
+        return allocations;
+    }
+
+    private static PacketPool getPacketPool(HazelcastInstance hazelcastInstance) {
+        FactoryImpl.HazelcastInstanceProxy proxy = (FactoryImpl.HazelcastInstanceProxy) hazelcastInstance;
+        return proxy.getFactory().node.connectionManager.getPacketPool();
+    }
+}
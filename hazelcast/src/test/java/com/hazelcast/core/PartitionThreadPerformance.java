@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2008-2012, Hazel Bilisim Ltd. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.core;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.impl.GroupProperties;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares remote get/put throughput with different hazelcast.partition.thread.count values.
+ * Calls are made from the second member, so about half of them are served remotely by the first one.
+ */
+@RunWith(com.hazelcast.util.RandomBlockJUnit4ClassRunner.class)
+public class PartitionThreadPerformance {
+
+    private static final int ENTRY_COUNT = 10000;
+    private static final int CALLER_THREAD_COUNT = 16;
+    private static final int DURATION_SECONDS = 10;
+
+    @After
+    public void cleanup() {
+        Hazelcast.shutdownAll();
+    }
+
+    @Test
+    public void testGetWithPartitionThreads() throws Exception {
+        for (int partitionThreadCount : new int[]{0, 1, 2, 4, 8}) {
+            run("get", partitionThreadCount, false);
+        }
+    }
+
+    @Test
+    public void testPutWithPartitionThreads() throws Exception {
+        for (int partitionThreadCount : new int[]{0, 1, 2, 4, 8}) {
+            run("put", partitionThreadCount, true);
+        }
+    }
+
+    private void run(String name, int partitionThreadCount, final boolean put) throws Exception {
+        Config config = new Config();
+        config.setProperty(GroupProperties.PROP_PARTITION_THREAD_COUNT, String.valueOf(partitionThreadCount));
+        HazelcastInstance owner = Hazelcast.newHazelcastInstance(config);
+        HazelcastInstance caller = Hazelcast.newHazelcastInstance(config);
+        final IMap<Integer, String> ownerMap = owner.getMap("default");
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            ownerMap.put(i, "value" + i);
+        }
+        final IMap<Integer, String> map = caller.getMap("default");
+        final AtomicLong ops = new AtomicLong();
+        final long end = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(DURATION_SECONDS);
+        final CountDownLatch latch = new CountDownLatch(CALLER_THREAD_COUNT);
+        for (int i = 0; i < CALLER_THREAD_COUNT; i++) {
+            new Thread() {
+                public void run() {
+                    int key = (int) (Math.random() * ENTRY_COUNT);
+                    while (System.currentTimeMillis() < end) {
+                        key = (key + 1) % ENTRY_COUNT;
+                        if (put) {
+                            map.put(key, "value" + key);
+                        } else {
+                            map.get(key);
+                        }
+                        ops.incrementAndGet();
+                    }
+                    latch.countDown();
+                }
+            }.start();
+        }
+        latch.await();
+        System.out.println(name + " partitionThreads=" + partitionThreadCount + " ops/sec="
+                + (ops.get() / DURATION_SECONDS));
+        Hazelcast.shutdownAll();
+    }
+}
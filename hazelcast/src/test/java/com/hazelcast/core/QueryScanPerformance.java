@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2008-2012, Hazel Bilisim Ltd. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.core;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.impl.GroupProperties;
+import com.hazelcast.impl.TestUtil.Employee;
+import com.hazelcast.query.SqlPredicate;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compares the latency of full scan queries with different
+ * hazelcast.executor.query.partition.thread.count values on a single member.
+ */
+@RunWith(com.hazelcast.util.RandomBlockJUnit4ClassRunner.class)
+public class QueryScanPerformance {
+
+    private static final int ENTRY_COUNT = 200000;
+    private static final int QUERY_COUNT = 50;
+
+    @After
+    public void cleanup() {
+        Hazelcast.shutdownAll();
+    }
+
+    @Test
+    public void testFullScanWithPartitionThreads() throws Exception {
+        for (int partitionThreadCount : new int[]{1, 2, 4, 8}) {
+            run(partitionThreadCount);
+        }
+    }
+
+    private void run(int partitionThreadCount) throws Exception {
+        Config config = new Config();
+        config.setProperty(GroupProperties.PROP_EXECUTOR_QUERY_PARTITION_THREAD_COUNT, String.valueOf(partitionThreadCount));
+        HazelcastInstance h = Hazelcast.newHazelcastInstance(config);
+        IMap<Integer, Employee> map = h.getMap("employees");
+        Map<Integer, Employee> entries = new HashMap<Integer, Employee>();
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            entries.put(i, new Employee(i, "name" + i, i % 100, i % 2 == 0, i));
+            if (entries.size() == 10000) {
+                map.putAll(entries);
+                entries.clear();
+            }
+        }
+        final SqlPredicate predicate = new SqlPredicate("active and age between 10 and 40 and name like 'name1%'");
+        // warm up
+        for (int i = 0; i < 5; i++) {
+            map.keySet(predicate);
+        }
+        PerformanceTimer t = new PerformanceTimer("fullScan partitionThreads=" + partitionThreadCount, QUERY_COUNT);
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            map.keySet(predicate);
+        }
+        t.stop();
+        t.printResult();
+        Hazelcast.shutdownAll();
+    }
+}
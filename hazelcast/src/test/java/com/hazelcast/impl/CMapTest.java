@@ -17,6 +17,7 @@
 package com.hazelcast.impl;
 
 import com.hazelcast.config.Config;
+import com.hazelcast.config.MapConfig;
 import com.hazelcast.core.*;
 import com.hazelcast.impl.base.CallState;
 import com.hazelcast.impl.base.DistributedLock;
@@ -381,4 +382,97 @@ public class CMapTest extends TestUtil {
         assertFalse(cmap.contains(newContainsRequest(dKey, null)));
         node.connectionManager.shutdown();
     }
+
+    @Test
+    public void testOffHeapStorage() throws Exception {
+        Config config = new Config();
+        config.setProperty(GroupProperties.PROP_ELASTIC_MEMORY_ENABLED, "true");
+        config.setProperty(GroupProperties.PROP_ELASTIC_MEMORY_TOTAL_SIZE, "4M");
+        config.getMapConfig("offheap").setStorageType(MapConfig.StorageType.OFFHEAP);
+        HazelcastInstance h = Hazelcast.newHazelcastInstance(config);
+        IMap<Integer, String> map = h.getMap("offheap");
+        h.getMap("default").put(1, 1);
+        for (int i = 0; i < 1000; i++) {
+            map.put(i, "value" + i);
+        }
+        CMap cmap = getCMap(h, "offheap");
+        assertTrue(cmap.isOffHeapStorage());
+        assertFalse(getCMap(h, "default").isOffHeapStorage());
+        assertEquals(1000 * 1024, cmap.offHeapStorage.getUsedSize());
+        for (int i = 0; i < 1000; i++) {
+            map.put(i, "new" + i);
+        }
+        assertEquals(1000 * 1024, cmap.offHeapStorage.getUsedSize());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("new" + i, map.get(i));
+        }
+        // storage is full; remaining values are kept on heap
+        for (int i = 1000; i < 5000; i++) {
+            map.put(i, "value" + i);
+        }
+        assertEquals(cmap.offHeapStorage.getTotalSize(), cmap.offHeapStorage.getUsedSize());
+        assertEquals("value4999", map.get(4999));
+        assertEquals(5000, map.size());
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(i < 1000 ? "new" + i : "value" + i, map.remove(i));
+        }
+        assertEquals(0, cmap.offHeapStorage.getUsedSize());
+        assertEquals(0, map.getLocalMapStats().getOffHeapCost());
+    }
+
+    @Test
+    public void testOffHeapStorageReleasedOnRestartReset() throws Exception {
+        Config config = new Config();
+        config.setProperty(GroupProperties.PROP_ELASTIC_MEMORY_ENABLED, "true");
+        config.setProperty(GroupProperties.PROP_ELASTIC_MEMORY_TOTAL_SIZE, "4M");
+        config.getMapConfig("offheap").setStorageType(MapConfig.StorageType.OFFHEAP);
+        HazelcastInstance h = Hazelcast.newHazelcastInstance(config);
+        IMap<Integer, String> map = h.getMap("offheap");
+        for (int i = 0; i < 100; i++) {
+            map.put(i, "value" + i);
+        }
+        final CMap cmap = getCMap(h, "offheap");
+        assertEquals(100 * 1024, cmap.offHeapStorage.getUsedSize());
+        final Record record = cmap.getRecord(toData(1));
+        final CountDownLatch latch = new CountDownLatch(1);
+        cmap.concurrentMapManager.enqueueAndReturn(new Processable() {
+            public void process() {
+                cmap.reset(false);
+                latch.countDown();
+            }
+        });
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(0, cmap.offHeapStorage.getUsedSize());
+        // records are merged after the reset on restart
+        assertEquals("value1", toObject(record.getValueData()));
+    }
+
+    @Test
+    public void testCompactRecords() throws Exception {
+        Config config = new Config();
+        config.getMapConfig("compact").setStatisticsEnabled(false);
+        config.getMapConfig("compactLru").setStatisticsEnabled(false).setEvictionPolicy("LRU");
+        HazelcastInstance h = Hazelcast.newHazelcastInstance(config);
+        IMap<Integer, String> map = h.getMap("compact");
+        IMap<Integer, String> mapDefault = h.getMap("default");
+        for (int i = 0; i < 100; i++) {
+            map.put(i, "value" + i);
+            mapDefault.put(i, "value" + i);
+        }
+        h.getMap("compactLru").put(1, "value");
+        assertTrue(getCMap(h, "compact").getRecord(toData(1)) instanceof CompactRecord);
+        assertTrue(getCMap(h, "default").getRecord(toData(1)) instanceof DefaultRecord);
+        assertTrue(getCMap(h, "compactLru").getRecord(toData(1)) instanceof DefaultRecord);
+        assertEquals("value1", map.get(1));
+        assertEquals(0, map.getMapEntry(1).getHits());
+        long heapCost = map.getLocalMapStats().getHeapCost();
+        assertTrue(heapCost > 0);
+        assertTrue(heapCost < mapDefault.getLocalMapStats().getHeapCost());
+        // ttl per entry is still supported
+        map.put(1000, "ttl", 1, TimeUnit.SECONDS);
+        assertEquals("ttl", map.get(1000));
+        Thread.sleep(2000);
+        assertNull(map.get(1000));
+        assertEquals(100, map.size());
+    }
 }
@@ -243,6 +243,84 @@ public class ClusterBackupTest {
         }
     }
 
+    @Test(timeout = 120000)
+    public void testMigrationInChunks() throws Exception {
+        final int size = 10000;
+        Config config = new Config();
+        config.setProperty(GroupProperties.PROP_MIGRATION_CHUNK_SIZE, "16K");
+        HazelcastInstance h1 = Hazelcast.newHazelcastInstance(config);
+        IMap<Integer, byte[]> map1 = h1.getMap("default");
+        for (int i = 0; i < size; i++) {
+            map1.put(i, new byte[1024]);
+        }
+        HazelcastInstance h2 = Hazelcast.newHazelcastInstance(config);
+        IMap<Integer, byte[]> map2 = h2.getMap("default");
+        for (int i = 0; i < 60 && getTotalBackupEntryCount(map1, map2) != size; i++) {
+            sleep(1000);
+        }
+        assertEquals(size, getTotalOwnedEntryCount(map1, map2));
+        assertEquals(size, getTotalBackupEntryCount(map1, map2));
+        PartitionManager pm1 = getNode(h1).concurrentMapManager.getPartitionManager();
+        PartitionManager pm2 = getNode(h2).concurrentMapManager.getPartitionManager();
+        assertTrue(pm1.getMigratedRecordCount() + pm2.getMigratedRecordCount() >= size);
+        assertTrue(pm1.getMigratedBytes() > 0);
+        assertEquals(0, pm1.getMigrationBytesInFlight());
+        assertEquals(0, pm2.getMigrationBytesInFlight());
+        h1.getLifecycleService().kill();
+        assertEquals(size, map2.size());
+        for (int i = 0; i < size; i++) {
+            assertEquals(1024, map2.get(i).length);
+        }
+    }
+
+    @Test(timeout = 120000)
+    public void testBatchedDeltaBackups() throws Exception {
+        final int size = 100;
+        final int threadCount = 4;
+        final int updateCount = 50;
+        Config config = new Config();
+        config.setProperty(GroupProperties.PROP_BACKUP_BATCH_ENABLED, "true");
+        config.setProperty(GroupProperties.PROP_BACKUP_DELTA_MIN_SIZE, "1K");
+        config.getMapConfig("default").setBackupCount(2);
+        HazelcastInstance h1 = Hazelcast.newHazelcastInstance(config);
+        HazelcastInstance h2 = Hazelcast.newHazelcastInstance(config);
+        HazelcastInstance h3 = Hazelcast.newHazelcastInstance(config);
+        final IMap<Integer, byte[]> map1 = h1.getMap("default");
+        IMap<Integer, byte[]> map3 = h3.getMap("default");
+        final CountDownLatch latch = new CountDownLatch(threadCount);
+        for (int t = 0; t < threadCount; t++) {
+            final int threadIndex = t;
+            new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        for (int u = 0; u < updateCount; u++) {
+                            for (int i = threadIndex; i < size; i += threadCount) {
+                                byte[] value = new byte[4096];
+                                value[2048] = (byte) u;
+                                map1.put(i, value);
+                            }
+                        }
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            }).start();
+        }
+        assertTrue(latch.await(60, TimeUnit.SECONDS));
+        ConcurrentMapManager cmm1 = getConcurrentMapManager(h1);
+        assertTrue(cmm1.getBackupBatchCount() > 0);
+        assertTrue(cmm1.getBackupDeltaBytesSaved() > 0);
+        assertEquals(0, cmm1.getMaxBackupLag());
+        h1.getLifecycleService().kill();
+        h2.getLifecycleService().kill();
+        assertEquals(size, map3.size());
+        for (int i = 0; i < size; i++) {
+            byte[] value = map3.get(i);
+            assertEquals(4096, value.length);
+            assertEquals(updateCount - 1, value[2048]);
+        }
+    }
+
     /**
      * Testing if we are losing any data when we start a node
      * or when we shutdown a node.
@@ -21,6 +21,7 @@ import com.hazelcast.config.*;
 import com.hazelcast.core.*;
 import com.hazelcast.examples.TestApp;
 import com.hazelcast.monitor.DistributedMapStatsCallable;
+import com.hazelcast.monitor.LocalMapStats;
 import com.hazelcast.nio.Address;
 import com.hazelcast.partition.MigrationEvent;
 import com.hazelcast.partition.MigrationListener;
@@ -768,6 +769,68 @@ public class ClusterTest {
         assertTrue(latchEvicted.await(waitSeconds, TimeUnit.SECONDS));
     }
 
+    @Test(timeout = 120000)
+    public void testMembersWithAndWithoutCompactPacketHeader() throws Exception {
+        Config config = new Config();
+        config.setProperty(GroupProperties.PROP_PACKET_COMPACT_HEADER, "true");
+        HazelcastInstance h1 = Hazelcast.newHazelcastInstance(config);
+        HazelcastInstance h2 = Hazelcast.newHazelcastInstance(new Config());
+        IMap<Integer, Integer> map1 = h1.getMap("default");
+        IMap<Integer, Integer> map2 = h2.getMap("default");
+        for (int i = 0; i < 1000; i++) {
+            map1.put(i, i);
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(Integer.valueOf(i), map2.get(i));
+        }
+        assertEquals(1000, map2.size());
+    }
+
+    @Test(timeout = 120000)
+    public void testBatchedEventsInKeyOrder() throws Exception {
+        Config config = new Config();
+        config.setProperty(GroupProperties.PROP_EVENT_BATCH_SIZE, "100");
+        HazelcastInstance h1 = Hazelcast.newHazelcastInstance(config);
+        HazelcastInstance h2 = Hazelcast.newHazelcastInstance(config);
+        final int keyCount = 100;
+        final int updateCount = 50;
+        final ConcurrentMap<Integer, Integer> lastValues = new ConcurrentHashMap<Integer, Integer>();
+        final AtomicInteger outOfOrder = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(keyCount * updateCount);
+        IMap<Integer, Integer> map2 = h2.getMap("default");
+        map2.addEntryListener(new EntryAdapter<Integer, Integer>() {
+            public void entryAdded(EntryEvent<Integer, Integer> event) {
+                entryUpdated(event);
+            }
+
+            public void entryUpdated(EntryEvent<Integer, Integer> event) {
+                Integer last = lastValues.put(event.getKey(), event.getValue());
+                if (last != null && last + 1 != event.getValue()) {
+                    outOfOrder.incrementAndGet();
+                }
+                latch.countDown();
+            }
+        }, true);
+        IMap<Integer, Integer> map1 = h1.getMap("default");
+        for (int i = 0; i < updateCount; i++) {
+            for (int k = 0; k < keyCount; k++) {
+                map1.put(k, i);
+            }
+        }
+        assertTrue(latch.await(60, TimeUnit.SECONDS));
+        assertEquals(0, outOfOrder.get());
+        for (int k = 0; k < keyCount; k++) {
+            assertEquals(Integer.valueOf(updateCount - 1), lastValues.get(k));
+        }
+        assertTrue(TestUtil.getNode(h1).listenerManager.getSentEventBatchCount() > 0);
+        final ListenerManager listenerManager2 = TestUtil.getNode(h2).listenerManager;
+        for (int i = 0; i < 50 && listenerManager2.getQueuedEventCount() > 0; i++) {
+            Thread.sleep(100);
+        }
+        assertEquals(0, listenerManager2.getQueuedEventCount());
+        assertEquals(0, listenerManager2.getDroppedEventCount());
+    }
+
     @Test(timeout = 120000)
     public void testListeners() throws Exception {
         HazelcastInstance h1 = Hazelcast.newHazelcastInstance(new Config());
@@ -1569,6 +1632,169 @@ public class ClusterTest {
         assertTrue(latch.await(10, TimeUnit.SECONDS));
     }
 
+    @Test
+    public void testTopicMessagesKeepPublishOrder() throws Exception {
+        testTopicMessagesKeepPublishOrder(new Config());
+    }
+
+    @Test
+    public void testTopicBatchedMessagesKeepPublishOrder() throws Exception {
+        Config config = new Config();
+        config.setProperty(GroupProperties.PROP_TOPIC_PUBLISH_BATCH_ENABLED, "true");
+        testTopicMessagesKeepPublishOrder(config);
+    }
+
+    private void testTopicMessagesKeepPublishOrder(Config config) throws Exception {
+        final int count = 5000;
+        HazelcastInstance h1 = Hazelcast.newHazelcastInstance(config);
+        HazelcastInstance h2 = Hazelcast.newHazelcastInstance(config);
+        final List<Integer> received = new CopyOnWriteArrayList<Integer>();
+        final CountDownLatch latch = new CountDownLatch(count);
+        h2.<Integer>getTopic("ordered").addMessageListener(new MessageListener<Integer>() {
+            public void onMessage(Message<Integer> msg) {
+                received.add(msg.getMessageObject());
+                latch.countDown();
+            }
+        });
+        ITopic<Integer> topic = h1.getTopic("ordered");
+        for (int i = 0; i < count; i++) {
+            topic.publish(i);
+        }
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+        for (int i = 0; i < count; i++) {
+            assertEquals(Integer.valueOf(i), received.get(i));
+        }
+    }
+
+    @Test
+    public void testTopicSlowListenerDropsOldestMessages() throws Exception {
+        Config config = new Config();
+        config.getTopicConfig("slow").setSubscriberQueueCapacity(10).setOverflowPolicy(TopicConfig.OverflowPolicy.DROP_OLDEST);
+        HazelcastInstance h1 = Hazelcast.newHazelcastInstance(config);
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final AtomicInteger fastReceived = new AtomicInteger();
+        ITopic<Integer> topic = h1.getTopic("slow");
+        topic.addMessageListener(new MessageListener<Integer>() {
+            public void onMessage(Message<Integer> msg) {
+                try {
+                    blocked.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException ignored) {
+                }
+            }
+        });
+        topic.addMessageListener(new MessageListener<Integer>() {
+            public void onMessage(Message<Integer> msg) {
+                fastReceived.incrementAndGet();
+            }
+        });
+        for (int i = 0; i < 100; i++) {
+            topic.publish(i);
+        }
+        assertTrue(topic.getLocalTopicStats().getDroppedMessageCount() > 0);
+        assertTrue(topic.getLocalTopicStats().getMaxSubscriberQueueSize() <= 10);
+        blocked.countDown();
+        Thread.sleep(1000);
+        assertTrue(fastReceived.get() > 0);
+    }
+
+    @Test
+    public void testTopicSlowListenerFailsPublish() throws Exception {
+        Config config = new Config();
+        config.getTopicConfig("failing").setSubscriberQueueCapacity(1).setOverflowPolicy(TopicConfig.OverflowPolicy.FAIL);
+        HazelcastInstance h1 = Hazelcast.newHazelcastInstance(config);
+        final CountDownLatch blocked = new CountDownLatch(1);
+        ITopic<Integer> topic = h1.getTopic("failing");
+        topic.addMessageListener(new MessageListener<Integer>() {
+            public void onMessage(Message<Integer> msg) {
+                try {
+                    blocked.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException ignored) {
+                }
+            }
+        });
+        try {
+            for (int i = 0; i < 10; i++) {
+                topic.publish(i);
+            }
+            fail("Publish should fail while the listener's queue is full");
+        } catch (IllegalStateException expected) {
+        } finally {
+            blocked.countDown();
+        }
+        assertTrue(topic.getLocalTopicStats().getDroppedMessageCount() > 0);
+    }
+
+    @Test
+    public void testTopicRejectedPublishIsNotSentToOtherMembers() throws Exception {
+        Config config = new Config();
+        config.getTopicConfig("failing").setSubscriberQueueCapacity(1).setOverflowPolicy(TopicConfig.OverflowPolicy.FAIL);
+        HazelcastInstance h1 = Hazelcast.newHazelcastInstance(config);
+        HazelcastInstance h2 = Hazelcast.newHazelcastInstance(new Config());
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final AtomicInteger received = new AtomicInteger();
+        ITopic<Integer> topic = h1.getTopic("failing");
+        topic.addMessageListener(new MessageListener<Integer>() {
+            public void onMessage(Message<Integer> msg) {
+                try {
+                    blocked.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException ignored) {
+                }
+            }
+        });
+        h2.getTopic("failing").addMessageListener(new MessageListener<Object>() {
+            public void onMessage(Message<Object> msg) {
+                received.incrementAndGet();
+            }
+        });
+        // let the listener registration of h2 reach h1
+        Thread.sleep(1000);
+        int published = 0;
+        try {
+            for (int i = 0; i < 10; i++) {
+                topic.publish(i);
+                published++;
+            }
+            fail("Publish should fail while the listener's queue is full");
+        } catch (IllegalStateException expected) {
+        } finally {
+            blocked.countDown();
+        }
+        Thread.sleep(1000);
+        assertEquals(published, received.get());
+    }
+
+    @Test
+    public void testTopicSlowListenerDoesNotBlockRemoteMessages() throws Exception {
+        Config config = new Config();
+        config.getTopicConfig("blocking").setSubscriberQueueCapacity(1).setOverflowPolicy(TopicConfig.OverflowPolicy.BLOCK);
+        HazelcastInstance h1 = Hazelcast.newHazelcastInstance(config);
+        HazelcastInstance h2 = Hazelcast.newHazelcastInstance(config);
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch fastReceived = new CountDownLatch(20);
+        ITopic<Integer> topic = h1.getTopic("blocking");
+        topic.addMessageListener(new MessageListener<Integer>() {
+            public void onMessage(Message<Integer> msg) {
+                try {
+                    blocked.await(30, TimeUnit.SECONDS);
+                } catch (InterruptedException ignored) {
+                }
+            }
+        });
+        topic.addMessageListener(new MessageListener<Integer>() {
+            public void onMessage(Message<Integer> msg) {
+                fastReceived.countDown();
+            }
+        });
+        try {
+            for (int i = 0; i < 20; i++) {
+                h2.getTopic("blocking").publish(i);
+            }
+            assertTrue(fastReceived.await(10, TimeUnit.SECONDS));
+        } finally {
+            blocked.countDown();
+        }
+    }
+
     @Test
     public void testMapListenersWithMultiple() throws Exception {
         final CountDownLatch latch = new CountDownLatch(3);
@@ -2227,6 +2453,46 @@ public class ClusterTest {
         assertFalse(m2.containsKey(1));
     }
 
+    @Test
+    public void testNearCacheStatsAndEviction() throws Exception {
+        Config config = new Config();
+        NearCacheConfig nearCacheConfig = new NearCacheConfig();
+        nearCacheConfig.setMaxSize(100);
+        nearCacheConfig.setEvictionPolicy("LRU");
+        config.getMapConfig("default").setNearCacheConfig(nearCacheConfig);
+        HazelcastInstance h1 = Hazelcast.newHazelcastInstance(config);
+        HazelcastInstance h2 = Hazelcast.newHazelcastInstance(config);
+        IMap<Integer, Integer> map1 = h1.getMap("default");
+        IMap<Integer, Integer> map2 = h2.getMap("default");
+        for (int i = 0; i < 1000; i++) {
+            map1.put(i, i);
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, map2.get(i).intValue());
+        }
+        LocalMapStats stats = map2.getLocalMapStats();
+        assertTrue(stats.getNearCacheMisses() >= 1000);
+        assertTrue(stats.getNearCacheEvictions() > 0);
+        assertTrue(stats.getNearCacheEntryCount() > 0);
+        assertTrue(stats.getNearCacheEntryCount() < 100);
+        Integer cachedKey = null;
+        for (int i = 999; i >= 0 && cachedKey == null; i--) {
+            long misses = map2.getLocalMapStats().getNearCacheMisses();
+            map2.get(i);
+            if (map2.getLocalMapStats().getNearCacheMisses() == misses) {
+                cachedKey = i;
+            }
+        }
+        assertNotNull(cachedKey);
+        long hits = map2.getLocalMapStats().getNearCacheHits();
+        long misses = map2.getLocalMapStats().getNearCacheMisses();
+        for (int i = 0; i < 10; i++) {
+            assertEquals(cachedKey, map2.get(cachedKey));
+        }
+        assertEquals(hits + 10, map2.getLocalMapStats().getNearCacheHits());
+        assertEquals(misses, map2.getLocalMapStats().getNearCacheMisses());
+    }
+
     @Test
     public void testQueueDestroy() throws Exception {
         HazelcastInstance h1 = Hazelcast.newHazelcastInstance(new Config());
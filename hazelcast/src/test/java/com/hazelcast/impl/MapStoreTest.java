@@ -161,6 +161,65 @@ public class MapStoreTest extends TestUtil {
         assertEquals("After gets:", 15, testMapStore.callCount.get());
     }
 
+    @Test
+    public void testEagerInitialLoadProgress() throws Exception {
+        TestMapStore testMapStore = new TestMapStore();
+        int size = 2500;
+        for (int i = 0; i < size; i++) {
+            testMapStore.getStore().put(i, "value" + i);
+        }
+        Config config = newConfig(testMapStore, 0);
+        config.setProperty(GroupProperties.PROP_MAP_LOAD_CHUNK_SIZE, "100");
+        HazelcastInstance h1 = Hazelcast.newHazelcastInstance(config);
+        IMap map = h1.getMap("default");
+        assertEquals(size, map.size());
+        LocalMapStats localMapStats = map.getLocalMapStats();
+        assertEquals(size, localMapStats.getLoadedEntryCount());
+        assertEquals(0, localMapStats.getPendingLoadEntryCount());
+        // 1 loadAllKeys and 25 loadAll calls of 100 keys
+        assertEquals(26, testMapStore.callCount.get());
+    }
+
+    @Test
+    public void testLazyInitialLoadKeepsUpdates() throws Exception {
+        testLazyInitialLoadKeepsUpdates(false);
+    }
+
+    @Test
+    public void testLazyInitialLoadKeepsUpdatesWithPutIfAbsent() throws Exception {
+        testLazyInitialLoadKeepsUpdates(true);
+    }
+
+    private void testLazyInitialLoadKeepsUpdates(boolean putIfAbsentEnabled) throws Exception {
+        TestMapStore testMapStore = new TestMapStore();
+        int size = 10000;
+        for (int i = 0; i < size; i++) {
+            testMapStore.getStore().put(i, "value" + i);
+        }
+        Config config = newConfig(testMapStore, 0);
+        config.setProperty(GroupProperties.PROP_MAP_LOAD_PUT_IF_ABSENT_ENABLED, String.valueOf(putIfAbsentEnabled));
+        config.getMapConfig("default").getMapStoreConfig().setInitialLoadMode(MapStoreConfig.InitialLoadMode.LAZY);
+        HazelcastInstance h1 = Hazelcast.newHazelcastInstance(config);
+        HazelcastInstance h2 = Hazelcast.newHazelcastInstance(config);
+        IMap map1 = h1.getMap("default");
+        IMap map2 = h2.getMap("default");
+        map1.put(1, "updated");
+        assertEquals("value2", map2.get(2));
+        for (int i = 0; i < 30; i++) {
+            if (map1.getLocalMapStats().getPendingLoadEntryCount() == 0
+                    && map2.getLocalMapStats().getPendingLoadEntryCount() == 0) {
+                break;
+            }
+            Thread.sleep(1000);
+        }
+        assertEquals(0, map1.getLocalMapStats().getPendingLoadEntryCount());
+        assertEquals(0, map2.getLocalMapStats().getPendingLoadEntryCount());
+        assertEquals(size, map1.size());
+        assertEquals("updated", map2.get(1));
+        assertEquals("updated", testMapStore.getStore().get(1));
+        assertEquals("value" + (size - 1), map1.get(size - 1));
+    }
+
     @Test
     public void testThreeMemberGetAll() throws Exception {
         TestEventBasedMapStore testMapStore = new TestEventBasedMapStore();
@@ -471,6 +530,128 @@ public class MapStoreTest extends TestUtil {
         assertEquals("value1", testMapStore.db.get("1"));
     }
 
+    @Test
+    public void testWriteBehindCoalescesUpdatesInBatches() throws Exception {
+        BatchRecordingMapStore mapStore = new BatchRecordingMapStore(null);
+        Config config = newConfig(mapStore, 1);
+        config.getMapConfig("default").getMapStoreConfig().setWriteBatchSize(10);
+        HazelcastInstance h1 = Hazelcast.newHazelcastInstance(config);
+        IMap map = h1.getMap("default");
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 100; i++) {
+                map.put(i, "value" + round);
+            }
+        }
+        assertEquals(100, map.getLocalMapStats().getWriteBehindQueueSize());
+        mapStore.awaitStored(100, 20);
+        for (int i = 0; i < 100; i++) {
+            assertEquals("value2", mapStore.db.get(i));
+        }
+        assertEquals(100, mapStore.storedCount.get());
+        assertTrue(mapStore.maxBatchSize.get() <= 10);
+        LocalMapStats localMapStats = map.getLocalMapStats();
+        assertEquals(0, localMapStats.getWriteBehindQueueSize());
+        assertEquals(0, localMapStats.getOldestDirtyEntryAge());
+        assertEquals(0, localMapStats.getFailedStoreCount());
+    }
+
+    @Test
+    public void testWriteBehindRetriesFailedEntriesAndLimitsQueue() throws Exception {
+        BatchRecordingMapStore mapStore = new BatchRecordingMapStore("bad");
+        Config config = newConfig(mapStore, 1);
+        config.getMapConfig("default").getMapStoreConfig().setWriteBehindQueueCapacity(5);
+        HazelcastInstance h1 = Hazelcast.newHazelcastInstance(config);
+        IMap map = h1.getMap("default");
+        map.put("bad", "value");
+        map.put("good1", "value");
+        map.put("good2", "value");
+        mapStore.awaitStored(2, 20);
+        assertTrue(mapStore.db.containsKey("good1"));
+        assertTrue(mapStore.db.containsKey("good2"));
+        assertFalse(mapStore.db.containsKey("bad"));
+        LocalMapStats localMapStats = map.getLocalMapStats();
+        for (int i = 0; i < 50 && localMapStats.getWriteBehindQueueSize() == 0; i++) {
+            Thread.sleep(100);
+            localMapStats = map.getLocalMapStats();
+        }
+        assertTrue(localMapStats.getFailedStoreCount() > 0);
+        assertEquals(1, localMapStats.getWriteBehindQueueSize());
+        for (int i = 0; i < 20; i++) {
+            map.put(i, "value");
+            assertTrue(map.getLocalMapStats().getWriteBehindQueueSize() <= 5);
+        }
+        mapStore.awaitStored(22, 20);
+        for (int i = 0; i < 20; i++) {
+            map.putTransient("transient" + i, "value", 0, TimeUnit.SECONDS);
+        }
+        for (int i = 0; i < 20; i++) {
+            map.remove(i);
+            assertTrue(map.getLocalMapStats().getWriteBehindQueueSize() <= 5);
+        }
+        for (int i = 0; i < 20; i++) {
+            assertNotNull(map.replace("transient" + i, "value2"));
+            assertTrue(map.getLocalMapStats().getWriteBehindQueueSize() <= 5);
+        }
+        mapStore.failKey = null;
+        mapStore.awaitStored(43, 20);
+        assertEquals("value", mapStore.db.get("bad"));
+    }
+
+    public static class BatchRecordingMapStore implements MapStore {
+        final Map db = new ConcurrentHashMap();
+        final AtomicInteger storedCount = new AtomicInteger();
+        final AtomicInteger maxBatchSize = new AtomicInteger();
+        volatile Object failKey;
+
+        public BatchRecordingMapStore(Object failKey) {
+            this.failKey = failKey;
+        }
+
+        public Object load(Object key) {
+            return db.get(key);
+        }
+
+        public Map loadAll(Collection keys) {
+            return null;
+        }
+
+        public Set loadAllKeys() {
+            return null;
+        }
+
+        public void delete(Object key) {
+            db.remove(key);
+        }
+
+        public void deleteAll(Collection keys) {
+            for (Object key : keys) {
+                delete(key);
+            }
+        }
+
+        public void store(Object key, Object value) {
+            storeAll(Collections.singletonMap(key, value));
+        }
+
+        public synchronized void storeAll(Map map) {
+            if (failKey != null && map.containsKey(failKey)) {
+                throw new RuntimeException("Cannot store " + failKey);
+            }
+            db.putAll(map);
+            storedCount.addAndGet(map.size());
+            maxBatchSize.set(Math.max(maxBatchSize.get(), map.size()));
+            notifyAll();
+        }
+
+        synchronized void awaitStored(int count, int seconds) throws InterruptedException {
+            final long end = System.currentTimeMillis() + seconds * 1000L;
+            while (storedCount.get() < count && System.currentTimeMillis() < end) {
+                wait(100);
+            }
+            assertTrue("stored " + storedCount.get() + " of " + count, storedCount.get() >= count);
+        }
+    }
+
     @Test
     public void testOneMemberFlushOnShutdown() throws Exception {
         TestMapStore testMapStore = new TestMapStore(1, 1, 1);
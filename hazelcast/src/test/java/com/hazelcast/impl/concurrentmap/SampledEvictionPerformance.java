@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2008-2012, Hazel Bilisim Ltd. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.impl.concurrentmap;
+
+import com.hazelcast.core.MapEntry;
+import com.hazelcast.impl.TestUtil;
+import org.junit.Test;
+
+import java.util.*;
+
+/**
+ * Compares selecting 25% of the entries for eviction by sorting all of them
+ * (as CMap does with eviction-sample-size 0) with sampled selection.
+ */
+public class SampledEvictionPerformance extends TestUtil {
+
+    private static final int ENTRY_COUNT = 2000000;
+    private static final int ROUNDS = 5;
+
+    @Test
+    public void testSortedVersusSampled() {
+        final List<MapEntry> entries = new ArrayList<MapEntry>(ENTRY_COUNT);
+        final Random random = new Random(0);
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            EmptyMapEntry entry = new EmptyMapEntry(i);
+            entry.setLastAccessTime(random.nextInt(Integer.MAX_VALUE));
+            entries.add(entry);
+        }
+        final Comparator<MapEntry> comparator = new LRUMapEntryComparator();
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            Set<MapEntry> sorted = new TreeSet<MapEntry>(comparator);
+            sorted.addAll(entries);
+            int evictCount = sorted.size() / 4;
+            List<MapEntry> toEvict = new ArrayList<MapEntry>(evictCount);
+            for (MapEntry entry : sorted) {
+                toEvict.add(entry);
+                if (toEvict.size() >= evictCount) break;
+            }
+            long sortedMillis = (System.nanoTime() - start) / 1000000;
+            for (int sampleSize : new int[]{4, 8, 16}) {
+                start = System.nanoTime();
+                SampledEvictionSelector<MapEntry> selector = new SampledEvictionSelector<MapEntry>(comparator, sampleSize, 0.25f);
+                for (MapEntry entry : entries) {
+                    selector.offer(entry);
+                }
+                int selected = selector.getSelected().size();
+                long sampledMillis = (System.nanoTime() - start) / 1000000;
+                System.out.println("round " + round + " sorted: " + sortedMillis + " ms, sampled(" + sampleSize
+                        + "): " + sampledMillis + " ms, selected " + selected + "/" + toEvict.size());
+            }
+        }
+    }
+}
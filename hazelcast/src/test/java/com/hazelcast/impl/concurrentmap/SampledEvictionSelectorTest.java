@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2008-2012, Hazel Bilisim Ltd. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.impl.concurrentmap;
+
+import com.hazelcast.core.MapEntry;
+import com.hazelcast.impl.TestUtil;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(com.hazelcast.util.RandomBlockJUnit4ClassRunner.class)
+public class SampledEvictionSelectorTest extends TestUtil {
+
+    @Test
+    public void testSelectsLeastRecentlyUsedOfEachSample() {
+        List<MapEntry> selected = selectLeastRecentlyUsed();
+        assertEquals(250, selected.size());
+        int old = 0;
+        for (MapEntry entry : selected) {
+            if (entry.getLastAccessTime() < 1000) {
+                old++;
+            }
+        }
+        // a random sample of 4 has one of the older entries in it most of the time
+        assertTrue("old " + old, old > 125);
+    }
+
+    @Test
+    public void testSamplesAreRandom() {
+        assertFalse(new HashSet<MapEntry>(selectLeastRecentlyUsed()).equals(new HashSet<MapEntry>(selectLeastRecentlyUsed())));
+    }
+
+    private static final List<MapEntry> entries = new ArrayList<MapEntry>();
+
+    static {
+        for (int i = 0; i < 1000; i++) {
+            EmptyMapEntry entry = new EmptyMapEntry(i);
+            // one of every 4 entries is older than the rest
+            entry.setLastAccessTime(i % 4 == 2 ? i : 1000 + i);
+            entries.add(entry);
+        }
+    }
+
+    private static List<MapEntry> selectLeastRecentlyUsed() {
+        SampledEvictionSelector<MapEntry> selector =
+                new SampledEvictionSelector<MapEntry>(new LRUMapEntryComparator(), 4, 0.25f);
+        for (MapEntry entry : entries) {
+            selector.offer(entry);
+        }
+        return selector.getSelected();
+    }
+
+    @Test
+    public void testSelectedCountFollowsEvictionRate() {
+        SampledEvictionSelector<MapEntry> selector =
+                new SampledEvictionSelector<MapEntry>(new LFUMapEntryComparator(), 8, 0.3f);
+        for (int i = 0; i < 1000; i++) {
+            EmptyMapEntry entry = new EmptyMapEntry(i);
+            entry.setHits(i);
+            selector.offer(entry);
+        }
+        int selected = selector.getSelected().size();
+        assertTrue("selected " + selected, selected >= 299 && selected <= 300);
+    }
+
+    @Test
+    public void testPartialSample() {
+        SampledEvictionSelector<MapEntry> selector =
+                new SampledEvictionSelector<MapEntry>(new LRUMapEntryComparator(), 16, 1f);
+        for (int i = 0; i < 5; i++) {
+            selector.offer(new EmptyMapEntry(i));
+        }
+        assertEquals(5, selector.getSelected().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSampleSize() {
+        new SampledEvictionSelector<MapEntry>(new LRUMapEntryComparator(), 0, 0.25f);
+    }
+}
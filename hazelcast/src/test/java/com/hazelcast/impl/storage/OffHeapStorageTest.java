@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2008-2012, Hazel Bilisim Ltd. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.impl.storage;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+@RunWith(com.hazelcast.util.RandomBlockJUnit4ClassRunner.class)
+public class OffHeapStorageTest {
+
+    @Test
+    public void testPutGetRemove() {
+        OffHeapStorage storage = new OffHeapStorage(64 * 1024, 100);
+        Random random = new Random();
+        List<byte[]> values = new ArrayList<byte[]>();
+        List<DataRef> refs = new ArrayList<DataRef>();
+        for (int i = 0; i < 100; i++) {
+            byte[] value = new byte[random.nextInt(350)];
+            random.nextBytes(value);
+            DataRef ref = storage.put(i, value);
+            assertNotNull(ref);
+            values.add(value);
+            refs.add(ref);
+        }
+        for (int i = 0; i < values.size(); i++) {
+            assertArrayEquals(values.get(i), storage.get(refs.get(i)));
+        }
+        assertTrue(storage.getUsedSize() > 0);
+        for (DataRef ref : refs) {
+            storage.remove(ref);
+            assertNull(storage.get(ref));
+            // removing twice must not free the chunks again
+            storage.remove(ref);
+        }
+        assertEquals(0, storage.getUsedSize());
+    }
+
+    @Test
+    public void testFull() {
+        OffHeapStorage storage = new OffHeapStorage(1000, 100);
+        assertEquals(1000, storage.getTotalSize());
+        DataRef ref = storage.put(1, new byte[250]);
+        assertNotNull(ref);
+        assertEquals(300, storage.getUsedSize());
+        int count = 0;
+        while (storage.put(count, new byte[100]) != null) {
+            count++;
+        }
+        assertEquals(7, count);
+        assertNull(storage.put(1, new byte[1]));
+        storage.remove(ref);
+        assertNotNull(storage.put(1, new byte[300]));
+        assertEquals(1000, storage.getUsedSize());
+    }
+
+    @Test
+    public void testDestroy() {
+        OffHeapStorage storage = new OffHeapStorage(1000, 100);
+        DataRef ref = storage.put(1, new byte[10]);
+        storage.destroy();
+        assertNull(storage.get(ref));
+        assertNull(storage.put(1, new byte[10]));
+        assertEquals(0, storage.getUsedSize());
+    }
+}
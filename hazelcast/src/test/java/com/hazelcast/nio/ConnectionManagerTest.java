@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2008-2012, Hazel Bilisim Ltd. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.nio;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.impl.FactoryImpl;
+import com.hazelcast.impl.GroupProperties;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(com.hazelcast.util.RandomBlockJUnit4ClassRunner.class)
+public class ConnectionManagerTest {
+
+    @BeforeClass
+    public static void init() throws Exception {
+        System.setProperty(GroupProperties.PROP_WAIT_SECONDS_BEFORE_JOIN, "1");
+        System.setProperty(GroupProperties.PROP_VERSION_CHECK_ENABLED, "false");
+        Hazelcast.shutdownAll();
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        Hazelcast.shutdownAll();
+    }
+
+    @Test(timeout = 120000)
+    public void testConnectionsMovedBetweenSelectors() throws Exception {
+        Config config = new Config();
+        config.setProperty(GroupProperties.PROP_IO_THREAD_COUNT, "2");
+        config.setProperty(GroupProperties.PROP_IO_BALANCER_INTERVAL_SECONDS, "1");
+        config.setProperty(GroupProperties.PROP_IO_BALANCER_THRESHOLD, "0");
+        final HazelcastInstance[] instances = new HazelcastInstance[4];
+        final ConnectionManager[] connectionManagers = new ConnectionManager[instances.length];
+        for (int i = 0; i < instances.length; i++) {
+            instances[i] = Hazelcast.newHazelcastInstance(config);
+            connectionManagers[i] = getConnectionManager(instances[i]);
+        }
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicInteger failures = new AtomicInteger();
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            final int threadId = i;
+            final IMap<String, Integer> map = instances[i % instances.length].getMap("default");
+            threads[i] = new Thread() {
+                public void run() {
+                    int count = 0;
+                    while (running.get()) {
+                        String key = threadId + "-" + (count % 100);
+                        map.put(key, count);
+                        if (map.get(key) != count) {
+                            failures.incrementAndGet();
+                        }
+                        count++;
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        long moves = 0;
+        for (int i = 0; i < 60 && moves == 0; i++) {
+            Thread.sleep(500);
+            for (ConnectionManager connectionManager : connectionManagers) {
+                moves += connectionManager.getConnectionMoveCount();
+            }
+        }
+        // keep the load for a while after the moves
+        Thread.sleep(2000);
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(moves > 0);
+        assertEquals(0, failures.get());
+        assertEquals(threads.length * 100, instances[0].getMap("default").size());
+        for (ConnectionManager connectionManager : connectionManagers) {
+            int connections = 0;
+            for (int count : connectionManager.getSelectorConnectionCounts()) {
+                connections += count;
+            }
+            assertEquals(connectionManager.getActiveConnectionCount(), connections);
+        }
+    }
+
+    private static ConnectionManager getConnectionManager(final HazelcastInstance hazelcastInstance) {
+        final FactoryImpl.HazelcastInstanceProxy proxy = (FactoryImpl.HazelcastInstanceProxy) hazelcastInstance;
+        return proxy.getFactory().node.connectionManager;
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2008-2012, Hazel Bilisim Ltd. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.nio;
+
+import com.hazelcast.impl.ClusterOperation;
+import com.hazelcast.impl.Constants;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.nio.ByteBuffer;
+
+import static com.hazelcast.nio.IOUtil.toData;
+import static com.hazelcast.nio.IOUtil.toObject;
+import static org.junit.Assert.*;
+
+@RunWith(com.hazelcast.util.RandomBlockJUnit4ClassRunner.class)
+public class PacketTest {
+
+    @Test
+    public void testVarLong() {
+        ByteBuffer bb = ByteBuffer.allocate(100);
+        long[] values = {0, 1, -1, 63, -64, 64, 300, Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE};
+        for (long value : values) {
+            IOUtil.putVarLong(bb, value);
+        }
+        bb.flip();
+        for (long value : values) {
+            assertEquals(value, IOUtil.getVarLong(bb));
+        }
+        assertFalse(bb.hasRemaining());
+        bb.clear();
+        IOUtil.putVarLong(bb, -1);
+        assertEquals(1, bb.position());
+    }
+
+    @Test
+    public void testPlainHeader() throws Exception {
+        Packet packet = newPacket();
+        Packet read = writeAndRead(packet, false);
+        assertPacketEquals(packet, read);
+        assertFalse(read.compactHeader);
+    }
+
+    @Test
+    public void testCompactHeader() throws Exception {
+        Packet packet = newPacket();
+        Packet read = writeAndRead(packet, true);
+        assertPacketEquals(packet, read);
+        assertTrue(read.compactHeader);
+    }
+
+    @Test
+    public void testCompactHeaderDefaults() throws Exception {
+        Packet packet = new Packet();
+        packet.operation = ClusterOperation.CONCURRENT_MAP_GET;
+        Packet read = writeAndRead(packet, true);
+        assertEquals(ClusterOperation.CONCURRENT_MAP_GET, read.operation);
+        assertEquals(-1, read.blockId);
+        assertEquals(-1, read.threadId);
+        assertEquals(-1, read.callId);
+        assertEquals(-1, read.timeout);
+        assertEquals(Long.MIN_VALUE, read.longValue);
+        assertEquals(Constants.ResponseTypes.RESPONSE_NONE, read.responseType);
+        assertNull(read.name);
+        assertNull(read.lockAddress);
+        assertNull(read.getKey());
+        assertNull(read.indexes);
+    }
+
+    @Test
+    public void testCompactHeaderIsSmaller() throws Exception {
+        Packet packet = newPacket();
+        packet.compactHeader = false;
+        packet.onEnqueue();
+        int plainSize = packet.totalSize;
+        packet.compactHeader = true;
+        packet.onEnqueue();
+        assertTrue(packet.totalSize + " < " + plainSize, packet.totalSize < plainSize);
+    }
+
+    private static Packet newPacket() throws Exception {
+        Packet packet = new Packet();
+        packet.operation = ClusterOperation.CONCURRENT_MAP_PUT;
+        packet.name = "c:default";
+        packet.setKey(toData("key"));
+        packet.setValue(toData("value"));
+        packet.blockId = 42;
+        packet.threadId = 7;
+        packet.callId = 123456;
+        packet.timeout = 5000;
+        packet.ttl = 1000;
+        packet.txnId = 99;
+        packet.version = 3;
+        packet.longValue = -5;
+        packet.lockCount = 2;
+        packet.lockAddress = new Address("127.0.0.1", 5701);
+        packet.responseType = Constants.ResponseTypes.RESPONSE_SUCCESS;
+        packet.indexes = new Long[]{11L, -12L};
+        packet.indexTypes = new byte[]{1, 2};
+        return packet;
+    }
+
+    private static Packet writeAndRead(Packet packet, boolean compactHeader) {
+        packet.compactHeader = compactHeader;
+        packet.onEnqueue();
+        ByteBuffer bb = ByteBuffer.allocate(packet.totalSize);
+        assertTrue(packet.writeToSocketBuffer(bb));
+        assertFalse(bb.hasRemaining());
+        bb.flip();
+        Packet read = new Packet();
+        assertTrue(read.read(bb));
+        read.flipBuffers();
+        read.read();
+        return read;
+    }
+
+    private static void assertPacketEquals(Packet expected, Packet actual) {
+        assertEquals(expected.operation, actual.operation);
+        assertEquals(expected.name, actual.name);
+        assertEquals(toObject(expected.getKeyData()), toObject(actual.getKeyData()));
+        assertEquals(toObject(expected.getValueData()), toObject(actual.getValueData()));
+        assertEquals(expected.getKeyData().getPartitionHash(), actual.getKeyData().getPartitionHash());
+        assertEquals(expected.blockId, actual.blockId);
+        assertEquals(expected.threadId, actual.threadId);
+        assertEquals(expected.callId, actual.callId);
+        assertEquals(expected.timeout, actual.timeout);
+        assertEquals(expected.ttl, actual.ttl);
+        assertEquals(expected.txnId, actual.txnId);
+        assertEquals(expected.version, actual.version);
+        assertEquals(expected.longValue, actual.longValue);
+        assertEquals(expected.lockCount, actual.lockCount);
+        assertEquals(expected.lockAddress, actual.lockAddress);
+        assertEquals(expected.responseType, actual.responseType);
+        assertArrayEquals(expected.indexes, actual.indexes);
+        assertArrayEquals(expected.indexTypes, actual.indexTypes);
+    }
+}
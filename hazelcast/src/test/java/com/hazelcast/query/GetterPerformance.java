@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2008-2012, Hazel Bilisim Ltd. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.query;
+
+import com.hazelcast.core.PerformanceTimer;
+import com.hazelcast.impl.TestUtil.Employee;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.lang.reflect.Method;
+
+/**
+ * Compares reading an attribute with a reflective lookup per record, with the cached
+ * getter of ReflectionHelper and with a direct call.
+ */
+@RunWith(com.hazelcast.util.RandomBlockJUnit4ClassRunner.class)
+public class GetterPerformance {
+
+    private static final int RECORD_COUNT = 10000;
+    private static final int ROUNDS = 200;
+
+    @Test
+    public void testGetters() throws Exception {
+        Employee[] records = new Employee[RECORD_COUNT];
+        for (int i = 0; i < RECORD_COUNT; i++) {
+            records[i] = new Employee(i, "name" + i, i % 100, i % 2 == 0, i);
+        }
+        // warm up
+        for (int i = 0; i < 5; i++) {
+            runReflective(records);
+            runCachedGetter(records);
+            runDirect(records);
+        }
+        PerformanceTimer t = new PerformanceTimer("reflectiveLookup", (long) ROUNDS * RECORD_COUNT);
+        for (int i = 0; i < ROUNDS; i++) {
+            runReflective(records);
+        }
+        t.stop();
+        t.printResult();
+        t = new PerformanceTimer("cachedGetter", (long) ROUNDS * RECORD_COUNT);
+        for (int i = 0; i < ROUNDS; i++) {
+            runCachedGetter(records);
+        }
+        t.stop();
+        t.printResult();
+        t = new PerformanceTimer("direct", (long) ROUNDS * RECORD_COUNT);
+        for (int i = 0; i < ROUNDS; i++) {
+            runDirect(records);
+        }
+        t.stop();
+        t.printResult();
+    }
+
+    private long runReflective(Employee[] records) throws Exception {
+        long sum = 0;
+        for (Employee record : records) {
+            Method method = record.getClass().getMethod("getAge");
+            sum += (Integer) method.invoke(record);
+        }
+        return sum;
+    }
+
+    private long runCachedGetter(Employee[] records) throws Exception {
+        long sum = 0;
+        ReflectionHelper.Getter getter = ReflectionHelper.getGetter(Employee.class, "age");
+        for (Employee record : records) {
+            sum += (Integer) getter.getValue(record);
+        }
+        return sum;
+    }
+
+    private long runDirect(Employee[] records) {
+        long sum = 0;
+        for (Employee record : records) {
+            sum += record.getAge();
+        }
+        return sum;
+    }
+}
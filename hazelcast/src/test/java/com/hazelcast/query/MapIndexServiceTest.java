@@ -27,6 +27,8 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.io.Serializable;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -128,4 +130,229 @@ public class MapIndexServiceTest extends TestUtil {
         }
         cmap.getNode().connectionManager.shutdown();
     }
+
+    @Test
+    public void testRangeOnStringAndDoubleIndexes() throws Exception {
+        CMap cmap = mockCMap("default");
+        MapIndexService mapIndexService = new MapIndexService(false);
+        mapIndexService.addIndex(Predicates.get("name"), true, 0);
+        mapIndexService.addIndex(Predicates.get("salary"), true, 1);
+        Set<Employee> employees = new HashSet<Employee>();
+        for (int i = 0; i < 2000; i++) {
+            String name = (char) ('a' + (i % 26)) + "Name" + i;
+            Employee employee = new Employee(name, i % 80, (i % 2 == 0), (i % 1000) - 500.5);
+            employees.add(employee);
+            Record record = newRecord(cmap, i, "key" + i, employee);
+            record.setIndexes(mapIndexService.getIndexValues(employee), mapIndexService.getIndexTypes());
+            mapIndexService.index(record);
+        }
+        assertQuery(mapIndexService, employees, Predicates.between(Predicates.get("salary"), -10.5, 10.5));
+        assertQuery(mapIndexService, employees, Predicates.lessThan(Predicates.get("salary"), -400.0));
+        assertQuery(mapIndexService, employees, new SqlPredicate("salary > 0"));
+        assertQuery(mapIndexService, employees, Predicates.greaterThan(Predicates.get("name"), "xName1000"));
+        assertQuery(mapIndexService, employees, Predicates.lessEqual(Predicates.get("name"), "bName1"));
+        assertQuery(mapIndexService, employees, new SqlPredicate("name between cName and dName5"));
+        assertQuery(mapIndexService, employees, new SqlPredicate("name = aName0"));
+        // ranges of names go through the sorted names, not through all the records
+        Index nameIndex = mapIndexService.getIndexes().get(Predicates.get("name"));
+        assertEquals(countNames(employees, "cName", "dName5"), nameIndex.findSubRecordsBetween("cName", "dName5").size());
+        assertEquals(countNames(employees, null, "bName1"), nameIndex.findSubRecords(true, true, "bName1").size());
+        assertEquals(countNames(employees, "xName23", null) - 1, nameIndex.findSubRecords(false, false, "xName23").size());
+        assertEquals(0, nameIndex.findSubRecordsBetween("dName5", "cName").size());
+        cmap.getNode().connectionManager.shutdown();
+    }
+
+    /**
+     * @return the number of names from and to the given ones inclusive, null for no bound
+     */
+    private int countNames(Set<Employee> employees, String from, String to) {
+        int count = 0;
+        for (Employee employee : employees) {
+            final String name = employee.getName();
+            if ((from == null || name.compareTo(from) >= 0) && (to == null || name.compareTo(to) <= 0)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void testRangeOnEnumIndex() throws Exception {
+        CMap cmap = mockCMap("default");
+        MapIndexService mapIndexService = new MapIndexService(false);
+        Index index = mapIndexService.addIndex(Predicates.get("state"), true, 0);
+        for (int i = 0; i < 300; i++) {
+            Task task = new Task(State.values()[i % 3]);
+            Record record = newRecord(cmap, i, "key" + i, task);
+            record.setIndexes(mapIndexService.getIndexValues(task), mapIndexService.getIndexTypes());
+            mapIndexService.index(record);
+        }
+        assertEquals(200, index.findSubRecords(true, false, "RUNNING").size());
+        assertEquals(100, index.findSubRecords(false, false, State.RUNNING).size());
+        assertEquals(100, index.findSubRecords(false, true, "State.RUNNING").size());
+        assertEquals(200, index.findSubRecordsBetween("NEW", "RUNNING").size());
+        assertEquals(100, index.findRecords("DONE").size());
+        cmap.getNode().connectionManager.shutdown();
+    }
+
+    public enum State {
+        NEW, RUNNING, DONE
+    }
+
+    public static class Task implements Serializable {
+        private State state;
+
+        public Task(State state) {
+            this.state = state;
+        }
+
+        public State getState() {
+            return state;
+        }
+    }
+
+    @Test
+    public void testCompositeIndex() throws Exception {
+        CMap cmap = mockCMap("default");
+        MapIndexService mapIndexService = new MapIndexService(false);
+        Expression compositeExpression = Predicates.getIndexExpression("active, age");
+        assertTrue(compositeExpression instanceof CompositeExpression);
+        Index index = mapIndexService.addIndex(compositeExpression, false, 0);
+        assertTrue(index instanceof CompositeIndex);
+        assertFalse(index.isStrong());
+        Set<Employee> employees = new HashSet<Employee>();
+        for (int i = 0; i < 2000; i++) {
+            Employee employee = new Employee("Name" + i, i % 80, (i % 2 == 0), (i % 1000) - 500.5);
+            employees.add(employee);
+            Record record = newRecord(cmap, i, "key" + i, employee);
+            record.setIndexes(mapIndexService.getIndexValues(employee), mapIndexService.getIndexTypes());
+            mapIndexService.index(record);
+        }
+        assertEquals(25, ((CompositeIndex) index).findCompositeRecords(new Object[]{true, 20}).size());
+        assertEquals(25, ((CompositeIndex) index).findCompositeRecords(new Object[]{"true", "20"}).size());
+        assertEquals(0, ((CompositeIndex) index).findCompositeRecords(new Object[]{false, 20}).size());
+        assertQuery(mapIndexService, employees, new SqlPredicate("active = true and age = 20"));
+        assertQuery(mapIndexService, employees, new SqlPredicate("age = 21 and salary > 0 and active = false"));
+        assertQuery(mapIndexService, employees, Predicates.and(Predicates.equal(Predicates.get("age"), 20),
+                Predicates.equal(Predicates.get("active"), true)));
+        assertQuery(mapIndexService, employees, new SqlPredicate("active = true and age > 70"));
+        // only ordered composite indexes answer a part of their attributes
+        assertNull(((CompositeIndex) index).findCompositeRecords(new Object[]{true}, null, null));
+        cmap.getNode().connectionManager.shutdown();
+    }
+
+    @Test
+    public void testOrderedCompositeIndexWithRange() throws Exception {
+        CMap cmap = mockCMap("default");
+        MapIndexService mapIndexService = new MapIndexService(false);
+        CompositeIndex index = (CompositeIndex) mapIndexService.addIndex(
+                Predicates.getIndexExpression("active, age, salary"), true, 0);
+        assertTrue(index.isOrdered());
+        Set<Employee> employees = new HashSet<Employee>();
+        for (int i = 0; i < 2000; i++) {
+            Employee employee = new Employee("Name" + i, i % 80, (i % 2 == 0), (i % 1000) - 500.5);
+            employees.add(employee);
+            Record record = newRecord(cmap, i, "key" + i, employee);
+            record.setIndexes(mapIndexService.getIndexValues(employee), mapIndexService.getIndexTypes());
+            mapIndexService.index(record);
+        }
+        assertEquals(1000, index.findCompositeRecords(new Object[]{true}, null, null).size());
+        assertEquals(100, index.findCompositeRecords(new Object[]{"true"}, "71", null).size());
+        assertEquals(125, index.findCompositeRecords(new Object[]{true}, 70, 78).size());
+        assertEquals(0, index.findCompositeRecords(new Object[]{true}, 78, 70).size());
+        assertEquals(25, index.findCompositeRecords(new Object[]{true, 20}, null, null).size());
+        assertEquals(5, index.findCompositeRecords(new Object[]{true, 20}, -100, 100).size());
+        assertNull(index.findCompositeRecords(new Object[]{true}, "20.5", null));
+        SqlPredicate predicate = new SqlPredicate("active = true and age > 70");
+        QueryContext queryContext = new QueryContext("default", predicate, mapIndexService);
+        assertEquals(100, mapIndexService.doQuery(queryContext).size());
+        assertTrue(queryContext.isStrong());
+        assertQuery(mapIndexService, employees, predicate);
+        assertQuery(mapIndexService, employees, new SqlPredicate("active = false and age between 10 and 20 and salary < 0"));
+        assertQuery(mapIndexService, employees, new SqlPredicate("active = true and age = 20 and salary >= 0"));
+        assertQuery(mapIndexService, employees, new SqlPredicate("active = true and age <= 20 and age > 10"));
+        assertQuery(mapIndexService, employees, new SqlPredicate("active = true and name = Name100"));
+        cmap.getNode().connectionManager.shutdown();
+    }
+
+    @Test
+    public void testCompositeIndexWithMoreSelectiveIndex() throws Exception {
+        CMap cmap = mockCMap("default");
+        MapIndexService mapIndexService = new MapIndexService(false);
+        mapIndexService.addIndex(Predicates.getIndexExpression("active, age"), false, 0);
+        mapIndexService.addIndex(Predicates.get("name"), false, 1);
+        Set<Employee> employees = new HashSet<Employee>();
+        for (int i = 0; i < 2000; i++) {
+            Employee employee = new Employee("Name" + i, i % 80, (i % 2 == 0), i);
+            employees.add(employee);
+            Record record = newRecord(cmap, i, "key" + i, employee);
+            record.setIndexes(mapIndexService.getIndexValues(employee), mapIndexService.getIndexTypes());
+            mapIndexService.index(record);
+        }
+        SqlPredicate predicate = new SqlPredicate("active = true and age = 20 and name = Name100");
+        assertQuery(mapIndexService, employees, predicate);
+        QueryContext queryContext = new QueryContext("default", predicate, mapIndexService);
+        assertEquals(1, mapIndexService.doQuery(queryContext).size());
+        assertNotNull(mapIndexService.doQuery(new QueryContext("default", new PredicateBuilder(), mapIndexService)));
+        cmap.getNode().connectionManager.shutdown();
+    }
+
+    @Test
+    public void testFractionOnIntegralIndex() throws Exception {
+        CMap cmap = mockCMap("default");
+        MapIndexService mapIndexService = new MapIndexService(false);
+        Index index = mapIndexService.addIndex(Predicates.get("age"), true, 0);
+        for (int i = 0; i < 100; i++) {
+            Employee employee = new Employee("name" + i, i % 50, true, i);
+            Record record = newRecord(cmap, i, "key" + i, employee);
+            record.setIndexes(mapIndexService.getIndexValues(employee), mapIndexService.getIndexTypes());
+            mapIndexService.index(record);
+        }
+        assertAges(index.findSubRecords(false, true, 30.5), 0, 30);
+        assertAges(index.findSubRecords(true, true, "30.5"), 0, 30);
+        assertAges(index.findSubRecords(false, false, 30.5), 31, 49);
+        assertAges(index.findSubRecords(true, false, 30.5f), 31, 49);
+        assertAges(index.findSubRecords(false, true, 30), 0, 29);
+        assertAges(index.findSubRecordsBetween(10.5, 20.5), 11, 20);
+        assertAges(index.findSubRecordsBetween("10", "20.5"), 10, 20);
+        assertEquals(0, index.findRecords(30.5).size());
+        assertEquals(0, index.findRecords("30.5").size());
+        assertAges(index.findRecords(30.0), 30, 30);
+        assertAges(index.findRecords(Arrays.asList(30.5, 31)), 31, 31);
+        cmap.getNode().connectionManager.shutdown();
+    }
+
+    private void assertAges(Set<MapEntry> results, int from, int to) {
+        Set<Integer> ages = new HashSet<Integer>();
+        for (MapEntry entry : results) {
+            ages.add(((Employee) entry.getValue()).getAge());
+        }
+        Set<Integer> expected = new HashSet<Integer>();
+        for (int age = from; age <= to; age++) {
+            expected.add(age);
+        }
+        assertEquals(expected, ages);
+        assertEquals(expected.size() * 2, results.size());
+    }
+
+    private void assertQuery(MapIndexService mapIndexService, Set<Employee> employees, Predicate predicate) {
+        Set<Employee> expected = new HashSet<Employee>();
+        for (Employee employee : employees) {
+            if (predicate.apply(PredicatesTest.createEntry("1", employee))) {
+                expected.add(employee);
+            }
+        }
+        assertTrue(expected.size() > 0);
+        QueryContext queryContext = new QueryContext("default", predicate, mapIndexService);
+        Set<MapEntry> results = mapIndexService.doQuery(queryContext);
+        Set<Employee> actual = new HashSet<Employee>();
+        if (results != null) {
+            for (MapEntry entry : results) {
+                if (queryContext.isStrong() || predicate.apply(entry)) {
+                    actual.add((Employee) entry.getValue());
+                }
+            }
+        }
+        assertEquals(predicate.toString(), expected, actual);
+    }
 }
@@ -18,9 +18,15 @@ package com.hazelcast.query;
 
 import com.hazelcast.core.MapEntry;
 import com.hazelcast.impl.TestUtil;
+import com.hazelcast.nio.IOUtil;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.Serializable;
 import java.sql.Timestamp;
 import java.util.Date;
 
@@ -122,6 +128,57 @@ public class PredicatesTest {
         assertTrue(e.get("id").equal(12).apply(createEntry("1", value)));
     }
 
+    @Test
+    public void testGettersOfDifferentClasses() {
+        Predicate predicate = new SqlPredicate("name = 'abc' AND address.city = 'Istanbul'");
+        assertTrue(predicate.apply(createEntry("1", new Person("abc", new Address("Istanbul")))));
+        assertTrue(predicate.apply(createEntry("2", new Company("abc", new Address("Istanbul")))));
+        assertFalse(predicate.apply(createEntry("3", new Company("abc", new Address("London")))));
+        assertSame(ReflectionHelper.getGetter(Person.class, "address.city"),
+                ReflectionHelper.getGetter(Person.class, "address.city"));
+        assertEquals(String.class, ReflectionHelper.getGetter(Company.class, "address.city").getReturnType());
+    }
+
+    public static class Address implements Serializable {
+        private final String city;
+
+        Address(String city) {
+            this.city = city;
+        }
+
+        public String getCity() {
+            return city;
+        }
+    }
+
+    public static class Person implements Serializable {
+        private final String name;
+        private final Address address;
+
+        Person(String name, Address address) {
+            this.name = name;
+            this.address = address;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Address getAddress() {
+            return address;
+        }
+    }
+
+    public static class Company implements Serializable {
+        public final String name;
+        private final Address address;
+
+        Company(String name, Address address) {
+            this.name = name;
+            this.address = address;
+        }
+    }
+
     @Test
     public void testSqlPredicate() {
         assertEquals("name IN (name0,name2)", sql("name in ('name0', 'name2')"));
@@ -158,6 +215,62 @@ public class PredicatesTest {
         assertEquals("(age<=10 AND (active=true OR NOT(age BETWEEN 10 AND 15)))", sql("age<=10 AND (active or (age not between 10 and 15))"));
     }
 
+    @Test
+    public void testSqlPredicateParameters() {
+        TestUtil.Employee value = new QueryTest.Employee("abc-123-xvz", 34, true, 10D);
+        assertTrue(new SqlPredicate("age = ?", 34).apply(createEntry("1", value)));
+        assertFalse(new SqlPredicate("age = ?", 35).apply(createEntry("1", value)));
+        assertTrue(new SqlPredicate("name = ? AND age > ?", "abc-123-xvz", 30).apply(createEntry("1", value)));
+        assertTrue(new SqlPredicate("name LIKE ? AND age BETWEEN ? AND ?", "abc-%", 30, 40).apply(createEntry("1", value)));
+        assertFalse(new SqlPredicate("age BETWEEN ? AND ?", 35, 40).apply(createEntry("1", value)));
+        assertTrue(new SqlPredicate("age IN (?, ?)", 10, 34).apply(createEntry("1", value)));
+        assertTrue(new SqlPredicate("name = 'a?b' OR age = ?", 34).apply(createEntry("1", value)));
+        assertEquals("(name=a?b OR age=34)", new SqlPredicate("name = 'a?b' OR age = ?", 34).toString());
+        SqlPredicate predicate = (SqlPredicate) IOUtil.toObject(IOUtil.toData(new SqlPredicate("age < ? AND active", 40)));
+        assertTrue(predicate.apply(createEntry("1", value)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSqlPredicateMissingParameter() {
+        new SqlPredicate("name = ? AND age = ?", "abc");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSqlPredicateNullParameter() {
+        new SqlPredicate("name = ? AND age = ?", "abc", null);
+    }
+
+    @Test
+    public void testSqlPredicateWithoutParametersKeepsSerializedForm() throws Exception {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        new DataOutputStream(expected).writeUTF("age < 40 AND active");
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        new SqlPredicate("age < 40 AND active").writeData(new DataOutputStream(actual));
+        assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+        SqlPredicate predicate = new SqlPredicate();
+        predicate.readData(new DataInputStream(new ByteArrayInputStream(actual.toByteArray())));
+        assertEquals("(age<40 AND active=true)", predicate.toString());
+    }
+
+    @Test
+    public void testSqlPredicatePlanCache() {
+        SqlPredicate predicate1 = new SqlPredicate("age > ? AND active", 10);
+        SqlPredicate predicate2 = new SqlPredicate("age > ? AND active", 20);
+        assertSame(SqlPredicate.getPlan("age > ? AND active"), SqlPredicate.getPlan("age > ? AND active"));
+        assertNotSame(predicate1.getPredicate(), predicate2.getPredicate());
+        assertEquals("(age>10 AND active=true)", predicate1.toString());
+        assertEquals("(age>20 AND active=true)", predicate2.toString());
+    }
+
+    @Test
+    public void testSqlPredicateFlattensAndOr() {
+        assertEquals("(a=1 AND b=2 AND c=3 AND d=4)", sql("a = 1 AND b = 2 AND c = 3 AND d = 4"));
+        assertEquals("(a=1 OR b=2 OR c=3)", sql("(a = 1 OR b = 2) OR c = 3"));
+        assertEquals("(a=1 AND (b=2 OR c=3) AND d=4)", sql("a = 1 AND (b = 2 OR c = 3) AND d = 4"));
+        Predicate predicate = new SqlPredicate("a = 1 AND b = 2 AND c = 3").getPredicate();
+        assertEquals(3, ((Predicates.AndOrPredicate) predicate).predicates.length);
+    }
+
     @Test(expected = RuntimeException.class)
     public void testInvalidSqlPredicate1() {
         new SqlPredicate("invalid sql");
@@ -23,13 +23,22 @@ import com.hazelcast.core.Hazelcast;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.core.IMap;
 import com.hazelcast.impl.CMap;
+import com.hazelcast.impl.ClusterOperation;
+import com.hazelcast.impl.ConcurrentMapManager;
 import com.hazelcast.impl.GroupProperties;
 import com.hazelcast.impl.TestUtil;
+import com.hazelcast.impl.concurrentmap.MapQueryCallable;
+import com.hazelcast.impl.concurrentmap.QueryException;
+import com.hazelcast.nio.Data;
+import com.hazelcast.nio.FastByteArrayInputStream;
+import com.hazelcast.nio.FastByteArrayOutputStream;
+import com.hazelcast.nio.IOUtil;
 import org.junit.After;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.io.Serializable;
 import java.util.*;
 import java.util.Map.Entry;
 
@@ -256,6 +265,72 @@ public class QueryTest extends TestUtil {
         assertEquals(0, values.size());
     }
 
+    @Test
+    public void testParallelFullScan() throws Exception {
+        Config cfg = new Config();
+        cfg.setProperty(GroupProperties.PROP_EXECUTOR_QUERY_PARTITION_THREAD_COUNT, "4");
+        HazelcastInstance h1 = Hazelcast.newHazelcastInstance(cfg);
+        IMap imap = h1.getMap("employees");
+        Map<String, Employee> entries = new HashMap<String, Employee>();
+        for (int i = 0; i < 10000; i++) {
+            entries.put(String.valueOf(i), new Employee(i, "name" + i, i % 100, i % 2 == 0, i));
+        }
+        imap.putAll(entries);
+        assertEquals(1000, imap.values(new SqlPredicate("age between 10 and 19")).size());
+        assertEquals(300, imap.keySet(new SqlPredicate("age in (1, 2, 3)")).size());
+        Set<Entry> results = imap.entrySet(new SqlPredicate("active and age < 50"));
+        assertEquals(2500, results.size());
+        for (Entry entry : results) {
+            Employee employee = (Employee) entry.getValue();
+            assertTrue(employee.isActive());
+            assertTrue(employee.getAge() < 50);
+            assertEquals("name" + entry.getKey(), employee.getName());
+        }
+    }
+
+    @Test
+    public void testPagingPredicate() throws Exception {
+        HazelcastInstance h1 = Hazelcast.newHazelcastInstance(new Config());
+        HazelcastInstance h2 = Hazelcast.newHazelcastInstance(new Config());
+        IMap<Integer, Employee> imap = h1.getMap("employees");
+        imap.addIndex("age", true);
+        for (int i = 0; i < 100; i++) {
+            imap.put(i, new Employee(i, "name" + i, i, i % 2 == 0, i));
+        }
+        // by descending salary
+        Comparator<Entry> comparator = new SalaryComparator();
+        PagingPredicate pagingPredicate = new PagingPredicate(new SqlPredicate("age >= 20 AND active"), comparator, 15);
+        List<Integer> ages = new ArrayList<Integer>();
+        for (Employee employee : h2.<Integer, Employee>getMap("employees").values(pagingPredicate)) {
+            ages.add(employee.getAge());
+        }
+        assertEquals(15, ages.size());
+        assertEquals(98, ages.get(0).intValue());
+        assertEquals(70, ages.get(14).intValue());
+        pagingPredicate.nextPage();
+        assertEquals(68, imap.values(pagingPredicate).iterator().next().getAge());
+        pagingPredicate.nextPage();
+        Collection<Employee> lastPage = imap.values(pagingPredicate);
+        assertEquals(10, lastPage.size());
+        assertTrue(pagingPredicate.isLastPage());
+        PagingPredicate resumed = new PagingPredicate(new SqlPredicate("age >= 20 AND active"), comparator, 15);
+        pagingPredicate.previousPage();
+        resumed.setAnchor(pagingPredicate.getPage(), pagingPredicate.getAnchor());
+        assertEquals(68, imap.values(resumed).iterator().next().getAge());
+        int count = 0;
+        PagingIterator<Integer, Employee> it = new PagingIterator<Integer, Employee>(imap, new PagingPredicate(7));
+        while (it.hasNext()) {
+            assertEquals(count++, it.next().getKey().intValue());
+        }
+        assertEquals(100, count);
+    }
+
+    public static class SalaryComparator implements Comparator<Entry>, Serializable {
+        public int compare(Entry entry1, Entry entry2) {
+            return Double.compare(((Employee) entry2.getValue()).getSalary(), ((Employee) entry1.getValue()).getSalary());
+        }
+    }
+
     @Test
     public void testOneIndexedFieldsWithTwoCriteriaField() throws Exception {
         HazelcastInstance h1 = Hazelcast.newHazelcastInstance(new Config());
@@ -313,6 +388,76 @@ public class QueryTest extends TestUtil {
         }
     }
 
+    @Test
+    public void testQueryRetriesOnlyMigratedPartitions() throws Exception {
+        HazelcastInstance h1 = Hazelcast.newHazelcastInstance(null);
+        int count = 20000;
+        IMap imap = h1.getMap("values");
+        for (int i = 0; i < count; i++) {
+            imap.put(i, new Employee(i, "name" + i, i % 100, true, i));
+        }
+        HazelcastInstance h2 = Hazelcast.newHazelcastInstance(null);
+        HazelcastInstance h3 = Hazelcast.newHazelcastInstance(null);
+        long startNow = System.currentTimeMillis();
+        while ((System.currentTimeMillis() - startNow) < 20000) {
+            assertEquals(count / 2, imap.values(new SqlPredicate("age < 50")).size());
+            assertEquals(count / 2, h2.getMap("values").keySet(new SqlPredicate("age >= 50")).size());
+        }
+        ConcurrentMapManager cmm1 = getNode(h1).concurrentMapManager;
+        ConcurrentMapManager cmm2 = getNode(h2).concurrentMapManager;
+        long retryCount = cmm1.getQueryRetryCount() + cmm2.getQueryRetryCount();
+        long retryPartitionCount = cmm1.getQueryRetryPartitionCount() + cmm2.getQueryRetryPartitionCount();
+        int partitionCount = h1.getPartitionService().getPartitions().size();
+        // queries are retried while the partitions migrate, but not for all partitions
+        assertTrue(retryCount > 0);
+        assertTrue(retryPartitionCount < retryCount * partitionCount);
+    }
+
+    @Test
+    public void testQueryGivesUpAfterMaxRetries() throws Exception {
+        Config config = new Config();
+        config.setProperty(GroupProperties.PROP_QUERY_MAX_RETRY_COUNT, "0");
+        HazelcastInstance h1 = Hazelcast.newHazelcastInstance(config);
+        int count = 20000;
+        IMap imap = h1.getMap("values");
+        for (int i = 0; i < count; i++) {
+            imap.put(i, new Employee(i, "name" + i, i % 100, true, i));
+        }
+        Hazelcast.newHazelcastInstance(config);
+        Hazelcast.newHazelcastInstance(config);
+        long startNow = System.currentTimeMillis();
+        while ((System.currentTimeMillis() - startNow) < 20000) {
+            try {
+                imap.values(new SqlPredicate("age < 50"));
+            } catch (QueryException expected) {
+                return;
+            }
+        }
+        fail("Query should give up on the partitions migrating during the query");
+    }
+
+    @Test
+    public void testQueryCallableKeepsPreviousForm() throws Exception {
+        Data predicateData = IOUtil.toData(new SqlPredicate("age < 50"));
+        FastByteArrayOutputStream bos = new FastByteArrayOutputStream();
+        new MapQueryCallable("c:values", ClusterOperation.CONCURRENT_MAP_ITERATE_VALUES, predicateData, 7,
+                new HashSet<Integer>(Arrays.asList(3, 5))).writeData(bos);
+        // the form of the previous versions, followed by the partition ids
+        FastByteArrayInputStream in = new FastByteArrayInputStream(bos.toByteArray());
+        assertEquals("c:values", in.readUTF());
+        assertEquals(ClusterOperation.CONCURRENT_MAP_ITERATE_VALUES.getValue(), in.readShort());
+        assertEquals(7, in.readInt());
+        assertTrue(in.readBoolean());
+        Data data = new Data();
+        data.readData(in);
+        assertEquals(predicateData, data);
+        assertEquals(2, in.readInt());
+        // the form of the previous versions is read without the partition ids
+        byte[] previous = new byte[bos.size() - 12];
+        System.arraycopy(bos.toByteArray(), 0, previous, 0, previous.length);
+        new MapQueryCallable().readData(new FastByteArrayInputStream(previous));
+    }
+
     @Test
     public void testTwoNodesWithPartialIndexes() throws Exception {
         HazelcastInstance h1 = newInstance();